@@ -486,7 +486,7 @@ public class NCLBody<T extends NCLElement,
         
         for(NCLImport imp : (ElementList<NCLImport>) ib.getImportNCLs()){
             NCLDoc d = (NCLDoc) imp.getImportedDoc();
-            result = (En) findNodeReference(d, id);
+            result = (En) searchNodeReference(d, id);
             if(result != null)
                 return result;
         }
@@ -495,6 +495,39 @@ public class NCLBody<T extends NCLElement,
     }
     
     
+    /**
+     * Searches for a node inside the body of a document.
+     * 
+     * @param doc
+     *          document where the node is in.
+     * @param id
+     *          id of the node to be found.
+     * @return 
+     *          node or null if the document does not have a body or no node
+     *          was found.
+     */
+    public NCLNode searchNodeReference(NCLDoc doc, String id) throws XMLException {
+        NCLBody body = doc.getBody();
+        
+        if(body == null)
+            return null;
+        
+        return body.findNode(id);
+    }
+    
+    
+    /**
+     * Searches for a node inside the body of a document.
+     * 
+     * @param doc
+     *          document where the node is in.
+     * @param id
+     *          id of the node to be found.
+     * @return 
+     *          node.
+     * @throws NCLParsingException 
+     *          if the document does not have a body or no node was found.
+     */
     public NCLNode findNodeReference(NCLDoc doc, String id) throws XMLException {
         NCLBody body = (NCLBody) doc.getBody();
         
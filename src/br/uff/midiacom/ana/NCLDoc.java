@@ -44,15 +44,22 @@ import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.loader.NCLImportCache;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifierTable;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 
@@ -100,7 +107,12 @@ public class NCLDoc<T extends NCLElement,
     protected String location;
     protected String fileName;
     protected ElementList<Ev> globalVariables;
+    protected transient HashMap<String, Ev> variables;
     protected ArrayList<PostReferenceElement> references;
+    protected transient NCLImportCache importCache;
+    protected NCLIdentifierTable identifiers;
+    protected ArrayList<NCLDoc> cachedImports;
+    protected IdentityHashMap<NCLVariable, Ev> importedVariables;
 
 
     /**
@@ -293,6 +305,48 @@ public class NCLDoc<T extends NCLElement,
     }
 
 
+    /**
+     * Sets the cache used to load the documents imported by this document. The
+     * documents imported are kept in the cache and shared with other documents
+     * that use the same cache. Set the cache to <i>null</i> to load a new copy
+     * of each imported document.
+     * 
+     * @param importCache
+     *          cache of imported documents or <i>null</i> to not use a cache.
+     */
+    public void setImportCache(NCLImportCache importCache) {
+        this.importCache = importCache;
+    }
+    
+    
+    /**
+     * Returns the cache used to load the documents imported by this document
+     * or <i>null</i> if no cache is used.
+     * 
+     * @return 
+     *          cache of imported documents or <i>null</i> if no cache is used.
+     */
+    public NCLImportCache getImportCache() {
+        return importCache;
+    }
+    
+    
+    /**
+     * Returns the table with the identifiers of the document elements. The
+     * identifiers are stored once in the table and each identifier receives an
+     * integer handle.
+     * 
+     * @return 
+     *          identifier table of the document.
+     */
+    public synchronized NCLIdentifierTable getIdentifierTable() {
+        if(identifiers == null)
+            identifiers = new NCLIdentifierTable();
+        
+        return identifiers;
+    }
+
+
     /**
      * Adds an element representing a global variable to the document. The global
      * variables are referred by rule and property elements.
@@ -306,8 +360,10 @@ public class NCLDoc<T extends NCLElement,
      */
     public boolean addGlobalVariable(Ev variable) throws XMLException {
         boolean result = globalVariables.add(variable);
-        if(result)
+        if(result){
             variable.setDoc(this);
+            getVariableIndex().put(variable.getKey(), variable);
+        }
         return result;
     }
 
@@ -324,7 +380,13 @@ public class NCLDoc<T extends NCLElement,
      *          if the element representing the variable is null.
      */
     public boolean removeGlobalVariable(Ev variable) throws XMLException {
-        return globalVariables.remove(variable);
+        boolean result = globalVariables.remove(variable);
+        if(result && getVariableIndex().get(variable.getKey()) == variable){
+            // another variable may have the same key
+            variables.remove(variable.getKey());
+            indexVariables(globalVariables);
+        }
+        return result;
     }
 
 
@@ -340,12 +402,11 @@ public class NCLDoc<T extends NCLElement,
      *          if the string is null or empty.
      */
     public boolean removeGlobalVariable(String name) throws XMLException {
-        for(Ev aux : globalVariables){
-            if(aux.parse(0).equals(name))
-                return globalVariables.remove(aux);
-        }
+        Ev aux = getGlobalVariable(name);
+        if(aux == null)
+            return false;
         
-        return false;
+        return removeGlobalVariable(aux);
     }
 
 
@@ -361,7 +422,11 @@ public class NCLDoc<T extends NCLElement,
      *          if the element representing the variable is null.
      */
     public boolean hasGlobalVariable(Ev variable) throws XMLException {
-        return globalVariables.contains(variable);
+        if(variable == null)
+            throw new XMLException("Null variable.");
+        
+        // only the first variable with a key is indexed
+        return getGlobalVariable(variable.getKey()) == variable || globalVariables.contains(variable);
     }
 
 
@@ -377,12 +442,7 @@ public class NCLDoc<T extends NCLElement,
      *          if the string is null or empty.
      */
     public boolean hasGlobalVariable(String name) throws XMLException {
-        for(Ev aux : globalVariables){
-            if(aux.parse(0).equals(name))
-                return true;
-        }
-        
-        return false;
+        return getGlobalVariable(name) != null;
     }
 
 
@@ -412,7 +472,9 @@ public class NCLDoc<T extends NCLElement,
 
     /**
      * Returns the global variables with a specific name. The global variables
-     * are referred by rule and property elements.
+     * are referred by rule and property elements. The variables are indexed
+     * by name, including the parameter of parameterized system variables, like
+     * <i>system.screenSize(0)</i>.
      * 
      * @param name
      *          string representing the name of the global variable.
@@ -420,11 +482,50 @@ public class NCLDoc<T extends NCLElement,
      *          element representing a variable.
      */
     public Ev getGlobalVariable(String name) {
-        for(Ev aux : globalVariables){
-            if(aux.getName().equals(name))
-                return aux;
+        if(name == null)
+            return null;
+        
+        Ev aux = getVariableIndex().get(name);
+        if(aux == null || name.equals(aux.getKey()))
+            return aux;
+        
+        // a variable owned by another document changed its name, so the
+        // entry found is out of date
+        variables = null;
+        return getVariableIndex().get(name);
+    }
+    
+    
+    /**
+     * Moves the entry of a global variable in the index of variables by name
+     * after the variable changed its name. A variable calls this method of
+     * its document when its name or parameter changes.
+     * 
+     * @param variable
+     *          element representing the global variable.
+     * @param oldKey
+     *          string representing the previous name of the variable.
+     * @throws XMLException 
+     *          if the element representing the variable is null.
+     */
+    public void renameGlobalVariable(Ev variable, String oldKey) throws XMLException {
+        HashMap<String, Ev> index = variables;
+        if(index == null)
+            return;
+        
+        if(index.get(oldKey) == variable){
+            // another variable may have the old name
+            index.remove(oldKey);
+            for(Ev aux : globalVariables){
+                if(aux != variable && oldKey.equals(aux.getKey())){
+                    index.put(oldKey, aux);
+                    break;
+                }
+            }
         }
-        return null;
+        
+        if(globalVariables.contains(variable) && !index.containsKey(variable.getKey()))
+            index.put(variable.getKey(), variable);
     }
     
     
@@ -437,6 +538,29 @@ public class NCLDoc<T extends NCLElement,
      */
     public void addGlobalVariableLists(ElementList<Ev> list) {
         globalVariables.addAll(list);
+        indexVariables(list);
+    }
+    
+    
+    private void indexVariables(Iterable<Ev> list) {
+        HashMap<String, Ev> index = getVariableIndex();
+        for(Ev aux : list){
+            if(!index.containsKey(aux.getKey()))
+                index.put(aux.getKey(), aux);
+        }
+    }
+    
+    
+    private HashMap<String, Ev> getVariableIndex() {
+        if(variables == null){
+            variables = new HashMap<String, Ev>();
+            for(Ev aux : globalVariables){
+                if(!variables.containsKey(aux.getKey()))
+                    variables.put(aux.getKey(), aux);
+            }
+        }
+        
+        return variables;
     }
     
 
@@ -678,32 +802,219 @@ public class NCLDoc<T extends NCLElement,
     }
     
     
+    /**
+     * Loads the objects structure representing an NCL document from a reader
+     * with its XML content.
+     *
+     * @param reader
+     *          reader with the NCL document content.
+     * @param location
+     *          location used to find the documents imported with relative
+     *          paths or <i>null</i> if the document has no location.
+     * @throws NCLParsingException
+     *          if an error occur while parsing the document.
+     */
+    public void loadXML(Reader reader, String location) throws XMLException {
+        this.location = location;
+        
+        try{
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder parser = factory.newDocumentBuilder();
+            Document doc = parser.parse(new InputSource(reader));
+            load(doc.getDocumentElement());
+        }catch(SAXException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(ParserConfigurationException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }catch(IOException e){
+            throw new NCLParsingException(e.fillInStackTrace());
+        }
+    }
+    
+    
+    /**
+     * Merges the global variables of another document, usually an imported
+     * one, with the global variables of this document. The elements that refer
+     * to a variable of the other document with the same name of a variable of
+     * this document are changed to refer to the variable of this document. The
+     * other variables are added to this document. The list of variables of
+     * the other document is not changed.
+     * 
+     * @param other
+     *          element representing the other document.
+     * @throws XMLException
+     *          if an error occur while changing the references to a variable.
+     */
     public void mergeGlobalVariables(NCLDoc other) throws XMLException {
         ElementList<Ev> other_vars = other.getGlobalVariables();
-        if(other_vars.isEmpty())
+        if(other_vars == null || other_vars.isEmpty())
             return;
         
-        for(Ev var : getGlobalVariables()){
-            for(Ev ovar : other_vars){
-                if(var.compare(ovar)){
-                    var.mergeVariables(ovar);
-                    other_vars.remove(ovar);
-                    break;
-                }
+        List<Ev> missing = new ArrayList<Ev>();
+        for(Ev ovar : other_vars){
+            Ev var = getGlobalVariable(ovar.getKey());
+            if(var == null)
+                missing.add(ovar);
+            else if(var != ovar)
+                var.mergeVariables(ovar);
+        }
+        
+        if(missing.isEmpty())
+            return;
+        
+        globalVariables.addAll(missing);
+        indexVariables(missing);
+    }
+    
+    
+    /**
+     * Maps the global variables of a document shared by several documents,
+     * like the documents kept by a cache of imported documents, to the global
+     * variables of this document. Unlike <i>mergeGlobalVariables</i>, the
+     * other document is not changed: each variable of the other document is
+     * mapped to the variable of this document with the same name, which is
+     * created if this document does not have it yet.
+     * 
+     * @param other
+     *          element representing the shared document.
+     * @throws XMLException
+     *          if an error occur while creating a variable.
+     * @see #getImportedVariable
+     */
+    public synchronized void importGlobalVariables(NCLDoc other) throws XMLException {
+        ElementList<Ev> other_vars = other.getGlobalVariables();
+        if(other_vars == null || other_vars.isEmpty())
+            return;
+        
+        if(importedVariables == null)
+            importedVariables = new IdentityHashMap<NCLVariable, Ev>();
+        
+        for(Ev ovar : other_vars){
+            Ev var = getGlobalVariable(ovar.getKey());
+            if(var == null){
+                var = createGlobalVariable(ovar.getKey());
+                addGlobalVariable(var);
+            }
+            importedVariables.put(ovar, var);
+        }
+    }
+    
+    
+    /**
+     * Returns the global variable of this document mapped to a variable of a
+     * shared imported document. The elements of a shared document keep
+     * referring to the variables of that document, so the variable seen by
+     * this document is given by this method.
+     * 
+     * @param variable
+     *          element representing a variable of an imported document.
+     * @return
+     *          element representing the variable of this document, the
+     *          variable itself if it belongs to this document or <i>null</i>
+     *          if the variable is not known by this document.
+     */
+    public synchronized Ev getImportedVariable(NCLVariable variable) {
+        if(importedVariables != null){
+            Ev aux = importedVariables.get(variable);
+            if(aux != null)
+                return aux;
+        }
+        
+        if(variable != null && getGlobalVariable(variable.getKey()) == variable)
+            return (Ev) variable;
+        
+        return null;
+    }
+    
+    
+    /**
+     * Registers a document acquired from the cache of imported documents by an
+     * import element of this document. The reference to the imported document
+     * is released when this document is released.
+     * 
+     * @param doc
+     *          element representing the imported document.
+     */
+    public synchronized void addCachedImport(NCLDoc doc) {
+        if(cachedImports == null)
+            cachedImports = new ArrayList<NCLDoc>();
+        
+        cachedImports.add(doc);
+    }
+
+
+    /**
+     * Releases a document that will be discarded. The references to the
+     * documents acquired from the cache of imported documents are released,
+     * and imported documents no longer referred by any document are released
+     * as well.
+     * 
+     * <br/>
+     * 
+     * If no imported document remains referred by other documents, the
+     * elements of this document can not be referred from outside it, so the
+     * document is only detached from its children, in constant time and
+     * without notifications. Otherwise, the document is cleaned element by
+     * element, so the imported documents still in use do not keep references
+     * to this document.
+     * 
+     * <br/>
+     * 
+     * A released document is in a terminal state: it can not be loaded or
+     * modified again. Calling <i>release</i> or <i>clean</i> on a released
+     * document has no effect.
+     * 
+     * @return
+     *          <i>true</i> if the document was released without cleaning its
+     *          elements.
+     * @throws XMLException
+     *          if the document is still imported by other documents or an
+     *          error occur while cleaning the document.
+     */
+    public boolean release() throws XMLException {
+        if(references == null)
+            return true;
+        
+        if(importCache != null && importCache.getReferenceCount(this) > 0)
+            throw new XMLException("Document still imported by other documents.");
+        
+        boolean shared = false;
+        if(cachedImports != null){
+            for(NCLDoc doc : cachedImports){
+                if(importCache != null && importCache.release(doc))
+                    doc.release();
+                else
+                    shared = true;
             }
         }
         
-        if(!other_vars.isEmpty())
-            addGlobalVariableLists(other_vars);
+        if(shared){
+            clean();
+            return false;
+        }
+        
+        head = null;
+        body = null;
+        references = null;
+        globalVariables = null;
+        variables = null;
+        identifiers = null;
+        importCache = null;
+        cachedImports = null;
+        importedVariables = null;
+        
+        return true;
     }
     
     
     public void waitReference(PostReferenceElement element) {
+        checkReleased();
         references.add(element);
     }
     
     
     public void fixReferences() throws XMLException {
+        checkReleased();
         for(PostReferenceElement el : references)
             el.fixReference();
     }
@@ -724,6 +1035,14 @@ public class NCLDoc<T extends NCLElement,
         body = null;
         location = null;
         fileName = null;
+        identifiers = null;
+        importCache = null;
+        cachedImports = null;
+        importedVariables = null;
+        variables = null;
+        
+        if(references == null)
+            return;
         
         references.clear();
         references = null;
@@ -732,6 +1051,12 @@ public class NCLDoc<T extends NCLElement,
             g.clean();
     }
     
+    
+    private void checkReleased() {
+        if(references == null)
+            throw new IllegalStateException("Document already released or cleaned.");
+    }
+    
 
     /**
      * Function to create the child element <i>head</i>.
@@ -755,4 +1080,16 @@ public class NCLDoc<T extends NCLElement,
     protected Eb createBody() throws XMLException {
         return (Eb) new NCLBody();
     }
+
+
+    /**
+     * Function to create a global variable.
+     * This function must be overwritten in classes that extends this one.
+     *
+     * @return
+     *          element representing a global variable.
+     */
+    protected Ev createGlobalVariable(String name) throws XMLException {
+        return (Ev) new NCLVariable(name);
+    }
 }
@@ -952,9 +952,12 @@ public class NCLHead<T extends NCLElement,
      * @param id
      *          id of the connector to be found.
      * @return 
-     *          connector or null if no connector was found.
+     *          connector, reference to the connector or null if no connector
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the connector.
      */
-    public Object findConnector(String alias, String id) throws XMLException {
+    public Object searchConnector(String alias, String id) throws XMLException {
         Object result;
         
         Ecb cb = getConnectorBase();
@@ -973,7 +976,28 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a connector inside a connectorBase or in an imported
+     * document.
+     * 
+     * @param alias
+     *          alias of the importBase the imports the connector.
+     * @param id
+     *          id of the connector to be found.
+     * @return 
+     *          connector.
+     * @throws NCLParsingException 
+     *          if no connector was found.
+     */
+    public Object findConnector(String alias, String id) throws XMLException {
+        Object result = searchConnector(alias, id);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find connector with id: ";
         if(alias != null)
             msg += alias + "#";
@@ -991,9 +1015,12 @@ public class NCLHead<T extends NCLElement,
      * @param id
      *          id of the descriptor to be found.
      * @return 
-     *          descriptor or null if no descriptor was found.
+     *          descriptor, reference to the descriptor or null if no descriptor
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the descriptor.
      */
-    public Object findDescriptor(String alias, String id) throws XMLException {
+    public Object searchDescriptor(String alias, String id) throws XMLException {
         Object result;
         
         Edb db = getDescriptorBase();
@@ -1012,7 +1039,28 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a descriptor inside a descriptorBase or in an imported
+     * document.
+     * 
+     * @param alias
+     *          alias of the importBase the imports the descriptor.
+     * @param id
+     *          id of the descriptor to be found.
+     * @return 
+     *          descriptor.
+     * @throws NCLParsingException 
+     *          if no descriptor was found.
+     */
+    public Object findDescriptor(String alias, String id) throws XMLException {
+        Object result = searchDescriptor(alias, id);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find descriptor with id: ";
         if(alias != null)
             msg += alias + "#";
@@ -1028,9 +1076,12 @@ public class NCLHead<T extends NCLElement,
      * @param focusIndex
      *          focusIndex of the descriptor to be found.
      * @return 
-     *          descriptor or null if no descriptor was found.
+     *          descriptor, reference to the descriptor or null if no descriptor
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the descriptor.
      */
-    public Object findDescriptor(Integer focusIndex) throws XMLException {
+    public Object searchDescriptor(Integer focusIndex) throws XMLException {
         Object result;
         
         Edb db = getDescriptorBase();
@@ -1049,7 +1100,26 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a descriptor inside a descriptorBase or in an imported
+     * document.
+     * 
+     * @param focusIndex
+     *          focusIndex of the descriptor to be found.
+     * @return 
+     *          descriptor.
+     * @throws NCLParsingException 
+     *          if no descriptor was found.
+     */
+    public Object findDescriptor(Integer focusIndex) throws XMLException {
+        Object result = searchDescriptor(focusIndex);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find descriptor with focusIndex: " + focusIndex;
         throw new NCLParsingException(msg);
     }
@@ -1067,9 +1137,12 @@ public class NCLHead<T extends NCLElement,
      * @param id
      *          id of the region to be found.
      * @return 
-     *          region or null if no region was found.
+     *          region, reference to the region or null if no region
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the region.
      */
-    public Object findRegion(String baseId, String alias, String id) throws XMLException {
+    public Object searchRegion(String baseId, String alias, String id) throws XMLException {
         Object result;
         
         if(baseId == null){
@@ -1080,9 +1153,12 @@ public class NCLHead<T extends NCLElement,
             }
         }
         else{
-            result = regionBases.get(baseId).findRegion(alias, id);
-            if(result != null)
-                return result;
+            Erb base = regionBases.get(baseId);
+            if(base != null){
+                result = base.findRegion(alias, id);
+                if(result != null)
+                    return result;
+            }
         }
         
         
@@ -1103,7 +1179,31 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a region inside a regionBase and its descendants or in a
+     * region base imported together with a descriptorBase or in an imported
+     * document.
+     * 
+     * @param baseId
+     *          id of the base where the region is in.
+     * @param alias
+     *          alias of the importBase the imports the region.
+     * @param id
+     *          id of the region to be found.
+     * @return 
+     *          region.
+     * @throws NCLParsingException 
+     *          if no region was found.
+     */
+    public Object findRegion(String baseId, String alias, String id) throws XMLException {
+        Object result = searchRegion(baseId, alias, id);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find region with id: ";
         if(alias != null)
             msg += alias + "#";
@@ -1121,9 +1221,12 @@ public class NCLHead<T extends NCLElement,
      * @param id
      *          id of the rule to be found.
      * @return 
-     *          rule or null if no rule was found.
+     *          rule, reference to the rule or null if no rule
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the rule.
      */
-    public Object findRule(String alias, String id) throws XMLException {
+    public Object searchRule(String alias, String id) throws XMLException {
         Object result;
         
         Erl rl = getRuleBase();
@@ -1151,7 +1254,28 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a rule inside a regionBase or in a rule base imported
+     * together with a descriptorBase or in an imported document.
+     * 
+     * @param alias
+     *          alias of the importBase the imports the rule.
+     * @param id
+     *          id of the rule to be found.
+     * @return 
+     *          rule.
+     * @throws NCLParsingException 
+     *          if no rule was found.
+     */
+    public Object findRule(String alias, String id) throws XMLException {
+        Object result = searchRule(alias, id);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find rule with id: ";
         if(alias != null)
             msg += alias + "#";
@@ -1169,9 +1293,12 @@ public class NCLHead<T extends NCLElement,
      * @param id
      *          id of the transition to be found.
      * @return 
-     *          transition or null if no transition was found.
+     *          transition, reference to the transition or null if no transition
+     *          was found.
+     * @throws XMLException 
+     *          if an error occur while creating the reference to the transition.
      */
-    public Object findTransition(String alias, String id) throws XMLException {
+    public Object searchTransition(String alias, String id) throws XMLException {
         Object result;
         
         Etb tb = getTransitionBase();
@@ -1199,7 +1326,28 @@ public class NCLHead<T extends NCLElement,
                 return result;
         }
         
-
+        return null;
+    }
+    
+    
+    /**
+     * Searches for a transition inside a transitionBase or in a transition base
+     * imported together with a descriptorBase or in an imported document.
+     * 
+     * @param alias
+     *          alias of the importBase the imports the transition.
+     * @param id
+     *          id of the transition to be found.
+     * @return 
+     *          transition.
+     * @throws NCLParsingException 
+     *          if no transition was found.
+     */
+    public Object findTransition(String alias, String id) throws XMLException {
+        Object result = searchTransition(alias, id);
+        if(result != null)
+            return result;
+        
         String msg = "Could not find transition with id: ";
         if(alias != null)
             msg += alias + "#";
@@ -263,7 +263,7 @@ public class NCLAssessmentStatement<T extends NCLElement,
      *          if the element representing the attribute assessment is null.
      */
     public boolean removeAttributeAssessment(Ea attribute) throws XMLException {
-        if(!attribute.getReferences().isEmpty())
+        if(!attribute.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -45,6 +45,8 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -78,7 +80,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
                                     Eb extends NCLBind,
                                     Er extends NCLRoleElement>
         extends ParamElement<T>
-        implements NCLElement<T>, NCLRoleElement<Eb> {
+        implements NCLElement<T>, NCLRoleElement<Eb>, ReferenceSetElement<Eb> {
 
     protected String role;
     protected NCLEventType eventType;
@@ -86,7 +88,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
     protected NCLAttributeType attributeType;
     protected Object offset;
     
-    protected ArrayList<Eb> references;
+    protected ReferenceSet<Eb> references;
     
 
     /**
@@ -97,7 +99,7 @@ public class NCLAttributeAssessment<T extends NCLElement,
      */
     public NCLAttributeAssessment() {
         super();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
     }
 
 
@@ -583,20 +585,26 @@ public class NCLAttributeAssessment<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -38,6 +38,9 @@
 package br.uff.midiacom.ana.connector;
 
 import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -47,7 +50,6 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -95,13 +97,13 @@ public class NCLCausalConnector<T extends NCLElement,
                                 Er extends NCLRoleElement,
                                 El extends NCLLink>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<El> {
+        implements NCLElement<T>, ReferenceSetElement<El> {
 
     protected Ec condition;
     protected Ea action;
     protected ElementList<Ep> conn_params;
     
-    protected ArrayList<El> references;
+    protected ReferenceSet<El> references;
 
 
     /**
@@ -112,15 +114,15 @@ public class NCLCausalConnector<T extends NCLElement,
      */  
     public NCLCausalConnector() {
         super();
-        conn_params = new ElementList<Ep>();
-        references = new ArrayList<El>();
+        conn_params = ElementList.empty();
+        references = new ReferenceSet<El>();
     }
     
     
     public NCLCausalConnector(String id) throws XMLException {
         super();
-        conn_params = new ElementList<Ep>();
-        references = new ArrayList<El>();
+        conn_params = ElementList.empty();
+        references = new ReferenceSet<El>();
         setId(id);
     }
     
@@ -161,7 +163,7 @@ public class NCLCausalConnector<T extends NCLElement,
     public void setCondition(Ec condition) throws XMLException {
         //Removes the parent of the actual condition
         if(this.condition != null){
-            if(this.condition instanceof ReferredElement && !((ReferredElement) this.condition).getReferences().isEmpty())
+            if(this.condition instanceof ReferredElement && !ReferenceSet.of((ReferredElement) this.condition).isEmpty())
                 throw new NCLRemovalException("This element has a reference to it."
                         + " The reference must be undone before erasing this element.");
         
@@ -211,7 +213,7 @@ public class NCLCausalConnector<T extends NCLElement,
     public void setAction(Ea action) throws XMLException {
         //Removes the parent of the actual action
         if(this.action != null){
-            if(this.action instanceof ReferredElement && !((ReferredElement) this.action).getReferences().isEmpty())
+            if(this.action instanceof ReferredElement && !ReferenceSet.of((ReferredElement) this.action).isEmpty())
                 throw new NCLRemovalException("This element has a reference to it."
                         + " The reference must be undone before erasing this element.");
             
@@ -258,6 +260,9 @@ public class NCLCausalConnector<T extends NCLElement,
      *          if the element representing the connector parameter is null.
      */
     public boolean addConnectorParam(Ep param) throws XMLException {
+        if(conn_params.isReadOnly())
+            conn_params = new ElementList<Ep>();
+        
         if(conn_params.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -279,7 +284,7 @@ public class NCLCausalConnector<T extends NCLElement,
      *          if the element representing the connector parameter is null.
      */
     public boolean removeConnectorParam(Ep param) throws XMLException {
-        if(!param.getReferences().isEmpty())
+        if(!param.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -706,19 +711,25 @@ public class NCLCausalConnector<T extends NCLElement,
     
     
     @Override
-    public boolean addReference(El reference) throws XMLException {
+    public synchronized boolean addReference(El reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
-    public boolean removeReference(El reference) throws XMLException {
+    public synchronized boolean removeReference(El reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 }
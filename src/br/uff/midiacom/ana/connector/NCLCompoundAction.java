@@ -45,6 +45,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -208,7 +209,7 @@ public class NCLCompoundAction<T extends NCLElement,
      *          if the element representing the action is null.
      */
     public boolean removeAction(Ea action) throws XMLException {
-        if(action instanceof ReferredElement && !((ReferredElement) action).getReferences().isEmpty())
+        if(action instanceof ReferredElement && !ReferenceSet.of((ReferredElement) action).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
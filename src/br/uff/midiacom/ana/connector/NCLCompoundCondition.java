@@ -45,6 +45,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -221,7 +222,7 @@ public class NCLCompoundCondition<T extends NCLElement,
      *          if the element representing the condition is null.
      */
     public boolean removeCondition(Ec condition) throws XMLException {
-        if(condition instanceof ReferredElement && !((ReferredElement) condition).getReferences().isEmpty())
+        if(condition instanceof ReferredElement && !ReferenceSet.of((ReferredElement) condition).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -146,7 +146,7 @@ public class NCLConnectorBase<T extends NCLElement,
      *          if the element representing the connector is null.
      */
     public boolean removeCausalConnector(Ec connector) throws XMLException {
-        if(!connector.getReferences().isEmpty())
+        if(!connector.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -410,15 +410,16 @@ public class NCLConnectorBase<T extends NCLElement,
                 return result;
         }
         else{
-            for(Ei imp : imports){
-                if(imp.getAlias().equals(alias)){
-                    NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                    Object ref = d.getHead().findConnector(null, id);
-                    if(ref instanceof NCLCausalConnector)
-                        return createExternalRef(imp, (Ec) ref);
-                    else
-                        return createExternalRef(imp, (Ec) ((R) ref).getTarget());
-                }
+            Ei imp = aliases.get(alias);
+            if(imp != null){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                Object ref = d.getHead().searchConnector(null, id);
+                if(ref == null)
+                    return null;
+                if(ref instanceof NCLCausalConnector)
+                    return getExternalRef(imp, (Ec) ref);
+                else
+                    return getExternalRef(imp, (Ec) ((R) ref).getTarget());
             }
         }
         
@@ -447,6 +448,23 @@ public class NCLConnectorBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to a connector imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to a connector.
+     */
+    protected R getExternalRef(Ei imp, Ec ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to a connector.
      * This function must be overwritten in classes that extends this one.
@@ -38,12 +38,13 @@
 package br.uff.midiacom.ana.connector;
 
 import br.uff.midiacom.ana.NCLElement;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 
 
@@ -66,11 +67,11 @@ import org.w3c.dom.Element;
 public class NCLConnectorParam<T extends NCLElement,
                                Ep extends NCLElement>
         extends NCLNamedElementPrototype<T, String>
-        implements NCLElement<T>, ReferredElement<Ep> {
+        implements NCLElement<T>, ReferenceSetElement<Ep> {
     
     protected String type;
     
-    protected ArrayList<Ep> references;
+    protected ReferenceSet<Ep> references;
     
     
     /**
@@ -81,13 +82,13 @@ public class NCLConnectorParam<T extends NCLElement,
      */
     public NCLConnectorParam() {
         super();
-        references = new ArrayList<Ep>();
+        references = new ReferenceSet<Ep>();
     }
     
     
     public NCLConnectorParam(String name) throws XMLException {
         super();
-        references = new ArrayList<Ep>();
+        references = new ReferenceSet<Ep>();
         setName(name);
     }
     
@@ -270,20 +271,26 @@ public class NCLConnectorParam<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Ep reference) throws XMLException {
+    public synchronized boolean addReference(Ep reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Ep reference) throws XMLException {
+    public synchronized boolean removeReference(Ep reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
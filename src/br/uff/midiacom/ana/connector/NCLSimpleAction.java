@@ -46,6 +46,8 @@ import br.uff.midiacom.ana.util.enums.NCLEventAction;
 import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -88,7 +90,7 @@ public class NCLSimpleAction<T extends NCLElement,
                              Er extends NCLRoleElement,
                              Eb extends NCLBind>
         extends ParamElement<T>
-        implements NCLAction<T, Ep, Er>, NCLRoleElement<Eb> {
+        implements NCLAction<T, Ep, Er>, NCLRoleElement<Eb>, ReferenceSetElement<Eb> {
 
     protected Object value;
     protected Integer min;
@@ -103,7 +105,7 @@ public class NCLSimpleAction<T extends NCLElement,
     protected Object role;
     protected Object delay;
     
-    protected ArrayList<Eb> references;
+    protected ReferenceSet<Eb> references;
 
 
     /**
@@ -114,7 +116,7 @@ public class NCLSimpleAction<T extends NCLElement,
      */
     public NCLSimpleAction() {
         super();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
     }
 
 
@@ -1324,20 +1326,26 @@ public class NCLSimpleAction<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -47,6 +47,8 @@ import br.uff.midiacom.ana.util.enums.NCLEventType;
 import br.uff.midiacom.ana.util.enums.NCLKey;
 import br.uff.midiacom.ana.link.NCLBind;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -82,7 +84,7 @@ public class NCLSimpleCondition<T extends NCLElement,
                                 Er extends NCLRoleElement,
                                 Eb extends NCLBind>
         extends ParamElement<T>
-        implements NCLCondition<T, Ep, Er>, NCLRoleElement<Eb> {
+        implements NCLCondition<T, Ep, Er>, NCLRoleElement<Eb>, ReferenceSetElement<Eb> {
 
     protected Object key;
     protected Integer min;
@@ -93,7 +95,7 @@ public class NCLSimpleCondition<T extends NCLElement,
     protected Object role;
     protected Object delay;
     
-    protected ArrayList<Eb> references;
+    protected ReferenceSet<Eb> references;
     
 
     /**
@@ -104,7 +106,7 @@ public class NCLSimpleCondition<T extends NCLElement,
      */
     public NCLSimpleCondition() {
         super();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
     }
 
 
@@ -851,20 +853,26 @@ public class NCLSimpleCondition<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -42,6 +42,9 @@ import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.SrcType;
 import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
 import br.uff.midiacom.ana.util.enums.NCLColor;
@@ -52,7 +55,6 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.PercentageType;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -128,7 +130,7 @@ public class NCLDescriptor<T extends NCLElement,
                            El extends NCLLayoutDescriptor,
                            R extends ExternalReferenceType>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLLayoutDescriptor<T, El>, PostReferenceElement {
+        implements NCLLayoutDescriptor<T, El>, ReferenceSetElement<T>, PostReferenceElement {
 
     protected String player;
     protected TimeType explicitDur;
@@ -149,7 +151,7 @@ public class NCLDescriptor<T extends NCLElement,
     protected Object region;
     protected ElementList<Ep> params;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
     protected boolean waiting;
 
 
@@ -162,7 +164,7 @@ public class NCLDescriptor<T extends NCLElement,
     public NCLDescriptor() {
         super();
         params = new ElementList<Ep>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         waiting = false;
     }
     
@@ -170,7 +172,7 @@ public class NCLDescriptor<T extends NCLElement,
     public NCLDescriptor(String id) throws XMLException {
         super();
         params = new ElementList<Ep>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         waiting = false;
         setId(id);
     }
@@ -1326,7 +1328,7 @@ public class NCLDescriptor<T extends NCLElement,
         // set the explicitDur (optional)
         att_name = NCLElementAttributes.EXPLICITDUR.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setExplicitDur(new TimeType(att_var));
+            setExplicitDur(TimeType.valueOf(att_var));
     }
     
     
@@ -1554,7 +1556,7 @@ public class NCLDescriptor<T extends NCLElement,
         // set the focusBorderTransparency (optional)
         att_name = NCLElementAttributes.FOCUSBORDERTRANSPARENCY.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setFocusBorderTransparency(new PercentageType(att_var));
+            setFocusBorderTransparency(PercentageType.valueOf(att_var));
     }
     
     
@@ -1573,7 +1575,7 @@ public class NCLDescriptor<T extends NCLElement,
         // set the focusSrc (optional)
         att_name = NCLElementAttributes.FOCUSSRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setFocusSrc(new SrcType(att_var));
+            setFocusSrc(SrcType.valueOf(att_var));
     }
     
     
@@ -1592,7 +1594,7 @@ public class NCLDescriptor<T extends NCLElement,
         // set the focusSelSrc (optional)
         att_name = NCLElementAttributes.FOCUSSELSRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setFocusSelSrc(new SrcType(att_var));
+            setFocusSelSrc(SrcType.valueOf(att_var));
     }
     
     
@@ -1763,20 +1765,26 @@ public class NCLDescriptor<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -1784,10 +1792,14 @@ public class NCLDescriptor<T extends NCLElement,
     @Override
     public void clean() throws XMLException {
         
-        moveLeft.removeReference(this);
-        moveRight.removeReference(this);
-        moveUp.removeReference(this);
-        moveDown.removeReference(this);
+        if(moveLeft != null)
+            moveLeft.removeReference(this);
+        if(moveRight != null)
+            moveRight.removeReference(this);
+        if(moveUp != null)
+            moveUp.removeReference(this);
+        if(moveDown != null)
+            moveDown.removeReference(this);
         
         if(region != null){
             if(region instanceof NCLRegion)
@@ -53,6 +53,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -162,7 +163,7 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          is null.
      */
     public boolean removeDescriptor(El descriptor) throws XMLException {
-        if(!descriptor.getReferences().isEmpty())
+        if(!ReferenceSet.of(descriptor).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -437,15 +438,16 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          region or null if no region was found.
      */
     public Object findRegion(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findRegion(imp.getBaseId(), null, id);
-                if(ref instanceof NCLRegion)
-                    return createExternalRef(imp, (NCLRegion) ref);
-                else
-                    return createExternalRef(imp, (NCLRegion) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchRegion(imp.getBaseId(), null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLRegion)
+                return getExternalRef(imp, (NCLRegion) ref);
+            else
+                return getExternalRef(imp, (NCLRegion) ((R) ref).getTarget());
         }
         
         return null;
@@ -463,15 +465,16 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          rule or null if no rule was found.
      */
     public Object findRule(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findRule(null, id);
-                if(ref instanceof NCLTestRule)
-                    return createExternalRef(imp, (NCLTestRule) ref);
-                else
-                    return createExternalRef(imp, (NCLTestRule) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchRule(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLTestRule)
+                return getExternalRef(imp, (NCLTestRule) ref);
+            else
+                return getExternalRef(imp, (NCLTestRule) ((R) ref).getTarget());
         }
         
         return null;
@@ -489,15 +492,16 @@ public class NCLDescriptorBase<T extends NCLElement,
      *          transition or null if no transition was found.
      */
     public Object findTransition(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findTransition(null, id);
-                if(ref instanceof NCLTransition)
-                    return createExternalRef(imp, (NCLTransition) ref);
-                else
-                    return createExternalRef(imp, (NCLTransition) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchTransition(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLTransition)
+                return getExternalRef(imp, (NCLTransition) ref);
+            else
+                return getExternalRef(imp, (NCLTransition) ((R) ref).getTarget());
         }
         
         return null;
@@ -526,15 +530,16 @@ public class NCLDescriptorBase<T extends NCLElement,
             }   
         }
         else{
-            for(Ei imp : imports){
-                if(imp.getAlias().equals(alias)){
-                    NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                    Object ref = d.getHead().findDescriptor(null, id);
-                    if(ref instanceof NCLLayoutDescriptor)
-                        return createExternalRef(imp, (El) ref);
-                    else
-                        return createExternalRef(imp, (El) ((R) ref).getTarget());
-                }
+            Ei imp = aliases.get(alias);
+            if(imp != null){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                Object ref = d.getHead().searchDescriptor(null, id);
+                if(ref == null)
+                    return null;
+                if(ref instanceof NCLLayoutDescriptor)
+                    return getExternalRef(imp, (El) ref);
+                else
+                    return getExternalRef(imp, (El) ((R) ref).getTarget());
             }
         }
         
@@ -562,7 +567,7 @@ public class NCLDescriptorBase<T extends NCLElement,
         
         for(Ei imp : imports){
             NCLDoc d = (NCLDoc) imp.getImportedDoc();
-            result = (El) d.getHead().findDescriptor(focusIndex);
+            result = (El) d.getHead().searchDescriptor(focusIndex);
             if(result != null)
                 return result;
         }
@@ -604,6 +609,23 @@ public class NCLDescriptorBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to an NCL element imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to an NCL element.
+     */
+    protected R getExternalRef(Ei imp, ReferredElement ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to an NCL element.
      * This function must be overwritten in classes that extends this one.
@@ -44,10 +44,12 @@ import br.uff.midiacom.ana.rule.NCLBindRule;
 import br.uff.midiacom.ana.rule.NCLTestRule;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -94,13 +96,13 @@ public class NCLDescriptorSwitch<T extends NCLElement,
                                  R extends ExternalReferenceType,
                                  Eb extends NCLBindRule<T, Ed, Er, R>>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLLayoutDescriptor<T, El> {
+        implements NCLLayoutDescriptor<T, El>, ReferenceSetElement<T> {
 
     protected ElementList<Ed> descriptors;
     protected ElementList<Eb> binds;
     protected Ed defaultDescriptor;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -111,17 +113,17 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      */
     public NCLDescriptorSwitch() {
         super();
-        descriptors = new ElementList<Ed>();
-        binds = new ElementList<Eb>();
-        references = new ArrayList<T>();
+        descriptors = ElementList.empty();
+        binds = ElementList.empty();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLDescriptorSwitch(String id) throws XMLException {
         super();
-        descriptors = new ElementList<Ed>();
-        binds = new ElementList<Eb>();
-        references = new ArrayList<T>();
+        descriptors = ElementList.empty();
+        binds = ElementList.empty();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -160,6 +162,9 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the descriptor is null.
      */
     public boolean addDescriptor(Ed descriptor) throws XMLException {
+        if(descriptors.isReadOnly())
+            descriptors = new ElementList<Ed>();
+        
         if(descriptors.add(descriptor)){
             notifyInserted((T) descriptor);
             descriptor.setParent(this);
@@ -181,7 +186,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the descriptor is null.
      */
     public boolean removeDescriptor(Ed descriptor) throws XMLException {
-        if(!descriptor.getReferences().isEmpty())
+        if(!descriptor.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -296,6 +301,9 @@ public class NCLDescriptorSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        if(binds.isReadOnly())
+            binds = new ElementList<Eb>();
+        
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent((T) this);
@@ -602,7 +610,7 @@ public class NCLDescriptorSwitch<T extends NCLElement,
         if(element.getTagName().equals(NCLElementAttributes.DEFAULTDESCRIPTOR.toString())){
             att_name = NCLElementAttributes.DESCRIPTOR.toString();
             if(!(att_var = element.getAttribute(att_name)).isEmpty())
-                setDefaultDescriptor(descriptors.get(att_var));
+                setDefaultDescriptor(descriptors.get(internId(att_var)));
         }
     }
     
@@ -671,20 +679,26 @@ public class NCLDescriptorSwitch<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
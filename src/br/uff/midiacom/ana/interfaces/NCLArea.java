@@ -45,6 +45,8 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ArrayType;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -79,7 +81,7 @@ import org.w3c.dom.Element;
  */
 public class NCLArea<T extends NCLElement>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLInterface<T> {
+        implements NCLInterface<T>, ReferenceSetElement<T> {
 
     protected ArrayType coords;
     protected TimeType begin;
@@ -90,7 +92,7 @@ public class NCLArea<T extends NCLElement>
     protected SampleType last;
     protected String label;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
     
     
     /**
@@ -101,13 +103,13 @@ public class NCLArea<T extends NCLElement>
      */
     public NCLArea() {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLArea(String id) throws XMLException {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -738,7 +740,7 @@ public class NCLArea<T extends NCLElement>
         // set the begin (optional)
         att_name = NCLElementAttributes.BEGIN.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setBegin(new TimeType(att_var));
+            setBegin(TimeType.valueOf(att_var));
     }
     
     
@@ -757,7 +759,7 @@ public class NCLArea<T extends NCLElement>
         // set the end (optional)
         att_name = NCLElementAttributes.END.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setEnd(new TimeType(att_var));
+            setEnd(TimeType.valueOf(att_var));
     }
     
     
@@ -863,21 +865,27 @@ public class NCLArea<T extends NCLElement>
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
     @Deprecated
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
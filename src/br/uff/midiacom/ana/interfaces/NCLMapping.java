@@ -265,6 +265,7 @@ public class NCLMapping<T extends NCLElement,
         // set the component (required)
         att_name = NCLElementAttributes.COMPONENT.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             T aux;
             if((aux = (T) getParent()) == null)
                 throw new NCLParsingException("Could not find element " + att_var);
@@ -301,6 +302,7 @@ public class NCLMapping<T extends NCLElement,
         // set the interface (optional)
         att_name = NCLElementAttributes.INTERFACE.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             Ei refEl = (Ei) getComponent().findInterface(att_var);
             if(refEl == null)
                 throw new NCLParsingException("Could not find element " + att_var);
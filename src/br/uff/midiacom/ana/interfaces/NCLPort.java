@@ -45,6 +45,8 @@ import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -83,12 +85,12 @@ public class NCLPort<T extends NCLElement,
                      En extends NCLNode,
                      Ei extends NCLInterface>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLInterface<T> {
+        implements NCLInterface<T>, ReferenceSetElement<T> {
 
     protected En component;
     protected Ei interfac;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -99,13 +101,13 @@ public class NCLPort<T extends NCLElement,
      */
     public NCLPort() {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLPort(String id) throws XMLException {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -329,6 +331,7 @@ public class NCLPort<T extends NCLElement,
         // set the component (required)
         att_name = NCLElementAttributes.COMPONENT.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             T aux;
             if((aux = (T) getParent()) == null)
                 throw new NCLParsingException("Could not find element " + att_var);
@@ -367,6 +370,7 @@ public class NCLPort<T extends NCLElement,
         // set the interface (optional)
         att_name = NCLElementAttributes.INTERFACE.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             Ei refEl = (Ei) getComponent().findInterface(att_var);
             if(refEl == null)
                 throw new NCLParsingException("Could not find element " + att_var);
@@ -378,20 +382,26 @@ public class NCLPort<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -51,6 +51,8 @@ import br.uff.midiacom.ana.util.enums.NCLScroll;
 import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -76,11 +78,11 @@ import org.w3c.dom.Element;
 public class NCLProperty<T extends NCLElement,
                          Ev extends NCLVariable>
         extends NCLNamedElementPrototype<T, Object>
-        implements NCLInterface<T> {
+        implements NCLInterface<T>, ReferenceSetElement<T> {
 
     protected Object value;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
     
     
     /**
@@ -91,13 +93,13 @@ public class NCLProperty<T extends NCLElement,
      */
     public NCLProperty() {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLProperty(Object name) throws XMLException {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         setName(name);
     }
     
@@ -371,20 +373,26 @@ public class NCLProperty<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -43,6 +43,8 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -83,11 +85,11 @@ import org.w3c.dom.NodeList;
 public class NCLSwitchPort<T extends NCLElement,
                            Em extends NCLMapping>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLInterface<T> {
+        implements NCLInterface<T>, ReferenceSetElement<T> {
 
     protected ElementList<Em> mappings;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -99,14 +101,14 @@ public class NCLSwitchPort<T extends NCLElement,
     public NCLSwitchPort() {
         super();
         mappings = new ElementList<Em>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLSwitchPort(String id) throws XMLException {
         super();
         mappings = new ElementList<Em>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -364,21 +366,27 @@ public class NCLSwitchPort<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
     @Deprecated
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
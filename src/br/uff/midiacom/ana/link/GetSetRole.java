@@ -2,10 +2,12 @@ package br.uff.midiacom.ana.link;
 
 import br.uff.midiacom.ana.connector.NCLRoleElement;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 
 
-public class GetSetRole<Ep extends NCLParam> implements NCLRoleElement<Ep> {
+public class GetSetRole<Ep extends NCLParam> implements NCLRoleElement<Ep>, ReferenceSetElement<Ep> {
 
     private String role;
     private NCLBind bind;
@@ -53,6 +55,12 @@ public class GetSetRole<Ep extends NCLParam> implements NCLRoleElement<Ep> {
     }
     
     
+    @Override
+    public ReferenceSet<Ep> getReferenceSet() {
+        return bind.getReferenceSet();
+    }
+    
+    
     @Override
     public String toString() {
         return "$" + role;
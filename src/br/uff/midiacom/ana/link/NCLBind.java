@@ -43,6 +43,9 @@ import br.uff.midiacom.ana.connector.*;
 import br.uff.midiacom.ana.interfaces.*;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.descriptor.NCLLayoutDescriptor;
@@ -53,8 +56,6 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -103,7 +104,7 @@ public class NCLBind<T extends NCLElement,
                      Epr extends NCLParam,
                      R extends ExternalReferenceType>
         extends NCLElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<Epr>, PostReferenceElement {
+        implements NCLElement<T>, ReferenceSetElement<Epr>, PostReferenceElement {
 
     protected Er role;
     protected En component;
@@ -111,7 +112,7 @@ public class NCLBind<T extends NCLElement,
     protected Object descriptor;
     protected ElementList<Ep> bindParams;
     
-    protected ArrayList<Epr> references;
+    protected ReferenceSet<Epr> references;
     
 
     /**
@@ -122,8 +123,8 @@ public class NCLBind<T extends NCLElement,
      */
     public NCLBind() throws XMLException {
         super();
-        bindParams = new ElementList<Ep>();
-        references = new ArrayList<Epr>();
+        bindParams = ElementList.empty();
+        references = new ReferenceSet<Epr>();
     }
     
     
@@ -325,10 +326,10 @@ public class NCLBind<T extends NCLElement,
         
         if(aux != null){
             if(aux instanceof NCLLayoutDescriptor)
-                ((El) descriptor).removeReference(this);
+                ((El) aux).removeReference(this);
             else{
-                ((R) descriptor).getTarget().removeReference(this);
-                ((R) descriptor).getAlias().removeReference(this);
+                ((R) aux).getTarget().removeReference(this);
+                ((R) aux).getAlias().removeReference(this);
             }
         }
     }
@@ -368,6 +369,9 @@ public class NCLBind<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean addBindParam(Ep param) throws XMLException {
+        if(bindParams.isReadOnly())
+            bindParams = new ElementList<Ep>();
+        
         if(bindParams.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -627,6 +631,7 @@ public class NCLBind<T extends NCLElement,
         // set the component (required)
         att_name = NCLElementAttributes.COMPONENT.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             T aux;
             if((aux = (T) getParent()) == null || (aux = (T) aux.getParent()) == null)
                 throw new NCLParsingException("Could not find element " + att_var);
@@ -665,6 +670,7 @@ public class NCLBind<T extends NCLElement,
         // set the interface (optional)
         att_name = NCLElementAttributes.INTERFACE.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty()){
+            att_var = internId(att_var);
             Ei refEl = (Ei) getComponent().findInterface(att_var);
             if(refEl == null){
                 refEl = (Ei) new NCLArea(att_var);
@@ -758,21 +764,27 @@ public class NCLBind<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Epr reference) throws XMLException {
+    public synchronized boolean addReference(Epr reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Epr reference) throws XMLException {
+    public synchronized boolean removeReference(Epr reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
     @Deprecated
-    public ArrayList<Epr> getReferences() {
+    public synchronized ArrayList<Epr> getReferences() {
+        return new ArrayList<Epr>(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet<Epr> getReferenceSet() {
         return references;
     }
     
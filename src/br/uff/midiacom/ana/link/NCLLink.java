@@ -103,8 +103,8 @@ public class NCLLink<T extends NCLElement,
      */
     public NCLLink() {
         super();
-        linkParams = new ElementList<Ep>();
-        binds = new ElementList<Eb>();
+        linkParams = ElementList.empty();
+        binds = ElementList.empty();
     }
     
     
@@ -205,6 +205,9 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the parameter is null.
      */
     public boolean addLinkParam(Ep param) throws XMLException {
+        if(linkParams.isReadOnly())
+            linkParams = new ElementList<Ep>();
+        
         if(linkParams.add(param)){
             notifyInserted((T) param);
             param.setParent(this);
@@ -290,6 +293,9 @@ public class NCLLink<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        if(binds.isReadOnly())
+            binds = new ElementList<Eb>();
+        
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent(this);
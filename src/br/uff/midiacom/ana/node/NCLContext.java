@@ -709,6 +709,24 @@ public class NCLContext<T extends NCLElement,
         
         refer = null;
         refer_id = null;
+        
+        for(Ept p : ports)
+            p.clean();
+        
+        for(Epp p : properties)
+            p.clean();
+        
+        for(En n : nodes)
+            n.clean();
+        
+        for(El l : links)
+            l.clean();
+        
+        for(Em m : metas)
+            m.clean();
+        
+        for(Emt m : metadatas)
+            m.clean();
     }
     
 
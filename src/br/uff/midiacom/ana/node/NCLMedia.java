@@ -44,6 +44,9 @@ import br.uff.midiacom.ana.interfaces.*;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.descriptor.NCLDescriptor;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -55,7 +58,6 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -108,7 +110,7 @@ public class NCLMedia<T extends NCLElement,
                       Ei extends NCLInterface,
                       R extends ExternalReferenceType>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLNode<T, En, Ei>, PostReferenceElement {
+        implements NCLNode<T, En, Ei>, ReferenceSetElement<T>, PostReferenceElement {
 
     protected SrcType src;
     protected NCLMimeType type;
@@ -118,7 +120,7 @@ public class NCLMedia<T extends NCLElement,
     protected ElementList<Ea> areas;
     protected ElementList<Ep> properties;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
     
     
     /**
@@ -129,17 +131,17 @@ public class NCLMedia<T extends NCLElement,
      */
     public NCLMedia() {
         super();
-        areas = new ElementList<Ea>();
-        properties = new ElementList<Ep>();
-        references = new ArrayList<T>();
+        areas = ElementList.empty();
+        properties = ElementList.empty();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLMedia(String id) throws XMLException {
         super();
-        areas = new ElementList<Ea>();
-        properties = new ElementList<Ep>();
-        references = new ArrayList<T>();
+        areas = ElementList.empty();
+        properties = ElementList.empty();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -599,6 +601,9 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the area is null.
      */
     public boolean addArea(Ea area) throws XMLException {
+        if(areas.isReadOnly())
+            areas = new ElementList<Ea>();
+        
         if(areas.add(area)){
             notifyInserted((T) area);
             area.setParent(this);
@@ -620,7 +625,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the area is null.
      */
     public boolean removeArea(Ea area) throws XMLException {
-        if(!area.getReferences().isEmpty())
+        if(!area.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -736,6 +741,9 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean addProperty(Ep property) throws XMLException {
+        if(properties.isReadOnly())
+            properties = new ElementList<Ep>();
+        
         if(properties.add(property)){
             notifyInserted((T) property);
             property.setParent(this);
@@ -757,7 +765,7 @@ public class NCLMedia<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean removeProperty(Ep property) throws XMLException {
-        if(!property.getReferences().isEmpty())
+        if(!property.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -1096,7 +1104,7 @@ public class NCLMedia<T extends NCLElement,
         // set the src (optional)
         att_name = NCLElementAttributes.SRC.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setSrc(new SrcType(att_var));
+            setSrc(SrcType.valueOf(att_var));
     }
     
     
@@ -1294,20 +1302,26 @@ public class NCLMedia<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
@@ -42,6 +42,9 @@ import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.PostReferenceElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
@@ -53,7 +56,6 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -107,7 +109,7 @@ public class NCLSwitch<T extends NCLElement,
                        R extends ExternalReferenceType,
                        Eb extends NCLBindRule<T, En, Er, R>>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLNode<T, En, Ei>, PostReferenceElement {
+        implements NCLNode<T, En, Ei>, ReferenceSetElement<T>, PostReferenceElement {
 
     protected Object refer;
     protected En defaultComponent;
@@ -115,7 +117,7 @@ public class NCLSwitch<T extends NCLElement,
     protected ElementList<Eb> binds;
     protected ElementList<En> nodes;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -126,19 +128,19 @@ public class NCLSwitch<T extends NCLElement,
      */
     public NCLSwitch() {
         super();
-        ports = new ElementList<Ep>();
-        binds = new ElementList<Eb>();
-        nodes = new ElementList<En>();
-        references = new ArrayList<T>();
+        ports = ElementList.empty();
+        binds = ElementList.empty();
+        nodes = ElementList.empty();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLSwitch(String id) throws XMLException {
         super();
-        ports = new ElementList<Ep>();
-        binds = new ElementList<Eb>();
-        nodes = new ElementList<En>();
-        references = new ArrayList<T>();
+        ports = ElementList.empty();
+        binds = ElementList.empty();
+        nodes = ElementList.empty();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -288,6 +290,9 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean addPort(Ep port) throws XMLException {
+        if(ports.isReadOnly())
+            ports = new ElementList<Ep>();
+        
         if(ports.add(port)){
             notifyInserted((T) port);
             port.setParent(this);
@@ -309,7 +314,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean removePort(Ep port) throws XMLException {
-        if(!port.getReferences().isEmpty())
+        if(!port.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -462,6 +467,9 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the bind is null.
      */
     public boolean addBind(Eb bind) throws XMLException {
+        if(binds.isReadOnly())
+            binds = new ElementList<Eb>();
+        
         if(binds.add(bind)){
             notifyInserted((T) bind);
             bind.setParent((T) this);
@@ -546,6 +554,9 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean addNode(En node) throws XMLException {
+        if(nodes.isReadOnly())
+            nodes = new ElementList<En>();
+        
         if(nodes.add(node)){
             notifyInserted((T) node);
             node.setParent(this);
@@ -568,7 +579,7 @@ public class NCLSwitch<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean removeNode(En node) throws XMLException {
-        if(!node.getReferences().isEmpty())
+        if(!ReferenceSet.of(node).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -966,7 +977,7 @@ public class NCLSwitch<T extends NCLElement,
         if(element.getTagName().equals(NCLElementAttributes.DEFAULTCOMPONENT.toString())){
             att_name = NCLElementAttributes.COMPONENT.toString();
             if(!(att_var = element.getAttribute(att_name)).isEmpty())
-                setDefaultComponent(nodes.get(att_var));
+                setDefaultComponent(nodes.get(internId(att_var)));
         }
     }
     
@@ -1094,20 +1105,26 @@ public class NCLSwitch<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
@@ -38,14 +38,15 @@
 package br.uff.midiacom.ana.region;
 
 import br.uff.midiacom.ana.NCLElement;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -109,7 +110,7 @@ import org.w3c.dom.NodeList;
 public class NCLRegion<T extends NCLElement,
                        Er extends NCLRegion>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<T> {
+        implements NCLElement<T>, ReferenceSetElement<T> {
 
     protected String title;
     protected Object left;
@@ -121,7 +122,7 @@ public class NCLRegion<T extends NCLElement,
     protected Integer zIndex;
     protected ElementList<Er> regions;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -133,14 +134,14 @@ public class NCLRegion<T extends NCLElement,
     public NCLRegion() {
         super();
         regions = new ElementList<Er>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
     public NCLRegion(String id) throws XMLException {
         super();
         regions = new ElementList<Er>();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
         setId(id);
     }
     
@@ -814,7 +815,7 @@ public class NCLRegion<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean removeRegion(Er region) throws XMLException {
-        if(!region.getReferences().isEmpty())
+        if(!region.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -1302,20 +1303,26 @@ public class NCLRegion<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList<T> getReferences() {
+    public synchronized ArrayList<T> getReferences() {
+        return new ArrayList<T>(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet<T> getReferenceSet() {
         return references;
     }
 
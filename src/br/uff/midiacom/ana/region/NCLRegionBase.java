@@ -243,7 +243,7 @@ public class NCLRegionBase<T extends NCLElement,
      *          if the element representing the region is null.
      */
     public boolean removeRegion(Er region) throws XMLException {
-        if(!region.getReferences().isEmpty())
+        if(!region.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -589,15 +589,16 @@ public class NCLRegionBase<T extends NCLElement,
             }   
         }
         else{
-            for(Ei imp : imports){
-                if(imp.getAlias().equals(alias)){
-                    NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                    Object ref = d.getHead().findRegion(imp.getBaseId(), null, id);
-                    if(ref instanceof NCLRegion)
-                        return createExternalRef(imp, (Er) ref);
-                    else
-                        return createExternalRef(imp, (Er) ((R) ref).getTarget());
-                }
+            Ei imp = aliases.get(alias);
+            if(imp != null){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                Object ref = d.getHead().searchRegion(imp.getBaseId(), null, id);
+                if(ref == null)
+                    return null;
+                if(ref instanceof NCLRegion)
+                    return getExternalRef(imp, (Er) ref);
+                else
+                    return getExternalRef(imp, (Er) ((R) ref).getTarget());
             }
         }
         
@@ -636,6 +637,23 @@ public class NCLRegionBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to a region imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to a region.
+     */
+    protected R getExternalRef(Ei imp, Er ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to a region.
      * This function must be overwritten in classes that extends this one.
@@ -41,14 +41,20 @@ import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLBase;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.loader.NCLImportCache;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import org.w3c.dom.Element;
 
 
@@ -77,13 +83,14 @@ import org.w3c.dom.Element;
 public abstract class NCLImport<T extends NCLElement,
                                 Ed extends NCLDoc>
         extends NCLElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<T> {
+        implements NCLElement<T>, ReferenceSetElement<T> {
 
     protected String alias;
     protected SrcType documentURI;
 
     protected Ed importedDoc;
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
+    protected transient IdentityHashMap<ReferredElement, ExternalReferenceType> externalRefs;
 
 
     /**
@@ -94,7 +101,7 @@ public abstract class NCLImport<T extends NCLElement,
      */
     public NCLImport() {
         super();
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
 
 
@@ -116,6 +123,14 @@ public abstract class NCLImport<T extends NCLElement,
         
         String aux = this.alias;
         this.alias = alias;
+        
+        // the base indexes its import elements by alias
+        Object parent = getParent();
+        if(parent instanceof NCLBase)
+            ((NCLBase) parent).getAliasIndex().invalidate();
+        else if(parent instanceof NCLImportedDocumentBase)
+            ((NCLImportedDocumentBase) parent).getAliasIndex().invalidate();
+        
         notifyAltered(NCLElementAttributes.ALIAS, aux, alias);
     }
 
@@ -178,6 +193,7 @@ public abstract class NCLImport<T extends NCLElement,
      */
     public void setImportedDoc(Ed importedDoc) {
         this.importedDoc = importedDoc;
+        clearExternalRefs();
     }
     
     
@@ -192,6 +208,58 @@ public abstract class NCLImport<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference created to an element of the imported document
+     * through this import element or <i>null</i> if no reference to the
+     * element was created yet.
+     * 
+     * @param target
+     *          element of the imported document.
+     * @return 
+     *          reference to the element or <i>null</i> if no reference was
+     *          created yet.
+     */
+    public synchronized ExternalReferenceType getExternalRef(ReferredElement target) {
+        if(externalRefs == null)
+            return null;
+        
+        return externalRefs.get(target);
+    }
+    
+    
+    /**
+     * Adds a reference to an element of the imported document. The import
+     * element keeps only one reference to each element, so if a reference to
+     * the same element was already added, the reference already added is
+     * returned.
+     * 
+     * @param ref
+     *          reference to an element of the imported document.
+     * @return 
+     *          reference kept by the import element.
+     */
+    public synchronized ExternalReferenceType addExternalRef(ExternalReferenceType ref) {
+        if(externalRefs == null)
+            externalRefs = new IdentityHashMap<ReferredElement, ExternalReferenceType>();
+        
+        ExternalReferenceType aux = externalRefs.get(ref.getTarget());
+        if(aux != null)
+            return aux;
+        
+        externalRefs.put(ref.getTarget(), ref);
+        return ref;
+    }
+    
+    
+    /**
+     * Removes all references to elements of the imported document kept by the
+     * import element.
+     */
+    public synchronized void clearExternalRefs() {
+        externalRefs = null;
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLImport))
@@ -239,7 +307,6 @@ public abstract class NCLImport<T extends NCLElement,
             // load the imported document or base depending on the element type
             URI path = null;
             try{
-                Ed aux = createDoc();
                 String sep = File.separator;
                 String loc = ((Ed) getDoc()).getLocation() + sep;
                 if(sep.equals("\\"))
@@ -247,9 +314,15 @@ public abstract class NCLImport<T extends NCLElement,
                 
                 URI base = new URI(loc);
                 path = base.resolve(getDocumentURI().toString());
-                aux.loadXML(new File(path.getPath()));
+                Ed aux = loadImportedDoc(new File(path.getPath()));
                 setImportedDoc(aux);
-                ((Ed) getDoc()).mergeGlobalVariables(aux);
+                
+                // a cached document is shared by other documents, so its
+                // variables are mapped instead of moved to this document
+                if(((Ed) getDoc()).getImportCache() != null)
+                    ((Ed) getDoc()).importGlobalVariables(aux);
+                else
+                    ((Ed) getDoc()).mergeGlobalVariables(aux);
             }catch(XMLException e){
                 throw new NCLParsingException("Error loading document: " + e.getMessage());
             }catch(URISyntaxException e){
@@ -268,6 +341,51 @@ public abstract class NCLImport<T extends NCLElement,
     }
     
     
+    /**
+     * Loads the document imported by the import element. If the document that
+     * has the import element uses a cache of imported documents, the imported
+     * document is searched in the cache before being parsed. The document that
+     * has the import element keeps the reference to the cached document until
+     * it is released.
+     * 
+     * @param file
+     *          file with the imported document content.
+     * @return 
+     *          element representing the imported document.
+     * @throws XMLException 
+     *          if an error occur while parsing the imported document.
+     */
+    protected Ed loadImportedDoc(File file) throws XMLException {
+        NCLImportCache cache = ((Ed) getDoc()).getImportCache();
+        Ed aux;
+        
+        if(cache == null){
+            aux = createDoc();
+            aux.loadXML(file);
+            return aux;
+        }
+        
+        if((aux = (Ed) cache.acquire(file)) != null){
+            ((Ed) getDoc()).addCachedImport(aux);
+            return aux;
+        }
+        
+        cache.startLoading(file);
+        try{
+            aux = createDoc();
+            aux.setImportCache(cache);
+            aux.loadXML(file);
+        }
+        finally{
+            cache.endLoading(file);
+        }
+        
+        aux = (Ed) cache.put(file, aux);
+        ((Ed) getDoc()).addCachedImport(aux);
+        return aux;
+    }
+    
+    
     protected String parseAttributes() {
         String content = "";
         
@@ -316,7 +434,7 @@ public abstract class NCLImport<T extends NCLElement,
         // set the documentURI (required)
         att_name = NCLElementAttributes.DOCUMENTURI.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setDocumentURI(new SrcType(att_var));
+            setDocumentURI(SrcType.valueOf(att_var));
         else
             throw new NCLParsingException("Could not find " + att_name + " attribute.");
     }
@@ -335,20 +453,26 @@ public abstract class NCLImport<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -51,6 +51,7 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.reference.ImportAliasIndex;
 import br.uff.midiacom.ana.util.reference.ReferredElement;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -100,6 +101,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
         implements NCLElement<T> {
 
     protected ElementList<Ei> imports;
+    protected ImportAliasIndex<Ei> aliases;
 
 
     /**
@@ -111,6 +113,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     public NCLImportedDocumentBase() throws XMLException {
         super();
         imports = new ElementList<Ei>();
+        aliases = new ImportAliasIndex<Ei>(this, imports);
     }
     
     
@@ -137,6 +140,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      */
     public boolean addImportNCL(Ei importNCL) throws XMLException {
         if(imports.add(importNCL)){
+            aliases.clear();
             notifyInserted((T) importNCL);
             importNCL.setParent(this);
             return true;
@@ -157,11 +161,12 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean removeImportNCL(Ei importNCL) throws XMLException {
-        if(!importNCL.getReferences().isEmpty())
+        if(!importNCL.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
         if(imports.remove(importNCL)){
+            aliases.remove(importNCL);
             notifyRemoved((T) importNCL);
             return true;
         }
@@ -209,6 +214,17 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the index of the import elements of the base by their alias.
+     * 
+     * @return 
+     *          index of the import elements.
+     */
+    public ImportAliasIndex<Ei> getAliasIndex() {
+        return aliases;
+    }
+
+
     @Override
     public boolean compare(T other) {
         if(other == null || !(other instanceof NCLImportedDocumentBase))
@@ -357,15 +373,16 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          connector or null if no connector was found.
      */
     public Object findConnector(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findConnector(null, id);
-                if(ref instanceof NCLCausalConnector)
-                    return createExternalRef(imp, (NCLCausalConnector) ref);
-                else
-                    return createExternalRef(imp, (NCLCausalConnector) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchConnector(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLCausalConnector)
+                return getExternalRef(imp, (NCLCausalConnector) ref);
+            else
+                return getExternalRef(imp, (NCLCausalConnector) ((R) ref).getTarget());
         }
         
         return null;
@@ -383,15 +400,16 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          descriptor or null if no descriptor was found.
      */
     public Object findDescriptor(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findDescriptor(null, id);
-                if(ref instanceof NCLLayoutDescriptor)
-                    return createExternalRef(imp, (NCLLayoutDescriptor) ref);
-                else
-                    return createExternalRef(imp, (NCLLayoutDescriptor) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchDescriptor(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLLayoutDescriptor)
+                return getExternalRef(imp, (NCLLayoutDescriptor) ref);
+            else
+                return getExternalRef(imp, (NCLLayoutDescriptor) ((R) ref).getTarget());
         }
         
         return null;
@@ -409,7 +427,7 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     public Object findDescriptor(Integer focusIndex) throws XMLException {
         for(Ei imp : imports){
             NCLDoc d = (NCLDoc) imp.getImportedDoc();
-            Object ref = d.getHead().findDescriptor(focusIndex);
+            Object ref = d.getHead().searchDescriptor(focusIndex);
             if(ref != null)
                 return ref;
         }
@@ -429,15 +447,16 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          region or null if no region was found.
      */
     public Object findRegion(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findRegion(null, null, id);
-                if(ref instanceof NCLRegion)
-                    return createExternalRef(imp, (NCLRegion) ref);
-                else
-                    return createExternalRef(imp, (NCLRegion) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchRegion(null, null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLRegion)
+                return getExternalRef(imp, (NCLRegion) ref);
+            else
+                return getExternalRef(imp, (NCLRegion) ((R) ref).getTarget());
         }
         
         return null;
@@ -455,15 +474,16 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          rule or null if no rule was found.
      */
     public Object findRule(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findRule(null, id);
-                if(ref instanceof NCLTestRule)
-                    return createExternalRef(imp, (NCLTestRule) ref);
-                else
-                    return createExternalRef(imp, (NCLTestRule) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchRule(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLTestRule)
+                return getExternalRef(imp, (NCLTestRule) ref);
+            else
+                return getExternalRef(imp, (NCLTestRule) ((R) ref).getTarget());
         }
         
         return null;
@@ -481,15 +501,16 @@ public class NCLImportedDocumentBase<T extends NCLElement,
      *          transition or null if no transition was found.
      */
     public Object findTransition(String alias, String id) throws XMLException {
-        for(Ei imp : imports){
-            if(imp.getAlias().equals(alias)){
-                NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                Object ref = d.getHead().findTransition(null, id);
-                if(ref instanceof NCLTransition)
-                    return createExternalRef(imp, (NCLTransition) ref);
-                else
-                    return createExternalRef(imp, (NCLTransition) ((R) ref).getTarget());
-            }
+        Ei imp = aliases.get(alias);
+        if(imp != null){
+            NCLDoc d = (NCLDoc) imp.getImportedDoc();
+            Object ref = d.getHead().searchTransition(null, id);
+            if(ref == null)
+                return null;
+            if(ref instanceof NCLTransition)
+                return getExternalRef(imp, (NCLTransition) ref);
+            else
+                return getExternalRef(imp, (NCLTransition) ((R) ref).getTarget());
         }
         
         return null;
@@ -517,6 +538,23 @@ public class NCLImportedDocumentBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to an NCL element imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to an NCL element.
+     */
+    protected R getExternalRef(Ei imp, ReferredElement ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to an NCL element.
      * This function must be overwritten in classes that extends this one.
@@ -326,7 +326,7 @@ public class NCLBindRule<T extends NCLElement,
                 throw new NCLParsingException("Could not find element " + att_var);
 
             Ec comp = null;
-            if(aux instanceof NCLDescriptor)
+            if(aux instanceof NCLDescriptorSwitch)
                 comp = (Ec) ((NCLDescriptorSwitch) aux).getDescriptors().get(att_var);
             else if(aux instanceof NCLNode)
                 comp = (Ec) ((NCLNode) aux).findNode(att_var);
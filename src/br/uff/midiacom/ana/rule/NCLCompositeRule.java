@@ -46,6 +46,8 @@ import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -87,12 +89,12 @@ public class NCLCompositeRule<T extends NCLElement,
                               Eb extends NCLBindRule,
                               Et extends NCLTestRule>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLTestRule<T, Eb, Et> {
+        implements NCLTestRule<T, Eb, Et>, ReferenceSetElement<Eb> {
 
     protected NCLOperator operator;
     protected ElementList<Et> rules;
     
-    protected ArrayList<Eb> references;
+    protected ReferenceSet<Eb> references;
 
 
     /**
@@ -104,14 +106,14 @@ public class NCLCompositeRule<T extends NCLElement,
     public NCLCompositeRule() {
         super();
         rules = new ElementList<Et>();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
     }
     
     
     public NCLCompositeRule(String id) throws XMLException {
         super();
         rules = new ElementList<Et>();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
         setId(id);
     }
     
@@ -206,7 +208,7 @@ public class NCLCompositeRule<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean removeRule(Et rule) throws XMLException {
-        if(!rule.getReferences().isEmpty())
+        if(!ReferenceSet.of(rule).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -521,20 +523,26 @@ public class NCLCompositeRule<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
@@ -46,6 +46,8 @@ import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
 import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import java.util.ArrayList;
 import org.w3c.dom.Element;
 
@@ -76,13 +78,13 @@ public class NCLRule<T extends NCLElement,
                      Eb extends NCLBindRule,
                      Et extends NCLTestRule>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLTestRule<T, Eb, Et> {
+        implements NCLTestRule<T, Eb, Et>, ReferenceSetElement<Eb> {
 
     protected Ev var;
     protected NCLComparator comparator;
     protected String value;
     
-    protected ArrayList<Eb> references;
+    protected ReferenceSet<Eb> references;
 
 
     /**
@@ -93,13 +95,13 @@ public class NCLRule<T extends NCLElement,
      */
     public NCLRule() {
         super();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
     }
     
     
     public NCLRule(String id) throws XMLException {
         super();
-        references = new ArrayList<Eb>();
+        references = new ReferenceSet<Eb>();
         setId(id);
     }
 
@@ -419,20 +421,26 @@ public class NCLRule<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Eb reference) throws XMLException {
+    public synchronized boolean addReference(Eb reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Eb reference) throws XMLException {
+    public synchronized boolean removeReference(Eb reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
     
@@ -51,6 +51,7 @@ import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
 import br.uff.midiacom.ana.util.ncl.NCLElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -156,7 +157,7 @@ public class NCLRuleBase<T extends NCLElement,
      *          if the element representing the rule is null.
      */
     public boolean removeRule(Et rule) throws XMLException {
-        if(!rule.getReferences().isEmpty())
+        if(!ReferenceSet.of(rule).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -438,15 +439,16 @@ public class NCLRuleBase<T extends NCLElement,
             }
         }
         else{
-            for(Ei imp : imports){
-                if(imp.getAlias().equals(alias)){
-                    NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                    Object ref = d.getHead().findRule(null, id);
-                    if(ref instanceof NCLTestRule)
-                        return createExternalRef(imp, (Et) ref);
-                    else
-                        return createExternalRef(imp, (Et) ((R) ref).getTarget());
-                }
+            Ei imp = aliases.get(alias);
+            if(imp != null){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                Object ref = d.getHead().searchRule(null, id);
+                if(ref == null)
+                    return null;
+                if(ref instanceof NCLTestRule)
+                    return getExternalRef(imp, (Et) ref);
+                else
+                    return getExternalRef(imp, (Et) ((R) ref).getTarget());
             }
         }
         
@@ -488,6 +490,23 @@ public class NCLRuleBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to a rule imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to a rule.
+     */
+    protected R getExternalRef(Ei imp, Et ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to a rule.
      * This function must be overwritten in classes that extends this one.
@@ -40,7 +40,9 @@ package br.uff.midiacom.ana.transition;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.util.TimeType;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.util.enums.NCLTransitionDirection;
 import br.uff.midiacom.ana.util.enums.NCLTransitionSubtype;
 import br.uff.midiacom.ana.util.enums.NCLTransitionType;
@@ -49,7 +51,6 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.descriptor.NCLDescriptor;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
-import java.util.ArrayList;
 import org.w3c.dom.Element;
 
 
@@ -85,7 +86,7 @@ import org.w3c.dom.Element;
 public class NCLTransition<T extends NCLElement,
                            Ed extends NCLDescriptor>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<Ed> {
+        implements NCLElement<T>, ReferenceSetElement<Ed> {
 
     protected NCLTransitionType type;
     protected NCLTransitionSubtype subtype;
@@ -99,7 +100,7 @@ public class NCLTransition<T extends NCLElement,
     protected Integer borderWidth;
     protected Object borderColor;
     
-    protected ArrayList<Ed> references;
+    protected ReferenceSet<Ed> references;
 
 
     /**
@@ -110,13 +111,13 @@ public class NCLTransition<T extends NCLElement,
      */
     public NCLTransition() {
         super();
-        references = new ArrayList<Ed>();
+        references = new ReferenceSet<Ed>();
     }
     
     
     public NCLTransition(String id) throws XMLException {
         super();
-        references = new ArrayList<Ed>();
+        references = new ReferenceSet<Ed>();
         setId(id);
     }
     
@@ -838,7 +839,7 @@ public class NCLTransition<T extends NCLElement,
         // set the duration (optional)
         att_name = NCLElementAttributes.DUR.toString();
         if(!(att_var = element.getAttribute(att_name)).isEmpty())
-            setDur(new TimeType(att_var));
+            setDur(TimeType.valueOf(att_var));
     }
     
     
@@ -1022,20 +1023,26 @@ public class NCLTransition<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(Ed reference) throws XMLException {
+    public synchronized boolean addReference(Ed reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(Ed reference) throws XMLException {
+    public synchronized boolean removeReference(Ed reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 
@@ -147,7 +147,7 @@ public class NCLTransitionBase<T extends NCLElement,
      *          if the element representing the transition is null.
      */
     public boolean removeTransition(Et transition) throws XMLException {
-        if(!transition.getReferences().isEmpty())
+        if(!transition.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -411,15 +411,16 @@ public class NCLTransitionBase<T extends NCLElement,
                 return result;
         }
         else{
-            for(Ei imp : imports){
-                if(imp.getAlias().equals(alias)){
-                    NCLDoc d = (NCLDoc) imp.getImportedDoc();
-                    Object ref = d.getHead().findTransition(null, id);
-                    if(ref instanceof NCLTransition)
-                        return createExternalRef(imp, (Et) ref);
-                    else
-                        return createExternalRef(imp, (Et) ((R) ref).getTarget());
-                }
+            Ei imp = aliases.get(alias);
+            if(imp != null){
+                NCLDoc d = (NCLDoc) imp.getImportedDoc();
+                Object ref = d.getHead().searchTransition(null, id);
+                if(ref == null)
+                    return null;
+                if(ref instanceof NCLTransition)
+                    return getExternalRef(imp, (Et) ref);
+                else
+                    return getExternalRef(imp, (Et) ((R) ref).getTarget());
             }
         }
         
@@ -449,6 +450,23 @@ public class NCLTransitionBase<T extends NCLElement,
     }
 
 
+    /**
+     * Returns the reference to a transition imported through an import
+     * element. The import element keeps only one reference to each imported
+     * element, which is created the first time the element is referred.
+     *
+     * @return
+     *          element representing a reference to a transition.
+     */
+    protected R getExternalRef(Ei imp, Et ref) throws XMLException {
+        R aux = (R) imp.getExternalRef(ref);
+        if(aux == null)
+            aux = (R) imp.addExternalRef(createExternalRef(imp, ref));
+        
+        return aux;
+    }
+
+
     /**
      * Function to create a reference to a transition.
      * This function must be overwritten in classes that extends this one.
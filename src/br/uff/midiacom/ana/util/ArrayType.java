@@ -40,15 +40,17 @@ package br.uff.midiacom.ana.util;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.Vector;
 
 
 /**
  * This class represents an value represented as an array (ex.: 99,99,99).
+ * The text of an array created from a sequence of characters is kept, so the
+ * conversion back to text gives the values as they were written.
  */
 public class ArrayType implements Serializable {
 
     private double[] values;
+    private String text;
     
     
     /**
@@ -65,26 +67,52 @@ public class ArrayType implements Serializable {
 
 
     /**
-     * Create the array from an array of values.
+     * Create the array from a sequence of characters with the values separated
+     * by commas. The sequence is parsed directly, without creating
+     * intermediate objects.
      *
      * @param values
-     *          array of values.
+     *          sequence of characters representing the values.
      * @throws XMLException
      *          if one value of the array is negative.
+     * @throws NumberFormatException
+     *          if one value of the array is not a number.
      */
-    public ArrayType(String values) throws XMLException {
-        Vector<Double> array = new Vector<Double>();
-        while(values.contains(",")){
-            int index = values.indexOf(",");
-            array.add(new Double(values.substring(0, index)));
-            values = values.substring(index + 1);
+    public ArrayType(CharSequence values) throws XMLException {
+        int end = values.length();
+        int size = 1;
+        for(int i = 0; i < end; i++){
+            if(values.charAt(i) == ',')
+                size++;
+        }
+
+        double[] a = new double[size];
+        StringBuilder trimmed = null;
+        int begin = 0;
+        for(int k = 0; k < size; k++){
+            int stop = DecimalParser.indexOf(values, ',', begin, end);
+            if(stop < 0)
+                stop = end;
+
+            int b = DecimalParser.trimBegin(values, begin, stop);
+            int e = DecimalParser.trimEnd(values, b, stop);
+            a[k] = DecimalParser.parseDouble(values, b, e);
+            
+            // the text is copied only if it has blanks around the values
+            if(trimmed == null && (b != begin || e != stop)){
+                trimmed = new StringBuilder(end);
+                trimmed.append(values, 0, begin);
+            }
+            if(trimmed != null){
+                trimmed.append(values, b, e);
+                if(k < size - 1)
+                    trimmed.append(',');
+            }
+            begin = stop + 1;
         }
-        array.add(new Double(values));
-        double[] a = new double[array.size()];
-        for(int k = 0; k < array.size(); k++)
-            a[k] = (double) array.elementAt(k);
 
         setValues(a);
+        text = trimmed != null ? trimmed.toString() : values.toString();
     }
 
 
@@ -124,13 +152,16 @@ public class ArrayType implements Serializable {
 
     @Override
     public String toString() {
-        String result = "";
+        if(text != null)
+            return text;
+        
+        StringBuilder result = new StringBuilder();
         for(int i = 0; i < values.length; i++){
-            result += values[i];
+            result.append(values[i]);
             if(i < values.length - 1)
-                result += ",";
+                result.append(',');
         }
-        return result;
+        return result.toString();
     }
     
     
@@ -139,7 +170,7 @@ public class ArrayType implements Serializable {
         if(o == null || !(o instanceof ArrayType))
             return false;
         
-        return toString().equals(o.toString());
+        return Arrays.equals(values, ((ArrayType) o).values);
     }
     
     
@@ -0,0 +1,291 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+
+/**
+ * This class contains the number parsing and formatting functions used by
+ * the value types. The parsing functions work over a range of a character
+ * sequence and do not allocate.
+ * 
+ * A decimal number is represented by an unscaled long value and a scale, the
+ * number of digits after the decimal point. This representation keeps the
+ * digits exactly as they were written.
+ */
+final class DecimalParser {
+
+    private static final long[] POWERS = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Maximum number of digits accepted in a decimal number. */
+    static final int MAX_DIGITS = 18;
+
+
+    private DecimalParser() {}
+
+
+    /**
+     * Returns the index of the first non blank character in the range.
+     */
+    static int trimBegin(CharSequence s, int begin, int end) {
+        while(begin < end && s.charAt(begin) <= ' ')
+            begin++;
+        return begin;
+    }
+
+
+    /**
+     * Returns the index after the last non blank character in the range.
+     */
+    static int trimEnd(CharSequence s, int begin, int end) {
+        while(end > begin && s.charAt(end - 1) <= ' ')
+            end--;
+        return end;
+    }
+
+
+    /**
+     * Returns the index of a character in the range or -1 if the range does
+     * not contain the character.
+     */
+    static int indexOf(CharSequence s, char c, int begin, int end) {
+        for(int i = begin; i < end; i++){
+            if(s.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Parses an integer number with an optional sign.
+     *
+     * @throws NumberFormatException
+     *          if the range does not contain an integer number.
+     */
+    static int parseInt(CharSequence s, int begin, int end) throws NumberFormatException {
+        long value = parseUnscaled(s, begin, end);
+        if(value > Integer.MAX_VALUE || value < Integer.MIN_VALUE || indexOf(s, '.', begin, end) >= 0)
+            throw error(s, begin, end);
+
+        return (int) value;
+    }
+
+
+    /**
+     * Parses the digits of a decimal number with an optional sign, ignoring
+     * the decimal point. The number scale is given by <i>scale</i>.
+     *
+     * @throws NumberFormatException
+     *          if the range does not contain a decimal number or if the number
+     *          has more than 18 digits.
+     */
+    static long parseUnscaled(CharSequence s, int begin, int end) throws NumberFormatException {
+        int i = begin;
+        boolean negative = false;
+        if(i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')){
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        boolean dot = false;
+        for(; i < end; i++){
+            char c = s.charAt(i);
+            if(c >= '0' && c <= '9'){
+                if(++digits > MAX_DIGITS)
+                    throw error(s, begin, end);
+                value = value * 10 + (c - '0');
+            }
+            else if(c == '.' && !dot)
+                dot = true;
+            else
+                throw error(s, begin, end);
+        }
+
+        if(digits == 0)
+            throw error(s, begin, end);
+
+        return negative ? -value : value;
+    }
+
+
+    /**
+     * Returns the number of digits after the decimal point in the range.
+     */
+    static int scale(CharSequence s, int begin, int end) {
+        int dot = indexOf(s, '.', begin, end);
+        return dot < 0 ? 0 : end - dot - 1;
+    }
+
+
+    /**
+     * Parses a floating point number. The result is the same returned by
+     * <i>Double.parseDouble</i>. Only numbers with exponents or too many
+     * digits are delegated to it.
+     *
+     * @throws NumberFormatException
+     *          if the range does not contain a number.
+     */
+    static double parseDouble(CharSequence s, int begin, int end) throws NumberFormatException {
+        int i = begin;
+        boolean negative = false;
+        if(i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')){
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for(; i < end; i++){
+            char c = s.charAt(i);
+            if(c >= '0' && c <= '9'){
+                if(value == 0 && c == '0' && !dot){
+                    digits = Math.max(digits, 1);
+                    continue;
+                }
+                if(++digits > 15)
+                    return Double.parseDouble(s.subSequence(begin, end).toString());
+                value = value * 10 + (c - '0');
+                if(dot)
+                    scale++;
+            }
+            else if(c == '.' && !dot)
+                dot = true;
+            else
+                return Double.parseDouble(s.subSequence(begin, end).toString());
+        }
+
+        if(digits == 0)
+            throw error(s, begin, end);
+
+        // both values are exact, so the division is correctly rounded
+        double result = value / DOUBLE_POWERS[scale];
+        return negative ? -result : result;
+    }
+
+
+    /**
+     * Returns the double value of a decimal number.
+     */
+    static double toDouble(long unscaled, int scale) {
+        if(scale < DOUBLE_POWERS.length && Math.abs(unscaled) < (1L << 53))
+            return unscaled / DOUBLE_POWERS[scale];
+
+        StringBuilder result = new StringBuilder();
+        appendDecimal(result, unscaled, scale);
+        return Double.parseDouble(result.toString());
+    }
+
+
+    /**
+     * Returns the decimal representation of a double value, with the digits
+     * given by <i>Double.toString</i>. Values with more than 18 digits are
+     * rounded.
+     *
+     * @throws NumberFormatException
+     *          if the integer part of the value has more than 18 digits.
+     */
+    static BigDecimal toDecimal(double value) throws NumberFormatException {
+        BigDecimal result = BigDecimal.valueOf(value);
+        if(result.scale() < 0)
+            result = result.setScale(0);
+        if(result.scale() > MAX_DIGITS)
+            result = result.setScale(MAX_DIGITS, RoundingMode.HALF_EVEN);
+        if(result.precision() > MAX_DIGITS)
+            result = result.setScale(Math.max(0, result.scale() - result.precision() + MAX_DIGITS), RoundingMode.HALF_EVEN);
+        if(result.precision() > MAX_DIGITS)
+            throw new NumberFormatException("Invalid number: " + value);
+
+        return result;
+    }
+
+
+    /**
+     * Returns 10 raised to a power.
+     */
+    static long power(int exponent) {
+        return POWERS[exponent];
+    }
+
+
+    /**
+     * Appends the text of a decimal number to a builder.
+     */
+    static void appendDecimal(StringBuilder builder, long unscaled, int scale) {
+        if(unscaled < 0){
+            builder.append('-');
+            unscaled = -unscaled;
+        }
+
+        if(scale == 0){
+            builder.append(unscaled);
+            return;
+        }
+
+        long p = POWERS[scale];
+        builder.append(unscaled / p);
+        builder.append('.');
+
+        long fraction = unscaled % p;
+        for(long d = p / 10; d > fraction && d > 1; d /= 10)
+            builder.append('0');
+        builder.append(fraction);
+    }
+
+
+    private static NumberFormatException error(CharSequence s, int begin, int end) {
+        return new NumberFormatException("Invalid number: " + s.subSequence(begin, end));
+    }
+}
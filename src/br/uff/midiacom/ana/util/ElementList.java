@@ -44,8 +44,11 @@ import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -58,14 +61,45 @@ import java.util.List;
 public class ElementList<T extends XMLElement>
         implements Iterable<T>, Serializable {
 
+    private static final ElementList EMPTY = new ReadOnlyElementList();
+    
     protected List<T> elements;
 
 
     /**
-     * Element list constructor.
+     * Element list constructor. The list storage is only allocated when the
+     * first element is added.
      */
     public ElementList() {
-        elements = new ArrayList<T>();
+        elements = Collections.emptyList();
+    }
+
+
+    /**
+     * Returns a shared empty list that can not be modified. Elements keep this
+     * list until their first child is added, avoiding to allocate a list for
+     * each element.
+     *
+     * @param <T>
+     *          the type of element stored in the list.
+     * @return
+     *          shared empty list.
+     */
+    public static <T extends XMLElement> ElementList<T> empty() {
+        return (ElementList<T>) EMPTY;
+    }
+
+
+    /**
+     * Verifies if the list can not be modified. Only the shared empty list
+     * can not be modified. Adding elements to it throws an
+     * UnsupportedOperationException.
+     *
+     * @return
+     *          true if the list can not be modified.
+     */
+    public boolean isReadOnly() {
+        return false;
     }
 
 
@@ -135,6 +169,12 @@ public class ElementList<T extends XMLElement>
     public boolean add(T element) throws XMLException {
         if(element == null)
             throw new XMLException("Null element.");
+        
+        if(elements.isEmpty()){
+            if(!(elements instanceof ArrayList))
+                elements = new ArrayList<T>();
+            return elements.add(element);
+        }
 
         for(T el : elements){
             if(el.compare(element)){
@@ -205,13 +245,47 @@ public class ElementList<T extends XMLElement>
      *          element was not added.
      */
     public boolean addAll(ElementList<T> list) {
+        if(list.isEmpty())
+            return true;
+        
+        return addElements(list);
+    }
+
+
+    /**
+     * Adds a collection of elements in the list. If the collection has an
+     * element already in this list, the element is not added again.
+     *
+     * @param list
+     *          collection of elements to be added.
+     * @return
+     *          true if all elements were added and false if at least one
+     *          element was not added.
+     */
+    public boolean addAll(Collection<? extends T> list) {
+        if(list.isEmpty())
+            return true;
+        
+        return addElements(list);
+    }
+
+
+    private boolean addElements(Iterable<? extends T> list) {
         boolean result = true;
         
+        if(!(elements instanceof ArrayList))
+            elements = new ArrayList<T>();
+        
+        // the elements are compared by identity, so a set avoids scanning
+        // the list for each element added
+        Set<T> present = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+        present.addAll(elements);
+        
         for(T aux : list){
-            if(elements.contains(aux))
-                result = false;
-            else
+            if(present.add(aux))
                 elements.add(aux);
+            else
+                result = false;
         }
         
         return result;
@@ -282,7 +356,7 @@ public class ElementList<T extends XMLElement>
         T aux = elements.get(0);
         if(aux instanceof NCLIdentifiableElementPrototype){
             for(T el : elements){
-                if(((NCLIdentifiableElementPrototype) el).getId().equals(ident))
+                if(ident.equals(((NCLIdentifiableElementPrototype) el).getId()))
                     return el;
             }
         }
@@ -312,4 +386,44 @@ public class ElementList<T extends XMLElement>
     public int getPosition(T element) {
         return elements.indexOf(element);
     }
+
+    
+    
+    /**
+     * Shared empty list. Adding elements to this list is not allowed: every
+     * call that would add an element throws an UnsupportedOperationException.
+     */
+    private static class ReadOnlyElementList<T extends XMLElement> extends ElementList<T> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+        
+        
+        @Override
+        public boolean add(T element) throws XMLException {
+            throw new UnsupportedOperationException("Read only list.");
+        }
+        
+        
+        @Override
+        public boolean addAll(ElementList<T> list) {
+            if(list.isEmpty())
+                return true;
+            
+            throw new UnsupportedOperationException("Read only list.");
+        }
+        
+        
+        @Override
+        public boolean addAll(Collection<? extends T> list) {
+            if(list.isEmpty())
+                return true;
+            
+            throw new UnsupportedOperationException("Read only list.");
+        }
+    }
 }
@@ -39,6 +39,7 @@ package br.uff.midiacom.ana.util;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.io.Serializable;
+import java.math.BigDecimal;
 
 
 /**
@@ -47,13 +48,42 @@ import java.io.Serializable;
  *   <li>without the percentage sign as a number between 0 and 1</li>
  *   <li>with the percentage sign as a number between 0 and 100 (ex.: 99.99%)</li>
  * </ul>
+ * The value is stored as a fixed point decimal number, keeping the digits as
+ * they were written.
  */
 public class PercentageType implements Serializable {
 
-    private double value;
+    private static final ValueCache<PercentageType> cache = new ValueCache<PercentageType>(1024);
+
+    private long digits;
+    private int scale;
     private boolean signed;
 
 
+    /**
+     * Returns a percentage shared by all the elements that use the same
+     * percentage String. Percentages are not modified after created, so the
+     * same instance can be used by many elements.
+     *
+     * @param value
+     *          String representing the percentage.
+     * @return
+     *          shared percentage.
+     * @throws XMLException
+     *          if the String is null, empty, malformed or out of bounds.
+     */
+    public static PercentageType valueOf(String value) throws XMLException {
+        if(value == null)
+            throw new XMLException("Null value String");
+
+        PercentageType result = cache.get(value);
+        if(result == null)
+            result = cache.put(value, new PercentageType(value));
+
+        return result;
+    }
+
+
     /**
      * Creates the percentage as a signed value.
      *
@@ -86,36 +116,66 @@ public class PercentageType implements Serializable {
 
 
     /**
-     * Creates the percentage as a String.
+     * Creates the percentage from a sequence of characters. The sequence is
+     * parsed directly, without creating intermediate objects.
      *
      * @param value
-     *          String representing the percentage.
+     *          sequence of characters representing the percentage.
      * @throws XMLException
-     *          if the String is null, empty or out of bounds.
+     *          if the sequence is null, empty or out of bounds.
+     * @throws NumberFormatException
+     *          if the sequence is not a number.
      */
-    public PercentageType(String value) throws XMLException {
+    public PercentageType(CharSequence value) throws XMLException {
         if(value == null)
             throw new XMLException("Null value String");
-        if("".equals(value.trim()))
+
+        int begin = DecimalParser.trimBegin(value, 0, value.length());
+        int end = DecimalParser.trimEnd(value, begin, value.length());
+        if(begin == end)
             throw new XMLException("Empty value String");
 
-        int index = value.indexOf("%");
-        if(index > 0){
-            value = value.substring(0, index);
+        int index = DecimalParser.indexOf(value, '%', begin, end);
+        if(index > begin){
+            end = DecimalParser.trimEnd(value, begin, index);
             signed = true;
         }
 
-        setValue(new Double(value));
+        long digits;
+        try{
+            digits = DecimalParser.parseUnscaled(value, begin, end);
+        }
+        catch(NumberFormatException ex){
+            // numbers the fast parser does not handle, like exponents
+            setValue(Double.parseDouble(value.subSequence(begin, end).toString()));
+            return;
+        }
+        setValue(digits, DecimalParser.scale(value, begin, end));
     }
 
 
     private void setValue(double value) throws XMLException {
-        if(!signed && (value < 0 || value > 1))
+        checkBounds(value);
+
+        BigDecimal aux = DecimalParser.toDecimal(value);
+        this.digits = aux.unscaledValue().longValue();
+        this.scale = aux.scale();
+    }
+
+
+    private void setValue(long digits, int scale) throws XMLException {
+        checkBounds(DecimalParser.toDouble(digits, scale));
+
+        this.digits = digits;
+        this.scale = scale;
+    }
+
+
+    private void checkBounds(double value) throws XMLException {
+        if(!signed && !(value >= 0 && value <= 1))
             throw new XMLException("The number must be between 0 and 1.");
-        if(signed && (value < 0 || value > 100))
+        if(signed && !(value >= 0 && value <= 100))
             throw new XMLException("The number must be between 0 and 100.");
-
-        this.value = value;
     }
 
 
@@ -126,7 +186,7 @@ public class PercentageType implements Serializable {
      *          double representing the number.
      */
     public double getValue() {
-        return value;
+        return DecimalParser.toDouble(digits, scale);
     }
 
 
@@ -149,9 +209,33 @@ public class PercentageType implements Serializable {
      *          String representing the number.
      */
     public String parse() {
+        StringBuilder result = new StringBuilder();
+        DecimalParser.appendDecimal(result, digits, scale);
         if(signed)
-            return "" + value + "%";
-        else
-            return "" + value;
+            result.append('%');
+
+        return result.toString();
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if(o == this)
+            return true;
+        if(o == null || !(o instanceof PercentageType))
+            return false;
+
+        PercentageType other = (PercentageType) o;
+        return signed == other.signed && getValue() == other.getValue();
+    }
+
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(getValue() + 0.0);
+        int hash = 5;
+        hash = 59 * hash + (int) (bits ^ (bits >>> 32));
+        hash = 59 * hash + (signed ? 1 : 0);
+        return hash;
     }
 }
@@ -72,12 +72,16 @@ public class SampleType implements Serializable {
 
 
     /**
-     * Construtor da amostra a partir de uma String.
+     * Construtor da amostra a partir de uma sequência de caracteres.
      *
      * @param sample
-     *          String representando a amostra.
+     *          sequência de caracteres representando a amostra.
+     * @throws java.lang.IllegalArgumentException
+     *          se o valor da amostra não estiver no formato definido pela norma.
+     *         java.lang.NullPointerException
+     *          se a amostra não tiver um tipo.
      */
-    public SampleType(String sample) {
+    public SampleType(CharSequence sample) throws IllegalArgumentException, NullPointerException {
         stringToSample(sample);
     }
     
@@ -137,31 +141,52 @@ public class SampleType implements Serializable {
 
 
     /**
-     * Transforma uma String em um objeto SampleType.
+     * Transforma uma sequência de caracteres em um objeto SampleType. A
+     * sequência é analisada diretamente, sem a criação de objetos
+     * intermediários.
      *
      * @param sample
-     *          String representando a amostra.
+     *          sequência de caracteres representando a amostra.
+     * @throws java.lang.IllegalArgumentException
+     *          se o valor da amostra não estiver no formato definido pela norma.
+     *         java.lang.NullPointerException
+     *          se a amostra não tiver um tipo.
      */
-    public void stringToSample(String sample) {
-        String var = null;
+    public void stringToSample(CharSequence sample) throws IllegalArgumentException, NullPointerException {
+        int begin = DecimalParser.trimBegin(sample, 0, sample.length());
+        int end = DecimalParser.trimEnd(sample, begin, sample.length());
+        NCLSampleType t;
 
-        if(sample.contains("s")){
-            var = sample.substring(0, sample.length() - 1);
-            setType(NCLSampleType.S);
+        if(endsWith(sample, begin, end, "npt")){
+            t = NCLSampleType.NPT;
+            end -= 3;
         }
-        else if(sample.contains("f")){
-            var = sample.substring(0, sample.length() - 1);
-            setType(NCLSampleType.F);
+        else if(endsWith(sample, begin, end, "s")){
+            t = NCLSampleType.S;
+            end--;
         }
-        else if(sample.contains("npt")){
-            var = sample.substring(0, sample.length() - 3);
-            setType(NCLSampleType.NPT);
+        else if(endsWith(sample, begin, end, "f")){
+            t = NCLSampleType.F;
+            end--;
         }
-
-        if(var != null)
-            setValue(new Integer(var));
         else
-            setValue((Integer) null);
+            throw new NullPointerException("Null type value");
+
+        setValue(DecimalParser.parseInt(sample, begin, end));
+        setType(t);
+    }
+
+
+    private static boolean endsWith(CharSequence s, int begin, int end, String suffix) {
+        int length = suffix.length();
+        if(end - begin <= length)
+            return false;
+
+        for(int i = 0; i < length; i++){
+            if(s.charAt(end - length + i) != suffix.charAt(i))
+                return false;
+        }
+        return true;
     }
     
     
@@ -52,10 +52,36 @@ import java.io.Serializable;
  */
 public class SrcType implements Serializable {
 
+    private static final ValueCache<SrcType> cache = new ValueCache<SrcType>(1024);
+
     private NCLUriType type;
     private String src;
 
 
+    /**
+     * Returns an untyped locator shared by all the elements that use the same
+     * locator String. Locators are not modified after created, so the same
+     * instance can be used by many elements.
+     *
+     * @param src
+     *          String representing the locator.
+     * @return
+     *          shared locator.
+     * @throws XMLException
+     *          if the String is null or empty.
+     */
+    public static SrcType valueOf(String src) throws XMLException {
+        if(src == null)
+            throw new XMLException("Null src String");
+
+        SrcType result = cache.get(src);
+        if(result == null)
+            result = cache.put(src, new SrcType(src));
+
+        return result;
+    }
+
+
     /**
      * Creates a untyped locator.
      *
@@ -136,6 +162,8 @@ public class SrcType implements Serializable {
     
     @Override
     public boolean equals(Object o) {
+        if(o == this)
+            return true;
         if(o == null || !(o instanceof SrcType))
             return false;
         
@@ -38,7 +38,9 @@
 package br.uff.midiacom.ana.util;
 
 import java.io.Serializable;
-import java.util.Vector;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -49,17 +51,26 @@ import java.util.Vector;
  *    - segundo.fração<br/>
  *    - segundos<br/>
  *
+ * Os componentes são armazenados em campos primitivos. O segundo é armazenado
+ * como um número decimal de ponto fixo. O texto de um indicador criado a
+ * partir de uma String é mantido até que algum componente seja alterado, de
+ * forma que a conversão de volta para texto é exata.
+ *
  * @see <a href="http://www.dtv.org.br/download/pt-br/ABNTNBR15606-2_2007Vc3_2008.pdf">
  *          ABNT NBR 15606-2:2007</a>
  */
 public class TimeType implements Serializable {
 
-    private Integer year;
-    private Integer month;
-    private Integer day;
-    private Integer hour;
-    private Integer minute;
-    private Double second;
+    private static final int NONE = -1;
+
+    private int year = NONE;
+    private int month = NONE;
+    private int day = NONE;
+    private int hour = NONE;
+    private int minute = NONE;
+    private long second;
+    private int secondScale = NONE;
+    private String text;
     
     
     /**
@@ -131,13 +142,33 @@ public class TimeType implements Serializable {
      * Construtor do indicador temporal da <i>Nested Context Language</i> (NCL).
      *
      * @param time
-     *          String contendo o valor de tempo a ser transformado em um objeto TimeType.
+     *          sequência de caracteres contendo o valor de tempo a ser
+     *          transformado em um objeto TimeType.
+     * @throws java.lang.IllegalArgumentException
+     *          se o valor não estiver no formato definido pela norma.
      */
-    public TimeType(String time) {
+    public TimeType(CharSequence time) {
         stringToTime(time);
     }
     
     
+    /**
+     * Retorna um indicador temporal criado a partir de uma String. O indicador
+     * temporal pode ser modificado, então cada chamada retorna um novo
+     * indicador, que não é compartilhado com outros elementos.
+     *
+     * @param time
+     *          String contendo o valor de tempo.
+     * @return
+     *          novo indicador temporal.
+     * @throws java.lang.IllegalArgumentException
+     *          se o valor não estiver no formato definido pela norma.
+     */
+    public static TimeType valueOf(String time) throws IllegalArgumentException {
+        return new TimeType(time);
+    }
+    
+    
     /**
      * Atribui um valor de ano ao indicador temporal.
      * 
@@ -147,10 +178,11 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setYear(Integer year) throws IllegalArgumentException {
+        text = null;
         if(year != null && year < 0)
             throw new IllegalArgumentException("Invalid year");
 
-        this.year = year;
+        this.year = year != null ? year : NONE;
     }
     
     
@@ -161,7 +193,7 @@ public class TimeType implements Serializable {
      *          inteiro que determina o valor da parte de ano.
      */
     public Integer getYear() {
-        return year;
+        return year != NONE ? year : null;
     }
     
     
@@ -174,10 +206,11 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setMonth(Integer month) throws IllegalArgumentException {
+        text = null;
         if(month != null && !(month >= 1 && month <= 12))
             throw new IllegalArgumentException("Invalid month");
 
-        this.month = month;
+        this.month = month != null ? month : NONE;
     }
     
     
@@ -188,7 +221,7 @@ public class TimeType implements Serializable {
      *          Inteiro que determina o valor da parte de mês.
      */
     public Integer getMonth() {
-        return month;
+        return month != NONE ? month : null;
     }
     
     
@@ -201,10 +234,11 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setDay(Integer day) throws IllegalArgumentException {
+        text = null;
         if(day != null && !(day >= 1 && day <= 31))
             throw new IllegalArgumentException("Invalid day");
 
-        this.day = day;
+        this.day = day != null ? day : NONE;
     }
     
     
@@ -215,7 +249,7 @@ public class TimeType implements Serializable {
      *          Inteiro que determina o valor da parte de dia.
      */
     public Integer getDay() {
-        return day;
+        return day != NONE ? day : null;
     }
     
     
@@ -230,10 +264,11 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setHour(Integer hour) throws IllegalArgumentException {
+        text = null;
         if(hour != null && !(hour >= 0 && (absoluteHour() || hour <= 23)))
             throw new IllegalArgumentException("Invalid hour");
 
-        this.hour = hour;
+        this.hour = hour != null ? hour : NONE;
     }
     
     
@@ -244,7 +279,7 @@ public class TimeType implements Serializable {
      *          Inteiro que determina o valor da parte de hora.
      */
     public Integer getHour() {
-        return hour;
+        return hour != NONE ? hour : null;
     }
 
 
@@ -257,10 +292,11 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setMinute(Integer minute) throws IllegalArgumentException {
+        text = null;
         if(minute != null && !(minute >= 0 && minute <= 59))
             throw new IllegalArgumentException("Invalid minute");
 
-        this.minute = minute;
+        this.minute = minute != null ? minute : NONE;
     }
     
     
@@ -271,7 +307,7 @@ public class TimeType implements Serializable {
      *          Inteiro que determina o valor da parte de minuto.
      */
     public Integer getMinute() {
-        return minute;
+        return minute != NONE ? minute : null;
     }
     
     
@@ -286,10 +322,18 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setSecond(Double second) throws IllegalArgumentException {
+        text = null;
         if(second != null && !(second >= 0 && (absoluteSecond() || second <= 59)))
             throw new IllegalArgumentException("Invalid second");
 
-        this.second = second;
+        if(second == null){
+            this.secondScale = NONE;
+            return;
+        }
+
+        BigDecimal aux = DecimalParser.toDecimal(second);
+        this.second = aux.unscaledValue().longValue();
+        this.secondScale = aux.scale();
     }
 
 
@@ -304,10 +348,7 @@ public class TimeType implements Serializable {
      *          se o valor não estiver no formato definido pela norma.
      */
     public void setSecond(Integer second) throws IllegalArgumentException {
-        if(second != null && !(second >= 0 && (absoluteSecond() || second <= 59)))
-            throw new IllegalArgumentException("Invalid second");
-
-        this.second = second.doubleValue();
+        setSecond(second != null ? second.doubleValue() : null);
     }
     
     
@@ -318,49 +359,107 @@ public class TimeType implements Serializable {
      *          Inteiro que determina o valor da parte de segundo.
      */
     public Double getSecond() {
-        return second;
+        if(secondScale == NONE)
+            return null;
+
+        return DecimalParser.toDouble(second, secondScale);
     }
 
 
     /**
-     * Transforma uma String em um objeto TimeType.
+     * Transforma uma sequência de caracteres em um objeto TimeType. A
+     * sequência é analisada diretamente, sem a criação de objetos
+     * intermediários.
      *
      * @param time
-     *          String representando o valor de tempo.
+     *          sequência de caracteres representando o valor de tempo.
+     * @throws java.lang.IllegalArgumentException
+     *          se o valor não estiver no formato definido pela norma.
      */
-    public void stringToTime(String time) {
-        Vector<Integer>  timeParts = new Vector<Integer>();
-        String newTime;
-        boolean hasDot = false;
-
-        if(time.contains("s")){
-            newTime = time.substring(0, time.length() - 1);
-            hasDot = newTime.contains(".");
-            setSecond(new Double(newTime));
+    public void stringToTime(CharSequence time) throws IllegalArgumentException {
+        try{
+            parse(time);
         }
-        else{
-            newTime = time;
-            while(newTime.contains(":")){
-                int index = newTime.indexOf(":");
-                timeParts.add(new Integer(newTime.substring(0, index)));
-                newTime = newTime.substring(index + 1);
+        catch(NumberFormatException ex){
+            // values the fast parser does not handle, like exponents, are
+            // parsed the way the previous versions did
+            parseText(time.toString());
+        }
+        text = time.toString();
+    }
+
+
+    private void parse(CharSequence time) {
+        int begin = DecimalParser.trimBegin(time, 0, time.length());
+        int end = DecimalParser.trimEnd(time, begin, time.length());
+
+        year = month = day = hour = minute = NONE;
+        secondScale = NONE;
+
+        if(DecimalParser.indexOf(time, 's', begin, end) >= 0){
+            parseSecond(time, begin, end - 1);
+            return;
+        }
+
+        // the components are read from the last to the first one
+        int stop = end;
+        int part = 0;
+        for(int i = end - 1; i >= begin - 1; i--){
+            if(i >= begin && time.charAt(i) != ':')
+                continue;
+
+            if(part == 0)
+                parseSecond(time, i + 1, stop);
+            else if(part <= 5){
+                int value = DecimalParser.parseInt(time, i + 1, stop);
+                switch(part){
+                    case 1: setMinute(value); break;
+                    case 2: setHour(value); break;
+                    case 3: setDay(value); break;
+                    case 4: setMonth(value); break;
+                    case 5: setYear(value); break;
+                }
             }
-            setSecond(new Double(newTime));
+            part++;
+            stop = i;
         }
+    }
 
-        try{
-            int index = timeParts.size() - 1;
-            setMinute(timeParts.elementAt(index));
-            index--;
-            setHour(timeParts.elementAt(index));
-            index--;
-            setDay(timeParts.elementAt(index));
-            index--;
-            setMonth(timeParts.elementAt(index));
-            index--;
-            setYear(timeParts.elementAt(index));
+
+    private void parseText(String time) {
+        List<Integer> parts = new ArrayList<Integer>();
+        String aux = time;
+
+        year = month = day = hour = minute = NONE;
+        secondScale = NONE;
+
+        if(time.contains("s"))
+            aux = time.substring(0, time.length() - 1);
+        else{
+            int index;
+            while((index = aux.indexOf(':')) >= 0){
+                parts.add(Integer.valueOf(aux.substring(0, index)));
+                aux = aux.substring(index + 1);
+            }
         }
-        catch(ArrayIndexOutOfBoundsException ex){}
+        setSecond(Double.valueOf(aux));
+
+        int index = parts.size() - 1;
+        if(index >= 0) setMinute(parts.get(index--));
+        if(index >= 0) setHour(parts.get(index--));
+        if(index >= 0) setDay(parts.get(index--));
+        if(index >= 0) setMonth(parts.get(index--));
+        if(index >= 0) setYear(parts.get(index));
+    }
+
+
+    private void parseSecond(CharSequence time, int begin, int end) {
+        long value = DecimalParser.parseUnscaled(time, begin, end);
+        if(value < 0)
+            throw new IllegalArgumentException("Invalid second");
+
+        second = value;
+        secondScale = DecimalParser.scale(time, begin, end);
     }
     
     
@@ -372,40 +471,59 @@ public class TimeType implements Serializable {
      *          verdadeiro se o indicador estiver no formato UTC.
      */
     public boolean isUTC() {
-        if(getYear() != null && getMonth() != null && getDay() != null &&
-                getHour() != null && getMinute() != null && getSecond() != null)
-            return true;
-        else
-            return false;
+        return year != NONE && month != NONE && day != NONE &&
+                hour != NONE && minute != NONE && secondScale != NONE;
     }
 
 
     private boolean absoluteHour() {
-        if(getYear() == null && getMonth() == null && getDay() == null)
-            return true;
-        else
-            return false;
+        return year == NONE && month == NONE && day == NONE;
     }
 
 
     private boolean absoluteSecond() {
-        if(getYear() == null && getMonth() == null && getDay() == null &&
-                getHour() == null && getMinute() == null)
-            return true;
-        else
-            return false;
+        return year == NONE && month == NONE && day == NONE &&
+                hour == NONE && minute == NONE;
     }
     
     
     public Double getTimeInSeconds() {
-        Double result = 0.0;
+        double result = 0.0;
         
-        if(second != null) result += second;
-        if(minute != null) result += minute * 60;
-        if(hour != null) result += hour * 3600;
-        if(day != null) result += day * 86400;
-        if(month != null) result += month * 2592000;
-        if(year != null) result += year * 31536000;
+        if(secondScale != NONE) result += DecimalParser.toDouble(second, secondScale);
+        if(minute != NONE) result += minute * 60;
+        if(hour != NONE) result += hour * 3600;
+        if(day != NONE) result += day * 86400;
+        if(month != NONE) result += month * 2592000.0;
+        if(year != NONE) result += year * 31536000.0;
+        
+        return result;
+    }
+
+
+    /**
+     * Retorna o valor do indicador temporal em milissegundos. A fração de
+     * segundo é arredondada para o milissegundo mais próximo.
+     *
+     * @return
+     *          long com o valor em milissegundos.
+     */
+    public long getTimeInMillis() {
+        long result = 0;
+
+        if(secondScale != NONE){
+            if(secondScale <= 3)
+                result += second * DecimalParser.power(3 - secondScale);
+            else{
+                long p = DecimalParser.power(secondScale - 3);
+                result += (second + p / 2) / p;
+            }
+        }
+        if(minute != NONE) result += minute * 60000L;
+        if(hour != NONE) result += hour * 3600000L;
+        if(day != NONE) result += day * 86400000L;
+        if(month != NONE) result += month * 2592000000L;
+        if(year != NONE) result += year * 31536000000L;
         
         return result;
     }
@@ -413,43 +531,78 @@ public class TimeType implements Serializable {
     
     @Override
     public String toString() {
-        if(getSecond() == null)
+        if(secondScale == NONE)
             return null;
+        if(text != null)
+            return text;
         
-        String result = "";
+        StringBuilder result = new StringBuilder();
 
-        if(getYear() != null && getMonth() != null && getDay() != null)
-            result += getYear() + ":" + getMonth() + ":" + getDay() + ":";
-        if(getHour() != null && getMinute() != null)
-            result += getHour() + ":" + getMinute() + ":";
+        if(year != NONE && month != NONE && day != NONE)
+            result.append(year).append(':').append(month).append(':').append(day).append(':');
+        if(hour != NONE && minute != NONE)
+            result.append(hour).append(':').append(minute).append(':');
 
-        result += getSecond();
+        DecimalParser.appendDecimal(result, second, secondScale);
 
         if(absoluteSecond())
-            result += "s";
+            result.append('s');
 
-        return result;
+        return result.toString();
     }
     
     
     @Override
     public boolean equals(Object o) {
+        if(o == this)
+            return true;
         if(o == null || !(o instanceof TimeType))
             return false;
-        
-        return toString().equals(o.toString());
+
+        TimeType other = (TimeType) o;
+        return year == other.year && month == other.month && day == other.day &&
+                hour == other.hour && minute == other.minute &&
+                (secondScale == NONE ? other.secondScale == NONE :
+                    other.secondScale != NONE && normalizedSecond() == other.normalizedSecond() &&
+                    normalizedScale() == other.normalizedScale());
+    }
+
+
+    private long normalizedSecond() {
+        long value = second;
+        int scale = secondScale;
+        while(scale > 0 && value % 10 == 0){
+            value /= 10;
+            scale--;
+        }
+        return value;
+    }
+
+
+    private int normalizedScale() {
+        long value = second;
+        int scale = secondScale;
+        while(scale > 0 && value % 10 == 0){
+            value /= 10;
+            scale--;
+        }
+        return scale;
     }
     
     
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 29 * hash + (this.year != null ? this.year.hashCode() : 0);
-        hash = 29 * hash + (this.month != null ? this.month.hashCode() : 0);
-        hash = 29 * hash + (this.day != null ? this.day.hashCode() : 0);
-        hash = 29 * hash + (this.hour != null ? this.hour.hashCode() : 0);
-        hash = 29 * hash + (this.minute != null ? this.minute.hashCode() : 0);
-        hash = 29 * hash + (this.second != null ? this.second.hashCode() : 0);
+        hash = 29 * hash + year;
+        hash = 29 * hash + month;
+        hash = 29 * hash + day;
+        hash = 29 * hash + hour;
+        hash = 29 * hash + minute;
+        if(secondScale != NONE){
+            long value = normalizedSecond();
+            hash = 29 * hash + (int) (value ^ (value >>> 32));
+            hash = 29 * hash + normalizedScale();
+        }
         return hash;
     }
 }
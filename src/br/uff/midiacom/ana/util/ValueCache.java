@@ -0,0 +1,169 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * This class represents a bounded cache of values indexed by their text. The
+ * cache keeps weak references to the values, so values no longer used by any
+ * element can be collected.
+ * 
+ * The entries are shared by all threads and kept in a concurrent map, so
+ * loaders running in parallel share the values without waiting for each
+ * other. When the cache is full, the entries whose values were collected are
+ * discarded, followed by arbitrary entries, until a quarter of the cache is
+ * free. Only immutable values may be cached, since the same instance is
+ * returned to every element that asks for the same text.
+ *
+ * @param <V>
+ *          the type of value stored in the cache.
+ */
+final class ValueCache<V> {
+
+    private final ConcurrentHashMap<String, WeakReference<V>> entries;
+    private final int capacity;
+
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity
+     *          maximum number of entries in the cache.
+     */
+    ValueCache(int capacity) {
+        this.capacity = capacity;
+        entries = new ConcurrentHashMap<String, WeakReference<V>>();
+    }
+
+
+    /**
+     * Returns the value cached for a text.
+     *
+     * @param text
+     *          text representing the value.
+     * @return
+     *          value cached or null if the text is not in the cache.
+     */
+    V get(String text) {
+        WeakReference<V> ref = entries.get(text);
+        if(ref == null)
+            return null;
+
+        V value = ref.get();
+        if(value == null)
+            entries.remove(text, ref);
+
+        return value;
+    }
+
+
+    /**
+     * Adds a value to the cache. If the cache already has a value for the
+     * same text, that value is kept and returned.
+     *
+     * @param text
+     *          text representing the value.
+     * @param value
+     *          value to be cached.
+     * @return
+     *          the value kept in the cache.
+     */
+    V put(String text, V value) {
+        WeakReference<V> aux = new WeakReference<V>(value);
+        while(true){
+            WeakReference<V> ref = entries.get(text);
+            V current = ref != null ? ref.get() : null;
+            if(current != null)
+                return current;
+
+            // another thread may cache a value for the same text first
+            if(ref == null ? entries.putIfAbsent(text, aux) == null : entries.replace(text, ref, aux))
+                break;
+        }
+
+        if(entries.size() > capacity)
+            evict();
+
+        return value;
+    }
+
+
+    private void evict() {
+        int target = capacity - capacity / 4;
+        int size = entries.size();
+
+        Iterator<Map.Entry<String, WeakReference<V>>> it = entries.entrySet().iterator();
+        while(it.hasNext() && size > target){
+            if(it.next().getValue().get() == null){
+                it.remove();
+                size--;
+            }
+        }
+
+        it = entries.entrySet().iterator();
+        while(it.hasNext() && size > target){
+            it.next();
+            it.remove();
+            size--;
+        }
+    }
+
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return
+     *          number of entries.
+     */
+    int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Removes all the entries of the cache.
+     */
+    void clear() {
+        entries.clear();
+    }
+}
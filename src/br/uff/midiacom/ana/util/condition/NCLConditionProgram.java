@@ -0,0 +1,469 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.condition;
+
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLAttributeAssessment;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLConnectorParam;
+import br.uff.midiacom.ana.connector.NCLRoleElement;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+import br.uff.midiacom.ana.util.enums.NCLConditionOperator;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLOperator;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compiled form of the condition of a causal connector. The tree of compound
+ * conditions, compound statements and assessment statements is compiled into
+ * a postfix program over a table of simple conditions and a table of
+ * assessments. The values of the assessments and the keys of the conditions
+ * are kept in a table of constants or, when they refer to connector
+ * parameters, in slots whose values are given by the link that uses the
+ * connector.
+ * 
+ * <br/>
+ * 
+ * A program is compiled once per connector and bound to each link that uses
+ * it, with the method <i>bind</i>. The resulting condition is evaluated
+ * without creating objects.
+ * 
+ * <br/>
+ * 
+ * A simple condition is true when its role is the one whose bind was
+ * triggered and, if the condition defines a key, the key given matches it.
+ * An assessment compares the value of an attribute with the value of another
+ * attribute or with a value. Numeric values are compared as numbers, other
+ * values are compared as strings.
+ * 
+ * @see NCLLinkCondition
+ */
+public class NCLConditionProgram {
+
+    static final int CONDITION = 0;
+    static final int ASSESS = 1;
+    static final int AND = 2;
+    static final int OR = 3;
+    static final int NOT = 4;
+    static final int NONE = Integer.MIN_VALUE;
+    
+    // the evaluation stack is kept in the bits of a long
+    private static final int MAX_DEPTH = 64;
+    
+    private NCLCausalConnector connector;
+    
+    int[] code;
+    Object[] constants;
+    
+    NCLSimpleCondition[] conditions;
+    int[] conditionKeys;
+    
+    NCLAttributeAssessment[] attributes;
+    NCLEventType[] eventTypes;
+    NCLAttributeType[] attributeTypes;
+    int[] offsets;
+    
+    NCLComparator[] comparators;
+    int[] lefts;
+    int[] rights;
+    int[] values;
+    
+    NCLConnectorParam[] slotParams;
+    NCLRoleElement[] slotRoles;
+
+
+    private NCLConditionProgram(NCLCausalConnector connector) {
+        this.connector = connector;
+    }
+
+
+    /**
+     * Compiles the condition of a connector.
+     * 
+     * @param connector
+     *          causal connector.
+     * @return
+     *          compiled condition.
+     * @throws XMLException
+     *          if the connector has no condition, if a compound element is
+     *          empty, if an assessment statement does not have the attributes
+     *          or the value to be compared or if the condition is too deeply
+     *          nested.
+     */
+    public static NCLConditionProgram compile(NCLCausalConnector connector) throws XMLException {
+        if(connector == null)
+            throw new XMLException("Null connector.");
+        if(connector.getCondition() == null)
+            throw new XMLException("Connector " + connector.getId() + " has no condition.");
+        
+        Compiler compiler = new Compiler(connector);
+        compiler.condition(connector.getCondition());
+        return compiler.build();
+    }
+
+
+    /**
+     * Binds the program to a link that uses the connector. The values of the
+     * slots are taken from the parameters of the bind of the role that uses
+     * the slot or, if the bind does not define it, from the parameters of the
+     * link.
+     * 
+     * @param link
+     *          link element.
+     * @return
+     *          condition of the link.
+     * @throws XMLException
+     *          if the link does not use the connector.
+     */
+    public NCLLinkCondition bind(NCLLink link) throws XMLException {
+        if(link == null)
+            throw new XMLException("Null link.");
+        
+        Object xconnector = link.getXconnector();
+        if(xconnector instanceof ExternalReferenceType)
+            xconnector = ((ExternalReferenceType) xconnector).getTarget();
+        if(xconnector != connector)
+            throw new XMLException("Link " + link.getId() + " does not use connector " + connector.getId());
+        
+        return new NCLLinkCondition(this, link);
+    }
+
+
+    /**
+     * Returns the connector compiled.
+     * 
+     * @return
+     *          causal connector.
+     */
+    public NCLCausalConnector getConnector() {
+        return connector;
+    }
+
+
+    /**
+     * Returns the number of slots of the program.
+     * 
+     * @return
+     *          number of parameter slots.
+     */
+    public int getSlotCount() {
+        return slotParams.length;
+    }
+
+
+    /**
+     * Returns the connector parameter of a slot.
+     * 
+     * @param slot
+     *          index of the slot.
+     * @return
+     *          connector parameter.
+     */
+    public NCLConnectorParam getSlotParam(int slot) {
+        return slotParams[slot];
+    }
+
+
+    /**
+     * Returns the simple conditions of the program.
+     * 
+     * @return
+     *          number of simple conditions.
+     */
+    public int getConditionCount() {
+        return conditions.length;
+    }
+
+
+    /**
+     * Returns the number of assessment statements of the program.
+     * 
+     * @return
+     *          number of assessments.
+     */
+    public int getAssessmentCount() {
+        return comparators.length;
+    }
+
+
+    /**
+     * Converts a value to the form used in the comparisons: numbers and
+     * numeric strings are converted to doubles.
+     */
+    static Object normalize(Object value) {
+        if(value instanceof Double)
+            return value;
+        if(value instanceof Number)
+            return ((Number) value).doubleValue();
+        if(value instanceof String){
+            double aux = toNumber(value);
+            if(!Double.isNaN(aux))
+                return aux;
+        }
+        
+        return value;
+    }
+
+
+    /**
+     * Returns the numeric value of a number or numeric string or NaN.
+     */
+    static double toNumber(Object value) {
+        if(value instanceof Number)
+            return ((Number) value).doubleValue();
+        if(!(value instanceof String))
+            return Double.NaN;
+        
+        String aux = ((String) value).trim();
+        if(aux.isEmpty())
+            return Double.NaN;
+        
+        char c = aux.charAt(0);
+        if(!(c >= '0' && c <= '9') && c != '-' && c != '+' && c != '.')
+            return Double.NaN;
+        if(aux.endsWith("s"))
+            aux = aux.substring(0, aux.length() - 1);
+        
+        try{
+            return Double.parseDouble(aux);
+        }catch(NumberFormatException e){
+            return Double.NaN;
+        }
+    }
+
+
+    /**
+     * Builds the tables of a program.
+     */
+    private static class Compiler {
+
+        private NCLConditionProgram program;
+        private int[] code = new int[16];
+        private int size;
+        private int depth;
+        private int maxDepth;
+        
+        private List<Object> constants = new ArrayList<Object>();
+        private List<NCLSimpleCondition> conditions = new ArrayList<NCLSimpleCondition>();
+        private List<Integer> conditionKeys = new ArrayList<Integer>();
+        private List<NCLAttributeAssessment> attributes = new ArrayList<NCLAttributeAssessment>();
+        private List<Integer> offsets = new ArrayList<Integer>();
+        private List<NCLComparator> comparators = new ArrayList<NCLComparator>();
+        private List<Integer> lefts = new ArrayList<Integer>();
+        private List<Integer> rights = new ArrayList<Integer>();
+        private List<Integer> values = new ArrayList<Integer>();
+        private List<NCLConnectorParam> slotParams = new ArrayList<NCLConnectorParam>();
+        private List<NCLRoleElement> slotRoles = new ArrayList<NCLRoleElement>();
+
+
+        private Compiler(NCLCausalConnector connector) {
+            program = new NCLConditionProgram(connector);
+        }
+
+
+        private void condition(Object condition) throws XMLException {
+            if(condition instanceof NCLSimpleCondition){
+                NCLSimpleCondition simple = (NCLSimpleCondition) condition;
+                conditions.add(simple);
+                conditionKeys.add(operand(simple.getKey(), simple));
+                emit(CONDITION, conditions.size() - 1, 1);
+            }
+            else if(condition instanceof NCLCompoundCondition){
+                NCLCompoundCondition compound = (NCLCompoundCondition) condition;
+                int op = compound.getOperator() == NCLConditionOperator.AND ? AND : OR;
+                int count = 0;
+                
+                for(Object child : compound.getConditions()){
+                    condition(child);
+                    if(count++ > 0)
+                        emit(op, 0, -1);
+                }
+                for(Object child : compound.getStatements()){
+                    statement(child);
+                    if(count++ > 0)
+                        emit(op, 0, -1);
+                }
+                
+                if(count == 0)
+                    throw new XMLException("Empty compound condition.");
+            }
+            else
+                throw new XMLException("Wrong condition type.");
+        }
+
+
+        private void statement(Object statement) throws XMLException {
+            if(statement instanceof NCLAssessmentStatement){
+                NCLAssessmentStatement assessment = (NCLAssessmentStatement) statement;
+                if(assessment.getComparator() == null)
+                    throw new XMLException("Assessment statement without comparator.");
+                
+                List<Integer> aux = new ArrayList<Integer>(2);
+                for(Object attribute : assessment.getAttributeAssessments())
+                    aux.add(attribute((NCLAttributeAssessment) attribute));
+                
+                int right = NONE, value = NONE;
+                if(aux.size() == 2)
+                    right = aux.get(1);
+                else if(aux.size() == 1 && assessment.getValueAssessment() != null)
+                    value = operand(assessment.getValueAssessment(), null);
+                else
+                    throw new XMLException("Assessment statement must compare two attributes or an attribute and a value.");
+                
+                comparators.add(assessment.getComparator());
+                lefts.add(aux.get(0));
+                rights.add(right);
+                values.add(value);
+                emit(ASSESS, comparators.size() - 1, 1);
+            }
+            else if(statement instanceof NCLCompoundStatement){
+                NCLCompoundStatement compound = (NCLCompoundStatement) statement;
+                int op = compound.getOperator() == NCLOperator.AND ? AND : OR;
+                int count = 0;
+                
+                for(Object child : compound.getStatements()){
+                    statement(child);
+                    if(count++ > 0)
+                        emit(op, 0, -1);
+                }
+                
+                if(count == 0)
+                    throw new XMLException("Empty compound statement.");
+                if(Boolean.TRUE.equals(compound.getIsNegated()))
+                    emit(NOT, 0, 0);
+            }
+            else
+                throw new XMLException("Wrong statement type.");
+        }
+
+
+        private int attribute(NCLAttributeAssessment attribute) {
+            attributes.add(attribute);
+            offsets.add(operand(attribute.getOffset(), attribute));
+            return attributes.size() - 1;
+        }
+
+
+        private int operand(Object value, NCLRoleElement role) {
+            if(value == null)
+                return NONE;
+            
+            if(value instanceof NCLConnectorParam){
+                for(int i = 0; i < slotParams.size(); i++){
+                    if(slotParams.get(i) == value && slotRoles.get(i) == role)
+                        return -(i + 1);
+                }
+                slotParams.add((NCLConnectorParam) value);
+                slotRoles.add(role);
+                return -slotParams.size();
+            }
+            
+            constants.add(normalize(value));
+            return constants.size() - 1;
+        }
+
+
+        private void emit(int op, int arg, int stack) throws XMLException {
+            depth += stack;
+            if(depth > maxDepth)
+                maxDepth = depth;
+            if(maxDepth > MAX_DEPTH)
+                throw new XMLException("Condition too deeply nested.");
+            
+            if(size == code.length){
+                int[] aux = new int[size * 2];
+                System.arraycopy(code, 0, aux, 0, size);
+                code = aux;
+            }
+            code[size++] = op | (arg << 8);
+        }
+
+
+        private NCLConditionProgram build() {
+            NCLConditionProgram p = program;
+            
+            p.code = new int[size];
+            System.arraycopy(code, 0, p.code, 0, size);
+            p.constants = constants.toArray();
+            p.conditions = conditions.toArray(new NCLSimpleCondition[conditions.size()]);
+            p.conditionKeys = toArray(conditionKeys);
+            
+            int count = attributes.size();
+            p.attributes = attributes.toArray(new NCLAttributeAssessment[count]);
+            p.eventTypes = new NCLEventType[count];
+            p.attributeTypes = new NCLAttributeType[count];
+            for(int i = 0; i < count; i++){
+                NCLAttributeAssessment a = p.attributes[i];
+                p.eventTypes[i] = a.getEventType();
+                p.attributeTypes[i] = a.getAttributeType();
+                
+                // the default attribute depends on the event type
+                if(p.attributeTypes[i] == null)
+                    p.attributeTypes[i] = a.getEventType() == NCLEventType.ATTRIBUTION ?
+                            NCLAttributeType.NODE_PROPERTY : NCLAttributeType.STATE;
+            }
+            p.offsets = toArray(offsets);
+            
+            p.comparators = comparators.toArray(new NCLComparator[comparators.size()]);
+            p.lefts = toArray(lefts);
+            p.rights = toArray(rights);
+            p.values = toArray(values);
+            
+            p.slotParams = slotParams.toArray(new NCLConnectorParam[slotParams.size()]);
+            p.slotRoles = slotRoles.toArray(new NCLRoleElement[slotRoles.size()]);
+            return p;
+        }
+
+
+        private int[] toArray(List<Integer> list) {
+            int[] result = new int[list.size()];
+            for(int i = 0; i < result.length; i++)
+                result[i] = list.get(i);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.condition;
+
+import br.uff.midiacom.ana.connector.NCLRoleElement;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.link.NCLParam;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+
+
+/**
+ * Condition of a link, that is, the compiled condition of its connector with
+ * the parameter slots resolved with the parameters of the link and of its
+ * binds. The slots and the binds of the roles are resolved when the condition
+ * is created, so it must be created again if the link is modified.
+ * 
+ * @see NCLConditionProgram
+ */
+public class NCLLinkCondition {
+
+    private NCLConditionProgram program;
+    private NCLLink link;
+    private Object[] slots;
+    private NCLBind[] binds;
+
+
+    NCLLinkCondition(NCLConditionProgram program, NCLLink link) {
+        this.program = program;
+        this.link = link;
+        
+        slots = new Object[program.slotParams.length];
+        for(int i = 0; i < slots.length; i++)
+            slots[i] = NCLConditionProgram.normalize(getParamValue(program.slotParams[i], program.slotRoles[i]));
+        
+        binds = new NCLBind[program.attributes.length];
+        for(int i = 0; i < binds.length; i++)
+            binds[i] = getBind(program.attributes[i]);
+    }
+
+
+    /**
+     * Returns the program of the condition.
+     * 
+     * @return
+     *          compiled condition of the connector.
+     */
+    public NCLConditionProgram getProgram() {
+        return program;
+    }
+
+
+    /**
+     * Returns the link of the condition.
+     * 
+     * @return
+     *          link element.
+     */
+    public NCLLink getLink() {
+        return link;
+    }
+
+
+    /**
+     * Returns the value of a slot.
+     * 
+     * @param slot
+     *          index of the slot.
+     * @return
+     *          value of the parameter or <i>null</i> if neither the link nor
+     *          the bind define it.
+     */
+    public Object getSlotValue(int slot) {
+        return slots[slot];
+    }
+
+
+    /**
+     * Evaluates the condition when the event of a bind is triggered.
+     * 
+     * @param trigger
+     *          bind of the simple condition whose event was triggered.
+     * @param context
+     *          context used to evaluate the assessment statements.
+     * @return
+     *          true if the condition is satisfied.
+     */
+    public boolean evaluate(NCLBind trigger, NCLEvaluationContext context) {
+        return evaluate(trigger, null, context);
+    }
+
+
+    /**
+     * Evaluates the condition when the event of a bind is triggered by a key,
+     * as in the selection events.
+     * 
+     * @param trigger
+     *          bind of the simple condition whose event was triggered.
+     * @param key
+     *          key that triggered the event or <i>null</i> if the event was
+     *          not triggered by a key.
+     * @param context
+     *          context used to evaluate the assessment statements.
+     * @return
+     *          true if the condition is satisfied.
+     */
+    public boolean evaluate(NCLBind trigger, Object key, NCLEvaluationContext context) {
+        int triggered = -1;
+        if(trigger != null){
+            Object role = trigger.getRole();
+            for(int i = 0; i < program.conditions.length; i++){
+                if(program.conditions[i] == role){
+                    triggered = i;
+                    break;
+                }
+            }
+        }
+        
+        int[] code = program.code;
+        long stack = 0;
+        
+        for(int pc = 0; pc < code.length; pc++){
+            int arg = code[pc] >>> 8;
+            long top;
+            
+            switch(code[pc] & 0xff){
+                case NCLConditionProgram.CONDITION:
+                    top = arg == triggered && matchesKey(arg, key) ? 1 : 0;
+                    stack = (stack << 1) | top;
+                    break;
+                case NCLConditionProgram.ASSESS:
+                    top = assess(arg, context) ? 1 : 0;
+                    stack = (stack << 1) | top;
+                    break;
+                case NCLConditionProgram.AND:
+                    top = (stack & 3) == 3 ? 1 : 0;
+                    stack = ((stack >>> 2) << 1) | top;
+                    break;
+                case NCLConditionProgram.OR:
+                    top = (stack & 3) != 0 ? 1 : 0;
+                    stack = ((stack >>> 2) << 1) | top;
+                    break;
+                case NCLConditionProgram.NOT:
+                    stack ^= 1;
+                    break;
+            }
+        }
+        
+        return (stack & 1) == 1;
+    }
+
+
+    private boolean matchesKey(int condition, Object key) {
+        int operand = program.conditionKeys[condition];
+        if(operand == NCLConditionProgram.NONE)
+            return true;
+        
+        Object value = value(operand);
+        if(key == null || value == null)
+            return false;
+        
+        double x = NCLConditionProgram.toNumber(key);
+        if(!Double.isNaN(x))
+            return x == NCLConditionProgram.toNumber(value);
+        
+        return value.toString().equals(key.toString());
+    }
+
+
+    private boolean assess(int assessment, NCLEvaluationContext context) {
+        Object left = attribute(program.lefts[assessment], context);
+        if(left == null)
+            return false;
+        
+        Object right;
+        if(program.rights[assessment] != NCLConditionProgram.NONE)
+            right = attribute(program.rights[assessment], context);
+        else
+            right = value(program.values[assessment]);
+        if(right == null)
+            return false;
+        
+        double offset = 0;
+        int operand = program.offsets[program.lefts[assessment]];
+        if(operand != NCLConditionProgram.NONE)
+            offset = NCLConditionProgram.toNumber(value(operand));
+        
+        return compare(left, right, offset, program.comparators[assessment]);
+    }
+
+
+    private Object attribute(int attribute, NCLEvaluationContext context) {
+        NCLBind bind = binds[attribute];
+        if(bind == null || context == null)
+            return null;
+        
+        return context.getAttribute(bind, program.eventTypes[attribute], program.attributeTypes[attribute]);
+    }
+
+
+    private Object value(int operand) {
+        if(operand >= 0)
+            return program.constants[operand];
+        
+        return slots[-operand - 1];
+    }
+
+
+    private boolean compare(Object left, Object right, double offset, NCLComparator comparator) {
+        double x = NCLConditionProgram.toNumber(left);
+        double y = NCLConditionProgram.toNumber(right);
+        int result;
+        
+        if(!Double.isNaN(x) && !Double.isNaN(y)){
+            if(!Double.isNaN(offset))
+                x += offset;
+            result = Double.compare(x, y);
+        }
+        else
+            result = left.toString().compareTo(right.toString());
+        
+        switch(comparator){
+            case EQ:
+                return result == 0;
+            case NE:
+                return result != 0;
+            case GT:
+                return result > 0;
+            case LT:
+                return result < 0;
+            case GTE:
+                return result >= 0;
+            case LTE:
+                return result <= 0;
+            default:
+                return false;
+        }
+    }
+
+
+    private NCLBind getBind(NCLRoleElement role) {
+        for(Object o : link.getBinds()){
+            if(((NCLBind) o).getRole() == role)
+                return (NCLBind) o;
+        }
+        
+        return null;
+    }
+
+
+    private Object getParamValue(Object param, NCLRoleElement role) {
+        // the bind parameters have precedence over the link parameters
+        if(role != null){
+            NCLBind bind = getBind(role);
+            if(bind != null){
+                for(Object o : bind.getBindParams()){
+                    if(((NCLParam) o).getName() == param)
+                        return ((NCLParam) o).getValue();
+                }
+            }
+        }
+        
+        for(Object o : link.getLinkParams()){
+            if(((NCLParam) o).getName() == param)
+                return ((NCLParam) o).getValue();
+        }
+        
+        return null;
+    }
+}
@@ -56,12 +56,18 @@ public enum NCLActionOperator {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLActionOperator> codec = new NCLEnumCodec<NCLActionOperator>(values());
+
     public static NCLActionOperator getEnumType(String name){
-        for(NCLActionOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLActionOperator getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLActionOperator getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLActionOperator getDefaultValue(){
@@ -58,12 +58,18 @@ public enum NCLAttributeType {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLAttributeType> codec = new NCLEnumCodec<NCLAttributeType>(values());
+
     public static NCLAttributeType getEnumType(String name){
-        for(NCLAttributeType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLAttributeType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLAttributeType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLAttributeType getDefaultValue(){
@@ -79,12 +79,18 @@ public enum NCLAttributes {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLAttributes> codec = new NCLEnumCodec<NCLAttributes>(values());
+
     public static NCLAttributes getEnumType(String name){
-        for(NCLAttributes opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLAttributes getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLAttributes getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
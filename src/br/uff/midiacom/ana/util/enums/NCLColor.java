@@ -70,12 +70,18 @@ public enum NCLColor {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLColor> codec = new NCLEnumCodec<NCLColor>(values());
+
     public static NCLColor getEnumType(String name) {
-        for(NCLColor opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLColor getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLColor getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -58,12 +58,18 @@ public enum NCLComparator {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLComparator> codec = new NCLEnumCodec<NCLComparator>(values());
+
     public static NCLComparator getEnumType(String name){
-        for(NCLComparator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLComparator getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLComparator getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -56,12 +56,18 @@ public enum NCLConditionOperator {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLConditionOperator> codec = new NCLEnumCodec<NCLConditionOperator>(values());
+
     public static NCLConditionOperator getEnumType(String name){
-        for(NCLConditionOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLConditionOperator getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLConditionOperator getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLConditionOperator getDefaultValue(){
@@ -59,12 +59,18 @@ public enum NCLDefaultActionRole {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLDefaultActionRole> codec = new NCLEnumCodec<NCLDefaultActionRole>(values());
+
     public static NCLDefaultActionRole getEnumType(String name){
-        for(NCLDefaultActionRole opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultActionRole getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultActionRole getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
@@ -61,12 +61,18 @@ public enum NCLDefaultConditionRole {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLDefaultConditionRole> codec = new NCLEnumCodec<NCLDefaultConditionRole>(values());
+
     public static NCLDefaultConditionRole getEnumType(String name){
-        for(NCLDefaultConditionRole opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultConditionRole getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultConditionRole getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
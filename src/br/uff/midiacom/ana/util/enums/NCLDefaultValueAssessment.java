@@ -56,12 +56,18 @@ public enum NCLDefaultValueAssessment {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLDefaultValueAssessment> codec = new NCLEnumCodec<NCLDefaultValueAssessment>(values());
+
     public static NCLDefaultValueAssessment getEnumType(String name) {
-        for(NCLDefaultValueAssessment opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultValueAssessment getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLDefaultValueAssessment getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
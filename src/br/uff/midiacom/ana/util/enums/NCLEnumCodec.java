@@ -0,0 +1,207 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.enums;
+
+
+/**
+ * This class represents a precomputed lookup table that decodes the textual
+ * value of an enumeration constant. The table is built once per enumeration
+ * and the decoding does not allocate, so it can be used directly over the
+ * characters of a streaming parser.
+ *
+ * @param <E>
+ *          the type of the enumeration decoded.
+ */
+public final class NCLEnumCodec<E extends Enum<E>> {
+
+    private final E[] constants;
+    private final String[] names;
+    private final int[] table;
+    private final int mask;
+
+
+    /**
+     * Creates the lookup table for an enumeration. The textual value of each
+     * constant is given by its <i>toString</i> method. If two constants have
+     * the same textual value, the first one is kept.
+     *
+     * @param constants
+     *          array with the enumeration constants.
+     */
+    public NCLEnumCodec(E[] constants) {
+        int size = 4;
+        while(size < constants.length * 2)
+            size <<= 1;
+
+        this.constants = constants;
+        this.names = new String[constants.length];
+        this.table = new int[size];
+        this.mask = size - 1;
+
+        for(int i = 0; i < constants.length; i++){
+            String name = constants[i].toString();
+            names[i] = name;
+
+            int pos = name.hashCode() & mask;
+            boolean repeated = false;
+            while(table[pos] != 0){
+                if(names[table[pos] - 1].equals(name)){
+                    repeated = true;
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            if(!repeated)
+                table[pos] = i + 1;
+        }
+    }
+
+
+    /**
+     * Returns the constant represented by a string.
+     *
+     * @param name
+     *          string representing the constant.
+     * @return
+     *          constant or null if the string does not represent a constant.
+     */
+    public E decode(String name) {
+        if(name == null)
+            return null;
+
+        int pos = name.hashCode() & mask;
+        int idx;
+        while((idx = table[pos]) != 0){
+            if(name.equals(names[idx - 1]))
+                return constants[idx - 1];
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the constant represented by a sequence of characters.
+     *
+     * @param name
+     *          sequence of characters representing the constant.
+     * @return
+     *          constant or null if the sequence does not represent a constant.
+     */
+    public E decode(CharSequence name) {
+        if(name == null)
+            return null;
+        if(name instanceof String)
+            return decode((String) name);
+
+        int length = name.length();
+        int hash = 0;
+        for(int i = 0; i < length; i++)
+            hash = 31 * hash + name.charAt(i);
+
+        int pos = hash & mask;
+        int idx;
+        while((idx = table[pos]) != 0){
+            String candidate = names[idx - 1];
+            if(candidate.length() == length){
+                int i = 0;
+                while(i < length && candidate.charAt(i) == name.charAt(i))
+                    i++;
+                if(i == length)
+                    return constants[idx - 1];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the constant represented by a slice of a character array.
+     *
+     * @param buffer
+     *          character array.
+     * @param offset
+     *          index of the first character of the slice.
+     * @param length
+     *          number of characters in the slice.
+     * @return
+     *          constant or null if the slice does not represent a constant.
+     */
+    public E decode(char[] buffer, int offset, int length) {
+        if(buffer == null)
+            return null;
+        if(offset < 0 || length < 0 || offset + length > buffer.length)
+            throw new IndexOutOfBoundsException("Invalid slice: " + offset + ", " + length);
+
+        int hash = 0;
+        for(int i = offset; i < offset + length; i++)
+            hash = 31 * hash + buffer[i];
+
+        int pos = hash & mask;
+        int idx;
+        while((idx = table[pos]) != 0){
+            String candidate = names[idx - 1];
+            if(candidate.length() == length){
+                int i = 0;
+                while(i < length && candidate.charAt(i) == buffer[offset + i])
+                    i++;
+                if(i == length)
+                    return constants[idx - 1];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the string that represents a constant.
+     *
+     * @param value
+     *          enumeration constant.
+     * @return
+     *          string representing the constant or null if the constant is null.
+     */
+    public String encode(E value) {
+        if(value == null)
+            return null;
+
+        return names[value.ordinal()];
+    }
+}
@@ -59,12 +59,18 @@ public enum NCLEventAction {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLEventAction> codec = new NCLEnumCodec<NCLEventAction>(values());
+
     public static NCLEventAction getEnumType(String name){
-        for(NCLEventAction opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLEventAction getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLEventAction getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -58,12 +58,18 @@ public enum NCLEventTransition {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLEventTransition> codec = new NCLEnumCodec<NCLEventTransition>(values());
+
     public static NCLEventTransition getEnumType(String name){
-        for(NCLEventTransition opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLEventTransition getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLEventTransition getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
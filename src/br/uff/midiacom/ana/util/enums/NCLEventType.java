@@ -56,12 +56,18 @@ public enum NCLEventType {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLEventType> codec = new NCLEnumCodec<NCLEventType>(values());
+
     public static NCLEventType getEnumType(String name){
-        for(NCLEventType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLEventType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLEventType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
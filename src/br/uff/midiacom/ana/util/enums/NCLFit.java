@@ -57,12 +57,18 @@ public enum NCLFit {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLFit> codec = new NCLEnumCodec<NCLFit>(values());
+
     public static NCLFit getEnumType(String name) {
-        for(NCLFit opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLFit getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLFit getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -54,12 +54,18 @@ public enum NCLFontVariant {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLFontVariant> codec = new NCLEnumCodec<NCLFontVariant>(values());
+
     public static NCLFontVariant getEnumType(String name) {
-        for(NCLFontVariant opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLFontVariant getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLFontVariant getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLFontVariant getDefaultValue(){
@@ -54,12 +54,18 @@ public enum NCLFontWeight {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLFontWeight> codec = new NCLEnumCodec<NCLFontWeight>(values());
+
     public static NCLFontWeight getEnumType(String name) {
-        for(NCLFontWeight opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLFontWeight getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLFontWeight getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLFontWeight getDefaultValue(){
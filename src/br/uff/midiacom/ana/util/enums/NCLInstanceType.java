@@ -68,12 +68,18 @@ public enum NCLInstanceType {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLInstanceType> codec = new NCLEnumCodec<NCLInstanceType>(values());
+
     public static NCLInstanceType getEnumType(String name){
-        for(NCLInstanceType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLInstanceType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLInstanceType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -116,12 +116,18 @@ public enum NCLKey {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLKey> codec = new NCLEnumCodec<NCLKey>(values());
+
     public static NCLKey getEnumType(String name) {
-        for(NCLKey opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLKey getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLKey getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
@@ -72,12 +72,18 @@ public enum NCLMimeType {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLMimeType> codec = new NCLEnumCodec<NCLMimeType>(values());
+
     public static NCLMimeType getEnumType(String name){
-        for(NCLMimeType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLMimeType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLMimeType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
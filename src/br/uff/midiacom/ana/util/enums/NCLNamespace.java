@@ -58,12 +58,18 @@ public enum NCLNamespace {
     }
 
 
+    private static final NCLEnumCodec<NCLNamespace> codec = new NCLEnumCodec<NCLNamespace>(values());
+
     public static NCLNamespace getEnumType(String name){
-        for(NCLNamespace opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLNamespace getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLNamespace getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
 
@@ -99,12 +99,18 @@ public enum NCLNodeAttributes {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLNodeAttributes> codec = new NCLEnumCodec<NCLNodeAttributes>(values());
+
     public static NCLNodeAttributes getEnumType(String name) {
-        for(NCLNodeAttributes opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLNodeAttributes getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLNodeAttributes getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -54,12 +54,18 @@ public enum NCLOperator {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLOperator> codec = new NCLEnumCodec<NCLOperator>(values());
+
     public static NCLOperator getEnumType(String name){
-        for(NCLOperator opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLOperator getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLOperator getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -54,12 +54,18 @@ public enum NCLPlayerLife {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLPlayerLife> codec = new NCLEnumCodec<NCLPlayerLife>(values());
+
     public static NCLPlayerLife getEnumType(String name) {
-        for(NCLPlayerLife opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLPlayerLife getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLPlayerLife getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLPlayerLife getDefaultValue(){
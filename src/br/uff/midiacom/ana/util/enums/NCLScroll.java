@@ -57,12 +57,18 @@ public enum NCLScroll {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLScroll> codec = new NCLEnumCodec<NCLScroll>(values());
+
     public static NCLScroll getEnumType(String name) {
-        for(NCLScroll opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLScroll getEnumType(CharSequence name) {
+        return codec.decode(name);
+    }
+
+    public static NCLScroll getEnumType(char[] buffer, int offset, int length) {
+        return codec.decode(buffer, offset, length);
     }
     
     public NCLScroll getDefaultValue(){
@@ -95,12 +95,44 @@ public enum NCLSystemVariable {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLSystemVariable> codec = new NCLEnumCodec<NCLSystemVariable>(values());
+    private static final NCLEnumCodec<NCLSystemVariable> parameterized = new NCLEnumCodec<NCLSystemVariable>(parameterizedValues());
+
     public static NCLSystemVariable getEnumType(String name){
-        for(NCLSystemVariable opt : values()){
-            if(name.equals(opt.name))
-                return opt;
+        return codec.decode(name);
+    }
+
+    public static NCLSystemVariable getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLSystemVariable getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
+    }
+
+    public static NCLSystemVariable getEnumType(String name, boolean withParameter){
+        if(withParameter){
+            NCLSystemVariable aux = parameterized.decode(name);
+            if(aux != null)
+                return aux;
+        }
+        return codec.decode(name);
+    }
+    
+    private static NCLSystemVariable[] parameterizedValues() {
+        int count = 0;
+        for(NCLSystemVariable v : values()){
+            if(v.isParameterized())
+                count++;
+        }
+        
+        NCLSystemVariable[] result = new NCLSystemVariable[count];
+        count = 0;
+        for(NCLSystemVariable v : values()){
+            if(v.isParameterized())
+                result[count++] = v;
         }
-        return null;
+        return result;
     }
     
     
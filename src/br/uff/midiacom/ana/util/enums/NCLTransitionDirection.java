@@ -55,12 +55,18 @@ public enum NCLTransitionDirection {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLTransitionDirection> codec = new NCLEnumCodec<NCLTransitionDirection>(values());
+
     public static NCLTransitionDirection getEnumType(String name){
-        for(NCLTransitionDirection opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionDirection getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionDirection getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -78,12 +78,18 @@ public enum NCLTransitionSubtype {
     }
 
 
+    private static final NCLEnumCodec<NCLTransitionSubtype> codec = new NCLEnumCodec<NCLTransitionSubtype>(values());
+
     public static NCLTransitionSubtype getEnumType(String name){
-        for(NCLTransitionSubtype opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionSubtype getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionSubtype getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
 
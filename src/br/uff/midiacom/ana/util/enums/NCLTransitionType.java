@@ -58,12 +58,18 @@ public enum NCLTransitionType {
         this.name = name;
     }
 
+    private static final NCLEnumCodec<NCLTransitionType> codec = new NCLEnumCodec<NCLTransitionType>(values());
+
     public static NCLTransitionType getEnumType(String name){
-        for(NCLTransitionType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLTransitionType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
 
     @Override
@@ -61,12 +61,18 @@ public enum NCLUriType {
         this.name = name;
     }
     
+    private static final NCLEnumCodec<NCLUriType> codec = new NCLEnumCodec<NCLUriType>(values());
+
     public static NCLUriType getEnumType(String name){
-        for(NCLUriType opt : values()){
-            if(name.equals(opt.name))
-                return opt;
-        }
-        return null;
+        return codec.decode(name);
+    }
+
+    public static NCLUriType getEnumType(CharSequence name){
+        return codec.decode(name);
+    }
+
+    public static NCLUriType getEnumType(char[] buffer, int offset, int length){
+        return codec.decode(buffer, offset, length);
     }
     
     @Override
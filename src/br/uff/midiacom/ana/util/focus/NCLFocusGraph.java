@@ -0,0 +1,575 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.focus;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLKey;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * Focus navigation graph of a document. The graph holds the descriptors of
+ * the descriptor base of the document, including the alternatives of the
+ * descriptor switches, and the descriptors of the documents it imports, both
+ * by the descriptor base and by the imported document base.
+ * 
+ * <br/>
+ * 
+ * The descriptors are indexed by their <i>focusIndex</i> and the targets of
+ * their <i>moveLeft</i>, <i>moveRight</i>, <i>moveUp</i> and <i>moveDown</i>
+ * attributes are kept as focus indexes, so each navigation step is answered
+ * without searching the bases. A move is dangling when its target has no
+ * focus index or when no descriptor of the graph has the focus index of the
+ * target.
+ * 
+ * <br/>
+ * 
+ * The graph is a modification listener, so it can be registered in the
+ * <i>NCLModificationNotifier</i> to follow the changes of the descriptors.
+ * Since the notifications are delivered asynchronously, the graph may not
+ * reflect the last changes while they are pending. The method <i>rebuild</i>
+ * compiles the graph again from the document.
+ */
+public class NCLFocusGraph implements NCLModificationListener {
+
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int UP = 2;
+    private static final int DOWN = 3;
+    
+    private static final NCLKey[] KEYS = {NCLKey.LEFT, NCLKey.RIGHT, NCLKey.UP, NCLKey.DOWN};
+    
+    private NCLDoc doc;
+    
+    private Map<NCLDescriptor, Node> nodes = new IdentityHashMap<NCLDescriptor, Node>();
+    private TreeMap<Integer, List<Node>> order = new TreeMap<Integer, List<Node>>();
+    private Map<Integer, List<Node>> indexes = new HashMap<Integer, List<Node>>();
+    private Map<NCLElement, Boolean> containers = new IdentityHashMap<NCLElement, Boolean>();
+
+
+    /**
+     * Focus graph constructor.
+     * 
+     * @param doc
+     *          document whose descriptors are in the graph.
+     */
+    public NCLFocusGraph(NCLDoc doc) {
+        if(doc == null)
+            throw new NullPointerException("Null document.");
+        
+        this.doc = doc;
+        rebuild();
+    }
+
+
+    /**
+     * Compiles the graph again from the document.
+     */
+    public synchronized void rebuild() {
+        nodes.clear();
+        order.clear();
+        indexes.clear();
+        containers.clear();
+        
+        document(doc);
+    }
+
+
+    /**
+     * Returns the number of descriptors in the graph.
+     * 
+     * @return
+     *          number of descriptors.
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+
+    /**
+     * Verifies if a descriptor is in the graph.
+     * 
+     * @param descriptor
+     *          descriptor element.
+     * @return
+     *          true if the descriptor is in the graph.
+     */
+    public synchronized boolean contains(NCLDescriptor descriptor) {
+        return nodes.containsKey(descriptor);
+    }
+
+
+    /**
+     * Returns the focus indexes of the descriptors in the graph, in ascending
+     * order.
+     * 
+     * @return
+     *          set of focus indexes.
+     */
+    public synchronized SortedSet<Integer> getFocusIndexes() {
+        return new TreeSet<Integer>(order.keySet());
+    }
+
+
+    /**
+     * Returns the lowest focus index of the graph, which is the one that
+     * receives the focus first.
+     * 
+     * @return
+     *          focus index or <i>null</i> if no descriptor has a focus index.
+     */
+    public synchronized Integer getFirstFocusIndex() {
+        return order.isEmpty() ? null : order.firstKey();
+    }
+
+
+    /**
+     * Returns the focus index that follows a focus index in ascending order.
+     * 
+     * @param focusIndex
+     *          focus index.
+     * @return
+     *          next focus index or <i>null</i> if there is none.
+     */
+    public synchronized Integer getNextFocusIndex(Integer focusIndex) {
+        return order.higherKey(focusIndex);
+    }
+
+
+    /**
+     * Returns the focus index that precedes a focus index in ascending order.
+     * 
+     * @param focusIndex
+     *          focus index.
+     * @return
+     *          previous focus index or <i>null</i> if there is none.
+     */
+    public synchronized Integer getPreviousFocusIndex(Integer focusIndex) {
+        return order.lowerKey(focusIndex);
+    }
+
+
+    /**
+     * Returns the descriptors with a focus index, in the order they were added
+     * to the graph. More than one descriptor has the same focus index, for
+     * instance, when they are alternatives of a descriptor switch.
+     * 
+     * @param focusIndex
+     *          focus index.
+     * @return
+     *          list of descriptors.
+     */
+    public synchronized List<NCLDescriptor> getDescriptors(Integer focusIndex) {
+        List<NCLDescriptor> result = new ArrayList<NCLDescriptor>();
+        List<Node> aux = indexes.get(focusIndex);
+        if(aux != null){
+            for(Node node : aux)
+                result.add(node.descriptor);
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the first descriptor with a focus index.
+     * 
+     * @param focusIndex
+     *          focus index.
+     * @return
+     *          descriptor or <i>null</i> if no descriptor has the focus index.
+     */
+    public synchronized NCLDescriptor getDescriptor(Integer focusIndex) {
+        List<Node> aux = indexes.get(focusIndex);
+        return aux == null ? null : aux.get(0).descriptor;
+    }
+
+
+    /**
+     * Returns the focus index that receives the focus when an arrow key is
+     * pressed while a descriptor has the focus.
+     * 
+     * @param descriptor
+     *          descriptor with the focus.
+     * @param key
+     *          arrow key pressed.
+     * @return
+     *          focus index or <i>null</i> if the descriptor is not in the
+     *          graph, does not define the move or the key is not an arrow key.
+     */
+    public synchronized Integer getMove(NCLDescriptor descriptor, NCLKey key) {
+        Node node = nodes.get(descriptor);
+        int direction = direction(key);
+        if(node == null || direction < 0)
+            return null;
+        
+        return node.moves[direction];
+    }
+
+
+    /**
+     * Returns the descriptor that receives the focus when an arrow key is
+     * pressed while a descriptor has the focus. When more than one descriptor
+     * has the target focus index, the first one is returned.
+     * 
+     * @param descriptor
+     *          descriptor with the focus.
+     * @param key
+     *          arrow key pressed.
+     * @return
+     *          descriptor or <i>null</i> if there is no move or the move is
+     *          dangling.
+     */
+    public synchronized NCLDescriptor move(NCLDescriptor descriptor, NCLKey key) {
+        Integer target = getMove(descriptor, key);
+        return target == null ? null : getDescriptor(target);
+    }
+
+
+    /**
+     * Verifies if the move of a descriptor for an arrow key is dangling.
+     * 
+     * @param descriptor
+     *          descriptor element.
+     * @param key
+     *          arrow key.
+     * @return
+     *          true if the descriptor defines the move and its target is not
+     *          in the graph.
+     */
+    public synchronized boolean isDangling(NCLDescriptor descriptor, NCLKey key) {
+        Node node = nodes.get(descriptor);
+        int direction = direction(key);
+        if(node == null || direction < 0)
+            return false;
+        
+        return dangling(node, direction);
+    }
+
+
+    /**
+     * Returns the descriptors of the graph that have at least one dangling
+     * move, the ones with a focus index first, in ascending focus index.
+     * 
+     * @return
+     *          list of descriptors.
+     */
+    public synchronized List<NCLDescriptor> getDanglingMoves() {
+        List<NCLDescriptor> result = new ArrayList<NCLDescriptor>();
+        
+        for(List<Node> aux : order.values()){
+            for(Node node : aux){
+                if(dangling(node))
+                    result.add(node.descriptor);
+            }
+        }
+        for(Node node : nodes.values()){
+            if(node.index == null && dangling(node))
+                result.add(node.descriptor);
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the arrow keys for which a descriptor has dangling moves.
+     * 
+     * @param descriptor
+     *          descriptor element.
+     * @return
+     *          list of arrow keys.
+     */
+    public synchronized List<NCLKey> getDanglingKeys(NCLDescriptor descriptor) {
+        List<NCLKey> result = new ArrayList<NCLKey>();
+        Node node = nodes.get(descriptor);
+        if(node == null)
+            return result;
+        
+        for(int i = 0; i < KEYS.length; i++){
+            if(dangling(node, i))
+                result.add(KEYS[i]);
+        }
+        
+        return result;
+    }
+
+
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        NCLElement element = notification.getElement();
+        NCLElement source = notification.getSource();
+        
+        switch(notification.getType()){
+            case INSERTED_CHILD:
+                inserted(element);
+                break;
+            case REMOVED_CHILD:
+                removed(source, element);
+                break;
+            case ALTERED_ATT:
+                if(source instanceof NCLDescriptor)
+                    altered((NCLDescriptor) source, notification.getAttribute());
+                break;
+        }
+    }
+
+
+    private synchronized void inserted(NCLElement element) {
+        NCLElement parent = (NCLElement) element.getParent();
+        if(parent == null || !containers.containsKey(parent))
+            return;
+        
+        if(element instanceof NCLDescriptor){
+            if(!nodes.containsKey(element))
+                add(element);
+        }
+        else if(element instanceof NCLDescriptorSwitch){
+            if(!containers.containsKey(element))
+                add(element);
+        }
+        else if(element instanceof NCLDescriptorBase || element instanceof NCLImportedDocumentBase
+                || element instanceof NCLImport){
+            rebuild();
+        }
+    }
+
+
+    private synchronized void removed(NCLElement source, NCLElement element) {
+        if(element instanceof NCLDescriptor){
+            remove((NCLDescriptor) element);
+        }
+        else if(element instanceof NCLDescriptorSwitch){
+            if(containers.remove(element) == null)
+                return;
+            for(Object desc : ((NCLDescriptorSwitch) element).getDescriptors())
+                remove((NCLDescriptor) desc);
+        }
+        else if((element instanceof NCLDescriptorBase || element instanceof NCLImportedDocumentBase
+                || element instanceof NCLImport)
+                && (containers.containsKey(source) || containers.containsKey(element))){
+            rebuild();
+        }
+    }
+
+
+    private synchronized void altered(NCLDescriptor descriptor, NCLElementAttributes att) {
+        Node node = nodes.get(descriptor);
+        if(node == null)
+            return;
+        
+        if(att == NCLElementAttributes.FOCUSINDEX){
+            unindex(node);
+            node.index = descriptor.getFocusIndex();
+            index(node);
+            
+            // the moves to the descriptor now lead to its new focus index
+            for(Object ref : descriptor.getReferenceSet()){
+                Node aux = ref instanceof NCLDescriptor ? nodes.get(ref) : null;
+                if(aux != null)
+                    moves(aux);
+            }
+        }
+        else if(att == NCLElementAttributes.MOVELEFT || att == NCLElementAttributes.MOVERIGHT
+                || att == NCLElementAttributes.MOVEUP || att == NCLElementAttributes.MOVEDOWN){
+            moves(node);
+        }
+    }
+
+
+    private void document(NCLDoc d) {
+        NCLHead head = d.getHead();
+        if(head == null || containers.put(head, Boolean.TRUE) != null)
+            return;
+        
+        NCLDescriptorBase base = head.getDescriptorBase();
+        if(base != null){
+            containers.put(base, Boolean.TRUE);
+            for(Object desc : base.getDescriptors())
+                add((NCLElement) desc);
+            for(Object imp : base.getImportBases())
+                imported((NCLImport) imp);
+        }
+        
+        NCLImportedDocumentBase ib = head.getImportedDocumentBase();
+        if(ib != null){
+            containers.put(ib, Boolean.TRUE);
+            for(Object imp : ib.getImportNCLs())
+                imported((NCLImport) imp);
+        }
+    }
+
+
+    private void imported(NCLImport imp) {
+        Object d = imp.getImportedDoc();
+        if(d instanceof NCLDoc)
+            document((NCLDoc) d);
+    }
+
+
+    private void add(NCLElement element) {
+        if(element instanceof NCLDescriptorSwitch){
+            containers.put(element, Boolean.TRUE);
+            for(Object desc : ((NCLDescriptorSwitch) element).getDescriptors())
+                add((NCLElement) desc);
+        }
+        else if(element instanceof NCLDescriptor){
+            Node node = new Node((NCLDescriptor) element);
+            nodes.put(node.descriptor, node);
+            index(node);
+            moves(node);
+        }
+    }
+
+
+    private void remove(NCLDescriptor descriptor) {
+        Node node = nodes.remove(descriptor);
+        if(node != null)
+            unindex(node);
+    }
+
+
+    private void index(Node node) {
+        if(node.index == null)
+            return;
+        
+        List<Node> aux = indexes.get(node.index);
+        if(aux == null){
+            aux = new ArrayList<Node>();
+            indexes.put(node.index, aux);
+            order.put(node.index, aux);
+        }
+        aux.add(node);
+    }
+
+
+    private void unindex(Node node) {
+        if(node.index == null)
+            return;
+        
+        List<Node> aux = indexes.get(node.index);
+        if(aux == null)
+            return;
+        
+        aux.remove(node);
+        if(aux.isEmpty()){
+            indexes.remove(node.index);
+            order.remove(node.index);
+        }
+    }
+
+
+    private void moves(Node node) {
+        NCLDescriptor d = node.descriptor;
+        target(node, LEFT, d.getMoveLeft());
+        target(node, RIGHT, d.getMoveRight());
+        target(node, UP, d.getMoveUp());
+        target(node, DOWN, d.getMoveDown());
+    }
+
+
+    private void target(Node node, int direction, Object target) {
+        node.defined[direction] = target != null;
+        node.moves[direction] = target == null ? null : ((NCLDescriptor) target).getFocusIndex();
+    }
+
+
+    private boolean dangling(Node node) {
+        for(int i = 0; i < KEYS.length; i++){
+            if(dangling(node, i))
+                return true;
+        }
+        
+        return false;
+    }
+
+
+    private boolean dangling(Node node, int direction) {
+        if(!node.defined[direction])
+            return false;
+        
+        Integer target = node.moves[direction];
+        return target == null || !indexes.containsKey(target);
+    }
+
+
+    private static int direction(NCLKey key) {
+        for(int i = 0; i < KEYS.length; i++){
+            if(KEYS[i] == key)
+                return i;
+        }
+        
+        return -1;
+    }
+
+
+    /**
+     * Descriptor of the graph with its focus index and the focus indexes of
+     * its moves.
+     */
+    private static class Node {
+
+        private NCLDescriptor descriptor;
+        private Integer index;
+        private Integer[] moves = new Integer[4];
+        private boolean[] defined = new boolean[4];
+
+
+        private Node(NCLDescriptor descriptor) {
+            this.descriptor = descriptor;
+            this.index = descriptor.getFocusIndex();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.layout;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Computes the absolute rectangles of the regions for a screen resolution.
+ * 
+ * <br/>
+ * 
+ * The position and size of a region are relative to its parent: the parent
+ * region, the region given as parent of the region base or, for the other
+ * regions of a base, the screen. Pixel values are used as given and percent
+ * values are relative to the width or height of the parent. In each direction
+ * the size of a region is given by the start, size and end attributes:
+ * <ul>
+ *  <li>if the start and the size are defined, the end is ignored;</li>
+ *  <li>if only the start and the end are defined, the size fills the space
+ *      between them;</li>
+ *  <li>if only the size and the end are defined, the start is computed from
+ *      them;</li>
+ *  <li>an undefined start or end is taken as zero and an undefined size fills
+ *      the remaining space.</li>
+ * </ul>
+ * 
+ * <br/>
+ * 
+ * The rectangles are cached per resolution. The methods <i>invalidate</i>
+ * discard the rectangles of a region and of the regions inside it. The engine
+ * is also a modification listener, so it can be registered in the
+ * <i>NCLModificationNotifier</i> to discard only the rectangles affected by
+ * each change of the regions.
+ * 
+ * @see NCLRectangle
+ */
+public class NCLLayoutEngine implements NCLModificationListener {
+
+    private static final int DEFAULT_RESOLUTIONS = 8;
+    
+    private Map<Long, Map<NCLRegion, NCLRectangle>> caches;
+
+
+    /**
+     * Layout engine constructor. The engine keeps the rectangles of up to
+     * eight resolutions.
+     */
+    public NCLLayoutEngine() {
+        this(DEFAULT_RESOLUTIONS);
+    }
+
+
+    /**
+     * Layout engine constructor.
+     * 
+     * @param resolutions
+     *          number of resolutions whose rectangles are kept, at least 1.
+     */
+    public NCLLayoutEngine(final int resolutions) {
+        if(resolutions < 1)
+            throw new IllegalArgumentException("The number of resolutions must be positive.");
+        
+        caches = new LinkedHashMap<Long, Map<NCLRegion, NCLRectangle>>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<NCLRegion, NCLRectangle>> eldest) {
+                return size() > resolutions;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the absolute rectangle of a region.
+     * 
+     * @param region
+     *          region element.
+     * @param width
+     *          width of the screen.
+     * @param height
+     *          height of the screen.
+     * @return
+     *          rectangle of the region.
+     */
+    public synchronized NCLRectangle getBounds(NCLRegion region, int width, int height) {
+        if(region == null)
+            throw new NullPointerException("Null region.");
+        
+        return getBounds(region, getCache(width, height), new NCLRectangle(0, 0, width, height));
+    }
+
+
+    /**
+     * Returns the absolute rectangles of all regions of a region base,
+     * including the regions inside other regions, in document order.
+     * 
+     * @param base
+     *          region base.
+     * @param width
+     *          width of the screen.
+     * @param height
+     *          height of the screen.
+     * @return
+     *          map from each region to its rectangle.
+     */
+    public synchronized Map<NCLRegion, NCLRectangle> layout(NCLRegionBase base, int width, int height) {
+        if(base == null)
+            throw new NullPointerException("Null region base.");
+        
+        Map<NCLRegion, NCLRectangle> cache = getCache(width, height);
+        NCLRectangle screen = new NCLRectangle(0, 0, width, height);
+        Map<NCLRegion, NCLRectangle> result = new LinkedHashMap<NCLRegion, NCLRectangle>();
+        
+        Deque<NCLRegion> pending = new ArrayDeque<NCLRegion>();
+        push(pending, base.getRegions());
+        while(!pending.isEmpty()){
+            NCLRegion region = pending.pop();
+            result.put(region, getBounds(region, cache, screen));
+            push(pending, region.getRegions());
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Discards the rectangles of a region and of the regions inside it, for
+     * all resolutions.
+     * 
+     * @param region
+     *          region element.
+     */
+    public synchronized void invalidate(NCLRegion region) {
+        if(caches.isEmpty())
+            return;
+        
+        for(NCLRegion aux : subtree(region)){
+            for(Map<NCLRegion, NCLRectangle> cache : caches.values())
+                cache.remove(aux);
+        }
+    }
+
+
+    /**
+     * Discards the rectangles of all regions of a region base, for all
+     * resolutions.
+     * 
+     * @param base
+     *          region base.
+     */
+    public synchronized void invalidate(NCLRegionBase base) {
+        for(Object region : base.getRegions())
+            invalidate((NCLRegion) region);
+    }
+
+
+    /**
+     * Discards all rectangles.
+     */
+    public synchronized void invalidate() {
+        caches.clear();
+    }
+
+
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        NCLElement element = notification.getElement();
+        NCLElement source = notification.getSource();
+        
+        switch(notification.getType()){
+            case INSERTED_CHILD:
+            case REMOVED_CHILD:
+                if(element instanceof NCLRegion)
+                    invalidate((NCLRegion) element);
+                else if(element instanceof NCLRegionBase)
+                    invalidate((NCLRegionBase) element);
+                break;
+            case ALTERED_ATT:
+                if(source instanceof NCLRegion && isGeometry(notification.getAttribute()))
+                    invalidate((NCLRegion) source);
+                else if(source instanceof NCLRegionBase && notification.getAttribute() == NCLElementAttributes.REGION)
+                    invalidate((NCLRegionBase) source);
+                break;
+        }
+    }
+
+
+    /**
+     * Computes the absolute rectangle of a region inside the rectangle of its
+     * parent.
+     * 
+     * @param region
+     *          region element.
+     * @param parent
+     *          rectangle of the parent of the region.
+     * @return
+     *          rectangle of the region.
+     */
+    public static NCLRectangle resolve(NCLRegion region, NCLRectangle parent) {
+        int[] h = axis(region.getLeft(), region.getWidth(), region.getRight(), parent.getWidth());
+        int[] v = axis(region.getTop(), region.getHeight(), region.getBottom(), parent.getHeight());
+        
+        return new NCLRectangle(parent.getX() + h[0], parent.getY() + v[0], h[1], v[1]);
+    }
+
+
+    private NCLRectangle getBounds(NCLRegion region, Map<NCLRegion, NCLRectangle> cache, NCLRectangle screen) {
+        NCLRectangle result = cache.get(region);
+        if(result != null)
+            return result;
+        
+        // the ancestors without rectangle are resolved from the top
+        List<NCLRegion> path = new ArrayList<NCLRegion>();
+        NCLRectangle parent = screen;
+        NCLRegion aux = region;
+        while(aux != null){
+            NCLRectangle bounds = cache.get(aux);
+            if(bounds != null){
+                parent = bounds;
+                break;
+            }
+            path.add(aux);
+            aux = getParentRegion(aux);
+            
+            // a cycle through the parent region of the bases ends at the screen
+            if(aux != null && path.contains(aux))
+                aux = null;
+        }
+        
+        for(int i = path.size() - 1; i >= 0; i--){
+            parent = resolve(path.get(i), parent);
+            cache.put(path.get(i), parent);
+        }
+        
+        return parent;
+    }
+
+
+    private Map<NCLRegion, NCLRectangle> getCache(int width, int height) {
+        if(width < 0 || height < 0)
+            throw new IllegalArgumentException("Negative resolution.");
+        
+        Long key = ((long) width << 32) | height;
+        Map<NCLRegion, NCLRectangle> cache = caches.get(key);
+        if(cache == null){
+            cache = new IdentityHashMap<NCLRegion, NCLRectangle>();
+            caches.put(key, cache);
+        }
+        
+        return cache;
+    }
+
+
+    /**
+     * Returns the region a region is relative to or null for the screen.
+     */
+    private static NCLRegion getParentRegion(NCLRegion region) {
+        Object parent = region.getParent();
+        if(parent instanceof NCLRegion)
+            return (NCLRegion) parent;
+        
+        if(parent instanceof NCLRegionBase){
+            Object aux = ((NCLRegionBase) parent).getParentRegion();
+            if(aux instanceof ExternalReferenceType)
+                aux = ((ExternalReferenceType) aux).getTarget();
+            if(aux instanceof NCLRegion && aux != region)
+                return (NCLRegion) aux;
+        }
+        
+        return null;
+    }
+
+
+    /**
+     * Returns the regions whose rectangles depend on a region: the region,
+     * the regions inside it and the regions of the bases that use it as
+     * parent region.
+     */
+    private static List<NCLRegion> subtree(NCLRegion region) {
+        List<NCLRegion> result = new ArrayList<NCLRegion>();
+        Map<NCLRegion, Boolean> visited = new IdentityHashMap<NCLRegion, Boolean>();
+        Deque<NCLRegion> pending = new ArrayDeque<NCLRegion>();
+        pending.push(region);
+        
+        while(!pending.isEmpty()){
+            NCLRegion aux = pending.pop();
+            if(visited.put(aux, Boolean.TRUE) != null)
+                continue;
+            
+            result.add(aux);
+            push(pending, aux.getRegions());
+            for(Object ref : aux.getReferenceSet()){
+                if(ref instanceof NCLRegionBase)
+                    push(pending, ((NCLRegionBase) ref).getRegions());
+            }
+        }
+        
+        return result;
+    }
+
+
+    private static void push(Deque<NCLRegion> pending, Iterable regions) {
+        // pushed in reverse so they are popped in document order
+        List<NCLRegion> aux = new ArrayList<NCLRegion>();
+        for(Object region : regions)
+            aux.add((NCLRegion) region);
+        for(int i = aux.size() - 1; i >= 0; i--)
+            pending.push(aux.get(i));
+    }
+
+
+    /**
+     * Returns the start and the size of a region in one direction.
+     */
+    private static int[] axis(Object start, Object size, Object end, int extent) {
+        Integer s = value(start, extent);
+        Integer z = value(size, extent);
+        Integer e = value(end, extent);
+        
+        int pos, len;
+        if(s != null && z != null){
+            pos = s;
+            len = z;
+        }
+        else if(s != null){
+            pos = s;
+            len = extent - s - (e == null ? 0 : e);
+        }
+        else if(z != null){
+            len = z;
+            pos = e == null ? 0 : extent - e - z;
+        }
+        else{
+            pos = 0;
+            len = extent - (e == null ? 0 : e);
+        }
+        
+        return new int[]{pos, Math.max(len, 0)};
+    }
+
+
+    private static Integer value(Object value, int extent) {
+        if(value instanceof Integer)
+            return (Integer) value;
+        if(value instanceof Double)
+            return (int) Math.round((Double) value * extent / 100.0);
+        
+        return null;
+    }
+
+
+    private static boolean isGeometry(NCLElementAttributes att) {
+        return att == NCLElementAttributes.LEFT || att == NCLElementAttributes.RIGHT
+                || att == NCLElementAttributes.TOP || att == NCLElementAttributes.BOTTOM
+                || att == NCLElementAttributes.WIDTH || att == NCLElementAttributes.HEIGHT;
+    }
+}
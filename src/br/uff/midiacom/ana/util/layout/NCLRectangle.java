@@ -0,0 +1,171 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.layout;
+
+import java.io.Serializable;
+
+
+/**
+ * Rectangle with integer coordinates, in pixels, of the screen. The origin is
+ * the top left corner of the screen. Rectangles are immutable.
+ */
+public class NCLRectangle implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+
+    /**
+     * Rectangle constructor. A negative size is taken as zero.
+     * 
+     * @param x
+     *          horizontal position of the left side.
+     * @param y
+     *          vertical position of the top side.
+     * @param width
+     *          width of the rectangle.
+     * @param height
+     *          height of the rectangle.
+     */
+    public NCLRectangle(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = Math.max(width, 0);
+        this.height = Math.max(height, 0);
+    }
+
+
+    public int getX() {
+        return x;
+    }
+
+
+    public int getY() {
+        return y;
+    }
+
+
+    public int getWidth() {
+        return width;
+    }
+
+
+    public int getHeight() {
+        return height;
+    }
+
+
+    /**
+     * Returns the horizontal position after the right side, that is, the
+     * position of the left side plus the width.
+     * 
+     * @return
+     *          horizontal limit of the rectangle.
+     */
+    public int getMaxX() {
+        return x + width;
+    }
+
+
+    /**
+     * Returns the vertical position after the bottom side, that is, the
+     * position of the top side plus the height.
+     * 
+     * @return
+     *          vertical limit of the rectangle.
+     */
+    public int getMaxY() {
+        return y + height;
+    }
+
+
+    /**
+     * Checks if a point is inside the rectangle. The left and top sides are
+     * inside the rectangle, the right and bottom limits are not.
+     * 
+     * @param px
+     *          horizontal position of the point.
+     * @param py
+     *          vertical position of the point.
+     * @return
+     *          true if the point is inside the rectangle.
+     */
+    public boolean contains(int px, int py) {
+        return px >= x && py >= y && px < x + width && py < y + height;
+    }
+
+
+    /**
+     * Checks if the rectangle shares any point with another rectangle.
+     * 
+     * @param other
+     *          other rectangle.
+     * @return
+     *          true if the rectangles intersect.
+     */
+    public boolean intersects(NCLRectangle other) {
+        return other.x < x + width && x < other.x + other.width
+                && other.y < y + height && y < other.y + other.height;
+    }
+
+
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof NCLRectangle))
+            return false;
+        
+        NCLRectangle aux = (NCLRectangle) other;
+        return aux.x == x && aux.y == y && aux.width == width && aux.height == height;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return ((x * 31 + y) * 31 + width) * 31 + height;
+    }
+
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + width + ", " + height + ")";
+    }
+}
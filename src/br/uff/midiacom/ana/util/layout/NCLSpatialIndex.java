@@ -0,0 +1,613 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.layout;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Spatial index of the regions of one or more region bases for a screen
+ * resolution. The rectangles of the regions are given by a layout engine and
+ * placed in a uniform grid of cells, so the regions at a point or inside an
+ * area are found looking only at the cells they cover.
+ * 
+ * <br/>
+ * 
+ * The results of the queries are ordered from the top to the bottom region:
+ * by decreasing zIndex, a region without zIndex having zIndex 0, and, for the
+ * same zIndex, from the region added last to the region added first, which is
+ * the document order for the regions added with their base.
+ * 
+ * <br/>
+ * 
+ * The index is updated with the methods <i>addRegionBase</i>,
+ * <i>removeRegionBase</i> and <i>update</i>. The index is also a modification
+ * listener, so it can be registered in the <i>NCLModificationNotifier</i> to
+ * follow the changes of the regions. The notifications are delivered
+ * asynchronously, so while they are pending the index may not reflect the
+ * last changes.
+ * 
+ * @see NCLLayoutEngine
+ */
+public class NCLSpatialIndex implements NCLModificationListener {
+
+    private static final int DEFAULT_CELL = 64;
+    
+    private NCLLayoutEngine engine;
+    private int width;
+    private int height;
+    private int cell;
+    private int columns;
+    private int rows;
+    
+    private List<Entry>[] cells;
+    private Map<NCLRegion, Entry> entries = new IdentityHashMap<NCLRegion, Entry>();
+    private List<NCLRegionBase> bases = new ArrayList<NCLRegionBase>();
+    private long sequence;
+
+
+    /**
+     * Spatial index constructor. The cells of the grid have 64 pixels.
+     * 
+     * @param engine
+     *          layout engine that gives the rectangles of the regions.
+     * @param width
+     *          width of the screen.
+     * @param height
+     *          height of the screen.
+     */
+    public NCLSpatialIndex(NCLLayoutEngine engine, int width, int height) {
+        this(engine, width, height, DEFAULT_CELL);
+    }
+
+
+    /**
+     * Spatial index constructor.
+     * 
+     * @param engine
+     *          layout engine that gives the rectangles of the regions.
+     * @param width
+     *          width of the screen.
+     * @param height
+     *          height of the screen.
+     * @param cell
+     *          size, in pixels, of the cells of the grid.
+     */
+    public NCLSpatialIndex(NCLLayoutEngine engine, int width, int height, int cell) {
+        if(engine == null)
+            throw new NullPointerException("Null layout engine.");
+        if(width < 0 || height < 0)
+            throw new IllegalArgumentException("Negative resolution.");
+        if(cell < 1)
+            throw new IllegalArgumentException("The cell size must be positive.");
+        
+        this.engine = engine;
+        this.width = width;
+        this.height = height;
+        this.cell = cell;
+        columns = Math.max(1, (width + cell - 1) / cell);
+        rows = Math.max(1, (height + cell - 1) / cell);
+        cells = new List[columns * rows];
+    }
+
+
+    /**
+     * Adds the regions of a region base to the index.
+     * 
+     * @param base
+     *          region base.
+     */
+    public synchronized void addRegionBase(NCLRegionBase base) {
+        if(base == null)
+            throw new NullPointerException("Null region base.");
+        if(bases.contains(base))
+            return;
+        
+        bases.add(base);
+        for(Object region : base.getRegions())
+            add((NCLRegion) region);
+    }
+
+
+    /**
+     * Removes the regions of a region base from the index.
+     * 
+     * @param base
+     *          region base.
+     */
+    public synchronized void removeRegionBase(NCLRegionBase base) {
+        if(!bases.remove(base))
+            return;
+        
+        for(Object region : base.getRegions())
+            remove((NCLRegion) region);
+    }
+
+
+    /**
+     * Places again a region and the regions inside it, with the rectangles
+     * given by the layout engine. The engine must already reflect the change
+     * of the region.
+     * 
+     * @param region
+     *          region element.
+     */
+    public synchronized void update(NCLRegion region) {
+        List<NCLRegion> aux = new ArrayList<NCLRegion>();
+        subtree(region, aux);
+        
+        for(NCLRegion r : aux){
+            Entry entry = entries.get(r);
+            if(entry == null)
+                continue;
+            
+            unplace(entry);
+            entry.bounds = engine.getBounds(r, width, height);
+            entry.z = zIndex(r);
+            place(entry);
+        }
+    }
+
+
+    /**
+     * Returns the number of regions in the index.
+     * 
+     * @return
+     *          number of regions.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Returns the rectangle of a region in the index.
+     * 
+     * @param region
+     *          region element.
+     * @return
+     *          rectangle of the region or <i>null</i> if the region is not in
+     *          the index.
+     */
+    public synchronized NCLRectangle getBounds(NCLRegion region) {
+        Entry entry = entries.get(region);
+        return entry == null ? null : entry.bounds;
+    }
+
+
+    /**
+     * Returns the regions that contain a point, from the top to the bottom.
+     * 
+     * @param x
+     *          horizontal position of the point.
+     * @param y
+     *          vertical position of the point.
+     * @return
+     *          list of regions.
+     */
+    public synchronized List<NCLRegion> getRegionsAt(int x, int y) {
+        List<Entry> found = new ArrayList<Entry>();
+        List<Entry> aux = cells[cellIndex(column(x), row(y))];
+        if(aux != null){
+            for(Entry entry : aux){
+                if(entry.bounds.contains(x, y))
+                    found.add(entry);
+            }
+        }
+        
+        return sort(found);
+    }
+
+
+    /**
+     * Returns the top region that contains a point.
+     * 
+     * @param x
+     *          horizontal position of the point.
+     * @param y
+     *          vertical position of the point.
+     * @return
+     *          region or <i>null</i> if no region contains the point.
+     */
+    public synchronized NCLRegion getTopRegionAt(int x, int y) {
+        List<NCLRegion> aux = getRegionsAt(x, y);
+        return aux.isEmpty() ? null : aux.get(0);
+    }
+
+
+    /**
+     * Returns the descriptors whose regions contain a point, from the top to
+     * the bottom region.
+     * 
+     * @param x
+     *          horizontal position of the point.
+     * @param y
+     *          vertical position of the point.
+     * @return
+     *          list of descriptors.
+     */
+    public synchronized List<NCLDescriptor> getDescriptorsAt(int x, int y) {
+        List<NCLDescriptor> result = new ArrayList<NCLDescriptor>();
+        for(NCLRegion region : getRegionsAt(x, y)){
+            for(Object ref : region.getReferenceSet()){
+                if(ref instanceof NCLDescriptor)
+                    result.add((NCLDescriptor) ref);
+            }
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the regions that intersect an area, from the top to the bottom.
+     * 
+     * @param area
+     *          rectangle of the area.
+     * @return
+     *          list of regions.
+     */
+    public synchronized List<NCLRegion> getRegionsIn(NCLRectangle area) {
+        Map<Entry, Boolean> found = new IdentityHashMap<Entry, Boolean>();
+        if(area.getWidth() > 0 && area.getHeight() > 0){
+            int c1 = column(area.getMaxX() - 1), r1 = row(area.getMaxY() - 1);
+            for(int r = row(area.getY()); r <= r1; r++){
+                for(int c = column(area.getX()); c <= c1; c++){
+                    List<Entry> aux = cells[cellIndex(c, r)];
+                    if(aux == null)
+                        continue;
+                    for(Entry entry : aux){
+                        if(entry.bounds.intersects(area))
+                            found.put(entry, Boolean.TRUE);
+                    }
+                }
+            }
+        }
+        
+        return sort(new ArrayList<Entry>(found.keySet()));
+    }
+
+
+    /**
+     * Returns the regions placed above a region that intersect it, from the
+     * top to the bottom. The regions inside the region and the regions that
+     * contain it are not taken as occluding it.
+     * 
+     * @param region
+     *          region element.
+     * @return
+     *          list of regions.
+     */
+    public synchronized List<NCLRegion> getOccluders(NCLRegion region) {
+        List<NCLRegion> result = new ArrayList<NCLRegion>();
+        Entry entry = entries.get(region);
+        if(entry == null)
+            return result;
+        
+        for(NCLRegion other : getRegionsIn(entry.bounds)){
+            Entry aux = entries.get(other);
+            if(ORDER.compare(aux, entry) < 0 && !related(region, other))
+                result.add(other);
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the pairs of regions that intersect. The regions inside a region
+     * are not taken as intersecting it. In each pair, the first region is the
+     * one on top.
+     * 
+     * @return
+     *          list of pairs of regions.
+     */
+    public synchronized List<NCLRegion[]> getOverlaps() {
+        List<NCLRegion[]> result = new ArrayList<NCLRegion[]>();
+        
+        for(int index = 0; index < cells.length; index++){
+            List<Entry> aux = cells[index];
+            if(aux == null)
+                continue;
+            
+            int c = index % columns, r = index / columns;
+            for(int i = 0; i < aux.size(); i++){
+                for(int j = i + 1; j < aux.size(); j++){
+                    Entry a = aux.get(i), b = aux.get(j);
+                    if(!a.bounds.intersects(b.bounds))
+                        continue;
+                    
+                    // a pair is reported only by the cell of the top left
+                    // corner of the intersection
+                    int x = Math.max(a.bounds.getX(), b.bounds.getX());
+                    int y = Math.max(a.bounds.getY(), b.bounds.getY());
+                    if(column(x) != c || row(y) != r || related(a.region, b.region))
+                        continue;
+                    
+                    if(ORDER.compare(a, b) <= 0)
+                        result.add(new NCLRegion[]{a.region, b.region});
+                    else
+                        result.add(new NCLRegion[]{b.region, a.region});
+                }
+            }
+        }
+        
+        return result;
+    }
+
+
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        NCLElement element = notification.getElement();
+        NCLElement source = notification.getSource();
+        
+        switch(notification.getType()){
+            case INSERTED_CHILD:
+                if(element instanceof NCLRegion)
+                    inserted((NCLRegion) element);
+                break;
+            case REMOVED_CHILD:
+                if(element instanceof NCLRegion)
+                    removed((NCLRegion) element);
+                break;
+            case ALTERED_ATT:
+                if(source instanceof NCLRegion)
+                    altered((NCLRegion) source, notification.getAttribute());
+                else if(source instanceof NCLRegionBase && notification.getAttribute() == NCLElementAttributes.REGION)
+                    rebase((NCLRegionBase) source);
+                break;
+        }
+    }
+
+
+    private synchronized void inserted(NCLRegion region) {
+        if(entries.containsKey(region))
+            removed(region);
+        
+        NCLElement parent = (NCLElement) region.getParent();
+        if((parent instanceof NCLRegion && entries.containsKey(parent)) || bases.contains(parent)){
+            engine.invalidate(region);
+            add(region);
+        }
+    }
+
+
+    private synchronized void removed(NCLRegion region) {
+        engine.invalidate(region);
+        remove(region);
+    }
+
+
+    private synchronized void altered(NCLRegion region, NCLElementAttributes att) {
+        if(!entries.containsKey(region))
+            return;
+        
+        if(att == NCLElementAttributes.ZINDEX){
+            entries.get(region).z = zIndex(region);
+        }
+        else if(att == NCLElementAttributes.LEFT || att == NCLElementAttributes.RIGHT
+                || att == NCLElementAttributes.TOP || att == NCLElementAttributes.BOTTOM
+                || att == NCLElementAttributes.WIDTH || att == NCLElementAttributes.HEIGHT){
+            engine.invalidate(region);
+            update(region);
+            
+            // the bases that use the region as parent region move with it
+            for(Object ref : region.getReferenceSet()){
+                if(ref instanceof NCLRegionBase && bases.contains(ref))
+                    rebase((NCLRegionBase) ref);
+            }
+        }
+    }
+
+
+    private synchronized void rebase(NCLRegionBase base) {
+        if(!bases.contains(base))
+            return;
+        
+        engine.invalidate(base);
+        for(Object region : base.getRegions())
+            update((NCLRegion) region);
+    }
+
+
+    private void add(NCLRegion region) {
+        List<NCLRegion> aux = new ArrayList<NCLRegion>();
+        subtree(region, aux);
+        
+        for(NCLRegion r : aux){
+            Entry entry = new Entry(r, engine.getBounds(r, width, height), zIndex(r), sequence++);
+            entries.put(r, entry);
+            place(entry);
+        }
+    }
+
+
+    private void remove(NCLRegion region) {
+        List<NCLRegion> aux = new ArrayList<NCLRegion>();
+        subtree(region, aux);
+        
+        for(NCLRegion r : aux){
+            Entry entry = entries.remove(r);
+            if(entry != null)
+                unplace(entry);
+        }
+    }
+
+
+    private void place(Entry entry) {
+        NCLRectangle b = entry.bounds;
+        if(b.getWidth() == 0 || b.getHeight() == 0)
+            return;
+        
+        int c1 = column(b.getMaxX() - 1), r1 = row(b.getMaxY() - 1);
+        for(int r = row(b.getY()); r <= r1; r++){
+            for(int c = column(b.getX()); c <= c1; c++){
+                int index = cellIndex(c, r);
+                if(cells[index] == null)
+                    cells[index] = new ArrayList<Entry>();
+                cells[index].add(entry);
+            }
+        }
+    }
+
+
+    private void unplace(Entry entry) {
+        NCLRectangle b = entry.bounds;
+        if(b.getWidth() == 0 || b.getHeight() == 0)
+            return;
+        
+        int c1 = column(b.getMaxX() - 1), r1 = row(b.getMaxY() - 1);
+        for(int r = row(b.getY()); r <= r1; r++){
+            for(int c = column(b.getX()); c <= c1; c++){
+                List<Entry> aux = cells[cellIndex(c, r)];
+                if(aux != null)
+                    aux.remove(entry);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the column of a horizontal position. Positions outside the
+     * screen fall in the cells of its border.
+     */
+    private int column(int x) {
+        return Math.min(Math.max(x, 0) / cell, columns - 1);
+    }
+
+
+    private int row(int y) {
+        return Math.min(Math.max(y, 0) / cell, rows - 1);
+    }
+
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+
+
+    private static void subtree(NCLRegion region, List<NCLRegion> result) {
+        result.add(region);
+        for(Object child : region.getRegions())
+            subtree((NCLRegion) child, result);
+    }
+
+
+    /**
+     * Checks if one of the regions is inside the other.
+     */
+    private static boolean related(NCLRegion a, NCLRegion b) {
+        return isInside(a, b) || isInside(b, a);
+    }
+
+
+    private static boolean isInside(NCLRegion region, NCLRegion ancestor) {
+        Object aux = region.getParent();
+        while(aux instanceof NCLRegion){
+            if(aux == ancestor)
+                return true;
+            aux = ((NCLRegion) aux).getParent();
+        }
+        
+        return false;
+    }
+
+
+    private static int zIndex(NCLRegion region) {
+        Integer aux = region.getzIndex();
+        return aux == null ? 0 : aux;
+    }
+
+
+    private static List<NCLRegion> sort(List<Entry> found) {
+        Collections.sort(found, ORDER);
+        
+        List<NCLRegion> result = new ArrayList<NCLRegion>(found.size());
+        for(Entry entry : found)
+            result.add(entry.region);
+        
+        return result;
+    }
+
+
+    /**
+     * Orders the entries from the top to the bottom.
+     */
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            if(a.z != b.z)
+                return a.z > b.z ? -1 : 1;
+            if(a.sequence != b.sequence)
+                return a.sequence > b.sequence ? -1 : 1;
+            return 0;
+        }
+    };
+
+
+    /**
+     * Region placed in the index.
+     */
+    private static class Entry {
+
+        private NCLRegion region;
+        private NCLRectangle bounds;
+        private int z;
+        private long sequence;
+
+
+        private Entry(NCLRegion region, NCLRectangle bounds, int z, long sequence) {
+            this.region = region;
+            this.bounds = bounds;
+            this.z = z;
+            this.sequence = sequence;
+        }
+    }
+}
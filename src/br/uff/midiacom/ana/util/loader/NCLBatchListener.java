@@ -0,0 +1,80 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.io.File;
+
+
+/**
+ * Interface that represents a batch loading listener. This listener receives
+ * each document loaded by a batch loader as soon as it is parsed.
+ * 
+ * <br/>
+ * 
+ * The listener methods are called by the loader worker threads, possibly at
+ * the same time, so implementations must be thread safe.
+ * 
+ * @param <Ed>
+ *          NCL document type.
+ */
+public interface NCLBatchListener<Ed extends NCLDoc> {
+
+
+    /**
+     * Notifies the listener that a document was loaded.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @param doc
+     *          element representing the document loaded.
+     */
+    public void loadedDocument(File file, Ed doc);
+
+
+    /**
+     * Notifies the listener that a document could not be loaded.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @param ex
+     *          exception describing the error found while parsing the document.
+     */
+    public void failedDocument(File file, NCLParsingException ex);
+}
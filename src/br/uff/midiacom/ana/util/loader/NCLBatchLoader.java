@@ -0,0 +1,294 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * Class that loads several NCL documents in parallel. The documents are parsed
+ * by a work-stealing pool of threads and delivered, one by one, to a batch
+ * listener.
+ * 
+ * <br/>
+ * 
+ * All documents loaded by the same loader share a cache of imported documents,
+ * so a document imported by several documents of the batch is parsed only
+ * once. The loader does not keep the documents it delivers, limits the number
+ * of documents waiting to be parsed and bounds the number of documents in the
+ * cache, so the memory used depends only on what the listener keeps.
+ * 
+ * @param <Ed>
+ *          NCL document type.
+ */
+public class NCLBatchLoader<Ed extends NCLDoc> {
+
+    private static final String EXTENSION = ".ncl";
+    
+    private ForkJoinPool pool;
+    private NCLImportCache importCache;
+    private int maxPending;
+
+
+    /**
+     * Batch loader constructor. The loader uses one thread for each available
+     * processor.
+     * 
+     * @throws XMLException 
+     *          if an error occur while creating the loader.
+     */
+    public NCLBatchLoader() throws XMLException {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Batch loader constructor.
+     * 
+     * @param parallelism
+     *          number of threads used to load the documents.
+     * @throws XMLException
+     *          if the number of threads is not positive.
+     */
+    public NCLBatchLoader(int parallelism) throws XMLException {
+        this(parallelism, new NCLImportCache());
+    }
+
+
+    /**
+     * Batch loader constructor.
+     * 
+     * @param parallelism
+     *          number of threads used to load the documents.
+     * @param cacheCapacity
+     *          maximum number of imported documents kept in the cache.
+     * @throws XMLException
+     *          if the number of threads or the capacity is not positive.
+     */
+    public NCLBatchLoader(int parallelism, int cacheCapacity) throws XMLException {
+        this(parallelism, createCache(cacheCapacity));
+    }
+
+
+    private NCLBatchLoader(int parallelism, NCLImportCache importCache) throws XMLException {
+        if(parallelism < 1)
+            throw new XMLException("Parallelism must be positive.");
+        
+        pool = new ForkJoinPool(parallelism);
+        this.importCache = importCache;
+        maxPending = 4 * parallelism;
+    }
+
+
+    private static NCLImportCache createCache(int capacity) throws XMLException {
+        if(capacity < 1)
+            throw new XMLException("Cache capacity must be positive.");
+        
+        return new NCLImportCache(capacity);
+    }
+
+
+    /**
+     * Returns the cache of imported documents shared by all documents loaded
+     * by this loader.
+     * 
+     * @return
+     *          cache of imported documents.
+     */
+    public NCLImportCache getImportCache() {
+        return importCache;
+    }
+
+
+    /**
+     * Loads all NCL documents (files with the extension <i>.ncl</i>) inside a
+     * directory and its subdirectories. The method returns after all
+     * documents were delivered to the listener.
+     * 
+     * @param directory
+     *          directory with the NCL documents.
+     * @param listener
+     *          listener that receives the documents loaded.
+     * @throws XMLException
+     *          if the directory is not valid or the loading is interrupted.
+     */
+    public void load(File directory, NCLBatchListener<Ed> listener) throws XMLException {
+        if(directory == null || !directory.isDirectory())
+            throw new XMLException("Invalid directory.");
+        if(listener == null)
+            throw new XMLException("Null listener.");
+        
+        Semaphore pending = new Semaphore(maxPending);
+        ArrayDeque<File> dirs = new ArrayDeque<File>();
+        dirs.push(directory);
+        
+        while(!dirs.isEmpty()){
+            File[] files = dirs.pop().listFiles();
+            if(files == null)
+                continue;
+            
+            for(File f : files){
+                if(f.isDirectory())
+                    dirs.push(f);
+                else if(f.getName().endsWith(EXTENSION))
+                    submit(f, listener, pending);
+            }
+        }
+        
+        await(pending);
+    }
+
+
+    /**
+     * Loads the NCL documents given by an iterator. The files are read from
+     * the iterator as the pool is able to parse them. The method returns after
+     * all documents were delivered to the listener.
+     * 
+     * @param files
+     *          iterator of files with the NCL documents content.
+     * @param listener
+     *          listener that receives the documents loaded.
+     * @throws XMLException
+     *          if the iterator or the listener are null or the loading is
+     *          interrupted.
+     */
+    public void load(Iterator<File> files, NCLBatchListener<Ed> listener) throws XMLException {
+        if(files == null)
+            throw new XMLException("Null iterator.");
+        if(listener == null)
+            throw new XMLException("Null listener.");
+        
+        Semaphore pending = new Semaphore(maxPending);
+        while(files.hasNext()){
+            File f = files.next();
+            if(f != null)
+                submit(f, listener, pending);
+        }
+        
+        await(pending);
+    }
+
+
+    /**
+     * Stops the threads used by the loader. The loader can not be used after
+     * this method is called.
+     */
+    public void shutdown() {
+        pool.shutdown();
+        importCache.clear();
+    }
+
+
+    private void submit(final File file, final NCLBatchListener<Ed> listener,
+            final Semaphore pending) throws XMLException {
+        try{
+            pending.acquire();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new NCLParsingException("Batch loading interrupted.");
+        }
+        
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    loadDocument(file, listener);
+                }
+                finally{
+                    pending.release();
+                }
+            }
+        });
+    }
+
+
+    private void await(Semaphore pending) throws XMLException {
+        try{
+            pending.acquire(maxPending);
+            pending.release(maxPending);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new NCLParsingException("Batch loading interrupted.");
+        }
+    }
+
+
+    private void loadDocument(File file, NCLBatchListener<Ed> listener) {
+        Ed doc = null;
+        NCLParsingException error = null;
+        
+        try{
+            doc = createDoc();
+            doc.setImportCache(importCache);
+            doc.loadXML(file);
+        }catch(NCLParsingException e){
+            error = e;
+        }catch(XMLException e){
+            error = new NCLParsingException(e);
+        }catch(RuntimeException e){
+            error = new NCLParsingException(e);
+        }
+        
+        // Avoiding user errors
+        try{
+            if(error == null)
+                listener.loadedDocument(file, doc);
+            else
+                listener.failedDocument(file, error);
+        }catch(Exception e){}
+    }
+
+
+    /**
+     * Function to create a document element.
+     * This function must be overwritten in classes that extends this one.
+     *
+     * @return
+     *          element representing the document element.
+     */
+    protected Ed createDoc() throws XMLException {
+        return (Ed) new NCLDoc();
+    }
+}
@@ -0,0 +1,323 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * This class represents a cache of imported documents. Documents that import
+ * the same file and share a cache also share the element representing the
+ * imported document, so each file is parsed only once.
+ * 
+ * <br/>
+ * 
+ * The cache can be shared by documents loaded in different threads. The
+ * imported documents kept by the cache must be treated as read only, since
+ * they may be referred by several documents at the same time.
+ * 
+ * <br/>
+ * 
+ * The cache counts the references to each document, that is, the number of
+ * times the document was acquired or added. When a document is released and
+ * no references remain, it is removed from the cache.
+ * 
+ * <br/>
+ * 
+ * The cache keeps at most a given number of documents. When a document is
+ * added to a full cache, the least recently used document is evicted: the
+ * documents that already refer to it keep it, but the next documents that
+ * import the same file parse it again. The reference counts do not keep the
+ * documents alive, so a document no longer referred by any importer is
+ * discarded even if it was never released.
+ */
+public class NCLImportCache {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    
+    private int capacity;
+    private LinkedHashMap<String, NCLDoc> docs;
+    private ThreadLocal<HashSet<String>> loading;
+    private WeakHashMap<NCLDoc, Entry> counts;
+
+
+    /**
+     * Cache of imported documents constructor. The cache keeps at most 64
+     * documents.
+     */
+    public NCLImportCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Cache of imported documents constructor.
+     * 
+     * @param capacity
+     *          maximum number of documents kept by the cache.
+     */
+    public NCLImportCache(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("The capacity must be positive.");
+        
+        this.capacity = capacity;
+        docs = new LinkedHashMap<String, NCLDoc>(16, 0.75f, true) {
+            
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NCLDoc> eldest) {
+                return size() > NCLImportCache.this.capacity;
+            }
+        };
+        loading = new ThreadLocal<HashSet<String>>();
+        counts = new WeakHashMap<NCLDoc, Entry>();
+    }
+
+
+    /**
+     * Returns the maximum number of documents kept by the cache.
+     * 
+     * @return
+     *          integer representing the capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * Returns the document loaded from a file or <i>null</i> if the file was
+     * not loaded yet.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @return
+     *          element representing the document or <i>null</i> if the file
+     *          was not loaded yet.
+     */
+    public synchronized NCLDoc get(File file) {
+        return docs.get(getKey(file));
+    }
+
+
+    /**
+     * Returns the document loaded from a file and counts a new reference to
+     * it. Returns <i>null</i> if the file was not loaded yet.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @return
+     *          element representing the document or <i>null</i> if the file
+     *          was not loaded yet.
+     */
+    public synchronized NCLDoc acquire(File file) {
+        String key = getKey(file);
+        NCLDoc doc = docs.get(key);
+        if(doc != null)
+            retain(doc, key);
+        
+        return doc;
+    }
+
+
+    /**
+     * Adds a document loaded from a file to the cache and counts a new
+     * reference to it. If another thread already added a document for the
+     * same file, the document already in the cache has preference and is
+     * returned.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @param doc
+     *          element representing the document loaded from the file.
+     * @return
+     *          element representing the document kept by the cache.
+     */
+    public synchronized NCLDoc put(File file, NCLDoc doc) {
+        String key = getKey(file);
+        NCLDoc aux = docs.get(key);
+        if(aux != null)
+            doc = aux;
+        else
+            docs.put(key, doc);
+        
+        retain(doc, key);
+        return doc;
+    }
+
+
+    /**
+     * Releases a reference to a document of the cache. When no references to
+     * the document remain, the document is removed from the cache.
+     * 
+     * @param doc
+     *          element representing a document of the cache.
+     * @return
+     *          <i>true</i> if no references to the document remain and it was
+     *          removed from the cache. Returns <i>false</i> if the document is
+     *          still referred or is not in the cache.
+     */
+    public synchronized boolean release(NCLDoc doc) {
+        Entry entry = counts.get(doc);
+        if(entry == null)
+            return false;
+        
+        if(--entry.count > 0)
+            return false;
+        
+        counts.remove(doc);
+        if(docs.get(entry.key) == doc)
+            docs.remove(entry.key);
+        return true;
+    }
+
+
+    /**
+     * Returns the number of references to a document of the cache.
+     * 
+     * @param doc
+     *          element representing a document of the cache.
+     * @return
+     *          number of references to the document or <i>0</i> if the
+     *          document is not in the cache.
+     */
+    public synchronized int getReferenceCount(NCLDoc doc) {
+        Entry entry = counts.get(doc);
+        if(entry == null)
+            return 0;
+        
+        return entry.count;
+    }
+
+
+    /**
+     * Marks a file as being loaded by the current thread. It is used to detect
+     * documents that import themselves, directly or not.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     * @throws NCLParsingException
+     *          if the file is already being loaded by the current thread.
+     */
+    public void startLoading(File file) throws NCLParsingException {
+        HashSet<String> files = loading.get();
+        if(files == null){
+            files = new HashSet<String>();
+            loading.set(files);
+        }
+        
+        if(!files.add(getKey(file)))
+            throw new NCLParsingException("Cyclic import of document: " + file.getPath());
+    }
+
+
+    /**
+     * Marks a file as no longer being loaded by the current thread.
+     * 
+     * @param file
+     *          file with the NCL document content.
+     */
+    public void endLoading(File file) {
+        HashSet<String> files = loading.get();
+        if(files == null)
+            return;
+        
+        files.remove(getKey(file));
+        if(files.isEmpty())
+            loading.remove();
+    }
+
+
+    /**
+     * Returns the number of documents in the cache.
+     * 
+     * @return
+     *          integer representing the number of documents in the cache.
+     */
+    public synchronized int size() {
+        return docs.size();
+    }
+
+
+    /**
+     * Removes all documents from the cache.
+     */
+    public synchronized void clear() {
+        docs.clear();
+        counts.clear();
+    }
+
+
+    private void retain(NCLDoc doc, String key) {
+        Entry entry = counts.get(doc);
+        if(entry == null){
+            entry = new Entry(key);
+            counts.put(doc, entry);
+        }
+        entry.count++;
+    }
+
+
+    private String getKey(File file) {
+        try{
+            return file.getCanonicalPath();
+        }catch(IOException e){
+            return file.getAbsolutePath();
+        }
+    }
+
+
+    private static class Entry {
+
+        private String key;
+        private int count;
+
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,461 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.memory;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.loader.NCLImportCache;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * This class estimates the memory used by a tree of elements.
+ * 
+ * <br/>
+ * 
+ * The meter visits the objects referred by each element of the tree, without
+ * crossing to other elements. An object visited from a single element is part
+ * of the shallow size of that element. An object visited from more than one
+ * element, like an interned identifier or a cached value, is counted once as
+ * shared. Documents imported by the tree are measured separately, once each,
+ * since they can be shared by several documents.
+ * 
+ * <br/>
+ * 
+ * The sizes are estimated for a 64 bits virtual machine with compressed
+ * references. The fields of each class are inspected only once, so the meter
+ * can be used after every document load. The content of the classes of the
+ * Java platform is not inspected: strings, arrays, collections and maps are
+ * estimated from their length.
+ */
+public class NCLMemoryMeter {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ENTRY = 32;
+    private static final int STRING = 24;
+
+    private static final ConcurrentHashMap<Class, Layout> layouts = new ConcurrentHashMap<Class, Layout>();
+
+
+    private NCLMemoryMeter() {}
+
+
+    /**
+     * Measures the memory used by a tree of elements.
+     * 
+     * @param root
+     *          element at the root of the tree.
+     * @return
+     *          report with the sizes estimated for the tree.
+     */
+    public static NCLMemoryReport measure(NCLElement root) {
+        if(root == null)
+            throw new IllegalArgumentException("Null root.");
+        
+        List<NCLDoc> imported = new ArrayList<NCLDoc>();
+        NCLMemoryReport report = new NCLMemoryMeter.Tree(root, imported).measure();
+        
+        // each imported document is measured once, even if imported twice
+        Set<NCLDoc> measured = Collections.newSetFromMap(new IdentityHashMap<NCLDoc, Boolean>());
+        if(root instanceof NCLDoc)
+            measured.add((NCLDoc) root);
+        
+        for(int i = 0; i < imported.size(); i++){
+            NCLDoc doc = imported.get(i);
+            if(!measured.add(doc))
+                continue;
+            
+            NCLMemoryReport aux = new NCLMemoryMeter.Tree(doc, imported).measure();
+            report.addImported(doc, aux.getRetainedSize() + aux.getSharedSize());
+        }
+        
+        return report;
+    }
+
+
+    /**
+     * Returns the estimated size of an object, not including the objects it
+     * refers to, except for the internal content of strings, collections and
+     * maps.
+     * 
+     * @param object
+     *          object to be measured.
+     * @return
+     *          size of the object in bytes.
+     */
+    public static long sizeOf(Object object) {
+        if(object == null)
+            return 0;
+        
+        if(object instanceof String)
+            return sizeOf((String) object);
+        
+        Class type = object.getClass();
+        if(type.isArray()){
+            Class component = type.getComponentType();
+            int size = component.isPrimitive() ? primitiveSize(component) : REFERENCE;
+            return align(ARRAY_HEADER + (long) size * Array.getLength(object));
+        }
+        
+        long size = layout(type).size;
+        if(object instanceof Map)
+            size += hashSize(((Map) object).size());
+        else if(object instanceof Set)
+            size += hashSize(((Set) object).size());
+        else if(object instanceof Collection)
+            size += arraySize(((Collection) object).size());
+        
+        return size;
+    }
+
+
+    private static long sizeOf(String value) {
+        int length = value.length();
+        int bytes = 1;
+        for(int i = 0; i < length; i++){
+            if(value.charAt(i) > 0xFF){
+                bytes = 2;
+                break;
+            }
+        }
+        
+        return STRING + align(ARRAY_HEADER + (long) bytes * length);
+    }
+
+
+    private static long arraySize(int length) {
+        if(length == 0)
+            return 0;
+        
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+
+    private static long hashSize(int entries) {
+        if(entries == 0)
+            return 0;
+        
+        int capacity = 16;
+        while(capacity * 3 < entries * 4)
+            capacity <<= 1;
+        
+        return arraySize(capacity) + (long) ENTRY * entries;
+    }
+
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+
+    private static int primitiveSize(Class type) {
+        if(type == long.class || type == double.class)
+            return 8;
+        if(type == int.class || type == float.class)
+            return 4;
+        if(type == char.class || type == short.class)
+            return 2;
+        
+        return 1;
+    }
+
+
+    private static Layout layout(Class type) {
+        Layout layout = layouts.get(type);
+        if(layout == null){
+            layout = new Layout(type);
+            Layout aux = layouts.putIfAbsent(type, layout);
+            if(aux != null)
+                layout = aux;
+        }
+        
+        return layout;
+    }
+
+
+    private static boolean isPlatform(Class type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("jdk.") || name.startsWith("sun.")
+                || name.startsWith("com.sun.");
+    }
+
+
+    /**
+     * Fields of a class relevant to the measurement.
+     */
+    private static class Layout {
+
+        private long size;
+        private boolean ignored;
+        private Field[] references;
+
+
+        private Layout(Class type) {
+            ignored = Class.class.isAssignableFrom(type)
+                    || ClassLoader.class.isAssignableFrom(type)
+                    || Thread.class.isAssignableFrom(type)
+                    || ThreadGroup.class.isAssignableFrom(type)
+                    || ThreadLocal.class.isAssignableFrom(type)
+                    || Reference.class.isAssignableFrom(type)
+                    || Enum.class.isAssignableFrom(type)
+                    || NCLImportCache.class.isAssignableFrom(type);
+            
+            List<Field> fields = new ArrayList<Field>();
+            long aux = HEADER;
+            
+            for(Class c = type; c != null; c = c.getSuperclass()){
+                boolean platform = isPlatform(c);
+                for(Field field : c.getDeclaredFields()){
+                    if(Modifier.isStatic(field.getModifiers()))
+                        continue;
+                    
+                    if(field.getType().isPrimitive()){
+                        aux += primitiveSize(field.getType());
+                        continue;
+                    }
+                    
+                    aux += REFERENCE;
+                    if(platform)
+                        continue;
+                    
+                    try{
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }catch(RuntimeException e){
+                        // the field content is not measured
+                    }
+                }
+            }
+            
+            size = align(aux);
+            references = fields.toArray(new Field[fields.size()]);
+        }
+    }
+
+
+    /**
+     * Object visited and the element that owns it. An object visited from
+     * more than one element has no owner.
+     */
+    private static class Owner {
+
+        private NCLElement owner;
+        private NCLElement visitor;
+        private long size;
+
+
+        private Owner(NCLElement owner, long size) {
+            this.owner = owner;
+            this.visitor = owner;
+            this.size = size;
+        }
+    }
+
+
+    /**
+     * Measurement of a single tree.
+     */
+    private static class Tree {
+
+        private NCLElement root;
+        private List<NCLDoc> imported;
+        private IdentityHashMap<Object, Owner> objects;
+        private IdentityHashMap<XMLElement, Boolean> inTree;
+        private List<NCLElement> elements;
+        private ArrayDeque<Object> stack;
+
+
+        private Tree(NCLElement root, List<NCLDoc> imported) {
+            this.root = root;
+            this.imported = imported;
+            objects = new IdentityHashMap<Object, Owner>();
+            inTree = new IdentityHashMap<XMLElement, Boolean>();
+            elements = new ArrayList<NCLElement>();
+            stack = new ArrayDeque<Object>();
+            
+            inTree.put(root, Boolean.TRUE);
+            elements.add(root);
+        }
+
+
+        private NCLMemoryReport measure() {
+            for(int i = 0; i < elements.size(); i++){
+                NCLElement element = elements.get(i);
+                objects.put(element, new Owner(element, sizeOf(element)));
+                stack.push(element);
+                
+                while(!stack.isEmpty())
+                    visitReferences(stack.pop(), element);
+            }
+            
+            IdentityHashMap<NCLElement, long[]> shallow = new IdentityHashMap<NCLElement, long[]>();
+            for(NCLElement element : elements)
+                shallow.put(element, new long[1]);
+            
+            NCLMemoryReport report = new NCLMemoryReport(root);
+            for(Owner object : objects.values()){
+                if(object.owner == null)
+                    report.addShared(object.size);
+                else
+                    shallow.get(object.owner)[0] += object.size;
+            }
+            
+            for(NCLElement element : elements)
+                report.addElement(element, shallow.get(element)[0]);
+            
+            for(NCLElement element : elements){
+                long size = shallow.get(element)[0];
+                XMLElement parent = element;
+                while(parent != root){
+                    parent = parent.getParent();
+                    report.addToSubtree((NCLElement) parent, size);
+                }
+            }
+            
+            return report;
+        }
+
+
+        private void visitReferences(Object object, NCLElement element) {
+            if(object instanceof Object[]){
+                for(Object child : (Object[]) object)
+                    visit(child, element);
+            }
+            else if(object instanceof Map){
+                try{
+                    for(Object entry : ((Map) object).entrySet()){
+                        visit(((Map.Entry) entry).getKey(), element);
+                        visit(((Map.Entry) entry).getValue(), element);
+                    }
+                }catch(ConcurrentModificationException e){
+                    // the map content is measured partially
+                }
+            }
+            else if(object instanceof Collection){
+                try{
+                    for(Object child : (Collection) object)
+                        visit(child, element);
+                }catch(ConcurrentModificationException e){
+                    // the collection content is measured partially
+                }
+            }
+            else if(!object.getClass().isArray()){
+                for(Field field : layout(object.getClass()).references){
+                    try{
+                        visit(field.get(object), element);
+                    }catch(IllegalAccessException e){
+                        // the field content is not measured
+                    }
+                }
+            }
+        }
+
+
+        private void visit(Object object, NCLElement element) {
+            if(object == null)
+                return;
+            
+            if(object instanceof NCLElement){
+                visitElement((NCLElement) object);
+                return;
+            }
+            
+            if(!(object instanceof String) && !object.getClass().isArray()
+                    && layout(object.getClass()).ignored)
+                return;
+            
+            Owner aux = objects.get(object);
+            if(aux == null)
+                objects.put(object, new Owner(element, sizeOf(object)));
+            else if(aux.visitor == element)
+                return;
+            else{
+                aux.owner = null;
+                aux.visitor = element;
+            }
+            
+            stack.push(object);
+        }
+
+
+        private void visitElement(NCLElement element) {
+            if(inTree.containsKey(element))
+                return;
+            
+            // walks up to a known element to decide whether it is in the tree
+            List<XMLElement> path = new ArrayList<XMLElement>();
+            XMLElement aux = element;
+            Boolean result = Boolean.FALSE;
+            while(aux != null){
+                Boolean known = inTree.get(aux);
+                if(known != null){
+                    result = known;
+                    break;
+                }
+                path.add(aux);
+                aux = aux.getParent();
+            }
+            
+            for(XMLElement e : path){
+                inTree.put(e, result);
+                if(result)
+                    elements.add((NCLElement) e);
+            }
+            
+            if(!result && element instanceof NCLDoc)
+                imported.add((NCLDoc) element);
+        }
+    }
+}
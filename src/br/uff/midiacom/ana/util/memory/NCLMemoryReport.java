@@ -0,0 +1,292 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.memory;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * This class represents the result of measuring the memory used by a tree of
+ * elements. The sizes are estimates, in bytes.
+ * 
+ * <br/>
+ * 
+ * The shallow size of an element is the size of the element plus the size of
+ * the objects referred only by it, like its attribute values and lists. The
+ * retained size of an element is the sum of the shallow sizes of the elements
+ * in its subtree. Objects referred by more than one element, like interned
+ * identifiers and cached values, are not part of the shallow size of any
+ * element and are counted once as shared. Imported documents can be shared by
+ * several documents and are counted once as imported.
+ */
+public class NCLMemoryReport {
+
+    private NCLElement root;
+    private IdentityHashMap<NCLElement, long[]> elements;
+    private LinkedHashMap<Class, long[]> types;
+    private List<NCLDoc> importedDocs;
+    private long sharedSize;
+    private long importedSize;
+
+
+    NCLMemoryReport(NCLElement root) {
+        this.root = root;
+        elements = new IdentityHashMap<NCLElement, long[]>();
+        types = new LinkedHashMap<Class, long[]>();
+        importedDocs = new ArrayList<NCLDoc>();
+    }
+
+
+    void addElement(NCLElement element, long shallow) {
+        elements.put(element, new long[]{shallow, shallow});
+        
+        long[] usage = types.get(element.getClass());
+        if(usage == null){
+            usage = new long[2];
+            types.put(element.getClass(), usage);
+        }
+        usage[0]++;
+        usage[1] += shallow;
+    }
+
+
+    void addToSubtree(NCLElement element, long size) {
+        elements.get(element)[1] += size;
+    }
+
+
+    void addShared(long size) {
+        sharedSize += size;
+    }
+
+
+    void addImported(NCLDoc doc, long size) {
+        importedDocs.add(doc);
+        importedSize += size;
+    }
+
+
+    /**
+     * Returns the element measured.
+     * 
+     * @return
+     *          element at the root of the tree measured.
+     */
+    public NCLElement getRoot() {
+        return root;
+    }
+
+
+    /**
+     * Returns the shallow size of an element of the tree.
+     * 
+     * @param element
+     *          element of the tree measured.
+     * @return
+     *          shallow size of the element in bytes or <i>-1</i> if the
+     *          element is not part of the tree measured.
+     */
+    public long getShallowSize(NCLElement element) {
+        long[] size = elements.get(element);
+        if(size == null)
+            return -1;
+        
+        return size[0];
+    }
+
+
+    /**
+     * Returns the retained size of an element of the tree, that is, the sum of
+     * the shallow sizes of the elements in its subtree.
+     * 
+     * @param element
+     *          element of the tree measured.
+     * @return
+     *          retained size of the element in bytes or <i>-1</i> if the
+     *          element is not part of the tree measured.
+     */
+    public long getRetainedSize(NCLElement element) {
+        long[] size = elements.get(element);
+        if(size == null)
+            return -1;
+        
+        return size[1];
+    }
+
+
+    /**
+     * Returns the retained size of the element measured.
+     * 
+     * @return
+     *          retained size of the root of the tree in bytes.
+     */
+    public long getRetainedSize() {
+        return getRetainedSize(root);
+    }
+
+
+    /**
+     * Returns the size of the objects referred by more than one element of
+     * the tree, like interned identifiers and cached values. Each object is
+     * counted once.
+     * 
+     * @return
+     *          size of the shared objects in bytes.
+     */
+    public long getSharedSize() {
+        return sharedSize;
+    }
+
+
+    /**
+     * Returns the size of the documents imported by the tree, directly or
+     * not. Each imported document is counted once, even if it is imported
+     * several times.
+     * 
+     * @return
+     *          size of the imported documents in bytes.
+     */
+    public long getImportedSize() {
+        return importedSize;
+    }
+
+
+    /**
+     * Returns the total size of the tree: its retained size plus the size of
+     * the shared objects and of the imported documents.
+     * 
+     * @return
+     *          total size in bytes.
+     */
+    public long getTotalSize() {
+        return getRetainedSize() + sharedSize + importedSize;
+    }
+
+
+    /**
+     * Returns the documents imported by the tree, directly or not.
+     * 
+     * @return
+     *          list with the imported documents.
+     */
+    public List<NCLDoc> getImportedDocuments() {
+        return Collections.unmodifiableList(importedDocs);
+    }
+
+
+    /**
+     * Returns the number of elements in the tree.
+     * 
+     * @return
+     *          integer representing the number of elements.
+     */
+    public int getElementCount() {
+        return elements.size();
+    }
+
+
+    /**
+     * Returns the types of the elements in the tree.
+     * 
+     * @return
+     *          set with the classes of the elements in the tree.
+     */
+    public Set<Class> getElementTypes() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+
+    /**
+     * Returns the number of elements of a type in the tree.
+     * 
+     * @param type
+     *          class of the elements.
+     * @return
+     *          number of elements of the type.
+     */
+    public long getCount(Class type) {
+        long[] usage = types.get(type);
+        if(usage == null)
+            return 0;
+        
+        return usage[0];
+    }
+
+
+    /**
+     * Returns the sum of the shallow sizes of the elements of a type in the
+     * tree.
+     * 
+     * @param type
+     *          class of the elements.
+     * @return
+     *          size of the elements of the type in bytes.
+     */
+    public long getSize(Class type) {
+        long[] usage = types.get(type);
+        if(usage == null)
+            return 0;
+        
+        return usage[1];
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("retained: ").append(getRetainedSize());
+        result.append(", shared: ").append(sharedSize);
+        result.append(", imported: ").append(importedSize);
+        
+        for(Map.Entry<Class, long[]> entry : types.entrySet()){
+            result.append("\n").append(entry.getKey().getSimpleName());
+            result.append(": ").append(entry.getValue()[0]);
+            result.append(" (").append(entry.getValue()[1]).append(")");
+        }
+        
+        return result.toString();
+    }
+}
@@ -39,6 +39,7 @@ package br.uff.midiacom.ana.util.modification;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -49,25 +50,31 @@ public class NCLModificationNotifier extends Thread implements Serializable {
     private int index;
     private boolean run;
     private ArrayList<NCLNotification> notifications;
-    private ArrayList<NCLModificationListener> listeners;
+    private CopyOnWriteArrayList<NCLModificationListener> listeners;
     
-    private static NCLModificationNotifier instance;
+    private static volatile NCLModificationNotifier instance;
     
     
     private NCLModificationNotifier() {
         index = 0;
         run = true;
         notifications = new ArrayList<NCLNotification>();
-        listeners = new ArrayList<NCLModificationListener>();
+        listeners = new CopyOnWriteArrayList<NCLModificationListener>();
         start();
     }
     
     
-    public synchronized static NCLModificationNotifier getInstance() {
-        if(instance == null)
-            instance = new NCLModificationNotifier();
+    public static NCLModificationNotifier getInstance() {
+        NCLModificationNotifier aux = instance;
+        if(aux != null)
+            return aux;
         
-        return instance;
+        synchronized(NCLModificationNotifier.class){
+            if(instance == null)
+                instance = new NCLModificationNotifier();
+            
+            return instance;
+        }
     }
     
     
@@ -82,6 +89,18 @@ public class NCLModificationNotifier extends Thread implements Serializable {
     }
     
     
+    /**
+     * Verifies if the notifier has at least one listener. Elements use it to
+     * avoid creating notifications that nobody will receive.
+     * 
+     * @return 
+     *          true if the notifier has at least one listener.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+    
+    
     public void addListener(NCLModificationListener listener) {
         listeners.add(listener);
     }
@@ -43,6 +43,7 @@ import br.uff.midiacom.ana.reuse.NCLImportBase;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
+import br.uff.midiacom.ana.util.reference.ImportAliasIndex;
 import org.w3c.dom.Element;
 
 
@@ -57,11 +58,13 @@ public abstract class NCLBase<T extends NCLElement,
         extends NCLIdentifiableElementPrototype<T> {
 
     protected ElementList<Ei> imports;
+    protected ImportAliasIndex<Ei> aliases;
     
     
     public NCLBase() {
         super();
         imports = new ElementList<Ei>();
+        aliases = new ImportAliasIndex<Ei>(this, imports);
     }
     
     
@@ -90,6 +93,7 @@ public abstract class NCLBase<T extends NCLElement,
      */
     public boolean addImportBase(Ei importBase) throws XMLException {
         if(imports.add(importBase)){
+            aliases.clear();
             importBase.setParent(this);
             notifyInserted((T) importBase);
             return true;
@@ -112,11 +116,12 @@ public abstract class NCLBase<T extends NCLElement,
      *          if the import element is null.
      */
     public boolean removeImportBase(Ei importBase) throws XMLException {
-        if(!importBase.getReferences().isEmpty())
+        if(!importBase.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
         if(imports.remove(importBase)){
+            aliases.remove(importBase);
             notifyRemoved((T) importBase);
             return true;
         }
@@ -167,6 +172,17 @@ public abstract class NCLBase<T extends NCLElement,
     }
     
     
+    /**
+     * Returns the index of the import elements of the base by their alias.
+     * 
+     * @return 
+     *          index of the import elements.
+     */
+    public ImportAliasIndex<Ei> getAliasIndex() {
+        return aliases;
+    }
+    
+    
     protected String parseImportBases(int ident) {
         if(!hasImportBase())
             return "";
@@ -38,7 +38,9 @@
 package br.uff.midiacom.ana.util.ncl;
 
 import br.uff.midiacom.ana.NCLElement;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
+import java.util.ArrayList;
 import br.uff.midiacom.ana.interfaces.NCLPort;
 import br.uff.midiacom.ana.interfaces.NCLProperty;
 import br.uff.midiacom.ana.link.NCLLink;
@@ -48,7 +50,6 @@ import br.uff.midiacom.ana.node.NCLNode;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.ElementList;
 import br.uff.midiacom.ana.util.exception.NCLRemovalException;
-import java.util.ArrayList;
 
 
 /**
@@ -101,7 +102,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
                                               Em extends NCLMeta,
                                               Emt extends NCLMetadata>
         extends NCLIdentifiableElementPrototype<T>
-        implements NCLElement<T>, ReferredElement<T> {
+        implements NCLElement<T>, ReferenceSetElement<T> {
 
     protected ElementList<Ept> ports;
     protected ElementList<Epp> properties;
@@ -110,7 +111,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     protected ElementList<Em> metas;
     protected ElementList<Emt> metadatas;
     
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
 
 
     /**
@@ -121,13 +122,13 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      */
     public NCLCompositeNodeElement() {
         super();
-        ports = new ElementList<Ept>();
-        properties = new ElementList<Epp>();
-        nodes = new ElementList<En>();
-        links = new ElementList<El>();
-        metas = new ElementList<Em>();
-        metadatas = new ElementList<Emt>();
-        references = new ArrayList<T>();
+        ports = ElementList.empty();
+        properties = ElementList.empty();
+        nodes = ElementList.empty();
+        links = ElementList.empty();
+        metas = ElementList.empty();
+        metadatas = ElementList.empty();
+        references = new ReferenceSet<T>();
     }
     
     
@@ -168,6 +169,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean addPort(Ept port) throws XMLException {
+        if(ports.isReadOnly())
+            ports = new ElementList<Ept>();
+        
         if(ports.add(port)){
             notifyInserted((T) port);
             port.setParent(this);
@@ -189,7 +193,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the port is null.
      */
     public boolean removePort(Ept port) throws XMLException {
-        if(!port.getReferences().isEmpty())
+        if(!port.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -304,6 +308,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean addProperty(Epp property) throws XMLException {
+        if(properties.isReadOnly())
+            properties = new ElementList<Epp>();
+        
         if(properties.add(property)){
             notifyInserted((T) property);
             property.setParent(this);
@@ -325,7 +332,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the property is null.
      */
     public boolean removeProperty(Epp property) throws XMLException {
-        if(!property.getReferences().isEmpty())
+        if(!property.getReferenceSet().isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -437,6 +444,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean addNode(En node) throws XMLException {
+        if(nodes.isReadOnly())
+            nodes = new ElementList<En>();
+        
         if(nodes.add(node)){
             notifyInserted((T) node);
             node.setParent(this);
@@ -459,7 +469,7 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the node is null.
      */
     public boolean removeNode(En node) throws XMLException {
-        if(!node.getReferences().isEmpty())
+        if(!ReferenceSet.of(node).isEmpty())
             throw new NCLRemovalException("This element has a reference to it."
                     + " The reference must be undone before erasing this element.");
         
@@ -576,6 +586,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the element representing the link is null.
      */
     public boolean addLink(El link) throws XMLException {
+        if(links.isReadOnly())
+            links = new ElementList<El>();
+        
         if(links.add(link)){
             notifyInserted((T) link);
             link.setParent(this);
@@ -707,6 +720,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the meta element is null.
      */
     public boolean addMeta(Em meta) throws XMLException {
+        if(metas.isReadOnly())
+            metas = new ElementList<Em>();
+        
         if(metas.add(meta)){
             notifyInserted((T) meta);
             meta.setParent(this);
@@ -788,6 +804,9 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
      *          if the metadata element is null.
      */
     public boolean addMetadata(Emt metadata) throws XMLException {
+        if(metadatas.isReadOnly())
+            metadatas = new ElementList<Emt>();
+        
         if(metadatas.add(metadata)){
             notifyInserted((T) metadata);
             metadata.setParent(this);
@@ -931,20 +950,26 @@ public abstract class NCLCompositeNodeElement<T extends NCLElement,
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList getReferences() {
+    public synchronized ArrayList getReferences() {
+        return new ArrayList(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet getReferenceSet() {
         return references;
     }
 }
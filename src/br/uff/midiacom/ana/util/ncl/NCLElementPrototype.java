@@ -37,6 +37,7 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.exception.NCLModificationException;
 import br.uff.midiacom.ana.util.xml.*;
@@ -44,8 +45,6 @@ import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.util.modification.NCLModificationNotifier;
 import br.uff.midiacom.ana.util.modification.NCLNotification;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /**
@@ -94,10 +93,40 @@ public abstract class NCLElementPrototype<T extends NCLElement>
 
 
     protected boolean validate(String id) {
-        Pattern pattern = Pattern.compile("[_:A-Za-z][-._:A-Za-z0-9]*");
-        Matcher matcher = pattern.matcher(id);
+        return NCLIdentifierTable.isValid(id);
+    }
+
+
+    /**
+     * Returns the identifier table of the document this element belongs to.
+     *
+     * @return
+     *          identifier table or null if the element does not belong to a
+     *          document.
+     */
+    protected NCLIdentifierTable getIdentifierTable() {
+        Object d = this instanceof NCLDoc ? this : getDoc();
+        if(d instanceof NCLDoc)
+            return ((NCLDoc) d).getIdentifierTable();
+        
+        return null;
+    }
+
 
-        return matcher.matches();
+    /**
+     * Returns the instance of an identifier kept by the identifier table of
+     * the document, so the ids repeated by the reference attributes are
+     * stored once.
+     *
+     * @param id
+     *          string representing the identifier.
+     * @return
+     *          the string stored in the table or the identifier itself if the
+     *          element does not belong to a document.
+     */
+    protected String internId(String id) {
+        NCLIdentifierTable table = getIdentifierTable();
+        return table == null ? id : table.intern(id);
     }
     
     
@@ -106,12 +135,12 @@ public abstract class NCLElementPrototype<T extends NCLElement>
         
         if(element_id.contains("#")){
             int index = element_id.indexOf("#");
-            result[0] = element_id.substring(0, index);
-            result[1] = element_id.substring(index + 1);
+            result[0] = internId(element_id.substring(0, index));
+            result[1] = internId(element_id.substring(index + 1));
         }
         else{
             result[0] = null;
-            result[1] = element_id;
+            result[1] = internId(element_id);
         }
         
         return result;
@@ -126,6 +155,8 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyInserted(T inserted) throws NCLModificationException {
+        if(!notifier.hasListeners())
+            return;
         notifier.addNotification(new NCLNotification(inserted));
     }
 
@@ -138,6 +169,8 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyRemoved(T removed) throws NCLModificationException {
+        if(!notifier.hasListeners())
+            return;
         notifier.addNotification(new NCLNotification(this, removed));
     }
 
@@ -154,6 +187,8 @@ public abstract class NCLElementPrototype<T extends NCLElement>
      */
     @Deprecated
     public void notifyAltered(NCLElementAttributes attributeName, Object oldValue, Object newValue) throws NCLModificationException {
+        if(!notifier.hasListeners())
+            return;
         notifier.addNotification(new NCLNotification(this, attributeName, oldValue, newValue));
     }
 }
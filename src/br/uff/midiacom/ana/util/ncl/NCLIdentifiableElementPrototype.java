@@ -74,12 +74,42 @@ public abstract class NCLIdentifiableElementPrototype<T extends NCLElement>
         if(!validate(id))
             throw new XMLException("Invalid identifier: " + id);
         
+        id = internId(id);
+        
         String aux = this.id;
         this.id = id;
         notifyAltered(NCLElementAttributes.ID, aux, id);
     }
 
 
+    @Override
+    @Deprecated
+    public void setDoc(T doc) {
+        super.setDoc(doc);
+        
+        // elements created before being added to the document
+        if(id != null)
+            id = internId(id);
+    }
+
+
+    /**
+     * Returns the handle of the element id in the identifier table of the
+     * document.
+     *
+     * @return
+     *          integer handle of the id or -1 if the element has no id or
+     *          does not belong to a document.
+     */
+    public int getIdHandle() {
+        NCLIdentifierTable table = getIdentifierTable();
+        if(table == null || id == null)
+            return -1;
+        
+        return table.handle(id);
+    }
+
+
     /**
      * Returns the XML element id attribute.
      *
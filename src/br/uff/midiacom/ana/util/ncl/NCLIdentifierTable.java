@@ -0,0 +1,263 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * This class represents the table of identifiers of a document. Each
+ * identifier is stored once and receives an integer handle, given in the order
+ * the identifiers are added to the table. The handles are never reused, so
+ * they can be used as keys by other indexes.
+ * 
+ * <br/>
+ * 
+ * The ids of the elements and the ids repeated by the reference attributes,
+ * like <i>component</i>, <i>interface</i>, <i>descriptor</i> and
+ * <i>region</i>, are interned in the table of the document while it is
+ * loaded. The class also validates identifiers using a precomputed table of
+ * valid characters.
+ */
+public class NCLIdentifierTable implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    
+    private static final byte START = 1;
+    private static final byte PART = 2;
+    private static final byte[] CHARS = new byte[128];
+
+    static {
+        for(char c = 'a'; c <= 'z'; c++)
+            CHARS[c] = START | PART;
+        for(char c = 'A'; c <= 'Z'; c++)
+            CHARS[c] = START | PART;
+        for(char c = '0'; c <= '9'; c++)
+            CHARS[c] = PART;
+        CHARS['_'] = START | PART;
+        CHARS[':'] = START | PART;
+        CHARS['-'] = PART;
+        CHARS['.'] = PART;
+    }
+
+    private String[] identifiers;
+    private int[] table;
+    private int size;
+
+
+    /**
+     * Creates an empty identifier table.
+     */
+    public NCLIdentifierTable() {
+        identifiers = new String[16];
+        table = new int[32];
+        size = 0;
+    }
+
+
+    /**
+     * Verifies if a sequence of characters is a valid identifier. A valid
+     * identifier starts with a letter, '_' or ':' followed by letters,
+     * digits, '-', '.', '_' or ':'.
+     *
+     * @param id
+     *          sequence of characters representing the identifier.
+     * @return
+     *          true if the identifier is valid and false otherwise.
+     */
+    public static boolean isValid(CharSequence id) {
+        if(id == null || id.length() == 0)
+            return false;
+
+        char c = id.charAt(0);
+        if(c >= 128 || (CHARS[c] & START) == 0)
+            return false;
+
+        for(int i = 1; i < id.length(); i++){
+            c = id.charAt(i);
+            if(c >= 128 || (CHARS[c] & PART) == 0)
+                return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the instance of an identifier stored in the table. If the
+     * identifier is not in the table it is added.
+     *
+     * @param id
+     *          string representing the identifier.
+     * @return
+     *          the string stored in the table or null if the identifier is null.
+     */
+    public synchronized String intern(String id) {
+        if(id == null)
+            return null;
+
+        int pos = find(id, id.hashCode());
+        if(table[pos] != 0)
+            return identifiers[table[pos] - 1];
+
+        add(id, pos);
+        return id;
+    }
+
+
+    /**
+     * Returns the handle of an identifier. If the identifier is not in the
+     * table it is added.
+     *
+     * @param id
+     *          string representing the identifier.
+     * @return
+     *          integer handle of the identifier or -1 if the identifier is null.
+     */
+    public synchronized int handle(String id) {
+        if(id == null)
+            return -1;
+
+        int pos = find(id, id.hashCode());
+        if(table[pos] == 0)
+            return add(id, pos);
+
+        return table[pos] - 1;
+    }
+
+
+    /**
+     * Returns the handle of an identifier without adding it to the table.
+     *
+     * @param id
+     *          sequence of characters representing the identifier.
+     * @return
+     *          integer handle of the identifier or -1 if the identifier is not
+     *          in the table.
+     */
+    public synchronized int getHandle(CharSequence id) {
+        if(id == null)
+            return -1;
+
+        int hash = 0;
+        for(int i = 0; i < id.length(); i++)
+            hash = 31 * hash + id.charAt(i);
+
+        return table[find(id, hash)] - 1;
+    }
+
+
+    /**
+     * Returns the identifier represented by a handle.
+     *
+     * @param handle
+     *          integer handle of the identifier.
+     * @return
+     *          string representing the identifier or null if the handle is not
+     *          valid.
+     */
+    public synchronized String getIdentifier(int handle) {
+        if(handle < 0 || handle >= size)
+            return null;
+
+        return identifiers[handle];
+    }
+
+
+    /**
+     * Returns the number of identifiers in the table.
+     *
+     * @return
+     *          number of identifiers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+
+    private int find(CharSequence id, int hash) {
+        int mask = table.length - 1;
+        int pos = hash & mask;
+        int idx;
+        while((idx = table[pos]) != 0){
+            String candidate = identifiers[idx - 1];
+            if(candidate.hashCode() == hash && contentEquals(candidate, id))
+                return pos;
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+
+    private static boolean contentEquals(String candidate, CharSequence id) {
+        if(candidate.length() != id.length())
+            return false;
+
+        for(int i = 0; i < candidate.length(); i++){
+            if(candidate.charAt(i) != id.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+
+    private int add(String id, int pos) {
+        if(size == identifiers.length)
+            identifiers = Arrays.copyOf(identifiers, size * 2);
+
+        identifiers[size] = id;
+        table[pos] = ++size;
+
+        if(size * 2 > table.length)
+            rehash();
+
+        return size - 1;
+    }
+
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for(int i = 0; i < size; i++){
+            int pos = identifiers[i].hashCode() & mask;
+            while(table[pos] != 0)
+                pos = (pos + 1) & mask;
+            table[pos] = i + 1;
+        }
+    }
+}
@@ -37,10 +37,12 @@
  *******************************************************************************/
 package br.uff.midiacom.ana.util.ncl;
 
+import br.uff.midiacom.ana.NCLDoc;
 import br.uff.midiacom.ana.NCLElement;
 import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
 import br.uff.midiacom.ana.interfaces.NCLProperty;
-import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferenceSetElement;
 import br.uff.midiacom.ana.rule.NCLRule;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import java.util.ArrayList;
@@ -59,10 +61,11 @@ import org.w3c.dom.Element;
  */
 public class NCLVariable<T extends NCLElement>
         extends NCLNamedElementPrototype<T, Object>
-        implements ReferredElement<T> {
+        implements ReferenceSetElement<T> {
 
     protected Integer param;
-    protected ArrayList<T> references;
+    protected ReferenceSet<T> references;
+    private transient String key;
     
     
     /**
@@ -77,7 +80,7 @@ public class NCLVariable<T extends NCLElement>
     public NCLVariable(Object name) throws XMLException {
         super();
         setName(name);
-        references = new ArrayList<T>();
+        references = new ReferenceSet<T>();
     }
     
     
@@ -106,18 +109,29 @@ public class NCLVariable<T extends NCLElement>
             
             i = n.indexOf("(");
             if(i > 0){
+                if(!n.endsWith(")"))
+                    throw new XMLException("Wrong parameter: " + n);
+                
                 a = n.substring(i+1, n.length()-1);
                 n = n.substring(0, i);
-                p = new Integer(a);
+                try{
+                    p = Integer.valueOf(a.trim());
+                }catch(NumberFormatException e){
+                    throw new XMLException("Wrong parameter: " + a);
+                }
             }
             
-            NCLSystemVariable v = NCLSystemVariable.getEnumType(n);
-            if(v != null)
-                this.name = v;
+            // system variables are kept as constants, so names written in
+            // different ways are equal
+            NCLSystemVariable v = NCLSystemVariable.getEnumType(n, p != null);
+            param = null;
             if(p != null)
                 setParamenter(p);
             
-            this.name = name;
+            if(v != null)
+                this.name = v;
+            else
+                this.name = name;
         }
         else if(name instanceof NCLSystemVariable){
             this.name = name;
@@ -125,6 +139,26 @@ public class NCLVariable<T extends NCLElement>
         else{
             throw new XMLException("Wrong name type.");
         }
+        
+        keyChanged();
+    }
+    
+    
+    /**
+     * Returns the key that identifies the global variable in a document, that
+     * is, its name followed by its parameter, if any.
+     * 
+     * @return
+     *          string representing the variable key.
+     */
+    public String getKey() {
+        String aux = key;
+        if(aux == null){
+            aux = parse(0);
+            key = aux;
+        }
+        
+        return aux;
     }
     
     
@@ -138,6 +172,21 @@ public class NCLVariable<T extends NCLElement>
             throw new XMLException("Parameter can not be negative.");
         
         this.param = param;
+        keyChanged();
+    }
+    
+    
+    private void keyChanged() throws XMLException {
+        String aux = key;
+        if(aux == null)
+            return;
+        
+        // the document indexes its variables by key, so only the entry of
+        // this variable is moved to the new key
+        key = null;
+        Object doc = getDoc();
+        if(doc instanceof NCLDoc)
+            ((NCLDoc) doc).renameGlobalVariable(this, aux);
     }
     
     
@@ -154,10 +203,10 @@ public class NCLVariable<T extends NCLElement>
     
     @Override
     public boolean compare(T other) {
-        if(other == null || other instanceof NCLVariable)
+        if(other == null || !(other instanceof NCLVariable))
             return false;
         
-        return getName().equals(((NCLVariable) other).getName());
+        return getKey().equals(((NCLVariable) other).getKey());
     }
     
     
@@ -175,20 +224,26 @@ public class NCLVariable<T extends NCLElement>
     
     @Override
     @Deprecated
-    public boolean addReference(T reference) throws XMLException {
+    public synchronized boolean addReference(T reference) throws XMLException {
         return references.add(reference);
     }
     
     
     @Override
     @Deprecated
-    public boolean removeReference(T reference) throws XMLException {
+    public synchronized boolean removeReference(T reference) throws XMLException {
         return references.remove(reference);
     }
     
     
     @Override
-    public ArrayList<T> getReferences() {
+    public synchronized ArrayList<T> getReferences() {
+        return new ArrayList<T>(references);
+    }
+    
+    
+    @Override
+    public ReferenceSet<T> getReferenceSet() {
         return references;
     }
     
@@ -0,0 +1,807 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.query;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * This class represents a query over the elements of an NCL document. The
+ * query is written as a selector, similar to the CSS selectors, using the
+ * names of the NCL elements and attributes:
+ * 
+ * <ul>
+ * <li><i>media</i> selects the media elements;</li>
+ * <li><i>*</i> selects any element;</li>
+ * <li><i>media#m1</i> selects the media with id <i>m1</i>;</li>
+ * <li><i>media[type^=video]</i> selects the media whose type starts with
+ * <i>video</i>. The operators are <i>=</i>, <i>!=</i>, <i>^=</i> (starts
+ * with), <i>$=</i> (ends with) and <i>*=</i> (contains). An attribute without
+ * operator, like <i>[src]</i>, selects the elements with the attribute;</li>
+ * <li><i>link[xconnector=#c1]</i> selects the links that refer to the element
+ * with id <i>c1</i>. Attributes that refer to elements are compared by the id
+ * of the element referred;</li>
+ * <li><i>context#c1 media</i> selects the media inside the context <i>c1</i>,
+ * at any level, and <i>context#c1 &gt; media</i> selects only its
+ * children;</li>
+ * <li><i>media, context</i> selects the elements that match any of the
+ * selectors.</li>
+ * </ul>
+ * 
+ * The attributes are read through the <i>get</i> methods of the elements.
+ * 
+ * <br/>
+ * 
+ * The results are computed as they are consumed. When the last element of a
+ * selector has an id, the element is searched through the search methods of
+ * the document head and body. When it has a condition that refers to an
+ * element, the candidates are the elements that refer to that element. When
+ * a type index is given, a last element with only a type and conditions over
+ * attributes, like <i>media[type^=video]</i>, takes as candidates the elements
+ * of the type in the index. In the other cases, the tree is visited, starting
+ * at the element with id in the beginning of the selector, if any. Only the
+ * results found visiting the tree or the type index are returned in document
+ * order.
+ */
+public class NCLQuery {
+
+    private static final int EXISTS = 0;
+    private static final int EQUAL = 1;
+    private static final int NOT_EQUAL = 2;
+    private static final int PREFIX = 3;
+    private static final int SUFFIX = 4;
+    private static final int CONTAINS = 5;
+
+    private static final Object MISSING = new Object();
+    private static final ConcurrentHashMap<Class, String[]> types = new ConcurrentHashMap<Class, String[]>();
+    private static final ConcurrentHashMap<Class, ConcurrentHashMap<String, Object>> getters =
+            new ConcurrentHashMap<Class, ConcurrentHashMap<String, Object>>();
+
+    private String text;
+    private Selector[] selectors;
+
+
+    private NCLQuery(String text, Selector[] selectors) {
+        this.text = text;
+        this.selectors = selectors;
+    }
+
+
+    /**
+     * Compiles a query.
+     * 
+     * @param query
+     *          string representing the query.
+     * @return
+     *          compiled query.
+     * @throws XMLException
+     *          if the query is not valid.
+     */
+    public static NCLQuery compile(String query) throws XMLException {
+        if(query == null)
+            throw new XMLException("Null query.");
+        
+        return new NCLQuery(query, new Parser(query).parse());
+    }
+
+
+    /**
+     * Selects the elements that match a query inside an element.
+     * 
+     * @param root
+     *          element where the elements are searched.
+     * @param query
+     *          string representing the query.
+     * @return
+     *          elements that match the query.
+     * @throws XMLException
+     *          if the query is not valid.
+     */
+    public static Iterable<NCLElement> select(NCLElement root, String query) throws XMLException {
+        return compile(query).select(root);
+    }
+
+
+    /**
+     * Selects the elements that match the query inside an element. The
+     * element itself is also tested. The elements are searched as the
+     * results are consumed.
+     * 
+     * @param root
+     *          element where the elements are searched.
+     * @return
+     *          elements that match the query.
+     */
+    public Iterable<NCLElement> select(NCLElement root) {
+        return select(root, (NCLTypeIndex) null);
+    }
+
+
+    /**
+     * Selects the elements that match the query inside an element, using a
+     * type index to find the elements of the type of the last step of the
+     * selectors. The index is used only if the element is inside its root.
+     * 
+     * @param root
+     *          element where the elements are searched.
+     * @param index
+     *          type index or <i>null</i> to visit the tree.
+     * @return
+     *          elements that match the query.
+     */
+    public Iterable<NCLElement> select(final NCLElement root, NCLTypeIndex index) {
+        if(root == null)
+            throw new IllegalArgumentException("Null root.");
+        
+        final NCLTypeIndex aux = index != null && isInside(root, index.getRoot()) ? index : null;
+        return new Iterable<NCLElement>() {
+            @Override
+            public Iterator<NCLElement> iterator() {
+                return new Results(root, aux);
+            }
+        };
+    }
+
+
+    /**
+     * Returns the first element that matches the query inside an element.
+     * 
+     * @param root
+     *          element where the elements are searched.
+     * @return
+     *          element that matches the query or <i>null</i> if no element
+     *          matches the query.
+     */
+    public NCLElement selectFirst(NCLElement root) {
+        Iterator<NCLElement> it = select(root).iterator();
+        if(it.hasNext())
+            return it.next();
+        
+        return null;
+    }
+
+
+    /**
+     * Returns all elements that match the query inside an element.
+     * 
+     * @param root
+     *          element where the elements are searched.
+     * @return
+     *          list with the elements that match the query.
+     */
+    public List<NCLElement> selectAll(NCLElement root) {
+        List<NCLElement> result = new ArrayList<NCLElement>();
+        for(NCLElement element : select(root))
+            result.add(element);
+        
+        return result;
+    }
+
+
+    /**
+     * Verifies if an element matches the query. The ancestors of the element
+     * are verified up to the root element.
+     * 
+     * @param element
+     *          element to be verified.
+     * @param root
+     *          element where the elements are searched.
+     * @return
+     *          <i>true</i> if the element matches the query.
+     */
+    public boolean matches(NCLElement element, NCLElement root) {
+        if(!isInside(element, root))
+            return false;
+        
+        for(Selector selector : selectors){
+            if(selector.matches(selector.steps.length - 1, element, root))
+                return true;
+        }
+        
+        return false;
+    }
+
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+
+    private static boolean isInside(NCLElement element, NCLElement root) {
+        NCLElement aux = element;
+        while(aux != null){
+            if(aux == root)
+                return true;
+            aux = (NCLElement) aux.getParent();
+        }
+        
+        return false;
+    }
+
+
+    private static boolean hasType(Class c, String type) {
+        for(String name : getTypes(c)){
+            if(name.equals(type))
+                return true;
+        }
+        
+        return false;
+    }
+
+
+    /**
+     * Returns the names of the types of a class of element: the name of the
+     * element and the names of the classes it extends.
+     */
+    static String[] getTypes(Class c) {
+        String[] names = types.get(c);
+        if(names == null){
+            List<String> aux = new ArrayList<String>();
+            for(Class k = c; k != null && k != Object.class; k = k.getSuperclass()){
+                String name = k.getSimpleName();
+                if(k == NCLDoc.class)
+                    aux.add("ncl");
+                else if(name.startsWith("NCL") && name.length() > 3)
+                    aux.add(Character.toLowerCase(name.charAt(3)) + name.substring(4));
+            }
+            names = aux.toArray(new String[aux.size()]);
+            types.put(c, names);
+        }
+        
+        return names;
+    }
+
+
+    private static String getAttribute(NCLElement element, String name) {
+        Class c = element.getClass();
+        ConcurrentHashMap<String, Object> methods = getters.get(c);
+        if(methods == null){
+            methods = new ConcurrentHashMap<String, Object>();
+            ConcurrentHashMap<String, Object> aux = getters.putIfAbsent(c, methods);
+            if(aux != null)
+                methods = aux;
+        }
+        
+        Object getter = methods.get(name);
+        if(getter == null){
+            getter = findGetter(c, name);
+            methods.put(name, getter);
+        }
+        
+        if(getter == MISSING)
+            return null;
+        
+        Object value;
+        try{
+            value = ((Method) getter).invoke(element);
+        }catch(Exception e){
+            return null;
+        }
+        
+        if(value == null)
+            return null;
+        if(value instanceof NCLIdentifiableElementPrototype)
+            return ((NCLIdentifiableElementPrototype) value).getId();
+        
+        return value.toString();
+    }
+
+
+    private static Object findGetter(Class c, String name) {
+        String[] names = {"get" + Character.toUpperCase(name.charAt(0)) + name.substring(1), "get" + name};
+        for(String aux : names){
+            try{
+                Method method = c.getMethod(aux);
+                if(method.getReturnType() != void.class)
+                    return method;
+            }catch(NoSuchMethodException e){
+                // try the next name
+            }
+        }
+        
+        return MISSING;
+    }
+
+
+    /**
+     * Searches the elements with an id through the search methods of the
+     * document. Returns <i>null</i> if the type of element has no search
+     * method.
+     */
+    private static List<NCLElement> lookup(NCLElement root, String type, String id) {
+        NCLDoc doc = root instanceof NCLDoc ? (NCLDoc) root : (NCLDoc) root.getDoc();
+        if(doc == null || type == null)
+            return null;
+        
+        NCLHead head = doc.getHead();
+        NCLBody body = doc.getBody();
+        Object result;
+        
+        try{
+            if(type.equals("media") || type.equals("context") || type.equals("switch") || type.equals("body"))
+                result = body != null ? body.findNode(id) : null;
+            else if(type.equals("port") || type.equals("area") || type.equals("property") || type.equals("switchPort"))
+                result = body != null ? body.findInterface(id) : null;
+            else if(type.equals("region"))
+                result = head != null ? head.searchRegion(null, null, id) : null;
+            else if(type.equals("descriptor") || type.equals("descriptorSwitch"))
+                result = head != null ? head.searchDescriptor(null, id) : null;
+            else if(type.equals("causalConnector"))
+                result = head != null ? head.searchConnector(null, id) : null;
+            else if(type.equals("rule") || type.equals("compositeRule"))
+                result = head != null ? head.searchRule(null, id) : null;
+            else if(type.equals("transition"))
+                result = head != null ? head.searchTransition(null, id) : null;
+            else
+                return null;
+        }catch(XMLException e){
+            result = null;
+        }
+        
+        if(result instanceof NCLElement)
+            return Collections.singletonList((NCLElement) result);
+        
+        return Collections.emptyList();
+    }
+
+
+    /**
+     * Returns the elements that refer to the element with an id.
+     */
+    private static List<NCLElement> referrers(NCLElement root, String id, String type) {
+        String[] kinds = {"region", "descriptor", "causalConnector", "rule", "transition", "media", "port"};
+        
+        ReferredElement target = null;
+        for(String kind : kinds){
+            List<NCLElement> aux = lookup(root, kind, id);
+            if(aux == null)
+                return null;
+            if(!aux.isEmpty() && aux.get(0) instanceof ReferredElement){
+                target = (ReferredElement) aux.get(0);
+                break;
+            }
+        }
+        
+        List<NCLElement> result = new ArrayList<NCLElement>();
+        if(target == null)
+            return result;
+        
+        Map<Class, List> refs = ReferenceSet.of(target).getReferencesByKind();
+        for(Map.Entry<Class, List> entry : refs.entrySet()){
+            if(type == null || hasType(entry.getKey(), type))
+                result.addAll(entry.getValue());
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Condition over an attribute.
+     */
+    private static class Predicate {
+
+        private String name;
+        private int operator;
+        private String value;
+        private boolean reference;
+
+
+        private boolean matches(NCLElement element) {
+            String aux = getAttribute(element, name);
+            switch(operator){
+                case EXISTS:
+                    return aux != null;
+                case EQUAL:
+                    return value.equals(aux);
+                case NOT_EQUAL:
+                    return !value.equals(aux);
+                case PREFIX:
+                    return aux != null && aux.startsWith(value);
+                case SUFFIX:
+                    return aux != null && aux.endsWith(value);
+                default:
+                    return aux != null && aux.contains(value);
+            }
+        }
+    }
+
+
+    /**
+     * Element type, id and conditions of a step of a selector.
+     */
+    private static class Step {
+
+        private String type;
+        private String id;
+        private Predicate[] predicates;
+
+
+        private boolean matches(NCLElement element) {
+            if(type != null && !hasType(element.getClass(), type))
+                return false;
+            
+            if(id != null && !(element instanceof NCLIdentifiableElementPrototype
+                    && id.equals(((NCLIdentifiableElementPrototype) element).getId())))
+                return false;
+            
+            for(Predicate predicate : predicates){
+                if(!predicate.matches(element))
+                    return false;
+            }
+            
+            return true;
+        }
+
+
+        private Predicate getReference() {
+            for(Predicate predicate : predicates){
+                if(predicate.reference)
+                    return predicate;
+            }
+            
+            return null;
+        }
+    }
+
+
+    /**
+     * Sequence of steps. A step must be a child of the previous step or, if
+     * not, a descendant.
+     */
+    private static class Selector {
+
+        private Step[] steps;
+        private boolean[] child;
+
+
+        private boolean matches(int i, NCLElement element, NCLElement root) {
+            if(!steps[i].matches(element))
+                return false;
+            if(i == 0)
+                return true;
+            if(element == root)
+                return false;
+            
+            NCLElement parent = (NCLElement) element.getParent();
+            if(child[i])
+                return parent != null && matches(i - 1, parent, root);
+            
+            while(parent != null){
+                if(matches(i - 1, parent, root))
+                    return true;
+                if(parent == root)
+                    break;
+                parent = (NCLElement) parent.getParent();
+            }
+            
+            return false;
+        }
+
+
+        private Iterator<NCLElement> candidates(NCLElement root, NCLTypeIndex index) {
+            Step last = steps[steps.length - 1];
+            
+            if(last.id != null){
+                List<NCLElement> aux = lookup(root, last.type, last.id);
+                if(aux != null)
+                    return aux.iterator();
+            }
+            
+            Predicate ref = last.getReference();
+            if(ref != null){
+                List<NCLElement> aux = referrers(root, ref.value, last.type);
+                if(aux != null)
+                    return aux.iterator();
+            }
+            
+            if(index != null && last.type != null)
+                return index.getElements(last.type).iterator();
+            
+            if(steps.length > 1 && steps[0].id != null){
+                List<NCLElement> aux = lookup(root, steps[0].type, steps[0].id);
+                if(aux != null && aux.size() == 1 && isInside(aux.get(0), root))
+                    return NCLTreeWalker.descendants(aux.get(0));
+                if(aux != null && aux.isEmpty())
+                    return aux.iterator();
+            }
+            
+            return NCLTreeWalker.iterator(root);
+        }
+    }
+
+
+    /**
+     * Elements that match the query, computed as they are consumed.
+     */
+    private class Results implements Iterator<NCLElement> {
+
+        private NCLElement root;
+        private NCLTypeIndex index;
+        private int selector;
+        private Iterator<NCLElement> candidates;
+        private IdentityHashMap<NCLElement, Boolean> returned;
+        private NCLElement next;
+
+
+        private Results(NCLElement root, NCLTypeIndex index) {
+            this.root = root;
+            this.index = index;
+            if(selectors.length > 1)
+                returned = new IdentityHashMap<NCLElement, Boolean>();
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            while(next == null){
+                if(candidates == null || !candidates.hasNext()){
+                    if(selector >= selectors.length)
+                        return false;
+                    candidates = selectors[selector++].candidates(root, index);
+                    continue;
+                }
+                
+                NCLElement aux = candidates.next();
+                Selector current = selectors[selector - 1];
+                if(!isInside(aux, root) || !current.matches(current.steps.length - 1, aux, root))
+                    continue;
+                if(returned != null && returned.put(aux, Boolean.TRUE) != null)
+                    continue;
+                
+                next = aux;
+            }
+            
+            return true;
+        }
+
+
+        @Override
+        public NCLElement next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            
+            NCLElement aux = next;
+            next = null;
+            return aux;
+        }
+
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    /**
+     * Parser of the query text.
+     */
+    private static class Parser {
+
+        private static final String SPECIAL = " \t\r\n>,[]#=!^$*~|+()'\"";
+
+        private String text;
+        private int pos;
+
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+
+        private Selector[] parse() throws XMLException {
+            List<Selector> result = new ArrayList<Selector>();
+            do{
+                skipSpaces();
+                result.add(selector());
+                skipSpaces();
+            }while(consume(','));
+            
+            if(pos < text.length())
+                throw error();
+            
+            return result.toArray(new Selector[result.size()]);
+        }
+
+
+        private Selector selector() throws XMLException {
+            List<Step> steps = new ArrayList<Step>();
+            List<Boolean> child = new ArrayList<Boolean>();
+            steps.add(step());
+            child.add(Boolean.FALSE);
+            
+            while(true){
+                boolean spaces = skipSpaces();
+                if(pos >= text.length() || text.charAt(pos) == ',')
+                    break;
+                
+                boolean aux = false;
+                if(consume('>')){
+                    skipSpaces();
+                    aux = true;
+                }
+                else if(!spaces)
+                    throw error();
+                
+                steps.add(step());
+                child.add(aux);
+            }
+            
+            Selector selector = new Selector();
+            selector.steps = steps.toArray(new Step[steps.size()]);
+            selector.child = new boolean[child.size()];
+            for(int i = 0; i < child.size(); i++)
+                selector.child[i] = child.get(i);
+            
+            return selector;
+        }
+
+
+        private Step step() throws XMLException {
+            Step step = new Step();
+            int start = pos;
+            
+            if(!consume('*'))
+                step.type = name(false);
+            if(consume('#'))
+                step.id = name(true);
+            
+            List<Predicate> predicates = new ArrayList<Predicate>();
+            while(consume('['))
+                predicates.add(predicate());
+            step.predicates = predicates.toArray(new Predicate[predicates.size()]);
+            
+            if(pos == start)
+                throw error();
+            
+            return step;
+        }
+
+
+        private Predicate predicate() throws XMLException {
+            Predicate predicate = new Predicate();
+            skipSpaces();
+            predicate.name = name(true);
+            skipSpaces();
+            
+            if(consume(']')){
+                predicate.operator = EXISTS;
+                return predicate;
+            }
+            
+            if(consume('='))
+                predicate.operator = EQUAL;
+            else if(consume('!') && consume('='))
+                predicate.operator = NOT_EQUAL;
+            else if(consume('^') && consume('='))
+                predicate.operator = PREFIX;
+            else if(consume('$') && consume('='))
+                predicate.operator = SUFFIX;
+            else if(consume('*') && consume('='))
+                predicate.operator = CONTAINS;
+            else
+                throw error();
+            
+            skipSpaces();
+            if(pos < text.length() && (text.charAt(pos) == '\'' || text.charAt(pos) == '"')){
+                char quote = text.charAt(pos++);
+                int end = text.indexOf(quote, pos);
+                if(end < 0)
+                    throw error();
+                predicate.value = text.substring(pos, end);
+                pos = end + 1;
+            }
+            else{
+                int start = pos;
+                while(pos < text.length() && text.charAt(pos) != ']' && !Character.isWhitespace(text.charAt(pos)))
+                    pos++;
+                predicate.value = text.substring(start, pos);
+            }
+            
+            // quoted or not, a value starting with # refers to an element
+            if(predicate.value.length() > 1 && predicate.value.charAt(0) == '#'){
+                predicate.value = predicate.value.substring(1);
+                predicate.reference = predicate.operator == EQUAL;
+            }
+            
+            skipSpaces();
+            if(!consume(']'))
+                throw error();
+            
+            return predicate;
+        }
+
+
+        private String name(boolean required) throws XMLException {
+            int start = pos;
+            while(pos < text.length() && SPECIAL.indexOf(text.charAt(pos)) < 0)
+                pos++;
+            
+            if(pos == start){
+                if(required)
+                    throw error();
+                return null;
+            }
+            
+            return text.substring(start, pos);
+        }
+
+
+        private boolean skipSpaces() {
+            int start = pos;
+            while(pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+                pos++;
+            
+            return pos > start;
+        }
+
+
+        private boolean consume(char c) {
+            if(pos < text.length() && text.charAt(pos) == c){
+                pos++;
+                return true;
+            }
+            
+            return false;
+        }
+
+
+        private XMLException error() {
+            return new XMLException("Invalid query at position " + pos + ": " + text);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.query;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Index of the elements inside an element by type, used by the queries whose
+ * last step has only a type and conditions over attributes, like
+ * <i>media[type^=video]</i>. Without the index these queries visit the whole
+ * tree; with it they only test the elements of the type.
+ * 
+ * <br/>
+ * 
+ * The index is built on its first use, visiting the tree once, and keeps the
+ * elements of each type in document order. An element is indexed by the same
+ * type names a query step matches: the name of its element and the names of
+ * the NCL classes it extends.
+ * 
+ * <br/>
+ * 
+ * The method <i>invalidate</i> discards the index, which is built again on
+ * its next use. The index is also a modification listener, so it can be
+ * registered in the <i>NCLModificationNotifier</i> to be discarded when an
+ * element is inserted or removed. The notifications are delivered
+ * asynchronously, so while they are pending the index may not reflect the
+ * last changes.
+ * 
+ * @see NCLQuery#select(NCLElement, NCLTypeIndex)
+ */
+public class NCLTypeIndex implements NCLModificationListener {
+
+    private NCLElement root;
+    private Map<String, List<NCLElement>> elements;
+
+
+    /**
+     * Type index constructor.
+     * 
+     * @param root
+     *          element whose tree is indexed.
+     */
+    public NCLTypeIndex(NCLElement root) {
+        if(root == null)
+            throw new NullPointerException("Null root.");
+        
+        this.root = root;
+    }
+
+
+    /**
+     * Returns the element whose tree is indexed.
+     * 
+     * @return
+     *          root element of the index.
+     */
+    public NCLElement getRoot() {
+        return root;
+    }
+
+
+    /**
+     * Returns the elements of a type, in document order. The list returned is
+     * not modified by later changes of the index.
+     * 
+     * @param type
+     *          name of the type, like <i>media</i> or <i>region</i>.
+     * @return
+     *          list with the elements of the type.
+     */
+    public synchronized List<NCLElement> getElements(String type) {
+        if(elements == null)
+            build();
+        
+        List<NCLElement> result = elements.get(type);
+        if(result == null)
+            return Collections.emptyList();
+        
+        return Collections.unmodifiableList(result);
+    }
+
+
+    /**
+     * Discards the index. The index is built again on its next use.
+     */
+    public synchronized void invalidate() {
+        elements = null;
+    }
+
+
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        switch(notification.getType()){
+            case INSERTED_CHILD:
+            case REMOVED_CHILD:
+                invalidate();
+                break;
+        }
+    }
+
+
+    private void build() {
+        // a new map is built, so the lists already returned never change
+        Map<String, List<NCLElement>> aux = new HashMap<String, List<NCLElement>>();
+        Iterator<NCLElement> it = NCLTreeWalker.iterator(root);
+        while(it.hasNext()){
+            NCLElement element = it.next();
+            for(String type : NCLQuery.getTypes(element.getClass())){
+                List<NCLElement> list = aux.get(type);
+                if(list == null){
+                    list = new ArrayList<NCLElement>();
+                    aux.put(type, list);
+                }
+                list.add(element);
+            }
+        }
+        
+        elements = aux;
+    }
+}
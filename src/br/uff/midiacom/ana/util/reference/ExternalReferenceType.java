@@ -126,6 +126,8 @@ public class ExternalReferenceType<T extends ReferredElement,
     
     @Override
     public boolean equals(Object o) {
+        if(o == this)
+            return true;
         if(o == null || !(o instanceof ExternalReferenceType))
             return false;
         
@@ -139,4 +141,13 @@ public class ExternalReferenceType<T extends ReferredElement,
         
         return result;
     }
+
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + (this.alias != null ? this.alias.hashCode() : 0);
+        hash = 31 * hash + (this.target != null ? this.target.hashCode() : 0);
+        return hash;
+    }
 }
@@ -0,0 +1,156 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.xml.XMLElement;
+import java.io.Serializable;
+import java.util.HashMap;
+
+
+/**
+ * This class represents an index of the import elements of a base by their
+ * alias. The index is used to find the import element referred by an
+ * <i>alias#id</i> reference without scanning the whole list of imports.
+ * 
+ * <br/>
+ * 
+ * The index is built from the list of imports on the first search after it
+ * is invalidated, and answers the following searches, including the ones for
+ * aliases that no import element has, without scanning the list. The base
+ * invalidates the index when an import element is added, removed or changes
+ * its alias.
+ *
+ * @param <I>
+ *          the type of the import elements.
+ */
+public class ImportAliasIndex<I extends NCLImport> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private XMLElement owner;
+    private ElementList<I> imports;
+    private HashMap<String, I> aliases;
+    private boolean valid;
+    
+    
+    /**
+     * Import alias index constructor.
+     * 
+     * @param owner
+     *          element representing the base that has the import elements.
+     * @param imports
+     *          list of import elements of the base.
+     */
+    public ImportAliasIndex(XMLElement owner, ElementList<I> imports) {
+        this.owner = owner;
+        this.imports = imports;
+        this.aliases = new HashMap<String, I>();
+    }
+    
+    
+    /**
+     * Returns the import element with a specific alias. When more than one
+     * import element has the alias, the first one in the base is returned.
+     * 
+     * @param alias
+     *          string representing the alias of the import element.
+     * @return
+     *          import element or <i>null</i> if no import element of the base
+     *          has the alias.
+     */
+    public synchronized I get(String alias) {
+        if(alias == null)
+            return null;
+        
+        if(!valid)
+            build();
+        
+        I imp = aliases.get(alias);
+        if(imp != null && (imp.getParent() != owner || !alias.equals(imp.getAlias()))){
+            // the import element changed without invalidating the index
+            build();
+            imp = aliases.get(alias);
+        }
+        
+        return imp;
+    }
+    
+    
+    /**
+     * Removes an import element from the index.
+     * 
+     * @param imp
+     *          import element to be removed.
+     */
+    public synchronized void remove(I imp) {
+        String alias = imp.getAlias();
+        if(alias != null && aliases.get(alias) == imp)
+            invalidate();
+    }
+    
+    
+    /**
+     * Marks the index to be built again on the next search. It must be called
+     * when an import element is added or changes its alias.
+     */
+    public synchronized void invalidate() {
+        aliases.clear();
+        valid = false;
+    }
+    
+    
+    /**
+     * Removes all entries of the index.
+     */
+    public synchronized void clear() {
+        invalidate();
+    }
+    
+    
+    private void build() {
+        aliases.clear();
+        for(I aux : imports){
+            String alias = aux.getAlias();
+            if(alias != null && !aliases.containsKey(alias))
+                aliases.put(alias, aux);
+        }
+        valid = true;
+    }
+}
@@ -0,0 +1,469 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import br.uff.midiacom.ana.NCLElement;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+
+/**
+ * This class represents the set of elements that refer to an element. An
+ * element may refer to the same element more than once, so the set counts the
+ * references of each element.
+ * 
+ * <br/>
+ * 
+ * The references are compared by identity and grouped by the class of the
+ * element that refers, so adding, removing and searching a reference take
+ * constant time, independently of the number of references, and the
+ * references of a kind of element can be listed without scanning the others.
+ * 
+ * <br/>
+ * 
+ * The elements are kept in the order they were first added, both in the set
+ * and in each kind, so iterating the set always returns the same order.
+ *
+ * @param <T>
+ *          the type of the elements that refer.
+ */
+public class ReferenceSet<T> extends AbstractCollection<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Group[] groups;
+    private transient int kindCount;
+    private transient Entry<T> first;
+    private transient Entry<T> last;
+    private transient int size;
+    private transient int modCount;
+
+
+    /**
+     * Reference set constructor.
+     */
+    public ReferenceSet() {
+        super();
+    }
+
+
+    /**
+     * Returns the set of elements that refer to an element. The set of an
+     * element that keeps its references in a reference set is returned
+     * without copying, otherwise the references of the element are copied to
+     * a new set.
+     * 
+     * @param element
+     *          element referred.
+     * @return
+     *          set with the elements that refer to the element.
+     */
+    public static <T extends NCLElement> ReferenceSet<T> of(ReferredElement<T> element) {
+        if(element instanceof ReferenceSetElement)
+            return ((ReferenceSetElement<T>) element).getReferenceSet();
+        
+        ReferenceSet<T> result = new ReferenceSet<T>();
+        for(T reference : element.getReferences())
+            result.add(reference);
+        
+        return result;
+    }
+
+
+    /**
+     * Adds a reference.
+     * 
+     * @param reference
+     *          element that refers.
+     * @return
+     *          <i>true</i>.
+     */
+    @Override
+    public boolean add(T reference) {
+        if(reference == null)
+            throw new NullPointerException("Null reference.");
+        
+        Group<T> group = getGroup(reference.getClass(), true);
+        Entry<T> entry = group.entries.get(reference);
+        if(entry == null){
+            entry = new Entry<T>(reference);
+            group.entries.put(reference, entry);
+            
+            // appended to the order of the set and of its kind
+            entry.prev = last;
+            if(last == null)
+                first = entry;
+            else
+                last.next = entry;
+            last = entry;
+            
+            entry.kindPrev = group.last;
+            if(group.last == null)
+                group.first = entry;
+            else
+                group.last.kindNext = entry;
+            group.last = entry;
+        }
+        else
+            entry.count++;
+        
+        size++;
+        modCount++;
+        return true;
+    }
+
+
+    /**
+     * Removes a reference. If the element refers more than once, only one of
+     * its references is removed.
+     * 
+     * @param reference
+     *          element that refers.
+     * @return
+     *          <i>true</i> if the reference was removed.
+     */
+    @Override
+    public boolean remove(Object reference) {
+        if(reference == null)
+            return false;
+        
+        Group<T> group = getGroup(reference.getClass(), false);
+        if(group == null)
+            return false;
+        
+        Entry<T> entry = group.entries.get(reference);
+        if(entry == null)
+            return false;
+        
+        if(--entry.count == 0){
+            group.entries.remove(reference);
+            
+            if(entry.prev == null)
+                first = entry.next;
+            else
+                entry.prev.next = entry.next;
+            if(entry.next == null)
+                last = entry.prev;
+            else
+                entry.next.prev = entry.prev;
+            
+            if(entry.kindPrev == null)
+                group.first = entry.kindNext;
+            else
+                entry.kindPrev.kindNext = entry.kindNext;
+            if(entry.kindNext == null)
+                group.last = entry.kindPrev;
+            else
+                entry.kindNext.kindPrev = entry.kindPrev;
+            
+            if(group.entries.isEmpty())
+                removeGroup(group);
+        }
+        
+        size--;
+        modCount++;
+        return true;
+    }
+
+
+    @Override
+    public boolean contains(Object reference) {
+        return count(reference) > 0;
+    }
+
+
+    /**
+     * Returns the number of references of an element.
+     * 
+     * @param reference
+     *          element that refers.
+     * @return
+     *          number of references of the element.
+     */
+    public int count(Object reference) {
+        if(reference == null)
+            return 0;
+        
+        Group<T> group = getGroup(reference.getClass(), false);
+        if(group == null)
+            return 0;
+        
+        Entry<T> entry = group.entries.get(reference);
+        if(entry == null)
+            return 0;
+        
+        return entry.count;
+    }
+
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    @Override
+    public void clear() {
+        groups = null;
+        kindCount = 0;
+        first = null;
+        last = null;
+        size = 0;
+        modCount++;
+    }
+
+
+    /**
+     * Returns the kinds of elements that refer, that is, their classes, in
+     * the order the first element of each kind was added.
+     * 
+     * @return
+     *          list with the classes of the elements that refer.
+     */
+    public List<Class> getKinds() {
+        List<Class> result = new ArrayList<Class>(kindCount);
+        for(int i = 0; i < kindCount; i++)
+            result.add(groups[i].kind);
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the elements of a kind that refer. Each element is returned
+     * once, even if it refers more than once. Elements of subclasses of the
+     * kind are returned as well.
+     * 
+     * @param kind
+     *          class of the elements.
+     * @return
+     *          list with the elements of the kind that refer.
+     */
+    public <K> List<K> getReferences(Class<K> kind) {
+        List<K> result = new ArrayList<K>();
+        for(int i = 0; i < kindCount; i++){
+            if(kind.isAssignableFrom(groups[i].kind)){
+                for(Entry<T> e = groups[i].first; e != null; e = e.kindNext)
+                    result.add((K) e.reference);
+            }
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the elements that refer grouped by kind. Each element is
+     * returned once, even if it refers more than once.
+     * 
+     * @return
+     *          map with the elements that refer indexed by their class.
+     */
+    public Map<Class, List<T>> getReferencesByKind() {
+        Map<Class, List<T>> result = new LinkedHashMap<Class, List<T>>();
+        for(int i = 0; i < kindCount; i++){
+            List<T> aux = new ArrayList<T>(groups[i].entries.size());
+            for(Entry<T> e = groups[i].first; e != null; e = e.kindNext)
+                aux.add(e.reference);
+            result.put(groups[i].kind, aux);
+        }
+        
+        return Collections.unmodifiableMap(result);
+    }
+
+
+    /**
+     * Returns an iterator over the references. An element that refers more
+     * than once is returned once for each reference.
+     * 
+     * @return
+     *          iterator over the references.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            
+            private int expected = modCount;
+            private Entry<T> next = first;
+            private int remaining = next != null ? next.count : 0;
+            private Entry<T> current;
+            
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            
+            @Override
+            public T next() {
+                if(expected != modCount)
+                    throw new ConcurrentModificationException();
+                if(next == null)
+                    throw new NoSuchElementException();
+                
+                current = next;
+                T result = next.reference;
+                if(--remaining == 0){
+                    next = next.next;
+                    remaining = next != null ? next.count : 0;
+                }
+                
+                return result;
+            }
+            
+            
+            /**
+             * Removes the last reference returned. The entry of the element
+             * is unlinked when its last reference is removed, and the entry
+             * returned next is not affected.
+             */
+            @Override
+            public void remove() {
+                if(current == null)
+                    throw new IllegalStateException();
+                if(expected != modCount)
+                    throw new ConcurrentModificationException();
+                
+                ReferenceSet.this.remove(current.reference);
+                current = null;
+                expected = modCount;
+            }
+        };
+    }
+
+
+    private Group<T> getGroup(Class kind, boolean create) {
+        for(int i = 0; i < kindCount; i++){
+            if(groups[i].kind == kind)
+                return groups[i];
+        }
+        
+        if(!create)
+            return null;
+        
+        if(groups == null)
+            groups = new Group[2];
+        else if(kindCount == groups.length){
+            Group[] aux = new Group[2 * kindCount];
+            System.arraycopy(groups, 0, aux, 0, kindCount);
+            groups = aux;
+        }
+        
+        Group<T> group = new Group<T>(kind);
+        groups[kindCount++] = group;
+        
+        return group;
+    }
+
+
+    private void removeGroup(Group<T> group) {
+        for(int i = 0; i < kindCount; i++){
+            if(groups[i] == group){
+                // shifted to keep the order of the kinds
+                System.arraycopy(groups, i + 1, groups, i, kindCount - i - 1);
+                groups[--kindCount] = null;
+                return;
+            }
+        }
+    }
+
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for(T reference : this)
+            out.writeObject(reference);
+    }
+
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        for(int i = 0; i < count; i++)
+            add((T) in.readObject());
+    }
+
+
+    private static class Group<T> {
+        
+        private final Class kind;
+        private final IdentityHashMap<T, Entry<T>> entries = new IdentityHashMap<T, Entry<T>>(4);
+        private Entry<T> first;
+        private Entry<T> last;
+        
+        
+        private Group(Class kind) {
+            this.kind = kind;
+        }
+    }
+
+
+    private static class Entry<T> {
+        
+        private final T reference;
+        private int count = 1;
+        private Entry<T> prev;
+        private Entry<T> next;
+        private Entry<T> kindPrev;
+        private Entry<T> kindNext;
+        
+        
+        private Entry(T reference) {
+            this.reference = reference;
+        }
+    }
+}
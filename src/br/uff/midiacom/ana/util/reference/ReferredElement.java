@@ -53,5 +53,13 @@ public interface ReferredElement<T extends NCLElement> {
     public boolean removeReference(T reference) throws XMLException;
     
     
+    /**
+     * Returns a list with the elements that refer to this element, in the
+     * order they were added. The list is a copy, so it can be iterated while
+     * references are added or removed.
+     * 
+     * @return
+     *          list with the elements that refer to this element.
+     */
     public ArrayList<T> getReferences();
 }
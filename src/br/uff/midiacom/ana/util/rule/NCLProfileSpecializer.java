@@ -0,0 +1,638 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.descriptor.NCLLayoutDescriptor;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.interfaces.NCLMapping;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.rule.NCLBindRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.rule.NCLTestRule;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import br.uff.midiacom.ana.util.reference.ReferenceSet;
+import br.uff.midiacom.ana.util.reference.ReferredElement;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+
+/**
+ * Class that specializes an NCL document for receiver profiles. A profile is a
+ * fixed assignment of values to global variables, for example the language,
+ * the screen size and the device class of the receiver.
+ * 
+ * <br/>
+ * 
+ * Each profile produces a new document, where the switches and descriptor
+ * switches whose selection is decided by the profile are replaced by the
+ * component or descriptor they select. The links, ports and mappings that
+ * refer to a switch are moved to the selected component, following the
+ * mappings of the switch ports, and are removed if the switch selects nothing
+ * or the selected component is not mapped. The components not selected are
+ * removed with the switch, as are the rules, descriptors and connectors left
+ * without references by the specialization.
+ * 
+ * <br/>
+ * 
+ * A switch remains in the document if a rule tested before its selection
+ * depends on a variable not assigned by the profile, or if it is reused by
+ * another switch. The original document is not modified.
+ * 
+ * @param <Ed>
+ *          NCL document type.
+ */
+public class NCLProfileSpecializer<Ed extends NCLDoc> {
+
+    private static final Object UNDECIDED = new Object();
+    private static final Object DEAD = new Object();
+    
+    private ForkJoinPool pool;
+
+
+    /**
+     * Profile specializer constructor. The specializer uses one thread for
+     * each available processor.
+     * 
+     * @throws XMLException 
+     *          if an error occur while creating the specializer.
+     */
+    public NCLProfileSpecializer() throws XMLException {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Profile specializer constructor.
+     * 
+     * @param parallelism
+     *          number of threads used to specialize the documents.
+     * @throws XMLException
+     *          if the number of threads is not positive.
+     */
+    public NCLProfileSpecializer(int parallelism) throws XMLException {
+        if(parallelism < 1)
+            throw new XMLException("Parallelism must be positive.");
+        
+        pool = new ForkJoinPool(parallelism);
+    }
+
+
+    /**
+     * Specializes a document for a profile.
+     * 
+     * @param doc
+     *          document to be specialized.
+     * @param profile
+     *          map from the key of each variable, that is, its name followed by
+     *          its parameter, if any, to its value.
+     * @return
+     *          new document specialized for the profile.
+     * @throws XMLException
+     *          if an error occur while copying or specializing the document.
+     */
+    public Ed specialize(Ed doc, Map<String, Object> profile) throws XMLException {
+        if(doc == null)
+            throw new XMLException("Null document.");
+        
+        return specialize(doc.parse(0), doc, profile);
+    }
+
+
+    /**
+     * Specializes a document for several profiles in parallel. The document
+     * is serialized once and each profile works on its own copy, which loads
+     * its own imported documents.
+     * 
+     * @param doc
+     *          document to be specialized.
+     * @param profiles
+     *          list of profiles.
+     * @return
+     *          list with the new document of each profile, in the order of the
+     *          profiles.
+     * @throws XMLException
+     *          if an error occur while copying or specializing the document
+     *          for any profile or if the specialization is interrupted.
+     */
+    public List<Ed> specialize(final Ed doc, List<Map<String, Object>> profiles) throws XMLException {
+        if(doc == null)
+            throw new XMLException("Null document.");
+        
+        final String content = doc.parse(0);
+        List<Callable<Ed>> tasks = new ArrayList<Callable<Ed>>();
+        for(final Map<String, Object> profile : profiles){
+            tasks.add(new Callable<Ed>() {
+                @Override
+                public Ed call() throws XMLException {
+                    return specialize(content, doc, profile);
+                }
+            });
+        }
+        
+        List<Ed> result = new ArrayList<Ed>();
+        try{
+            for(Future<Ed> future : pool.invokeAll(tasks))
+                result.add(future.get());
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new NCLParsingException("Specialization interrupted.");
+        }catch(ExecutionException e){
+            if(e.getCause() instanceof XMLException)
+                throw (XMLException) e.getCause();
+            throw new NCLParsingException(e.getCause());
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Stops the threads used by the specializer. The specializer can not be
+     * used after this method is called.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+
+    private Ed specialize(String content, Ed doc, Map<String, Object> profile) throws XMLException {
+        // the copy does not use the import cache of the document: the imported
+        // elements keep references to the elements of the copy, which are
+        // changed by the specialization, so each copy has its own imports
+        Ed copy = createDoc();
+        copy.loadXML(new StringReader(content), doc.getLocation());
+        
+        new Specialization(copy, profile).run();
+        return copy;
+    }
+
+
+    /**
+     * Function to create a document element.
+     * This function must be overwritten in classes that extends this one.
+     *
+     * @return
+     *          element representing a document.
+     */
+    protected Ed createDoc() throws XMLException {
+        return (Ed) new NCLDoc();
+    }
+
+
+    /**
+     * Specialization of a copy of the document for a profile.
+     */
+    private static class Specialization {
+
+        private NCLDoc doc;
+        private Map<String, Object> profile;
+        private NCLRuleEngine engine;
+        private NCLRuleResult result;
+        
+        // head entries referenced before the specialization
+        private Map<Object, Boolean> used = new IdentityHashMap<Object, Boolean>();
+
+
+        private Specialization(NCLDoc doc, Map<String, Object> profile) {
+            this.doc = doc;
+            this.profile = profile;
+        }
+
+
+        private void run() throws XMLException {
+            NCLHead head = doc.getHead();
+            if(head != null && head.getRuleBase() != null){
+                engine = new NCLRuleEngine(head.getRuleBase());
+                NCLSettings settings = engine.newSettings();
+                for(Map.Entry<String, Object> entry : profile.entrySet())
+                    settings.set(entry.getKey(), entry.getValue());
+                result = engine.resolve(settings);
+            }
+            
+            List<NCLElement> switches = new ArrayList<NCLElement>();
+            Iterator<NCLElement> it = NCLTreeWalker.iterator(doc);
+            while(it.hasNext()){
+                NCLElement el = it.next();
+                if(el instanceof NCLSwitch || el instanceof NCLDescriptorSwitch)
+                    switches.add(el);
+            }
+            
+            if(head != null){
+                if(head.getRuleBase() != null)
+                    mark(head.getRuleBase().getRules());
+                if(head.getDescriptorBase() != null)
+                    mark(head.getDescriptorBase().getDescriptors());
+                if(head.getConnectorBase() != null)
+                    mark(head.getConnectorBase().getCausalConnectors());
+            }
+            
+            // the switches are visited parents first, so a switch inside a
+            // component not selected is already detached
+            for(NCLElement sw : switches){
+                if(!attached(sw))
+                    continue;
+                
+                if(sw instanceof NCLSwitch)
+                    specialize((NCLSwitch) sw);
+                else
+                    specialize((NCLDescriptorSwitch) sw);
+            }
+            
+            if(head != null)
+                cleanHead(head);
+        }
+
+
+        private void specialize(NCLSwitch sw) throws XMLException {
+            if(sw.getRefer() != null)
+                return;
+            
+            Object sel = select(sw.getBinds(), sw.getDefaultComponent());
+            if(sel == UNDECIDED)
+                return;
+            
+            NCLElement parent = (NCLElement) sw.getParent();
+            if(!(parent instanceof NCLCompositeNodeElement) && !(parent instanceof NCLSwitch))
+                return;
+            
+            for(Object ref : sw.getReferenceSet()){
+                if(ref instanceof NCLSwitch){
+                    if(((NCLSwitch) ref).getRefer() != null)
+                        return;
+                }
+                else if(!(ref instanceof NCLBind) && !(ref instanceof NCLPort)
+                        && !(ref instanceof NCLMapping) && !(ref instanceof NCLBindRule))
+                    return;
+            }
+            
+            NCLNode chosen = (NCLNode) sel;
+            if(chosen != null){
+                for(Object ref : ReferenceSet.of(chosen)){
+                    NCLElement aux = (NCLElement) ref;
+                    if(aux != sw && aux.getParent() != sw
+                            && !(aux instanceof NCLMapping && ((NCLElement) aux.getParent()).getParent() == sw))
+                        return;
+                }
+            }
+            
+            // the references leave the ports of the switch before the chosen
+            // component leaves the switch, since a node with references can
+            // not be removed, and then are moved to the chosen component
+            List<Object> refs = new ArrayList<Object>(sw.getReferenceSet());
+            List<Object> targets = new ArrayList<Object>();
+            for(Object ref : refs)
+                targets.add(map(ref, sw, chosen));
+            for(int i = 0; i < refs.size(); i++)
+                detach(refs.get(i), targets.get(i));
+            
+            for(Object bind : list(sw.getBinds())){
+                sw.removeBind((NCLBindRule) bind);
+                ((NCLBindRule) bind).clean();
+            }
+            for(Object port : list(sw.getPorts())){
+                sw.removePort((NCLSwitchPort) port);
+                ((NCLSwitchPort) port).clean();
+            }
+            sw.setDefaultComponent(null);
+            if(chosen != null)
+                sw.removeNode(chosen);
+            
+            for(int i = 0; i < refs.size(); i++)
+                attach(refs.get(i), targets.get(i), chosen);
+            
+            removeNode(parent, sw);
+            sw.clean();
+            if(chosen != null)
+                addNode(parent, chosen);
+        }
+
+
+        private void specialize(NCLDescriptorSwitch ds) throws XMLException {
+            Object sel = select(ds.getBinds(), ds.getDefaultDescriptor());
+            if(sel == UNDECIDED)
+                return;
+            
+            if(!(ds.getParent() instanceof NCLDescriptorBase))
+                return;
+            NCLDescriptorBase base = (NCLDescriptorBase) ds.getParent();
+            
+            for(Object ref : ds.getReferenceSet()){
+                if(!(ref instanceof NCLMedia) && !(ref instanceof NCLBind))
+                    return;
+            }
+            
+            NCLDescriptor chosen = (NCLDescriptor) sel;
+            if(chosen != null){
+                for(Object ref : ReferenceSet.of(chosen)){
+                    if(ref != ds && ((NCLElement) ref).getParent() != ds)
+                        return;
+                }
+            }
+            
+            // the descriptor switch cleans the binds it removes
+            for(Object bind : list(ds.getBinds()))
+                ds.removeBind((NCLBindRule) bind);
+            ds.setDefaultDescriptor(null);
+            if(chosen != null){
+                ds.removeDescriptor(chosen);
+                base.addDescriptor(chosen);
+            }
+            
+            for(Object ref : new ArrayList<Object>(ds.getReferenceSet())){
+                if(ref instanceof NCLMedia)
+                    ((NCLMedia) ref).setDescriptor(chosen);
+                else
+                    ((NCLBind) ref).setDescriptor(chosen);
+            }
+            
+            base.removeDescriptor(ds);
+            ds.clean();
+        }
+
+
+        private Object select(ElementList binds, Object def) {
+            for(Object aux : binds){
+                NCLBindRule bind = (NCLBindRule) aux;
+                int index = engine == null ? -1 : engine.indexOf(bind.getRule());
+                if(index < 0 || !result.isDecided(index))
+                    return UNDECIDED;
+                if(result.isTrue(index))
+                    return bind.getConstituent();
+            }
+            
+            return def;
+        }
+
+
+        /**
+         * Returns the interface of the chosen component that a reference to
+         * the switch must use or DEAD if the reference must be removed.
+         */
+        private Object map(Object ref, NCLSwitch sw, NCLNode chosen) {
+            if(ref instanceof NCLBind)
+                return map(((NCLBind) ref).getInterface(), sw, chosen);
+            if(ref instanceof NCLPort)
+                return map(((NCLPort) ref).getInterface(), sw, chosen);
+            if(ref instanceof NCLMapping)
+                return map(((NCLMapping) ref).getInterface(), sw, chosen);
+            
+            return chosen == null ? DEAD : null;
+        }
+
+
+        private void detach(Object ref, Object target) throws XMLException {
+            if(((NCLElement) ref).getParent() == null)
+                return;
+            
+            if(target == DEAD){
+                if(ref instanceof NCLBind)
+                    removeLink((NCLLink) ((NCLBind) ref).getParent());
+                else if(ref instanceof NCLPort)
+                    removePort((NCLPort) ref);
+                else if(ref instanceof NCLMapping)
+                    removeMapping((NCLMapping) ref);
+                else if(ref instanceof NCLBindRule){
+                    ((NCLSwitch) ((NCLBindRule) ref).getParent()).removeBind((NCLBindRule) ref);
+                    ((NCLBindRule) ref).clean();
+                }
+                else
+                    ((NCLSwitch) ref).setDefaultComponent(null);
+            }
+            else if(ref instanceof NCLBind)
+                ((NCLBind) ref).setInterface(null);
+            else if(ref instanceof NCLPort)
+                ((NCLPort) ref).setInterface(null);
+            else if(ref instanceof NCLMapping)
+                ((NCLMapping) ref).setInterface(null);
+        }
+
+
+        private void attach(Object ref, Object target, NCLNode chosen) throws XMLException {
+            if(target == DEAD || ((NCLElement) ref).getParent() == null)
+                return;
+            
+            if(ref instanceof NCLBind){
+                ((NCLBind) ref).setComponent(chosen);
+                ((NCLBind) ref).setInterface((NCLInterface) target);
+            }
+            else if(ref instanceof NCLPort){
+                ((NCLPort) ref).setComponent(chosen);
+                ((NCLPort) ref).setInterface((NCLInterface) target);
+            }
+            else if(ref instanceof NCLMapping){
+                ((NCLMapping) ref).setComponent(chosen);
+                ((NCLMapping) ref).setInterface((NCLInterface) target);
+            }
+            else if(ref instanceof NCLBindRule)
+                ((NCLBindRule) ref).setConstituent(chosen);
+            else
+                ((NCLSwitch) ref).setDefaultComponent(chosen);
+        }
+
+
+        /**
+         * Returns the interface of the chosen component that corresponds to
+         * an interface of the switch or DEAD if there is none.
+         */
+        private Object map(NCLInterface iface, NCLSwitch sw, NCLNode chosen) {
+            if(chosen == null)
+                return DEAD;
+            if(iface == null)
+                return null;
+            if(!(iface instanceof NCLSwitchPort) || ((NCLSwitchPort) iface).getParent() != sw)
+                return DEAD;
+            
+            for(Object aux : ((NCLSwitchPort) iface).getMappings()){
+                NCLMapping mapping = (NCLMapping) aux;
+                if(mapping.getComponent() == chosen)
+                    return mapping.getInterface();
+            }
+            
+            return DEAD;
+        }
+
+
+        private void removeLink(NCLLink link) throws XMLException {
+            NCLElement parent = (NCLElement) link.getParent();
+            if(parent == null)
+                return;
+            
+            ((NCLCompositeNodeElement) parent).removeLink(link);
+            link.clean();
+        }
+
+
+        private void removePort(NCLPort port) throws XMLException {
+            NCLElement parent = (NCLElement) port.getParent();
+            if(parent == null)
+                return;
+            
+            for(Object ref : new ArrayList<Object>(port.getReferenceSet())){
+                if(ref instanceof NCLBind)
+                    removeLink((NCLLink) ((NCLBind) ref).getParent());
+                else if(ref instanceof NCLPort)
+                    removePort((NCLPort) ref);
+                else if(ref instanceof NCLMapping)
+                    removeMapping((NCLMapping) ref);
+            }
+            
+            ((NCLCompositeNodeElement) parent).removePort(port);
+            port.clean();
+        }
+
+
+        private void removeMapping(NCLMapping mapping) throws XMLException {
+            NCLElement parent = (NCLElement) mapping.getParent();
+            if(parent == null)
+                return;
+            
+            ((NCLSwitchPort) parent).removeMapping(mapping);
+            mapping.clean();
+        }
+
+
+        private void removeNode(NCLElement parent, NCLNode node) throws XMLException {
+            if(parent instanceof NCLSwitch)
+                ((NCLSwitch) parent).removeNode(node);
+            else
+                ((NCLCompositeNodeElement) parent).removeNode(node);
+        }
+
+
+        private void addNode(NCLElement parent, NCLNode node) throws XMLException {
+            if(parent instanceof NCLSwitch)
+                ((NCLSwitch) parent).addNode(node);
+            else
+                ((NCLCompositeNodeElement) parent).addNode(node);
+        }
+
+
+        private void mark(ElementList list) {
+            for(Object el : list){
+                if(!ReferenceSet.of((ReferredElement) el).isEmpty())
+                    used.put(el, Boolean.TRUE);
+            }
+        }
+
+
+        /**
+         * Removes the head entries left without references.
+         */
+        private void cleanHead(NCLHead head) throws XMLException {
+            NCLRuleBase rules = head.getRuleBase();
+            if(rules != null){
+                for(Object rule : list(rules.getRules())){
+                    if(unused(rule)){
+                        rules.removeRule((NCLTestRule) rule);
+                        ((NCLElement) rule).clean();
+                    }
+                }
+                if(!rules.hasRule() && !rules.hasImportBase())
+                    head.setRuleBase(null);
+            }
+            
+            NCLDescriptorBase descriptors = head.getDescriptorBase();
+            if(descriptors != null){
+                for(Object desc : list(descriptors.getDescriptors())){
+                    if(unused(desc)){
+                        descriptors.removeDescriptor((NCLLayoutDescriptor) desc);
+                        ((NCLElement) desc).clean();
+                    }
+                }
+            }
+            
+            NCLConnectorBase connectors = head.getConnectorBase();
+            if(connectors != null){
+                for(Object conn : list(connectors.getCausalConnectors())){
+                    if(unused(conn)){
+                        connectors.removeCausalConnector((NCLCausalConnector) conn);
+                        ((NCLElement) conn).clean();
+                    }
+                }
+            }
+        }
+
+
+        private boolean unused(Object el) {
+            return used.containsKey(el) && ReferenceSet.of((ReferredElement) el).isEmpty();
+        }
+
+
+        private boolean attached(NCLElement el) {
+            while(el != null && el != doc)
+                el = (NCLElement) el.getParent();
+            
+            return el == doc;
+        }
+
+
+        private List<Object> list(ElementList list) {
+            List<Object> result = new ArrayList<Object>();
+            for(Object el : list)
+                result.add(el);
+            
+            return result;
+        }
+    }
+}
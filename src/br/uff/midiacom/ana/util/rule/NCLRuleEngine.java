@@ -0,0 +1,733 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.rule.NCLCompositeRule;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.rule.NCLTestRule;
+import br.uff.midiacom.ana.util.enums.NCLComparator;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.enums.NCLOperator;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Compiled form of a rule base. Each variable tested by the rules receives a
+ * slot in a settings vector and each rule is compiled into a predicate over
+ * that vector. Composite rules are placed after their child rules, so all the
+ * rules of the base are evaluated in a single pass.
+ * 
+ * <br/>
+ * 
+ * A simple rule whose value is a number compares the value of the variable as
+ * a number, when it is numeric, and any other rule compares it as a string.
+ * The rules of the rule bases imported by the base are compiled too.
+ * 
+ * <br/>
+ * 
+ * The results are memoized per settings state. The engine is a snapshot of
+ * the rule base, so it must be compiled again if the rules are modified.
+ * 
+ * @see NCLSettings
+ * @see NCLRuleResult
+ */
+public class NCLRuleEngine {
+
+    private static final int SIMPLE = 0;
+    private static final int AND = 1;
+    private static final int OR = 2;
+    
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int GT = 2;
+    private static final int LT = 3;
+    private static final int GTE = 4;
+    private static final int LTE = 5;
+    
+    private static final int DEFAULT_CAPACITY = 64;
+    
+    private NCLRuleBase base;
+    
+    private Map<String, Integer> slots = new HashMap<String, Integer>();
+    private String[] keys;
+    
+    private Map<Object, Integer> indexes = new IdentityHashMap<Object, Integer>();
+    private Map<String, Integer> ids = new HashMap<String, Integer>();
+    private NCLTestRule[] rules;
+    
+    // one entry per rule, in evaluation order
+    private int[] kinds;
+    private int[] vars;
+    private int[] comparators;
+    private String[] texts;
+    private double[] numbers;
+    private int[] offsets;
+    private int[] children;
+    private int[][] dependents;
+    
+    private Cache cache;
+
+
+    /**
+     * Compiles a rule base.
+     * 
+     * @param base
+     *          rule base.
+     * @throws XMLException
+     *          if a rule does not define its variable, comparator or value or
+     *          if a composite rule is empty.
+     */
+    public NCLRuleEngine(NCLRuleBase base) throws XMLException {
+        if(base == null)
+            throw new XMLException("Null rule base.");
+        
+        this.base = base;
+        new Compiler().base(base, true);
+        cache = new Cache(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Returns the rule base compiled.
+     * 
+     * @return
+     *          rule base.
+     */
+    public NCLRuleBase getRuleBase() {
+        return base;
+    }
+
+
+    /**
+     * Returns the number of variables tested by the rules.
+     * 
+     * @return
+     *          number of slots of the settings vector.
+     */
+    public int getVariableCount() {
+        return keys.length;
+    }
+
+
+    /**
+     * Returns the slot of a variable.
+     * 
+     * @param key
+     *          key of the variable, that is, its name followed by its
+     *          parameter, if any.
+     * @return
+     *          slot of the variable or -1 if no rule tests it.
+     */
+    public int getSlot(String key) {
+        Integer aux = slots.get(key);
+        return aux == null ? -1 : aux;
+    }
+
+
+    /**
+     * Returns the slot of a variable.
+     * 
+     * @param var
+     *          global variable.
+     * @return
+     *          slot of the variable or -1 if no rule tests it.
+     */
+    public int getSlot(NCLVariable var) {
+        return var == null ? -1 : getSlot(var.getKey());
+    }
+
+
+    /**
+     * Returns the key of the variable in a slot.
+     * 
+     * @param slot
+     *          slot of the variable.
+     * @return
+     *          key of the variable.
+     */
+    public String getKey(int slot) {
+        return keys[slot];
+    }
+
+
+    /**
+     * Returns the number of rules compiled, including the rules inside
+     * composite rules and the rules of imported bases.
+     * 
+     * @return
+     *          number of rules.
+     */
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+
+    /**
+     * Returns a rule compiled.
+     * 
+     * @param index
+     *          index of the rule.
+     * @return
+     *          rule or composite rule.
+     */
+    public NCLTestRule getRule(int index) {
+        return rules[index];
+    }
+
+
+    /**
+     * Returns the index of a rule.
+     * 
+     * @param rule
+     *          rule or composite rule, or a reference to one of them.
+     * @return
+     *          index of the rule or -1 if it was not compiled by the engine.
+     */
+    public int indexOf(Object rule) {
+        if(rule instanceof ExternalReferenceType)
+            rule = ((ExternalReferenceType) rule).getTarget();
+        
+        Integer aux = indexes.get(rule);
+        return aux == null ? -1 : aux;
+    }
+
+
+    /**
+     * Returns the index of a rule of the rule base, including the rules
+     * inside its composite rules.
+     * 
+     * @param id
+     *          id of the rule.
+     * @return
+     *          index of the rule or -1 if the base has no rule with the id.
+     */
+    public int indexOf(String id) {
+        Integer aux = ids.get(id);
+        return aux == null ? -1 : aux;
+    }
+
+
+    /**
+     * Sets the number of settings states whose results are memoized.
+     * 
+     * @param capacity
+     *          number of states, at least 1.
+     */
+    public synchronized void setCacheCapacity(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive.");
+        
+        Cache aux = new Cache(capacity);
+        aux.putAll(cache);
+        cache = aux;
+    }
+
+
+    /**
+     * Creates a settings vector for the engine without values.
+     * 
+     * @return
+     *          settings vector.
+     */
+    public NCLSettings newSettings() {
+        return new NCLSettings(this);
+    }
+
+
+    /**
+     * Creates a settings vector for the engine with the values given to the
+     * variables by the properties of the settings nodes in the body of the
+     * document.
+     * 
+     * @param doc
+     *          document whose settings nodes give the initial values.
+     * @return
+     *          settings vector.
+     */
+    public NCLSettings newSettings(NCLDoc doc) {
+        NCLSettings settings = new NCLSettings(this);
+        if(doc == null || doc.getBody() == null)
+            return settings;
+        
+        Iterator<NCLElement> it = NCLTreeWalker.iterator(doc.getBody());
+        while(it.hasNext()){
+            NCLElement el = it.next();
+            if(!(el instanceof NCLMedia) || ((NCLMedia) el).getType() != NCLMimeType.APPLICATION_X_GINGA_SETTINGS)
+                continue;
+            
+            for(Object prop : ((NCLMedia) el).getProperties()){
+                Object name = ((NCLProperty) prop).getName();
+                Object value = ((NCLProperty) prop).getValue();
+                if(name == null || value == null)
+                    continue;
+                
+                if(name instanceof NCLVariable)
+                    settings.set((NCLVariable) name, value);
+                else
+                    settings.set(name.toString(), value);
+            }
+        }
+        
+        return settings;
+    }
+
+
+    /**
+     * Evaluates all the rules for the values of a settings vector. The result
+     * is memoized, so evaluating a state already seen does not test the rules
+     * again.
+     * 
+     * @param settings
+     *          settings vector created by this engine.
+     * @return
+     *          result of the rules.
+     */
+    public synchronized NCLRuleResult evaluate(NCLSettings settings) {
+        if(settings == null || settings.getEngine() != this)
+            throw new IllegalArgumentException("Settings not created by the engine.");
+        
+        if(settings.result != null && settings.resultVersion == settings.getVersion())
+            return settings.result;
+        
+        State state = new State(settings.texts);
+        NCLRuleResult result = cache.get(state);
+        if(result == null){
+            result = new NCLRuleResult(this, run(settings.texts, settings.numbers));
+            cache.put(new State(settings.texts.clone()), result);
+        }
+        
+        settings.result = result;
+        settings.resultVersion = settings.getVersion();
+        return result;
+    }
+
+
+    /**
+     * Evaluates all the rules for the values of a settings vector whose
+     * variables without value are unknown instead of empty. A simple rule is
+     * decided if its variable has a value, a composite rule with the operator
+     * <i>and</i> is decided if a child rule is decided and false or if all its
+     * children are decided, and a composite rule with the operator <i>or</i>
+     * is decided if a child rule is decided and true or if all its children
+     * are decided. The result is not memoized.
+     * 
+     * @param settings
+     *          settings vector created by this engine.
+     * @return
+     *          result of the rules, telling which rules are decided.
+     */
+    public NCLRuleResult resolve(NCLSettings settings) {
+        if(settings == null || settings.getEngine() != this)
+            throw new IllegalArgumentException("Settings not created by the engine.");
+        
+        boolean[] result = new boolean[kinds.length];
+        boolean[] known = new boolean[kinds.length];
+        
+        for(int i = 0; i < kinds.length; i++){
+            if(kinds[i] == SIMPLE){
+                known[i] = settings.texts[vars[i]] != null;
+                result[i] = known[i] && eval(i, result, settings.texts, settings.numbers);
+                continue;
+            }
+            
+            // the value that decides the operator alone
+            boolean dominant = kinds[i] == OR;
+            boolean all = true;
+            boolean decided = false;
+            for(int c = offsets[i]; c < offsets[i + 1]; c++){
+                int child = children[c];
+                if(!known[child])
+                    all = false;
+                else if(result[child] == dominant)
+                    decided = true;
+            }
+            
+            known[i] = decided || all;
+            result[i] = decided ? dominant : (all && !dominant);
+        }
+        
+        return new NCLRuleResult(this, result, known);
+    }
+
+
+    private boolean[] run(String[] values, double[] numbers) {
+        boolean[] result = new boolean[kinds.length];
+        
+        for(int i = 0; i < kinds.length; i++)
+            result[i] = eval(i, result, values, numbers);
+        
+        return result;
+    }
+
+
+    /**
+     * Evaluates again the rules in a list of indexes, in ascending order, for
+     * the values of a settings vector.
+     * 
+     * @param result
+     *          results of the rules, updated in place.
+     * @param indexes
+     *          indexes of the rules, children before their parents.
+     * @param settings
+     *          settings vector.
+     * @return
+     *          true if the result of any rule changed.
+     */
+    boolean update(boolean[] result, int[] indexes, NCLSettings settings) {
+        boolean changed = false;
+        
+        for(int i : indexes){
+            boolean aux = eval(i, result, settings.texts, settings.numbers);
+            if(aux != result[i]){
+                result[i] = aux;
+                changed = true;
+            }
+        }
+        
+        return changed;
+    }
+
+
+    /**
+     * Returns the indexes, in ascending order, of the rules whose result
+     * depends on the variable in a slot, that is, the rules that test the
+     * variable and the composite rules that contain them.
+     * 
+     * @param slot
+     *          slot of the variable.
+     * @return
+     *          indexes of the rules.
+     */
+    synchronized int[] getDependents(int slot) {
+        if(dependents == null){
+            // the parents of a rule are placed after it, so a single pass
+            // propagates the variables of the children
+            BitSet[] reads = new BitSet[kinds.length];
+            for(int i = 0; i < kinds.length; i++){
+                reads[i] = new BitSet(keys.length);
+                if(kinds[i] == SIMPLE)
+                    reads[i].set(vars[i]);
+                for(int c = offsets[i]; c < offsets[i + 1]; c++)
+                    reads[i].or(reads[children[c]]);
+            }
+            
+            int[][] aux = new int[keys.length][];
+            for(int v = 0; v < keys.length; v++){
+                int count = 0;
+                for(int i = 0; i < kinds.length; i++)
+                    if(reads[i].get(v))
+                        count++;
+                
+                aux[v] = new int[count];
+                count = 0;
+                for(int i = 0; i < kinds.length; i++)
+                    if(reads[i].get(v))
+                        aux[v][count++] = i;
+            }
+            dependents = aux;
+        }
+        
+        return dependents[slot];
+    }
+
+
+    private boolean eval(int i, boolean[] result, String[] values, double[] numbers) {
+        switch(kinds[i]){
+            case SIMPLE:
+                return test(i, values[vars[i]], numbers[vars[i]]);
+            case AND:
+                for(int c = offsets[i]; c < offsets[i + 1]; c++)
+                    if(!result[children[c]])
+                        return false;
+                return true;
+            default:
+                for(int c = offsets[i]; c < offsets[i + 1]; c++)
+                    if(result[children[c]])
+                        return true;
+                return false;
+        }
+    }
+
+
+    private boolean test(int i, String value, double number) {
+        if(value == null)
+            return false;
+        
+        int cmp;
+        if(!Double.isNaN(numbers[i]) && !Double.isNaN(number))
+            cmp = Double.compare(number, numbers[i]);
+        else
+            cmp = value.compareTo(texts[i]);
+        
+        switch(comparators[i]){
+            case EQ: return cmp == 0;
+            case NE: return cmp != 0;
+            case GT: return cmp > 0;
+            case LT: return cmp < 0;
+            case GTE: return cmp >= 0;
+            default: return cmp <= 0;
+        }
+    }
+
+
+    /**
+     * Returns the numeric value of a string or NaN.
+     */
+    static double toNumber(String value) {
+        if(value == null || value.isEmpty())
+            return Double.NaN;
+        
+        char c = value.charAt(0);
+        if(!(c >= '0' && c <= '9') && c != '-' && c != '+' && c != '.')
+            return Double.NaN;
+        
+        try{
+            return Double.parseDouble(value);
+        }catch(NumberFormatException e){
+            return Double.NaN;
+        }
+    }
+
+
+    /**
+     * Builds the tables of the engine.
+     */
+    private class Compiler {
+
+        private List<NCLTestRule> order = new ArrayList<NCLTestRule>();
+        private List<Integer> childList = new ArrayList<Integer>();
+        private List<Integer> offsetList = new ArrayList<Integer>();
+        private List<String> keyList = new ArrayList<String>();
+        private Map<NCLRuleBase, Boolean> visited = new IdentityHashMap<NCLRuleBase, Boolean>();
+
+
+        private void base(NCLRuleBase base, boolean local) throws XMLException {
+            if(visited.put(base, Boolean.TRUE) != null)
+                return;
+            
+            for(Object rule : base.getRules())
+                rule((NCLTestRule) rule, local);
+            
+            for(Object imp : base.getImportBases()){
+                Object doc = ((NCLImport) imp).getImportedDoc();
+                if(!(doc instanceof NCLDoc))
+                    continue;
+                
+                NCLHead head = ((NCLDoc) doc).getHead();
+                if(head != null && head.getRuleBase() != null)
+                    base(head.getRuleBase(), false);
+            }
+            
+            if(local)
+                build();
+        }
+
+
+        private int rule(NCLTestRule rule, boolean local) throws XMLException {
+            Integer index = indexes.get(rule);
+            if(index != null)
+                return index;
+            
+            List<Integer> aux = null;
+            if(rule instanceof NCLCompositeRule){
+                NCLCompositeRule comp = (NCLCompositeRule) rule;
+                if(comp.getOperator() == null)
+                    throw new XMLException("Composite rule " + rule.getId() + " has no operator.");
+                if(!comp.hasRule())
+                    throw new XMLException("Composite rule " + rule.getId() + " is empty.");
+                
+                aux = new ArrayList<Integer>();
+                for(Object child : comp.getRules())
+                    aux.add(rule((NCLTestRule) child, local));
+            }
+            else if(rule instanceof NCLRule){
+                NCLRule simple = (NCLRule) rule;
+                if(simple.getVar() == null || simple.getComparator() == null || simple.getValue() == null)
+                    throw new XMLException("Rule " + rule.getId() + " is incomplete.");
+                
+                slot(simple.getVar().getKey());
+            }
+            else{
+                throw new XMLException("Unknown rule type.");
+            }
+            
+            index = order.size();
+            order.add(rule);
+            indexes.put(rule, index);
+            if(local && rule.getId() != null)
+                ids.put(rule.getId(), index);
+            
+            offsetList.add(childList.size());
+            if(aux != null)
+                childList.addAll(aux);
+            
+            return index;
+        }
+
+
+        private int slot(String key) {
+            Integer aux = slots.get(key);
+            if(aux == null){
+                aux = keyList.size();
+                keyList.add(key);
+                slots.put(key, aux);
+            }
+            
+            return aux;
+        }
+
+
+        private void build() {
+            int size = order.size();
+            rules = order.toArray(new NCLTestRule[size]);
+            keys = keyList.toArray(new String[keyList.size()]);
+            
+            kinds = new int[size];
+            vars = new int[size];
+            comparators = new int[size];
+            texts = new String[size];
+            numbers = new double[size];
+            offsets = new int[size + 1];
+            children = new int[childList.size()];
+            
+            for(int i = 0; i < childList.size(); i++)
+                children[i] = childList.get(i);
+            
+            for(int i = 0; i < size; i++){
+                offsets[i] = offsetList.get(i);
+                numbers[i] = Double.NaN;
+                
+                if(rules[i] instanceof NCLCompositeRule){
+                    NCLOperator op = ((NCLCompositeRule) rules[i]).getOperator();
+                    kinds[i] = op == NCLOperator.AND ? AND : OR;
+                }
+                else{
+                    NCLRule rule = (NCLRule) rules[i];
+                    kinds[i] = SIMPLE;
+                    vars[i] = slots.get(rule.getVar().getKey());
+                    comparators[i] = comparator(rule.getComparator());
+                    texts[i] = rule.getValue().trim();
+                    numbers[i] = toNumber(texts[i]);
+                }
+            }
+            offsets[size] = children.length;
+        }
+
+
+        private int comparator(NCLComparator comparator) {
+            switch(comparator){
+                case EQ: return EQ;
+                case NE: return NE;
+                case GT: return GT;
+                case LT: return LT;
+                case GTE: return GTE;
+                default: return LTE;
+            }
+        }
+    }
+
+
+    /**
+     * Values of a settings vector used as key of the memoized results.
+     */
+    private static class State {
+
+        private String[] values;
+        private int hash;
+
+
+        private State(String[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State && Arrays.equals(values, ((State) other).values);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+
+    /**
+     * Memoized results, discarding the least recently used state.
+     */
+    private static class Cache extends LinkedHashMap<State, NCLRuleResult> {
+
+        private static final long serialVersionUID = 1L;
+        
+        private int capacity;
+
+
+        private Cache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<State, NCLRuleResult> eldest) {
+            return size() > capacity;
+        }
+    }
+}
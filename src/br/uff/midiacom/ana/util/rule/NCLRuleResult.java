@@ -0,0 +1,166 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+
+/**
+ * Result of the evaluation of all rules of a rule engine for a settings
+ * state. The result is immutable and can be shared by every settings with the
+ * same values.
+ * 
+ * <br/>
+ * 
+ * A result of a partial evaluation also tells which rules are decided, that
+ * is, whose result does not depend on the variables without value.
+ * 
+ * @see NCLRuleEngine#evaluate(NCLSettings)
+ * @see NCLRuleEngine#resolve(NCLSettings)
+ */
+public class NCLRuleResult {
+
+    private NCLRuleEngine engine;
+    boolean[] values;
+    private boolean[] known;
+
+
+    NCLRuleResult(NCLRuleEngine engine, boolean[] values) {
+        this(engine, values, null);
+    }
+
+
+    NCLRuleResult(NCLRuleEngine engine, boolean[] values, boolean[] known) {
+        this.engine = engine;
+        this.values = values;
+        this.known = known;
+    }
+
+
+    /**
+     * Returns the result of a rule.
+     * 
+     * @param index
+     *          index of the rule in the engine.
+     * @return
+     *          true if the rule is satisfied.
+     */
+    public boolean isTrue(int index) {
+        return values[index];
+    }
+
+
+    /**
+     * Returns the result of a rule.
+     * 
+     * @param rule
+     *          rule or composite rule, or a reference to one of them.
+     * @return
+     *          true if the rule is satisfied.
+     * @throws IllegalArgumentException
+     *          if the rule was not compiled by the engine.
+     */
+    public boolean isTrue(Object rule) {
+        int index = engine.indexOf(rule);
+        if(index < 0)
+            throw new IllegalArgumentException("Rule not compiled by the engine.");
+        
+        return values[index];
+    }
+
+
+    /**
+     * Returns the result of a rule of the rule base.
+     * 
+     * @param id
+     *          id of the rule.
+     * @return
+     *          true if the rule is satisfied.
+     * @throws IllegalArgumentException
+     *          if the rule base has no rule with the id.
+     */
+    public boolean isTrue(String id) {
+        int index = engine.indexOf(id);
+        if(index < 0)
+            throw new IllegalArgumentException("Rule " + id + " not found.");
+        
+        return values[index];
+    }
+
+
+    /**
+     * Returns if the result of a rule is decided. Every rule is decided in
+     * the result of a complete evaluation.
+     * 
+     * @param index
+     *          index of the rule in the engine.
+     * @return
+     *          true if the result of the rule is decided.
+     */
+    public boolean isDecided(int index) {
+        return known == null || known[index];
+    }
+
+
+    /**
+     * Returns if the result of a rule is decided.
+     * 
+     * @param rule
+     *          rule or composite rule, or a reference to one of them.
+     * @return
+     *          true if the result of the rule is decided.
+     * @throws IllegalArgumentException
+     *          if the rule was not compiled by the engine.
+     */
+    public boolean isDecided(Object rule) {
+        int index = engine.indexOf(rule);
+        if(index < 0)
+            throw new IllegalArgumentException("Rule not compiled by the engine.");
+        
+        return isDecided(index);
+    }
+
+
+    /**
+     * Returns the number of rules evaluated.
+     * 
+     * @return
+     *          number of rules.
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,204 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import java.util.Arrays;
+
+
+/**
+ * Values of the variables tested by the rules of a rule engine. Each variable
+ * has a slot in the vector, given by the engine, and its value is kept both
+ * as a string and, when it is numeric, as a number, so the rules are tested
+ * without parsing the values again.
+ * 
+ * <br/>
+ * 
+ * A variable without value makes every rule that tests it false.
+ * 
+ * @see NCLRuleEngine
+ */
+public class NCLSettings {
+
+    private NCLRuleEngine engine;
+    String[] texts;
+    double[] numbers;
+    
+    // last result given by the engine and the version it was computed for
+    private int version;
+    NCLRuleResult result;
+    int resultVersion = -1;
+
+
+    NCLSettings(NCLRuleEngine engine) {
+        this.engine = engine;
+        texts = new String[engine.getVariableCount()];
+        numbers = new double[texts.length];
+        Arrays.fill(numbers, Double.NaN);
+    }
+
+
+    private NCLSettings(NCLSettings other) {
+        this.engine = other.engine;
+        this.texts = other.texts.clone();
+        this.numbers = other.numbers.clone();
+    }
+
+
+    /**
+     * Sets the value of the variable in a slot.
+     * 
+     * @param slot
+     *          slot of the variable.
+     * @param value
+     *          value of the variable or <i>null</i> to remove its value.
+     */
+    public void set(int slot, Object value) {
+        String aux = value == null ? null : value.toString().trim();
+        if(aux == null ? texts[slot] == null : aux.equals(texts[slot]))
+            return;
+        
+        texts[slot] = aux;
+        numbers[slot] = NCLRuleEngine.toNumber(aux);
+        version++;
+    }
+
+
+    /**
+     * Sets the value of a variable.
+     * 
+     * @param key
+     *          key of the variable, that is, its name followed by its
+     *          parameter, if any.
+     * @param value
+     *          value of the variable or <i>null</i> to remove its value.
+     * @return
+     *          true if the variable is tested by a rule of the engine.
+     */
+    public boolean set(String key, Object value) {
+        int slot = engine.getSlot(key);
+        if(slot < 0)
+            return false;
+        
+        set(slot, value);
+        return true;
+    }
+
+
+    /**
+     * Sets the value of a variable.
+     * 
+     * @param var
+     *          global variable.
+     * @param value
+     *          value of the variable or <i>null</i> to remove its value.
+     * @return
+     *          true if the variable is tested by a rule of the engine.
+     */
+    public boolean set(NCLVariable var, Object value) {
+        return var != null && set(var.getKey(), value);
+    }
+
+
+    /**
+     * Returns the value of the variable in a slot.
+     * 
+     * @param slot
+     *          slot of the variable.
+     * @return
+     *          value of the variable or <i>null</i> if it has no value.
+     */
+    public String get(int slot) {
+        return texts[slot];
+    }
+
+
+    /**
+     * Returns the value of a variable.
+     * 
+     * @param key
+     *          key of the variable.
+     * @return
+     *          value of the variable or <i>null</i> if it has no value or if
+     *          the variable is not tested by a rule of the engine.
+     */
+    public String get(String key) {
+        int slot = engine.getSlot(key);
+        return slot < 0 ? null : texts[slot];
+    }
+
+
+    /**
+     * Returns the value of a variable.
+     * 
+     * @param var
+     *          global variable.
+     * @return
+     *          value of the variable or <i>null</i>.
+     */
+    public String get(NCLVariable var) {
+        return var == null ? null : get(var.getKey());
+    }
+
+
+    /**
+     * Returns the engine that gives the slots of the variables.
+     * 
+     * @return
+     *          rule engine.
+     */
+    public NCLRuleEngine getEngine() {
+        return engine;
+    }
+
+
+    /**
+     * Returns a copy of the settings that can be modified independently.
+     * 
+     * @return
+     *          copy of the settings.
+     */
+    public NCLSettings copy() {
+        return new NCLSettings(this);
+    }
+
+
+    int getVersion() {
+        return version;
+    }
+}
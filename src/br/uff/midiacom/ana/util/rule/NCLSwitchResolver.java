@@ -0,0 +1,326 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.rule.NCLBindRule;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Keeps the component selected by each switch and the descriptor selected by
+ * each descriptor switch of a document for the values of a settings vector.
+ * 
+ * <br/>
+ * 
+ * The dependencies are tracked from each variable, through the rules and
+ * composite rules that test it, to the switches whose binds use those rules.
+ * When the value of a variable changes, only the rules that depend on it are
+ * evaluated again and only the switches that depend on it select again.
+ * 
+ * <br/>
+ * 
+ * The values of the variables must be changed through the resolver. The
+ * resolver is a snapshot of the switches, so it must be created again if
+ * their binds are modified.
+ * 
+ * @see NCLRuleEngine
+ */
+public class NCLSwitchResolver {
+
+    private NCLRuleEngine engine;
+    private NCLSettings settings;
+    private boolean[] values;
+    
+    private Map<Object, Integer> indexes = new IdentityHashMap<Object, Integer>();
+    private Object[] switches;
+    private int[][] rules;
+    private Object[][] constituents;
+    private Object[] defaults;
+    private Object[] selected;
+    
+    // switches that depend on each variable, computed when first needed
+    private int[][] affected;
+
+
+    /**
+     * Creates the resolver of the switches and descriptor switches found
+     * inside an element.
+     * 
+     * @param engine
+     *          rule engine that compiled the rules used by the switches.
+     * @param settings
+     *          settings vector of the engine.
+     * @param root
+     *          element whose switches are resolved, usually the document.
+     * @throws XMLException
+     *          if a bind does not define its rule or uses a rule not compiled
+     *          by the engine.
+     */
+    public NCLSwitchResolver(NCLRuleEngine engine, NCLSettings settings, NCLElement root) throws XMLException {
+        if(engine == null || settings == null || settings.getEngine() != engine)
+            throw new XMLException("Settings not created by the engine.");
+        if(root == null)
+            throw new XMLException("Null element.");
+        
+        this.engine = engine;
+        this.settings = settings;
+        values = engine.evaluate(settings).values.clone();
+        
+        List<Object> aux = new ArrayList<Object>();
+        Iterator<NCLElement> it = NCLTreeWalker.iterator(root);
+        while(it.hasNext()){
+            NCLElement el = it.next();
+            if((el instanceof NCLSwitch && ((NCLSwitch) el).getRefer() == null) || el instanceof NCLDescriptorSwitch)
+                aux.add(el);
+        }
+        
+        int size = aux.size();
+        switches = aux.toArray();
+        rules = new int[size][];
+        constituents = new Object[size][];
+        defaults = new Object[size];
+        selected = new Object[size];
+        
+        for(int s = 0; s < size; s++){
+            ElementList binds;
+            if(switches[s] instanceof NCLSwitch){
+                binds = ((NCLSwitch) switches[s]).getBinds();
+                defaults[s] = ((NCLSwitch) switches[s]).getDefaultComponent();
+            }
+            else{
+                binds = ((NCLDescriptorSwitch) switches[s]).getBinds();
+                defaults[s] = ((NCLDescriptorSwitch) switches[s]).getDefaultDescriptor();
+            }
+            
+            rules[s] = new int[binds.size()];
+            constituents[s] = new Object[binds.size()];
+            for(int b = 0; b < binds.size(); b++){
+                NCLBindRule bind = (NCLBindRule) binds.get(b);
+                if(bind.getRule() == null)
+                    throw new XMLException("Bind of switch " + getId(switches[s]) + " has no rule.");
+                
+                rules[s][b] = engine.indexOf(bind.getRule());
+                if(rules[s][b] < 0)
+                    throw new XMLException("Bind of switch " + getId(switches[s]) + " uses a rule not compiled by the engine.");
+                constituents[s][b] = bind.getConstituent();
+            }
+            
+            indexes.put(switches[s], s);
+            selected[s] = select(s);
+        }
+    }
+
+
+    /**
+     * Returns the settings vector used by the resolver.
+     * 
+     * @return
+     *          settings vector.
+     */
+    public NCLSettings getSettings() {
+        return settings;
+    }
+
+
+    /**
+     * Returns the element selected by a switch. A switch that reuses another
+     * switch selects the same element as the switch it refers to.
+     * 
+     * @param sw
+     *          switch or descriptor switch.
+     * @return
+     *          component or descriptor selected, the default one if no rule
+     *          is satisfied or <i>null</i> if there is no default.
+     * @throws IllegalArgumentException
+     *          if the switch is not tracked by the resolver.
+     */
+    public Object getSelected(Object sw) {
+        Integer s = indexes.get(target(sw));
+        if(s == null)
+            throw new IllegalArgumentException("Switch not tracked by the resolver.");
+        
+        return selected[s];
+    }
+
+
+    /**
+     * Returns the switches and descriptor switches whose selection depends on
+     * a variable.
+     * 
+     * @param key
+     *          key of the variable.
+     * @return
+     *          list of switches.
+     */
+    public List<Object> getDependentSwitches(String key) {
+        List<Object> result = new ArrayList<Object>();
+        int slot = engine.getSlot(key);
+        if(slot < 0)
+            return result;
+        
+        for(int s : getAffected(slot))
+            result.add(switches[s]);
+        
+        return result;
+    }
+
+
+    /**
+     * Sets the value of a variable and selects again the switches that depend
+     * on it.
+     * 
+     * @param key
+     *          key of the variable.
+     * @param value
+     *          value of the variable or <i>null</i> to remove its value.
+     * @return
+     *          switches and descriptor switches whose selection changed.
+     */
+    public synchronized List<Object> set(String key, Object value) {
+        List<Object> result = new ArrayList<Object>();
+        int slot = engine.getSlot(key);
+        if(slot < 0)
+            return result;
+        
+        String old = settings.get(slot);
+        settings.set(slot, value);
+        if(old == null ? settings.get(slot) == null : old.equals(settings.get(slot)))
+            return result;
+        
+        if(!engine.update(values, engine.getDependents(slot), settings))
+            return result;
+        
+        for(int s : getAffected(slot)){
+            Object aux = select(s);
+            if(aux != selected[s]){
+                selected[s] = aux;
+                result.add(switches[s]);
+            }
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Sets the value of a variable and selects again the switches that depend
+     * on it.
+     * 
+     * @param var
+     *          global variable.
+     * @param value
+     *          value of the variable or <i>null</i> to remove its value.
+     * @return
+     *          switches and descriptor switches whose selection changed.
+     */
+    public List<Object> set(NCLVariable var, Object value) {
+        if(var == null)
+            return new ArrayList<Object>();
+        
+        return set(var.getKey(), value);
+    }
+
+
+    private Object select(int s) {
+        for(int b = 0; b < rules[s].length; b++){
+            if(values[rules[s][b]])
+                return constituents[s][b];
+        }
+        
+        return defaults[s];
+    }
+
+
+    private synchronized int[] getAffected(int slot) {
+        if(affected == null)
+            affected = new int[engine.getVariableCount()][];
+        
+        if(affected[slot] == null){
+            BitSet deps = new BitSet(engine.getRuleCount());
+            for(int i : engine.getDependents(slot))
+                deps.set(i);
+            
+            List<Integer> aux = new ArrayList<Integer>();
+            for(int s = 0; s < switches.length; s++){
+                for(int r : rules[s]){
+                    if(deps.get(r)){
+                        aux.add(s);
+                        break;
+                    }
+                }
+            }
+            
+            affected[slot] = new int[aux.size()];
+            for(int i = 0; i < aux.size(); i++)
+                affected[slot][i] = aux.get(i);
+        }
+        
+        return affected[slot];
+    }
+
+
+    private Object target(Object sw) {
+        while(sw instanceof NCLSwitch && ((NCLSwitch) sw).getRefer() != null){
+            sw = ((NCLSwitch) sw).getRefer();
+            if(sw instanceof ExternalReferenceType)
+                sw = ((ExternalReferenceType) sw).getTarget();
+        }
+        
+        return sw;
+    }
+
+
+    private String getId(Object sw) {
+        if(sw instanceof NCLSwitch)
+            return ((NCLSwitch) sw).getId();
+        return ((NCLDescriptorSwitch) sw).getId();
+    }
+}
@@ -0,0 +1,934 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.util.TimeType;
+import br.uff.midiacom.ana.util.condition.NCLConditionProgram;
+import br.uff.midiacom.ana.util.condition.NCLEvaluationContext;
+import br.uff.midiacom.ana.util.condition.NCLLinkCondition;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
+import br.uff.midiacom.ana.util.rule.NCLRuleEngine;
+import br.uff.midiacom.ana.util.rule.NCLSwitchResolver;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+
+
+/**
+ * This class simulates the presentation of an NCL document. The simulation
+ * uses a virtual clock and executes the causal links of the document, as
+ * compiled in its temporal graph, without presenting any content.
+ * 
+ * <br/>
+ * 
+ * The simulation starts the presentation of the body, which starts the nodes
+ * referred by its ports. Each transition of an event is recorded in the
+ * timeline and fires the edges of the temporal graph that leave the event with
+ * the same transition, scheduling their actions after the edge delay.
+ * Occurrences scheduled for the same time are executed in the order they were
+ * scheduled, so a simulation is deterministic.
+ * 
+ * <br/>
+ * 
+ * The presentation of a media ends after the duration set with
+ * <i>setDuration</i> or, if none was set, after the explicit duration of its
+ * descriptor. Media without a duration are presented until stopped. The
+ * temporal anchors of a media start and stop according to their begin and end
+ * times. A composite node ends when all its children end. A switch presents
+ * the component selected by its rules, as evaluated by a switch resolver, or
+ * its default component if the document has no rule base. The links whose
+ * conditions are in a conjunction fire only if their compiled condition is
+ * satisfied when the transition happens. Their assessment statements see the
+ * state and occurrences of the events and the values of the properties.
+ * 
+ * <br/>
+ * 
+ * An attribution sets the value of a property. An attribution with a duration
+ * occurs during that time and sets the value when it ends. The attributions
+ * to the properties of a settings node also change the variables seen by the
+ * switch resolver. User interactions can be scripted with <i>select</i> and
+ * <i>schedule</i>.
+ * 
+ * @see NCLTemporalGraph
+ * @see NCLTimeline
+ */
+public class NCLSimulator {
+
+    private static final NCLEventType[] TYPES = NCLEventType.values();
+    
+    private static final byte SLEEPING = 0;
+    private static final byte OCCURRING = 1;
+    private static final byte PAUSED = 2;
+    
+    private static final byte ACTION = 0;
+    private static final byte TIMED = 1;
+    private static final byte SELECT = 2;
+    private static final byte END = 3;
+    
+    private NCLDoc doc;
+    private NCLTemporalGraph graph;
+    private int[] vertexEvents;
+    private int[] nextVertex;
+    
+    private HashMap<NCLTemporalGraph.Vertex, Integer> events;
+    private ArrayList<NCLNode> nodes;
+    private ArrayList<NCLInterface> interfaces;
+    private byte[] types;
+    private byte[] states;
+    private double[] origins;
+    private double[] mediaTimes;
+    private int[] generations;
+    private int[] firstVertex;
+    private int[] occurrences;
+    private Object[] propertyValues;
+    
+    private NCLSwitchResolver resolver;
+    private boolean resolverSet;
+    
+    private IdentityHashMap<Object, NCLConditionProgram> programs;
+    private IdentityHashMap<NCLLink, NCLLinkCondition> conditions;
+    private NCLEvaluationContext context;
+    
+    private IdentityHashMap<NCLNode, Double> durations;
+    private PriorityQueue<Occurrence> queue;
+    private long sequence;
+    private double now;
+    private boolean started;
+    private int steps;
+    private int maxSteps;
+    private NCLTimeline timeline;
+
+
+    /**
+     * Creates a simulator for a document.
+     * 
+     * @param doc
+     *          document to be simulated.
+     */
+    public NCLSimulator(NCLDoc doc) {
+        this(doc, NCLTemporalGraphBuilder.build(doc));
+    }
+
+
+    /**
+     * Creates a simulator for a document using a temporal graph already
+     * built. The same graph can be used by several simulations of the
+     * document.
+     * 
+     * @param doc
+     *          document to be simulated.
+     * @param graph
+     *          temporal graph of the document.
+     */
+    public NCLSimulator(NCLDoc doc, NCLTemporalGraph graph) {
+        if(doc == null || graph == null)
+            throw new NullPointerException("Null document or graph");
+        
+        this.doc = doc;
+        this.graph = graph;
+        
+        int count = graph.getVertexCount();
+        events = new HashMap<NCLTemporalGraph.Vertex, Integer>(count * 2);
+        nodes = new ArrayList<NCLNode>(count);
+        interfaces = new ArrayList<NCLInterface>(count);
+        int capacity = Math.max(count, 16);
+        types = new byte[capacity];
+        states = new byte[capacity];
+        origins = new double[capacity];
+        mediaTimes = new double[capacity];
+        generations = new int[capacity];
+        firstVertex = new int[capacity];
+        occurrences = new int[capacity];
+        propertyValues = new Object[capacity];
+        
+        // several vertices may lead to the same event through ports
+        vertexEvents = new int[count];
+        nextVertex = new int[count];
+        for(int v = count - 1; v >= 0; v--){
+            int ev = getEvent(graph.getNode(v), graph.getInterface(v), graph.getEventType(v));
+            vertexEvents[v] = ev;
+            if(ev >= 0){
+                nextVertex[v] = firstVertex[ev];
+                firstVertex[ev] = v;
+            }
+        }
+        
+        durations = new IdentityHashMap<NCLNode, Double>();
+        queue = new PriorityQueue<Occurrence>();
+        maxSteps = 1000000;
+        timeline = new NCLTimeline();
+        
+        programs = new IdentityHashMap<Object, NCLConditionProgram>();
+        conditions = new IdentityHashMap<NCLLink, NCLLinkCondition>();
+        context = new NCLEvaluationContext() {
+            @Override
+            public Object getAttribute(NCLBind bind, NCLEventType eventType, NCLAttributeType attributeType) {
+                return getEventAttribute(bind, eventType, attributeType);
+            }
+        };
+    }
+
+
+    /**
+     * Sets the duration of the presentation of a node. The duration set has
+     * precedence over the explicit duration of the node descriptor.
+     * 
+     * @param node
+     *          node whose duration will be set.
+     * @param seconds
+     *          duration in seconds or <i>Infinity</i> for a node presented
+     *          until stopped.
+     */
+    public void setDuration(NCLNode node, double seconds) {
+        if(node == null)
+            throw new NullPointerException("Null node");
+        if(Double.isNaN(seconds) || seconds < 0)
+            throw new IllegalArgumentException("Invalid duration: " + seconds);
+        
+        durations.put(node, seconds);
+    }
+
+
+    /**
+     * Sets the resolver that selects the components of the switches. If no
+     * resolver is set, one is created from the rule base of the document and
+     * the settings nodes of its body when the first switch is presented.
+     * 
+     * @param resolver
+     *          switch resolver of the document or <i>null</i> to present the
+     *          default component of the switches.
+     */
+    public void setSwitchResolver(NCLSwitchResolver resolver) {
+        this.resolver = resolver;
+        resolverSet = true;
+    }
+
+
+    /**
+     * Sets the maximum number of occurrences executed by the simulation. It
+     * stops simulations of documents whose links trigger each other without
+     * end.
+     * 
+     * @param maxSteps
+     *          maximum number of occurrences.
+     */
+    public void setMaxSteps(int maxSteps) {
+        if(maxSteps <= 0)
+            throw new IllegalArgumentException("Invalid maximum number of steps: " + maxSteps);
+        
+        this.maxSteps = maxSteps;
+    }
+
+
+    /**
+     * Schedules the selection of a node by the user. The selection happens
+     * only if the node is being presented at the given time.
+     * 
+     * @param time
+     *          time of the selection in seconds.
+     * @param node
+     *          node selected.
+     * @param interfac
+     *          interface selected or <i>null</i> for the whole node.
+     */
+    public void select(double time, NCLNode node, NCLInterface interfac) {
+        schedule(time, SELECT, NCLEventAction.START, node, interfac, NCLEventType.SELECTION);
+    }
+
+
+    /**
+     * Schedules an action over an event, as if it was executed by a link.
+     * 
+     * @param time
+     *          time of the action in seconds.
+     * @param action
+     *          action to be applied.
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole node.
+     * @param type
+     *          type of the event.
+     */
+    public void schedule(double time, NCLEventAction action, NCLNode node, NCLInterface interfac, NCLEventType type) {
+        schedule(time, ACTION, action, node, interfac, type);
+    }
+
+
+    /**
+     * Runs the simulation until no occurrence is pending.
+     * 
+     * @return
+     *          true if the simulation ended or false if it was interrupted
+     *          because the maximum number of steps was reached.
+     */
+    public boolean run() {
+        return run(Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * Runs the simulation until a given time. The simulation can be run
+     * again from that time.
+     * 
+     * @param until
+     *          time in seconds until which the occurrences are executed.
+     * @return
+     *          true if the time was reached or false if the simulation was
+     *          interrupted because the maximum number of steps was reached.
+     */
+    public boolean run(double until) {
+        if(!started){
+            started = true;
+            if(doc.getBody() != null){
+                int body = getEvent(doc.getBody(), null, NCLEventType.PRESENTATION);
+                enqueue(0, ACTION, body, NCLEventAction.START, -1);
+            }
+        }
+        
+        while(!queue.isEmpty() && queue.peek().time <= until){
+            Occurrence o = queue.peek();
+            if(o.kind == TIMED && generations[o.owner] != o.generation){
+                queue.poll();
+                continue;
+            }
+            
+            if(steps >= maxSteps)
+                return false;
+            steps++;
+            
+            queue.poll();
+            now = o.time;
+            
+            switch(o.kind){
+                case ACTION:
+                case TIMED:
+                    apply(o.event, o.action, o.value, o.duration);
+                    break;
+                case SELECT:
+                    int pres = getEvent(nodes.get(o.event), null, NCLEventType.PRESENTATION);
+                    if(states[pres] == OCCURRING){
+                        transition(o.event, NCLEventTransition.STARTS);
+                        transition(o.event, NCLEventTransition.STOPS);
+                    }
+                    break;
+                case END:
+                    endComposite(o.event);
+                    break;
+            }
+        }
+        
+        if(until != Double.POSITIVE_INFINITY && until > now)
+            now = until;
+        
+        return true;
+    }
+
+
+    /**
+     * Returns the current time of the simulation.
+     * 
+     * @return
+     *          time in seconds.
+     */
+    public double getTime() {
+        return now;
+    }
+
+
+    /**
+     * Returns the timeline recorded so far.
+     * 
+     * @return
+     *          timeline of the simulation.
+     */
+    public NCLTimeline getTimeline() {
+        return timeline;
+    }
+
+
+    /**
+     * Returns the temporal graph executed by the simulation.
+     * 
+     * @return
+     *          temporal graph of the document.
+     */
+    public NCLTemporalGraph getGraph() {
+        return graph;
+    }
+
+
+    /**
+     * Checks if an event is occurring in the current time of the simulation.
+     * 
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole node.
+     * @param type
+     *          type of the event.
+     * @return
+     *          true if the event is occurring.
+     */
+    public boolean isOccurring(NCLNode node, NCLInterface interfac, NCLEventType type) {
+        int ev = getEvent(node, interfac, type);
+        return ev >= 0 && states[ev] == OCCURRING;
+    }
+
+
+    /**
+     * Returns the value of a property in the current time of the simulation.
+     * 
+     * @param node
+     *          node of the property.
+     * @param property
+     *          property or port that maps a property.
+     * @return
+     *          value set by the last attribution to the property, as given
+     *          by the link, or its initial value if no attribution happened.
+     */
+    public Object getPropertyValue(NCLNode node, NCLInterface property) {
+        int ev = getEvent(node, property, NCLEventType.ATTRIBUTION);
+        if(ev < 0)
+            return null;
+        
+        if(propertyValues[ev] != null)
+            return propertyValues[ev];
+        
+        NCLInterface interfac = interfaces.get(ev);
+        return interfac instanceof NCLProperty ? ((NCLProperty) interfac).getValue() : null;
+    }
+
+
+    private Object getEventAttribute(NCLBind bind, NCLEventType eventType, NCLAttributeType attributeType) {
+        if(attributeType == NCLAttributeType.NODE_PROPERTY)
+            return getPropertyValue(bind.getComponent(), bind.getInterface());
+        
+        int ev = getEvent(bind.getComponent(), bind.getInterface(), eventType == null ? NCLEventType.PRESENTATION : eventType);
+        if(ev < 0)
+            return null;
+        
+        switch(attributeType){
+            case STATE:
+                if(states[ev] == OCCURRING)
+                    return NCLDefaultValueAssessment.OCCURRING;
+                else if(states[ev] == PAUSED)
+                    return NCLDefaultValueAssessment.PAUSED;
+                return NCLDefaultValueAssessment.SLEEPING;
+            case OCCURRENCES:
+                return occurrences[ev];
+            case REPETITIONS:
+                return 0;
+            default:
+                return null;
+        }
+    }
+
+
+    private void schedule(double time, byte kind, NCLEventAction action, NCLNode node, NCLInterface interfac, NCLEventType type) {
+        if(action == null || node == null || type == null)
+            throw new NullPointerException("Null action, node or event type");
+        if(Double.isNaN(time) || time < now)
+            throw new IllegalArgumentException("Invalid time: " + time);
+        
+        int ev = getEvent(node, interfac, type);
+        if(ev < 0)
+            throw new IllegalArgumentException("Port without component");
+        
+        enqueue(time, kind, ev, action, -1);
+    }
+
+
+    private void enqueue(double time, byte kind, int event, NCLEventAction action, int owner) {
+        enqueue(time, kind, event, action, owner, null, 0);
+    }
+
+
+    private void enqueue(double time, byte kind, int event, NCLEventAction action, int owner, String value, double duration) {
+        Occurrence o = new Occurrence();
+        o.time = time;
+        o.sequence = sequence++;
+        o.kind = kind;
+        o.event = event;
+        o.action = action;
+        o.owner = owner;
+        o.value = value;
+        o.duration = duration;
+        if(owner >= 0)
+            o.generation = generations[owner];
+        queue.add(o);
+    }
+
+
+    private void apply(int ev, NCLEventAction action) {
+        apply(ev, action, null, 0);
+    }
+
+
+    private void apply(int ev, NCLEventAction action, String value, double duration) {
+        if(types[ev] != NCLEventType.PRESENTATION.ordinal()){
+            // selections and attributions without duration are instantaneous
+            if(action == NCLEventAction.START && states[ev] == SLEEPING){
+                if(duration > 0){
+                    states[ev] = OCCURRING;
+                    generations[ev]++;
+                    transition(ev, NCLEventTransition.STARTS);
+                    enqueue(now + duration, TIMED, ev, NCLEventAction.STOP, ev, value, 0);
+                }
+                else{
+                    if(value != null)
+                        setProperty(ev, value);
+                    transition(ev, NCLEventTransition.STARTS);
+                    transition(ev, NCLEventTransition.STOPS);
+                }
+            }
+            else if((action == NCLEventAction.STOP || action == NCLEventAction.ABORT) && states[ev] == OCCURRING){
+                states[ev] = SLEEPING;
+                generations[ev]++;
+                if(action == NCLEventAction.STOP && value != null)
+                    setProperty(ev, value);
+                transition(ev, action == NCLEventAction.STOP ? NCLEventTransition.STOPS : NCLEventTransition.ABORTS);
+            }
+            return;
+        }
+        
+        boolean whole = interfaces.get(ev) == null;
+        
+        switch(action){
+            case START:
+                if(states[ev] != SLEEPING)
+                    return;
+                
+                if(!whole){
+                    int node = getEvent(nodes.get(ev), null, NCLEventType.PRESENTATION);
+                    if(states[node] == SLEEPING)
+                        apply(node, NCLEventAction.START);
+                    if(states[ev] != SLEEPING)
+                        return;
+                }
+                
+                states[ev] = OCCURRING;
+                generations[ev]++;
+                transition(ev, NCLEventTransition.STARTS);
+                if(whole){
+                    origins[ev] = now;
+                    startContent(ev);
+                }
+                break;
+            case STOP:
+            case ABORT:
+                if(states[ev] == SLEEPING)
+                    return;
+                
+                states[ev] = SLEEPING;
+                generations[ev]++;
+                transition(ev, action == NCLEventAction.STOP ? NCLEventTransition.STOPS : NCLEventTransition.ABORTS);
+                if(whole){
+                    applyToChildren(ev, action, true);
+                    endParent(ev);
+                }
+                break;
+            case PAUSE:
+                if(states[ev] != OCCURRING)
+                    return;
+                
+                states[ev] = PAUSED;
+                generations[ev]++;
+                mediaTimes[ev] = now - origins[ev];
+                transition(ev, NCLEventTransition.PAUSES);
+                if(whole)
+                    applyToChildren(ev, action, false);
+                break;
+            case RESUME:
+                if(states[ev] != PAUSED)
+                    return;
+                
+                states[ev] = OCCURRING;
+                generations[ev]++;
+                origins[ev] = now - mediaTimes[ev];
+                transition(ev, NCLEventTransition.RESUMES);
+                if(whole){
+                    applyToChildren(ev, action, false);
+                    scheduleTimers(ev, mediaTimes[ev]);
+                }
+                break;
+        }
+    }
+
+
+    private void transition(int ev, NCLEventTransition transition) {
+        timeline.add(now, nodes.get(ev), interfaces.get(ev), TYPES[types[ev]], transition);
+        if(transition == NCLEventTransition.STOPS || transition == NCLEventTransition.ABORTS)
+            occurrences[ev]++;
+        
+        IdentityHashMap<NCLLink, Boolean> decided = null;
+
+        for(int v = firstVertex[ev]; v >= 0; v = nextVertex[v]){
+            for(int e = graph.getFirstEdge(v); e < graph.getLastEdge(v); e++){
+                if(graph.getTransition(e) != transition)
+                    continue;
+                
+                if((graph.getFlags(e) & NCLTemporalGraph.CONJUNCTIVE) != 0){
+                    // evaluated once per link, which has an edge per action
+                    NCLLink link = graph.getLink(e);
+                    if(decided == null)
+                        decided = new IdentityHashMap<NCLLink, Boolean>();
+                    Boolean fire = decided.get(link);
+                    if(fire == null){
+                        fire = evaluate(link, ev, transition);
+                        decided.put(link, fire);
+                    }
+                    if(!fire)
+                        continue;
+                }
+                
+                int target = vertexEvents[graph.getTarget(e)];
+                if(target < 0)
+                    continue;
+                
+                double delay = graph.getDelay(e);
+                if(Double.isNaN(delay))
+                    delay = 0;
+                enqueue(now + delay, ACTION, target, graph.getAction(e), -1, graph.getValue(e), graph.getDuration(e));
+            }
+        }
+    }
+
+
+    private boolean evaluate(NCLLink link, int ev, NCLEventTransition transition) {
+        NCLLinkCondition condition = conditions.get(link);
+        if(condition == null){
+            Object connector = link.getXconnector();
+            if(connector instanceof ExternalReferenceType)
+                connector = ((ExternalReferenceType) connector).getTarget();
+            
+            try{
+                NCLConditionProgram program = programs.get(connector);
+                if(program == null){
+                    program = NCLConditionProgram.compile((NCLCausalConnector) connector);
+                    programs.put(connector, program);
+                }
+                condition = program.bind(link);
+            }catch(XMLException ex){
+                return false;
+            }
+            conditions.put(link, condition);
+        }
+        
+        for(Object o : link.getBinds()){
+            NCLBind bind = (NCLBind) o;
+            if(!(bind.getRole() instanceof NCLSimpleCondition))
+                continue;
+            
+            NCLSimpleCondition simple = (NCLSimpleCondition) bind.getRole();
+            NCLEventType type = NCLTemporalGraphBuilder.getEventType(simple);
+            if(type == null || NCLTemporalGraphBuilder.getTransition(simple) != transition)
+                continue;
+            
+            if(getEvent(bind.getComponent(), bind.getInterface(), type) == ev &&
+                    condition.evaluate(bind, context))
+                return true;
+        }
+        
+        return false;
+    }
+
+
+    private void startContent(int ev) {
+        NCLNode node = nodes.get(ev);
+        
+        if(node instanceof NCLMedia)
+            scheduleTimers(ev, 0);
+        else if(node instanceof NCLCompositeNodeElement){
+            for(Object port : ((NCLCompositeNodeElement) node).getPorts()){
+                int child = getEvent(node, (NCLInterface) port, NCLEventType.PRESENTATION);
+                if(child >= 0)
+                    apply(child, NCLEventAction.START);
+            }
+        }
+        else if(node instanceof NCLSwitch){
+            Object child = getSelected((NCLSwitch) node);
+            if(child instanceof NCLNode)
+                apply(getEvent((NCLNode) child, null, NCLEventType.PRESENTATION), NCLEventAction.START);
+        }
+    }
+
+
+    private Object getSelected(NCLSwitch sw) {
+        NCLSwitchResolver aux = getResolver();
+        if(aux != null){
+            try{
+                return aux.getSelected(sw);
+            }catch(IllegalArgumentException ex){}
+        }
+        
+        return sw.getDefaultComponent();
+    }
+
+
+    private NCLSwitchResolver getResolver() {
+        if(resolverSet)
+            return resolver;
+        resolverSet = true;
+        
+        NCLHead head = doc.getHead();
+        if(head == null || head.getRuleBase() == null)
+            return null;
+        
+        try{
+            NCLRuleEngine engine = new NCLRuleEngine(head.getRuleBase());
+            resolver = new NCLSwitchResolver(engine, engine.newSettings(doc), doc);
+        }catch(XMLException ex){
+            resolver = null;
+        }
+        return resolver;
+    }
+
+
+    private void setProperty(int ev, String value) {
+        propertyValues[ev] = value;
+        
+        NCLNode node = nodes.get(ev);
+        NCLInterface interfac = interfaces.get(ev);
+        if(!(node instanceof NCLMedia) || !(interfac instanceof NCLProperty) ||
+                ((NCLMedia) node).getType() != NCLMimeType.APPLICATION_X_GINGA_SETTINGS)
+            return;
+        
+        // the properties of the settings nodes are the variables of the rules
+        NCLSwitchResolver aux = getResolver();
+        Object name = ((NCLProperty) interfac).getName();
+        if(aux == null || name == null)
+            return;
+        
+        if(name instanceof NCLVariable)
+            aux.set((NCLVariable) name, value);
+        else
+            aux.set(name.toString(), value);
+    }
+
+
+    private void scheduleTimers(int ev, double mediaTime) {
+        NCLNode node = nodes.get(ev);
+        if(!(node instanceof NCLMedia))
+            return;
+        
+        for(Object o : ((NCLMedia) node).getAreas()){
+            NCLArea area = (NCLArea) o;
+            TimeType b = area.getBegin();
+            TimeType e = area.getEnd();
+            if(b == null && e == null)
+                continue;
+            
+            double begin = b == null ? 0 : b.getTimeInSeconds();
+            double end = e == null ? Double.POSITIVE_INFINITY : e.getTimeInSeconds();
+            int anchor = getEvent(node, area, NCLEventType.PRESENTATION);
+            
+            if(states[anchor] == SLEEPING && begin >= mediaTime)
+                enqueue(now + begin - mediaTime, TIMED, anchor, NCLEventAction.START, ev);
+            if(end != Double.POSITIVE_INFINITY && end >= mediaTime && (states[anchor] != SLEEPING || begin >= mediaTime))
+                enqueue(now + end - mediaTime, TIMED, anchor, NCLEventAction.STOP, ev);
+        }
+        
+        double duration = getDuration(node);
+        if(duration != Double.POSITIVE_INFINITY && duration >= mediaTime)
+            enqueue(now + duration - mediaTime, TIMED, ev, NCLEventAction.STOP, ev);
+    }
+
+
+    private double getDuration(NCLNode node) {
+        Double duration = durations.get(node);
+        if(duration != null)
+            return duration;
+        
+        Object descriptor = ((NCLMedia) node).getDescriptor();
+        if(descriptor instanceof NCLDescriptor){
+            TimeType dur = ((NCLDescriptor) descriptor).getExplicitDur();
+            if(dur != null)
+                return dur.getTimeInSeconds();
+        }
+        
+        return Double.POSITIVE_INFINITY;
+    }
+
+
+    private void applyToChildren(int ev, NCLEventAction action, boolean all) {
+        NCLNode node = nodes.get(ev);
+        Iterable children;
+        
+        if(node instanceof NCLMedia){
+            for(Object area : ((NCLMedia) node).getAreas()){
+                int child = getEvent(node, (NCLInterface) area, NCLEventType.PRESENTATION);
+                if(all || states[child] != SLEEPING)
+                    apply(child, action);
+            }
+            return;
+        }
+        else if(node instanceof NCLCompositeNodeElement)
+            children = ((NCLCompositeNodeElement) node).getNodes();
+        else if(node instanceof NCLSwitch)
+            children = ((NCLSwitch) node).getNodes();
+        else
+            return;
+        
+        for(Object o : children){
+            int child = getEvent((NCLNode) o, null, NCLEventType.PRESENTATION);
+            if(all || states[child] != SLEEPING)
+                apply(child, action);
+        }
+    }
+
+
+    private void endParent(int ev) {
+        Object parent = nodes.get(ev).getParent();
+        if(!(parent instanceof NCLCompositeNodeElement || parent instanceof NCLSwitch))
+            return;
+        
+        // checked after the actions already scheduled for this time, which
+        // may start other children
+        int pev = getEvent((NCLNode) parent, null, NCLEventType.PRESENTATION);
+        if(states[pev] == OCCURRING)
+            enqueue(now, END, pev, NCLEventAction.STOP, -1);
+    }
+
+
+    private void endComposite(int pev) {
+        if(states[pev] != OCCURRING)
+            return;
+        
+        Object parent = nodes.get(pev);
+        Iterable children = parent instanceof NCLSwitch ?
+                ((NCLSwitch) parent).getNodes() : ((NCLCompositeNodeElement) parent).getNodes();
+        for(Object o : children){
+            int child = getEvent((NCLNode) o, null, NCLEventType.PRESENTATION);
+            if(states[child] != SLEEPING)
+                return;
+        }
+        
+        apply(pev, NCLEventAction.STOP);
+    }
+
+
+    private int getEvent(NCLNode node, NCLInterface interfac, NCLEventType type) {
+        // the events of ports are the events of the interfaces they map
+        while(interfac instanceof NCLPort){
+            NCLPort port = (NCLPort) interfac;
+            node = port.getComponent();
+            interfac = port.getInterface();
+        }
+        if(node == null)
+            return -1;
+        
+        NCLTemporalGraph.Vertex key = new NCLTemporalGraph.Vertex(node, interfac, (byte) type.ordinal());
+        Integer ev = events.get(key);
+        if(ev != null)
+            return ev;
+        
+        int index = nodes.size();
+        if(index == types.length){
+            int length = index * 2;
+            types = Arrays.copyOf(types, length);
+            states = Arrays.copyOf(states, length);
+            origins = Arrays.copyOf(origins, length);
+            mediaTimes = Arrays.copyOf(mediaTimes, length);
+            generations = Arrays.copyOf(generations, length);
+            firstVertex = Arrays.copyOf(firstVertex, length);
+            occurrences = Arrays.copyOf(occurrences, length);
+            propertyValues = Arrays.copyOf(propertyValues, length);
+        }
+        
+        nodes.add(node);
+        interfaces.add(interfac);
+        types[index] = (byte) type.ordinal();
+        firstVertex[index] = -1;
+        events.put(key, index);
+        return index;
+    }
+
+
+    /**
+     * Action scheduled for a time. Timed occurrences belong to the
+     * presentation of a node and are discarded if the presentation changed
+     * state after they were scheduled.
+     */
+    private static class Occurrence implements Comparable<Occurrence> {
+
+        private double time;
+        private long sequence;
+        private byte kind;
+        private int event;
+        private NCLEventAction action;
+        private int owner;
+        private int generation;
+        private String value;
+        private double duration;
+
+
+        @Override
+        public int compareTo(Occurrence other) {
+            if(time != other.time)
+                return time < other.time ? -1 : 1;
+            
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,640 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import java.util.Arrays;
+import java.util.HashMap;
+
+
+/**
+ * Temporal graph of an NCL document. The vertices of the graph are the events
+ * of the document, identified by a node, an interface of the node and an event
+ * type. An edge goes from the event of a link condition to the event of a link
+ * action and is labelled with the transition of the condition, the action
+ * applied, the delay between them and the link that defines it. The edges of
+ * attributions also keep the value and the duration of the attribution.
+ * 
+ * <br/>
+ * 
+ * The vertices and edges are identified by integers. The edges leaving a
+ * vertex are stored contiguously, from <i>getFirstEdge(v)</i> (inclusive) to
+ * <i>getLastEdge(v)</i> (exclusive), so the graph is kept in primitive arrays.
+ * The graph is immutable and is created by <i>NCLTemporalGraphBuilder</i>.
+ * 
+ * @see NCLTemporalGraphBuilder
+ */
+public class NCLTemporalGraph {
+
+    /**
+     * Edge flag indicating the condition is part of a conjunction, so the
+     * transition alone may not trigger the action.
+     */
+    public static final int CONJUNCTIVE = 1;
+    
+    /**
+     * Edge flag indicating the action is part of a sequence, so the action
+     * is applied after the actions that come before it in the sequence.
+     */
+    public static final int SEQUENTIAL = 2;
+    
+    private static final NCLEventType[] TYPES = NCLEventType.values();
+    private static final NCLEventTransition[] TRANSITIONS = NCLEventTransition.values();
+    private static final NCLEventAction[] ACTIONS = NCLEventAction.values();
+    
+    private NCLNode[] nodes;
+    private NCLInterface[] interfaces;
+    private byte[] types;
+    private HashMap<Vertex, Integer> index;
+    
+    private int[] offsets;
+    private int[] targets;
+    private byte[] transitions;
+    private byte[] actions;
+    private double[] delays;
+    private byte[] flags;
+    private String[] values;
+    private double[] durations;
+    private int[] edgeLinks;
+    private NCLLink[] links;
+
+
+    NCLTemporalGraph(NCLNode[] nodes, NCLInterface[] interfaces, byte[] types,
+            int[] offsets, int[] targets, byte[] transitions, byte[] actions,
+            double[] delays, byte[] flags, String[] values, double[] durations,
+            int[] edgeLinks, NCLLink[] links) {
+        this.nodes = nodes;
+        this.interfaces = interfaces;
+        this.types = types;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.transitions = transitions;
+        this.actions = actions;
+        this.delays = delays;
+        this.flags = flags;
+        this.values = values;
+        this.durations = durations;
+        this.edgeLinks = edgeLinks;
+        this.links = links;
+        
+        index = new HashMap<Vertex, Integer>(nodes.length * 2);
+        for(int v = 0; v < nodes.length; v++)
+            index.put(new Vertex(nodes[v], interfaces[v], types[v]), v);
+    }
+
+
+    /**
+     * Returns the number of vertices of the graph.
+     * 
+     * @return
+     *          number of events.
+     */
+    public int getVertexCount() {
+        return nodes.length;
+    }
+
+
+    /**
+     * Returns the number of edges of the graph.
+     * 
+     * @return
+     *          number of edges.
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+
+    /**
+     * Returns the vertex that represents an event.
+     * 
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> if the event refers to
+     *          the whole node.
+     * @param type
+     *          type of the event.
+     * @return
+     *          vertex of the event or <i>-1</i> if no link refers to it.
+     */
+    public int getVertex(NCLNode node, NCLInterface interfac, NCLEventType type) {
+        if(node == null || type == null)
+            return -1;
+        
+        Integer v = index.get(new Vertex(node, interfac, (byte) type.ordinal()));
+        return v == null ? -1 : v;
+    }
+
+
+    /**
+     * Returns the node of an event.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          node of the event.
+     */
+    public NCLNode getNode(int vertex) {
+        return nodes[vertex];
+    }
+
+
+    /**
+     * Returns the interface of an event.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          interface of the event or <i>null</i> if the event refers to
+     *          the whole node.
+     */
+    public NCLInterface getInterface(int vertex) {
+        return interfaces[vertex];
+    }
+
+
+    /**
+     * Returns the type of an event.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          type of the event.
+     */
+    public NCLEventType getEventType(int vertex) {
+        return TYPES[types[vertex]];
+    }
+
+
+    /**
+     * Returns the first edge leaving a vertex.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          first edge leaving the vertex.
+     */
+    public int getFirstEdge(int vertex) {
+        return offsets[vertex];
+    }
+
+
+    /**
+     * Returns the edge after the last edge leaving a vertex.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          edge after the last edge leaving the vertex.
+     */
+    public int getLastEdge(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+
+    /**
+     * Returns the number of edges leaving a vertex.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          number of edges leaving the vertex.
+     */
+    public int getOutDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+
+    /**
+     * Returns the vertex an edge arrives at, that is, the event of the action.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          vertex of the action event.
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+
+    /**
+     * Returns the transition of the condition event that triggers an edge.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          transition of the condition.
+     */
+    public NCLEventTransition getTransition(int edge) {
+        return TRANSITIONS[transitions[edge]];
+    }
+
+
+    /**
+     * Returns the action applied to the target event of an edge.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          action applied.
+     */
+    public NCLEventAction getAction(int edge) {
+        return ACTIONS[actions[edge]];
+    }
+
+
+    /**
+     * Returns the delay, in seconds, between the transition of the condition
+     * and the action of an edge. The delay adds the delays of the condition,
+     * the action and the compound elements that contain them.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          delay in seconds or <i>NaN</i> if the delay depends on a
+     *          parameter without a numeric value.
+     */
+    public double getDelay(int edge) {
+        return delays[edge];
+    }
+
+
+    /**
+     * Returns the flags of an edge.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          combination of the flags <i>CONJUNCTIVE</i> and
+     *          <i>SEQUENTIAL</i>.
+     */
+    public int getFlags(int edge) {
+        return flags[edge];
+    }
+
+
+    /**
+     * Returns the value set by the action of an edge, if the action is an
+     * attribution. A value given by a parameter is replaced by the value of
+     * the parameter in the link.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          value of the attribution or <i>null</i> if the action does not
+     *          define a value or its parameter has no value.
+     */
+    public String getValue(int edge) {
+        return values[edge];
+    }
+
+
+    /**
+     * Returns the duration, in seconds, of the attribution of an edge.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          duration in seconds, zero if the action does not define a
+     *          duration or <i>NaN</i> if the duration depends on a parameter
+     *          without a numeric value.
+     */
+    public double getDuration(int edge) {
+        return durations[edge];
+    }
+
+
+    /**
+     * Returns the link that defines an edge.
+     * 
+     * @param edge
+     *          edge of the graph.
+     * @return
+     *          link element.
+     */
+    public NCLLink getLink(int edge) {
+        return links[edgeLinks[edge]];
+    }
+
+
+    /**
+     * Returns the vertices that can be triggered, directly or not, from a
+     * vertex. From the vertex itself every edge is followed. From the other
+     * vertices only the edges triggered by the transitions the actions that
+     * reached them produce are followed, so an event stopped by a link does
+     * not trigger the links waiting for it to start.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          array with the vertices reachable from the vertex, in the order
+     *          they are reached. The vertex itself is included only if it is
+     *          part of a cycle.
+     */
+    public int[] getReachable(int vertex) {
+        return getReachable(vertex, null);
+    }
+
+
+    /**
+     * Returns the vertices that can be triggered, directly or not, by a
+     * transition of a vertex. Only the edges triggered by the transitions the
+     * actions produce are followed.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @param transition
+     *          transition of the event or <i>null</i> to follow every edge
+     *          leaving the vertex.
+     * @return
+     *          array with the vertices reachable from the vertex, in the order
+     *          they are reached. The vertex itself is included only if it is
+     *          part of a cycle.
+     */
+    public int[] getReachable(int vertex, NCLEventTransition transition) {
+        // the states are pairs of vertex and transition
+        boolean[] visited = new boolean[nodes.length * TRANSITIONS.length];
+        boolean[] reached = new boolean[nodes.length];
+        int[] queue = new int[visited.length];
+        int[] result = new int[nodes.length];
+        int head = 0, tail = 0, count = 0;
+        
+        for(int t = 0; t < TRANSITIONS.length; t++){
+            if(transition == null || transition.ordinal() == t){
+                int s = vertex * TRANSITIONS.length + t;
+                visited[s] = true;
+                queue[tail++] = s;
+            }
+        }
+        
+        while(head < tail){
+            int s = queue[head++];
+            int v = s / TRANSITIONS.length;
+            int transit = s % TRANSITIONS.length;
+            
+            for(int e = offsets[v]; e < offsets[v + 1]; e++){
+                if(transitions[e] != transit)
+                    continue;
+                
+                int t = targets[e];
+                if(!reached[t]){
+                    reached[t] = true;
+                    result[count++] = t;
+                }
+                
+                int produced = getProduced(e);
+                for(int p = 0; p < TRANSITIONS.length; p++){
+                    int ts = t * TRANSITIONS.length + p;
+                    if((produced & (1 << p)) != 0 && !visited[ts]){
+                        visited[ts] = true;
+                        queue[tail++] = ts;
+                    }
+                }
+            }
+        }
+        
+        return Arrays.copyOf(result, count);
+    }
+
+
+    /**
+     * Returns the earliest time each vertex can be triggered, in seconds,
+     * after a transition of a vertex. From the vertex itself every edge is
+     * followed. From the other vertices only the edges triggered by the
+     * transitions the actions produce are followed. Only the edges whose
+     * delays are known are followed and the flags of the edges are not taken
+     * into account.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @return
+     *          array indexed by vertex with the earliest time or
+     *          <i>Infinity</i> if the vertex can not be reached. The time of
+     *          the vertex itself is zero.
+     */
+    public double[] getEarliestTimes(int vertex) {
+        return getEarliestTimes(vertex, null);
+    }
+
+
+    /**
+     * Returns the earliest time each vertex can be triggered, in seconds,
+     * after a transition of a vertex. Only the edges triggered by the
+     * transitions the actions produce and whose delays are known are
+     * followed. The flags of the edges are not taken into account.
+     * 
+     * @param vertex
+     *          vertex of the event.
+     * @param transition
+     *          transition of the event or <i>null</i> to follow every edge
+     *          leaving the vertex.
+     * @return
+     *          array indexed by vertex with the earliest time or
+     *          <i>Infinity</i> if the vertex can not be reached. The time of
+     *          the vertex itself is zero.
+     */
+    public double[] getEarliestTimes(int vertex, NCLEventTransition transition) {
+        // the states are pairs of vertex and transition
+        double[] states = new double[nodes.length * TRANSITIONS.length];
+        Arrays.fill(states, Double.POSITIVE_INFINITY);
+        
+        // binary heap of states ordered by time, with lazy deletion: each
+        // edge adds at most two entries
+        int[] heap = new int[2 * targets.length + TRANSITIONS.length];
+        double[] keys = new double[heap.length];
+        int size = 0;
+        for(int t = 0; t < TRANSITIONS.length; t++){
+            if(transition == null || transition.ordinal() == t){
+                int s = vertex * TRANSITIONS.length + t;
+                states[s] = 0;
+                heap[size] = s;
+                keys[size] = 0;
+                siftUp(heap, keys, size++);
+            }
+        }
+        
+        while(size > 0){
+            int s = heap[0];
+            double time = keys[0];
+            size--;
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            siftDown(heap, keys, size);
+            
+            if(time > states[s])
+                continue;
+            
+            int v = s / TRANSITIONS.length;
+            int transit = s % TRANSITIONS.length;
+            for(int e = offsets[v]; e < offsets[v + 1]; e++){
+                double delay = delays[e];
+                if(transitions[e] != transit || Double.isNaN(delay))
+                    continue;
+                
+                double aux = time + delay;
+                int produced = getProduced(e);
+                for(int p = 0; p < TRANSITIONS.length; p++){
+                    int ts = targets[e] * TRANSITIONS.length + p;
+                    if((produced & (1 << p)) != 0 && aux < states[ts]){
+                        states[ts] = aux;
+                        heap[size] = ts;
+                        keys[size] = aux;
+                        siftUp(heap, keys, size++);
+                    }
+                }
+            }
+        }
+        
+        double[] times = new double[nodes.length];
+        Arrays.fill(times, Double.POSITIVE_INFINITY);
+        for(int s = 0; s < states.length; s++){
+            int v = s / TRANSITIONS.length;
+            if(states[s] < times[v])
+                times[v] = states[s];
+        }
+        times[vertex] = 0;
+        
+        return times;
+    }
+
+
+    /**
+     * Returns the transitions the action of an edge produces in its target,
+     * as a mask with a bit per transition ordinal. Starting a selection or an
+     * attribution is instantaneous, so it also stops the event.
+     */
+    private int getProduced(int edge) {
+        switch(ACTIONS[actions[edge]]){
+            case START:
+                int mask = 1 << NCLEventTransition.STARTS.ordinal();
+                if(types[targets[edge]] != NCLEventType.PRESENTATION.ordinal())
+                    mask |= 1 << NCLEventTransition.STOPS.ordinal();
+                return mask;
+            case STOP:
+                return 1 << NCLEventTransition.STOPS.ordinal();
+            case ABORT:
+                return 1 << NCLEventTransition.ABORTS.ordinal();
+            case PAUSE:
+                return 1 << NCLEventTransition.PAUSES.ordinal();
+            case RESUME:
+                return 1 << NCLEventTransition.RESUMES.ordinal();
+            default:
+                return 0;
+        }
+    }
+
+
+    private static void siftUp(int[] heap, double[] keys, int i) {
+        while(i > 0){
+            int p = (i - 1) / 2;
+            if(keys[p] <= keys[i])
+                return;
+            swap(heap, keys, i, p);
+            i = p;
+        }
+    }
+
+
+    private static void siftDown(int[] heap, double[] keys, int size) {
+        int i = 0;
+        while(true){
+            int c = 2 * i + 1;
+            if(c >= size)
+                return;
+            if(c + 1 < size && keys[c + 1] < keys[c])
+                c++;
+            if(keys[i] <= keys[c])
+                return;
+            swap(heap, keys, i, c);
+            i = c;
+        }
+    }
+
+
+    private static void swap(int[] heap, double[] keys, int i, int j) {
+        int v = heap[i];
+        heap[i] = heap[j];
+        heap[j] = v;
+        double k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+    }
+
+
+    /**
+     * Key of a vertex. Nodes and interfaces are compared by identity.
+     */
+    static class Vertex {
+
+        private NCLNode node;
+        private NCLInterface interfac;
+        private byte type;
+
+
+        Vertex(NCLNode node, NCLInterface interfac, byte type) {
+            this.node = node;
+            this.interfac = interfac;
+            this.type = type;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Vertex))
+                return false;
+            
+            Vertex other = (Vertex) o;
+            return node == other.node && interfac == other.interfac && type == other.type;
+        }
+
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(node);
+            hash = 31 * hash + System.identityHashCode(interfac);
+            return 31 * hash + type;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLConnectorParam;
+import br.uff.midiacom.ana.connector.NCLSimpleAction;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.link.NCLParam;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLActionOperator;
+import br.uff.midiacom.ana.util.enums.NCLConditionOperator;
+import br.uff.midiacom.ana.util.enums.NCLDefaultActionRole;
+import br.uff.midiacom.ana.util.enums.NCLDefaultConditionRole;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import br.uff.midiacom.ana.util.tree.NCLVisitResult;
+import br.uff.midiacom.ana.util.tree.NCLVisitorAdapter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+
+/**
+ * This class compiles the links of an NCL document into a temporal graph.
+ * 
+ * <br/>
+ * 
+ * For each link, every bind to a simple condition of the connector is
+ * combined with every bind to a simple action of the connector. The event of
+ * the condition and the event of the action are the vertices of the edge. The
+ * event type and the transition or action of the roles that do not define
+ * them are the ones implied by the default role names. Binds to roles whose
+ * event can not be determined and binds to attribute assessments are ignored.
+ * 
+ * @see NCLTemporalGraph
+ */
+public class NCLTemporalGraphBuilder {
+
+    private HashMap<NCLTemporalGraph.Vertex, Integer> vertices;
+    private ArrayList<NCLNode> nodes;
+    private ArrayList<NCLInterface> interfaces;
+    private byte[] types;
+    
+    private int edgeCount;
+    private int[] sources;
+    private int[] targets;
+    private byte[] transitions;
+    private byte[] actions;
+    private double[] delays;
+    private byte[] flags;
+    private String[] values;
+    private double[] durations;
+    private int[] edgeLinks;
+    private ArrayList<NCLLink> links;
+
+
+    /**
+     * Creates an empty builder.
+     */
+    public NCLTemporalGraphBuilder() {
+        vertices = new HashMap<NCLTemporalGraph.Vertex, Integer>();
+        nodes = new ArrayList<NCLNode>();
+        interfaces = new ArrayList<NCLInterface>();
+        types = new byte[16];
+        
+        sources = new int[16];
+        targets = new int[16];
+        transitions = new byte[16];
+        actions = new byte[16];
+        delays = new double[16];
+        flags = new byte[16];
+        values = new String[16];
+        durations = new double[16];
+        edgeLinks = new int[16];
+        links = new ArrayList<NCLLink>();
+    }
+
+
+    /**
+     * Builds the temporal graph of the links inside an element.
+     * 
+     * @param root
+     *          document, body or composite node whose links will be compiled.
+     * @return
+     *          temporal graph of the links.
+     */
+    public static NCLTemporalGraph build(NCLElement root) {
+        NCLTemporalGraphBuilder builder = new NCLTemporalGraphBuilder();
+        builder.addLinks(root);
+        return builder.build();
+    }
+
+
+    /**
+     * Adds the links inside an element to the graph.
+     * 
+     * @param root
+     *          document, body or composite node whose links will be added.
+     */
+    public void addLinks(NCLElement root) {
+        NCLTreeWalker.walk(root, new NCLVisitorAdapter() {
+            @Override
+            public NCLVisitResult visitHead(NCLHead head) {
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+
+            @Override
+            public NCLVisitResult visitLink(NCLLink link) {
+                addLink(link);
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+        });
+    }
+
+
+    /**
+     * Adds the edges defined by a link to the graph.
+     * 
+     * @param link
+     *          link element.
+     */
+    public void addLink(NCLLink link) {
+        List<NCLBind> conditions = new ArrayList<NCLBind>();
+        List<NCLBind> actionBinds = new ArrayList<NCLBind>();
+        
+        for(Object o : link.getBinds()){
+            NCLBind bind = (NCLBind) o;
+            if(bind.getComponent() == null)
+                continue;
+            
+            Object role = bind.getRole();
+            if(role instanceof NCLSimpleCondition)
+                conditions.add(bind);
+            else if(role instanceof NCLSimpleAction)
+                actionBinds.add(bind);
+        }
+        
+        if(conditions.isEmpty() || actionBinds.isEmpty())
+            return;
+        
+        int linkIndex = links.size();
+        boolean used = false;
+        
+        for(NCLBind cbind : conditions){
+            NCLSimpleCondition condition = (NCLSimpleCondition) cbind.getRole();
+            NCLEventType ctype = getEventType(condition);
+            NCLEventTransition transition = getTransition(condition);
+            if(ctype == null || transition == null)
+                continue;
+            
+            int source = getVertex(cbind.getComponent(), cbind.getInterface(), ctype);
+            double cdelay = getDelay(condition.getDelay(), link, cbind);
+            int cflags = 0;
+            
+            for(NCLElement e = (NCLElement) condition.getParent(); e instanceof NCLCompoundCondition; e = (NCLElement) e.getParent()){
+                NCLCompoundCondition compound = (NCLCompoundCondition) e;
+                cdelay += getDelay(compound.getDelay(), link, cbind);
+                if(compound.getOperator() == NCLConditionOperator.AND)
+                    cflags |= NCLTemporalGraph.CONJUNCTIVE;
+            }
+            
+            for(NCLBind abind : actionBinds){
+                NCLSimpleAction action = (NCLSimpleAction) abind.getRole();
+                NCLEventType atype = getEventType(action);
+                NCLEventAction actionType = getActionType(action);
+                if(atype == null || actionType == null)
+                    continue;
+                
+                int target = getVertex(abind.getComponent(), abind.getInterface(), atype);
+                double delay = cdelay + getDelay(action.getDelay(), link, abind);
+                int eflags = cflags;
+                
+                for(NCLElement e = (NCLElement) action.getParent(); e instanceof NCLCompoundAction; e = (NCLElement) e.getParent()){
+                    NCLCompoundAction compound = (NCLCompoundAction) e;
+                    delay += getDelay(compound.getDelay(), link, abind);
+                    if(compound.getOperator() == NCLActionOperator.SEQ)
+                        eflags |= NCLTemporalGraph.SEQUENTIAL;
+                }
+                
+                String value = getValue(action.getValue(), link, abind);
+                double duration = getDelay(action.getDuration(), link, abind);
+                addEdge(source, target, transition, actionType, delay, eflags, value, duration, linkIndex);
+                used = true;
+            }
+        }
+        
+        if(used)
+            links.add(link);
+    }
+
+
+    /**
+     * Creates the temporal graph with the links added so far. The edges
+     * leaving each vertex keep the order the links were added.
+     * 
+     * @return
+     *          temporal graph.
+     */
+    public NCLTemporalGraph build() {
+        int count = nodes.size();
+        
+        int[] offsets = new int[count + 1];
+        for(int e = 0; e < edgeCount; e++)
+            offsets[sources[e] + 1]++;
+        for(int v = 0; v < count; v++)
+            offsets[v + 1] += offsets[v];
+        
+        int[] next = Arrays.copyOf(offsets, count);
+        int[] gtargets = new int[edgeCount];
+        byte[] gtransitions = new byte[edgeCount];
+        byte[] gactions = new byte[edgeCount];
+        double[] gdelays = new double[edgeCount];
+        byte[] gflags = new byte[edgeCount];
+        String[] gvalues = new String[edgeCount];
+        double[] gdurations = new double[edgeCount];
+        int[] glinks = new int[edgeCount];
+        
+        for(int e = 0; e < edgeCount; e++){
+            int i = next[sources[e]]++;
+            gtargets[i] = targets[e];
+            gtransitions[i] = transitions[e];
+            gactions[i] = actions[e];
+            gdelays[i] = delays[e];
+            gflags[i] = flags[e];
+            gvalues[i] = values[e];
+            gdurations[i] = durations[e];
+            glinks[i] = edgeLinks[e];
+        }
+        
+        return new NCLTemporalGraph(nodes.toArray(new NCLNode[count]),
+                interfaces.toArray(new NCLInterface[count]),
+                Arrays.copyOf(types, count), offsets, gtargets, gtransitions,
+                gactions, gdelays, gflags, gvalues, gdurations, glinks,
+                links.toArray(new NCLLink[links.size()]));
+    }
+
+
+    private int getVertex(NCLNode node, NCLInterface interfac, NCLEventType type) {
+        NCLTemporalGraph.Vertex key = new NCLTemporalGraph.Vertex(node, interfac, (byte) type.ordinal());
+        Integer v = vertices.get(key);
+        if(v != null)
+            return v;
+        
+        int index = nodes.size();
+        if(index == types.length)
+            types = Arrays.copyOf(types, index * 2);
+        
+        nodes.add(node);
+        interfaces.add(interfac);
+        types[index] = (byte) type.ordinal();
+        vertices.put(key, index);
+        return index;
+    }
+
+
+    private void addEdge(int source, int target, NCLEventTransition transition,
+            NCLEventAction action, double delay, int flag, String value,
+            double duration, int link) {
+        if(edgeCount == sources.length){
+            int size = edgeCount * 2;
+            sources = Arrays.copyOf(sources, size);
+            targets = Arrays.copyOf(targets, size);
+            transitions = Arrays.copyOf(transitions, size);
+            actions = Arrays.copyOf(actions, size);
+            delays = Arrays.copyOf(delays, size);
+            flags = Arrays.copyOf(flags, size);
+            values = Arrays.copyOf(values, size);
+            durations = Arrays.copyOf(durations, size);
+            edgeLinks = Arrays.copyOf(edgeLinks, size);
+        }
+        
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        transitions[edgeCount] = (byte) transition.ordinal();
+        actions[edgeCount] = (byte) action.ordinal();
+        delays[edgeCount] = delay;
+        flags[edgeCount] = (byte) flag;
+        values[edgeCount] = value;
+        durations[edgeCount] = duration;
+        edgeLinks[edgeCount] = link;
+        edgeCount++;
+    }
+
+
+    private double getDelay(Object delay, NCLLink link, NCLBind bind) {
+        if(delay == null)
+            return 0;
+        if(delay instanceof Number)
+            return ((Number) delay).doubleValue();
+        if(!(delay instanceof NCLConnectorParam))
+            return Double.NaN;
+        
+        // the bind parameters have precedence over the link parameters
+        Object value = getParamValue(bind.getBindParams(), delay);
+        if(value == null)
+            value = getParamValue(link.getLinkParams(), delay);
+        
+        if(value instanceof Number)
+            return ((Number) value).doubleValue();
+        
+        return Double.NaN;
+    }
+
+
+    private String getValue(Object value, NCLLink link, NCLBind bind) {
+        if(!(value instanceof NCLConnectorParam))
+            return value == null ? null : value.toString();
+        
+        // the bind parameters have precedence over the link parameters
+        Object aux = getParamValue(bind.getBindParams(), value);
+        if(aux == null)
+            aux = getParamValue(link.getLinkParams(), value);
+        
+        return aux == null ? null : aux.toString();
+    }
+
+
+    private Object getParamValue(Iterable params, Object name) {
+        for(Object o : params){
+            NCLParam param = (NCLParam) o;
+            if(param.getName() == name)
+                return param.getValue();
+        }
+        
+        return null;
+    }
+
+
+    static NCLEventType getEventType(NCLSimpleCondition condition) {
+        if(condition.getEventType() != null)
+            return condition.getEventType();
+        
+        Object role = condition.getRole();
+        if(!(role instanceof NCLDefaultConditionRole))
+            return null;
+        
+        switch((NCLDefaultConditionRole) role){
+            case ONSELECTION:
+                return NCLEventType.SELECTION;
+            case ONBEGINATTRIBUTION:
+            case ONENDATTRIBUTION:
+                return NCLEventType.ATTRIBUTION;
+            default:
+                return NCLEventType.PRESENTATION;
+        }
+    }
+
+
+    static NCLEventTransition getTransition(NCLSimpleCondition condition) {
+        if(condition.getTransition() != null)
+            return condition.getTransition();
+        
+        Object role = condition.getRole();
+        if(!(role instanceof NCLDefaultConditionRole))
+            return null;
+        
+        switch((NCLDefaultConditionRole) role){
+            case ONEND:
+            case ONENDATTRIBUTION:
+                return NCLEventTransition.STOPS;
+            case ONABORT:
+                return NCLEventTransition.ABORTS;
+            case ONPAUSE:
+                return NCLEventTransition.PAUSES;
+            case ONRESUME:
+                return NCLEventTransition.RESUMES;
+            default:
+                return NCLEventTransition.STARTS;
+        }
+    }
+
+
+    static NCLEventType getEventType(NCLSimpleAction action) {
+        if(action.getEventType() != null)
+            return action.getEventType();
+        
+        Object role = action.getRole();
+        if(!(role instanceof NCLDefaultActionRole))
+            return null;
+        
+        if(role == NCLDefaultActionRole.SET)
+            return NCLEventType.ATTRIBUTION;
+        else
+            return NCLEventType.PRESENTATION;
+    }
+
+
+    static NCLEventAction getActionType(NCLSimpleAction action) {
+        if(action.getActionType() != null)
+            return action.getActionType();
+        
+        Object role = action.getRole();
+        if(!(role instanceof NCLDefaultActionRole))
+            return null;
+        
+        switch((NCLDefaultActionRole) role){
+            case STOP:
+                return NCLEventAction.STOP;
+            case ABORT:
+                return NCLEventAction.ABORT;
+            case PAUSE:
+                return NCLEventAction.PAUSE;
+            case RESUME:
+                return NCLEventAction.RESUME;
+            default:
+                return NCLEventAction.START;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import br.uff.midiacom.ana.util.ncl.NCLNamedElementPrototype;
+import java.util.Arrays;
+
+
+/**
+ * Timeline recorded by a simulation. Each entry of the timeline is a
+ * transition of an event at a given time, in the order the transitions
+ * happened.
+ * 
+ * @see NCLSimulator
+ */
+public class NCLTimeline {
+
+    private static final NCLEventType[] TYPES = NCLEventType.values();
+    private static final NCLEventTransition[] TRANSITIONS = NCLEventTransition.values();
+    
+    private int size;
+    private double[] times;
+    private NCLNode[] nodes;
+    private NCLInterface[] interfaces;
+    private byte[] types;
+    private byte[] transitions;
+
+
+    NCLTimeline() {
+        times = new double[64];
+        nodes = new NCLNode[64];
+        interfaces = new NCLInterface[64];
+        types = new byte[64];
+        transitions = new byte[64];
+    }
+
+
+    void add(double time, NCLNode node, NCLInterface interfac, NCLEventType type, NCLEventTransition transition) {
+        if(size == times.length){
+            int length = size * 2;
+            times = Arrays.copyOf(times, length);
+            nodes = Arrays.copyOf(nodes, length);
+            interfaces = Arrays.copyOf(interfaces, length);
+            types = Arrays.copyOf(types, length);
+            transitions = Arrays.copyOf(transitions, length);
+        }
+        
+        times[size] = time;
+        nodes[size] = node;
+        interfaces[size] = interfac;
+        types[size] = (byte) type.ordinal();
+        transitions[size] = (byte) transition.ordinal();
+        size++;
+    }
+
+
+    /**
+     * Returns the number of entries of the timeline.
+     * 
+     * @return
+     *          number of transitions recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the time of an entry, in seconds.
+     * 
+     * @param entry
+     *          index of the entry.
+     * @return
+     *          time of the transition.
+     */
+    public double getTime(int entry) {
+        check(entry);
+        return times[entry];
+    }
+
+
+    /**
+     * Returns the node of the event of an entry.
+     * 
+     * @param entry
+     *          index of the entry.
+     * @return
+     *          node of the event.
+     */
+    public NCLNode getNode(int entry) {
+        check(entry);
+        return nodes[entry];
+    }
+
+
+    /**
+     * Returns the interface of the event of an entry.
+     * 
+     * @param entry
+     *          index of the entry.
+     * @return
+     *          interface of the event or <i>null</i> if the event refers to
+     *          the whole node.
+     */
+    public NCLInterface getInterface(int entry) {
+        check(entry);
+        return interfaces[entry];
+    }
+
+
+    /**
+     * Returns the type of the event of an entry.
+     * 
+     * @param entry
+     *          index of the entry.
+     * @return
+     *          type of the event.
+     */
+    public NCLEventType getEventType(int entry) {
+        check(entry);
+        return TYPES[types[entry]];
+    }
+
+
+    /**
+     * Returns the transition of an entry.
+     * 
+     * @param entry
+     *          index of the entry.
+     * @return
+     *          transition of the event.
+     */
+    public NCLEventTransition getTransition(int entry) {
+        check(entry);
+        return TRANSITIONS[transitions[entry]];
+    }
+
+
+    /**
+     * Returns the index of the first entry of an event with a given
+     * transition.
+     * 
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole node.
+     * @param type
+     *          type of the event.
+     * @param transition
+     *          transition searched.
+     * @return
+     *          index of the entry or <i>-1</i> if the transition did not
+     *          happen.
+     */
+    public int indexOf(NCLNode node, NCLInterface interfac, NCLEventType type, NCLEventTransition transition) {
+        for(int i = 0; i < size; i++){
+            if(nodes[i] == node && interfaces[i] == interfac &&
+                    types[i] == type.ordinal() && transitions[i] == transition.ordinal())
+                return i;
+        }
+        
+        return -1;
+    }
+
+
+    /**
+     * Returns the timeline as text, one entry per line in the form
+     * <i>time node[.interface] type transition</i>.
+     * 
+     * @return
+     *          string representing the timeline.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        
+        for(int i = 0; i < size; i++){
+            result.append(times[i]).append(' ').append(name(nodes[i]));
+            if(interfaces[i] != null)
+                result.append('.').append(name(interfaces[i]));
+            result.append(' ').append(TYPES[types[i]]);
+            result.append(' ').append(TRANSITIONS[transitions[i]]).append('\n');
+        }
+        
+        return result.toString();
+    }
+
+
+    private String name(Object element) {
+        if(element instanceof NCLIdentifiableElementPrototype)
+            return ((NCLIdentifiableElementPrototype) element).getId();
+        if(element instanceof NCLNamedElementPrototype)
+            return String.valueOf(((NCLNamedElementPrototype) element).getName());
+        
+        return String.valueOf(element);
+    }
+
+
+    private void check(int entry) {
+        if(entry < 0 || entry >= size)
+            throw new IndexOutOfBoundsException("Entry " + entry + " of " + size);
+    }
+}
@@ -0,0 +1,447 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLSimpleCondition;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.modification.NCLModificationListener;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import br.uff.midiacom.ana.util.tree.NCLTreeWalker;
+import br.uff.midiacom.ana.util.tree.NCLVisitResult;
+import br.uff.midiacom.ana.util.tree.NCLVisitorAdapter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+
+/**
+ * Index of the links of a document by the events that trigger them. An event
+ * is identified by a node, an interface of the node, an event type and a
+ * transition. For each event the index keeps the binds of link conditions
+ * that refer to it, so the links fired by a transition, and the bind that
+ * relates each one to the event, are found without going through the links
+ * of the document.
+ * 
+ * <br/>
+ * 
+ * A bind is indexed by the component and interface it refers to and, when
+ * the interface is a port, also by the component and interface the port
+ * maps. The event type and transition of conditions that do not define them
+ * are the ones implied by the default role names. Binds to attribute
+ * assessments are not indexed.
+ * 
+ * <br/>
+ * 
+ * The index is updated with the methods <i>addLink</i>, <i>removeLink</i>
+ * and <i>updateLink</i>. The index is also a modification listener, so it can
+ * be registered in the <i>NCLModificationNotifier</i> to follow the changes
+ * of the document. The notifications are delivered asynchronously, so while
+ * they are pending the index may not reflect the last changes.
+ */
+public class NCLTriggerIndex implements NCLModificationListener {
+
+    private NCLDoc doc;
+    private HashMap<Key, List<Trigger>> triggers;
+    private IdentityHashMap<NCLLink, List<Trigger>> links;
+
+
+    /**
+     * Creates the index of the links of a document.
+     * 
+     * @param doc
+     *          document whose links will be indexed.
+     */
+    public NCLTriggerIndex(NCLDoc doc) {
+        if(doc == null)
+            throw new NullPointerException("Null document");
+        
+        this.doc = doc;
+        triggers = new HashMap<Key, List<Trigger>>();
+        links = new IdentityHashMap<NCLLink, List<Trigger>>();
+        addLinks(doc);
+    }
+
+
+    /**
+     * Returns the binds of the conditions triggered by an event. The link of
+     * each bind is its parent.
+     * 
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole node.
+     * @param type
+     *          type of the event.
+     * @param transition
+     *          transition of the event.
+     * @return
+     *          list of binds, empty if no link is triggered by the event.
+     */
+    public synchronized List<NCLBind> getTriggers(NCLNode node, NCLInterface interfac,
+            NCLEventType type, NCLEventTransition transition) {
+        List<Trigger> entries = triggers.get(new Key(node, interfac, type, transition));
+        if(entries == null)
+            return Collections.emptyList();
+        
+        List<NCLBind> result = new ArrayList<NCLBind>(entries.size());
+        for(Trigger trigger : entries)
+            result.add(trigger.bind);
+        
+        return result;
+    }
+
+
+    /**
+     * Returns the links triggered by an event, each one listed once.
+     * 
+     * @param node
+     *          node of the event.
+     * @param interfac
+     *          interface of the event or <i>null</i> for the whole node.
+     * @param type
+     *          type of the event.
+     * @param transition
+     *          transition of the event.
+     * @return
+     *          list of links, empty if no link is triggered by the event.
+     */
+    public synchronized List<NCLLink> getLinks(NCLNode node, NCLInterface interfac,
+            NCLEventType type, NCLEventTransition transition) {
+        List<Trigger> entries = triggers.get(new Key(node, interfac, type, transition));
+        if(entries == null)
+            return Collections.emptyList();
+        
+        List<NCLLink> result = new ArrayList<NCLLink>(entries.size());
+        IdentityHashMap<NCLLink, Boolean> listed = new IdentityHashMap<NCLLink, Boolean>();
+        for(Trigger trigger : entries){
+            if(listed.put(trigger.link, Boolean.TRUE) == null)
+                result.add(trigger.link);
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Checks if a link is indexed.
+     * 
+     * @param link
+     *          link element.
+     * @return
+     *          true if the link is indexed.
+     */
+    public synchronized boolean hasLink(NCLLink link) {
+        return links.containsKey(link);
+    }
+
+
+    /**
+     * Returns the number of links indexed.
+     * 
+     * @return
+     *          number of links.
+     */
+    public synchronized int size() {
+        return links.size();
+    }
+
+
+    /**
+     * Adds a link to the index. A link that is already indexed is indexed
+     * again.
+     * 
+     * @param link
+     *          link element.
+     */
+    public synchronized void addLink(NCLLink link) {
+        removeLink(link);
+        
+        List<Trigger> entries = new ArrayList<Trigger>();
+        for(Object o : link.getBinds()){
+            NCLBind bind = (NCLBind) o;
+            if(!(bind.getRole() instanceof NCLSimpleCondition) || bind.getComponent() == null)
+                continue;
+            
+            NCLSimpleCondition condition = (NCLSimpleCondition) bind.getRole();
+            NCLEventType type = NCLTemporalGraphBuilder.getEventType(condition);
+            NCLEventTransition transition = NCLTemporalGraphBuilder.getTransition(condition);
+            if(type == null || transition == null)
+                continue;
+            
+            NCLNode node = bind.getComponent();
+            NCLInterface interfac = bind.getInterface();
+            add(new Trigger(new Key(node, interfac, type, transition), link, bind), entries);
+            
+            if(interfac instanceof NCLPort){
+                while(interfac instanceof NCLPort && node != null){
+                    NCLPort port = (NCLPort) interfac;
+                    node = port.getComponent();
+                    interfac = port.getInterface();
+                }
+                if(node != null)
+                    add(new Trigger(new Key(node, interfac, type, transition), link, bind), entries);
+            }
+        }
+        
+        links.put(link, entries);
+    }
+
+
+    /**
+     * Removes a link from the index.
+     * 
+     * @param link
+     *          link element.
+     * @return
+     *          true if the link was indexed.
+     */
+    public synchronized boolean removeLink(NCLLink link) {
+        List<Trigger> entries = links.remove(link);
+        if(entries == null)
+            return false;
+        
+        for(Trigger trigger : entries){
+            List<Trigger> aux = triggers.get(trigger.key);
+            if(aux == null)
+                continue;
+            
+            for(int i = aux.size() - 1; i >= 0; i--){
+                if(aux.get(i) == trigger)
+                    aux.remove(i);
+            }
+            if(aux.isEmpty())
+                triggers.remove(trigger.key);
+        }
+        
+        return true;
+    }
+
+
+    /**
+     * Updates the entries of a link. The link is indexed again if it belongs
+     * to the document or removed from the index otherwise.
+     * 
+     * @param link
+     *          link element.
+     */
+    public synchronized void updateLink(NCLLink link) {
+        if(isAttached(link))
+            addLink(link);
+        else
+            removeLink(link);
+    }
+
+
+    /**
+     * Updates the index according to a modification of the document.
+     * 
+     * @param notification
+     *          modification notification.
+     */
+    @Override
+    public void modifiedElement(NCLNotification notification) {
+        NCLElement element = notification.getElement();
+        NCLElement source = notification.getSource();
+        
+        switch(notification.getType()){
+            case INSERTED_CHILD:
+                if(element instanceof NCLBind)
+                    update(element.getParent());
+                else if(element != null && element.getDoc() == doc)
+                    addLinks(element);
+                break;
+            case REMOVED_CHILD:
+                if(element instanceof NCLBind)
+                    update(source);
+                else if(element != null)
+                    removeLinks(element);
+                break;
+            case ALTERED_ATT:
+                if(source instanceof NCLLink)
+                    update(source);
+                else if(source instanceof NCLBind)
+                    update(source.getParent());
+                else if(source instanceof NCLPort)
+                    updatePort((NCLPort) source, new IdentityHashMap<NCLPort, Boolean>());
+                break;
+        }
+    }
+
+
+    private void updatePort(NCLPort port, IdentityHashMap<NCLPort, Boolean> visited) {
+        if(visited.put(port, Boolean.TRUE) != null)
+            return;
+        
+        // binds may reach the port through the ports that map it
+        for(Object o : port.getReferenceSet()){
+            if(o instanceof NCLBind)
+                update(((NCLBind) o).getParent());
+            else if(o instanceof NCLPort)
+                updatePort((NCLPort) o, visited);
+        }
+    }
+
+
+    private void update(Object link) {
+        if(link instanceof NCLLink)
+            updateLink((NCLLink) link);
+    }
+
+
+    private void add(Trigger trigger, List<Trigger> entries) {
+        List<Trigger> aux = triggers.get(trigger.key);
+        if(aux == null){
+            aux = new ArrayList<Trigger>(2);
+            triggers.put(trigger.key, aux);
+        }
+        aux.add(trigger);
+        entries.add(trigger);
+    }
+
+
+    private synchronized void addLinks(NCLElement root) {
+        NCLTreeWalker.walk(root, new NCLVisitorAdapter() {
+            @Override
+            public NCLVisitResult visitHead(NCLHead head) {
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+
+            @Override
+            public NCLVisitResult visitLink(NCLLink link) {
+                addLink(link);
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+        });
+    }
+
+
+    private synchronized void removeLinks(NCLElement root) {
+        NCLTreeWalker.walk(root, new NCLVisitorAdapter() {
+            @Override
+            public NCLVisitResult visitHead(NCLHead head) {
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+
+            @Override
+            public NCLVisitResult visitLink(NCLLink link) {
+                removeLink(link);
+                return NCLVisitResult.SKIP_CHILDREN;
+            }
+        });
+    }
+
+
+    private boolean isAttached(NCLElement element) {
+        for(Object e = element; e != null; e = ((NCLElement) e).getParent()){
+            if(e == doc)
+                return true;
+        }
+        
+        return false;
+    }
+
+
+    /**
+     * Bind of a link indexed by an event.
+     */
+    private static class Trigger {
+
+        private Key key;
+        private NCLLink link;
+        private NCLBind bind;
+
+
+        private Trigger(Key key, NCLLink link, NCLBind bind) {
+            this.key = key;
+            this.link = link;
+            this.bind = bind;
+        }
+    }
+
+
+    /**
+     * Event that triggers a link. Nodes and interfaces are compared by
+     * identity.
+     */
+    private static class Key {
+
+        private NCLNode node;
+        private NCLInterface interfac;
+        private NCLEventType type;
+        private NCLEventTransition transition;
+
+
+        private Key(NCLNode node, NCLInterface interfac, NCLEventType type, NCLEventTransition transition) {
+            this.node = node;
+            this.interfac = interfac;
+            this.type = type;
+            this.transition = transition;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key))
+                return false;
+            
+            Key other = (Key) o;
+            return node == other.node && interfac == other.interfac &&
+                    type == other.type && transition == other.transition;
+        }
+
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(node);
+            hash = 31 * hash + System.identityHashCode(interfac);
+            hash = 31 * hash + type.ordinal();
+            return 31 * hash + transition.ordinal();
+        }
+    }
+}
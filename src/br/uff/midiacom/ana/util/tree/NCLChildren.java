@@ -0,0 +1,206 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.tree;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLAssessmentStatement;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.connector.NCLCompoundAction;
+import br.uff.midiacom.ana.connector.NCLCompoundCondition;
+import br.uff.midiacom.ana.connector.NCLCompoundStatement;
+import br.uff.midiacom.ana.connector.NCLConnectorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
+import br.uff.midiacom.ana.rule.NCLCompositeRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.transition.NCLTransitionBase;
+import br.uff.midiacom.ana.util.ElementList;
+import br.uff.midiacom.ana.util.ncl.NCLBase;
+import br.uff.midiacom.ana.util.ncl.NCLCompositeNodeElement;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * This class lists the children of the elements of an NCL document, that is,
+ * the elements represented inside an element in the XML. The children are
+ * listed in the order they are written by the <i>parse</i> methods. Elements
+ * referred by an element, like the region of a descriptor, are not children
+ * of the element.
+ */
+public class NCLChildren {
+
+    private NCLChildren() {}
+
+
+    /**
+     * Returns the children of an element.
+     * 
+     * @param element
+     *          NCL element.
+     * @return
+     *          list with the children of the element. The list is empty if
+     *          the element has no children.
+     */
+    public static List<NCLElement> getChildren(NCLElement element) {
+        List<NCLElement> children = new ArrayList<NCLElement>();
+        addChildren(element, children);
+        return children;
+    }
+
+
+    /**
+     * Adds the children of an element to a list.
+     * 
+     * @param element
+     *          NCL element.
+     * @param children
+     *          list where the children are added.
+     */
+    public static void addChildren(NCLElement element, List<NCLElement> children) {
+        if(element instanceof NCLDoc){
+            add(children, ((NCLDoc) element).getHead());
+            add(children, ((NCLDoc) element).getBody());
+        }
+        else if(element instanceof NCLHead){
+            NCLHead head = (NCLHead) element;
+            add(children, head.getImportedDocumentBase());
+            add(children, head.getRuleBase());
+            add(children, head.getTransitionBase());
+            add(children, head.getRegionBases());
+            add(children, head.getDescriptorBase());
+            add(children, head.getConnectorBase());
+            add(children, head.getMetas());
+            add(children, head.getMetadatas());
+        }
+        else if(element instanceof NCLCompositeNodeElement){
+            NCLCompositeNodeElement node = (NCLCompositeNodeElement) element;
+            add(children, node.getMetas());
+            add(children, node.getMetadatas());
+            add(children, node.getPorts());
+            add(children, node.getProperties());
+            add(children, node.getNodes());
+            add(children, node.getLinks());
+        }
+        else if(element instanceof NCLSwitch){
+            add(children, ((NCLSwitch) element).getBinds());
+            add(children, ((NCLSwitch) element).getPorts());
+            add(children, ((NCLSwitch) element).getNodes());
+        }
+        else if(element instanceof NCLMedia){
+            add(children, ((NCLMedia) element).getAreas());
+            add(children, ((NCLMedia) element).getProperties());
+        }
+        else if(element instanceof NCLLink){
+            add(children, ((NCLLink) element).getLinkParams());
+            add(children, ((NCLLink) element).getBinds());
+        }
+        else if(element instanceof NCLBind)
+            add(children, ((NCLBind) element).getBindParams());
+        else if(element instanceof NCLBase){
+            add(children, ((NCLBase) element).getImportBases());
+            if(element instanceof NCLRegionBase)
+                add(children, ((NCLRegionBase) element).getRegions());
+            else if(element instanceof NCLDescriptorBase)
+                add(children, ((NCLDescriptorBase) element).getDescriptors());
+            else if(element instanceof NCLConnectorBase)
+                add(children, ((NCLConnectorBase) element).getCausalConnectors());
+            else if(element instanceof NCLRuleBase)
+                add(children, ((NCLRuleBase) element).getRules());
+            else if(element instanceof NCLTransitionBase)
+                add(children, ((NCLTransitionBase) element).getTransitions());
+        }
+        else if(element instanceof NCLImportedDocumentBase)
+            add(children, ((NCLImportedDocumentBase) element).getImportNCLs());
+        else if(element instanceof NCLRegion)
+            add(children, ((NCLRegion) element).getRegions());
+        else if(element instanceof NCLDescriptor)
+            add(children, ((NCLDescriptor) element).getDescriptorParams());
+        else if(element instanceof NCLDescriptorSwitch){
+            add(children, ((NCLDescriptorSwitch) element).getBinds());
+            add(children, ((NCLDescriptorSwitch) element).getDescriptors());
+        }
+        else if(element instanceof NCLCausalConnector){
+            add(children, ((NCLCausalConnector) element).getConnectorParams());
+            add(children, ((NCLCausalConnector) element).getCondition());
+            add(children, ((NCLCausalConnector) element).getAction());
+        }
+        else if(element instanceof NCLCompoundCondition){
+            add(children, ((NCLCompoundCondition) element).getConditions());
+            add(children, ((NCLCompoundCondition) element).getStatements());
+        }
+        else if(element instanceof NCLCompoundAction)
+            add(children, ((NCLCompoundAction) element).getActions());
+        else if(element instanceof NCLCompoundStatement)
+            add(children, ((NCLCompoundStatement) element).getStatements());
+        else if(element instanceof NCLAssessmentStatement){
+            add(children, ((NCLAssessmentStatement) element).getAttributeAssessments());
+            add(children, ((NCLAssessmentStatement) element).getValueAssessment());
+        }
+        else if(element instanceof NCLCompositeRule)
+            add(children, ((NCLCompositeRule) element).getRules());
+        else if(element instanceof NCLSwitchPort)
+            add(children, ((NCLSwitchPort) element).getMappings());
+    }
+
+
+    private static void add(List<NCLElement> children, Object child) {
+        if(child instanceof NCLElement)
+            children.add((NCLElement) child);
+    }
+
+
+    private static void add(List<NCLElement> children, ElementList list) {
+        if(list == null)
+            return;
+        
+        for(Object child : list)
+            children.add((NCLElement) child);
+    }
+}
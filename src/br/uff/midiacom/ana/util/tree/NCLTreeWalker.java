@@ -0,0 +1,348 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.tree;
+
+import br.uff.midiacom.ana.NCLElement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * This class walks the tree of elements of an NCL document. The walks use an
+ * explicit stack instead of recursion, so the depth of the tree is not
+ * limited by the depth of the thread stack. The children of an element are
+ * the ones listed by <i>NCLChildren</i>, in document order.
+ * 
+ * @see NCLChildren
+ */
+public class NCLTreeWalker {
+
+    private NCLTreeWalker() {}
+
+
+    /**
+     * Walks a subtree calling the visitor for each element. The method
+     * <i>enter</i> is called for an element before its children and the
+     * method <i>leave</i> after them.
+     * 
+     * @param root
+     *          root of the subtree.
+     * @param visitor
+     *          visitor called for the elements of the subtree.
+     * @return
+     *          true if the subtree was walked or false if the visitor stopped
+     *          the walk.
+     * @throws NullPointerException
+     *          if the root or the visitor is null.
+     */
+    public static boolean walk(NCLElement root, NCLVisitor visitor) {
+        if(root == null || visitor == null)
+            throw new NullPointerException("Null walk root or visitor");
+        
+        NCLVisitResult result = visitor.enter(root);
+        if(result == NCLVisitResult.STOP)
+            return false;
+        if(result == NCLVisitResult.SKIP_CHILDREN){
+            visitor.leave(root);
+            return true;
+        }
+        
+        ArrayDeque<Frame> stack = new ArrayDeque<Frame>();
+        stack.push(new Frame(root));
+        
+        while(!stack.isEmpty()){
+            Frame frame = stack.peek();
+            
+            if(frame.next < frame.children.size()){
+                NCLElement child = frame.children.get(frame.next++);
+                result = visitor.enter(child);
+                
+                if(result == NCLVisitResult.STOP)
+                    return false;
+                else if(result == NCLVisitResult.CONTINUE)
+                    stack.push(new Frame(child));
+                else
+                    visitor.leave(child);
+            }
+            else{
+                stack.pop();
+                visitor.leave(frame.element);
+            }
+        }
+        
+        return true;
+    }
+
+
+    /**
+     * Returns an iterator over the elements of a subtree in pre-order, that
+     * is, in document order. The root is the first element returned.
+     * 
+     * @param root
+     *          root of the subtree.
+     * @return
+     *          iterator over the elements of the subtree.
+     */
+    public static Iterator<NCLElement> iterator(NCLElement root) {
+        return new PreOrder(root, true);
+    }
+
+
+    /**
+     * Returns an iterator over the descendants of an element in document
+     * order. The element itself is not returned.
+     * 
+     * @param root
+     *          element whose descendants will be returned.
+     * @return
+     *          iterator over the descendants of the element.
+     */
+    public static Iterator<NCLElement> descendants(NCLElement root) {
+        return new PreOrder(root, false);
+    }
+
+
+    /**
+     * Returns a spliterator over the elements of a subtree. The spliterator
+     * is ordered, returning the elements in document order, and can be split
+     * so the subtree can be walked by a parallel stream.
+     * 
+     * <br/>
+     * The tree must not be modified while the spliterator is used.
+     * 
+     * @param root
+     *          root of the subtree.
+     * @return
+     *          spliterator over the elements of the subtree.
+     */
+    public static Spliterator<NCLElement> spliterator(NCLElement root) {
+        return new TreeSpliterator(root);
+    }
+
+
+    /**
+     * Returns a stream over the elements of a subtree.
+     * 
+     * @param root
+     *          root of the subtree.
+     * @param parallel
+     *          true if the stream must be parallel.
+     * @return
+     *          stream over the elements of the subtree.
+     */
+    public static Stream<NCLElement> stream(NCLElement root, boolean parallel) {
+        return StreamSupport.stream(spliterator(root), parallel);
+    }
+
+
+    /**
+     * Element being walked and the position of its next child.
+     */
+    private static class Frame {
+
+        private NCLElement element;
+        private List<NCLElement> children;
+        private int next;
+
+
+        private Frame(NCLElement element) {
+            this.element = element;
+            this.children = NCLChildren.getChildren(element);
+            this.next = 0;
+        }
+    }
+
+
+    /**
+     * Elements of a subtree in document order.
+     */
+    private static class PreOrder implements Iterator<NCLElement> {
+
+        private ArrayDeque<NCLElement> stack;
+        private List<NCLElement> children;
+
+
+        private PreOrder(NCLElement root, boolean includeRoot) {
+            if(root == null)
+                throw new NullPointerException("Null walk root");
+            
+            stack = new ArrayDeque<NCLElement>();
+            children = new ArrayList<NCLElement>();
+            if(includeRoot)
+                stack.push(root);
+            else
+                pushChildren(root);
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+
+        @Override
+        public NCLElement next() {
+            if(stack.isEmpty())
+                throw new NoSuchElementException();
+            
+            NCLElement element = stack.pop();
+            pushChildren(element);
+            return element;
+        }
+
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+
+        private void pushChildren(NCLElement element) {
+            children.clear();
+            NCLChildren.addChildren(element, children);
+            for(int i = children.size() - 1; i >= 0; i--)
+                stack.push(children.get(i));
+        }
+    }
+
+
+    /**
+     * Spliterator over the elements of a subtree. The pending work is a
+     * sequence of elements in document order, each one marking if its
+     * subtree or only the element itself is still to be returned. A split
+     * returns the first half of the sequence, expanding an element into its
+     * children when there is a single subtree pending.
+     */
+    private static class TreeSpliterator implements Spliterator<NCLElement> {
+
+        private ArrayDeque<NCLElement> elements;
+        private ArrayDeque<Boolean> expand;
+
+
+        private TreeSpliterator(NCLElement root) {
+            if(root == null)
+                throw new NullPointerException("Null walk root");
+            
+            elements = new ArrayDeque<NCLElement>();
+            expand = new ArrayDeque<Boolean>();
+            elements.add(root);
+            expand.add(true);
+        }
+
+
+        private TreeSpliterator() {
+            elements = new ArrayDeque<NCLElement>();
+            expand = new ArrayDeque<Boolean>();
+        }
+
+
+        @Override
+        public boolean tryAdvance(Consumer<? super NCLElement> action) {
+            if(elements.isEmpty())
+                return false;
+            
+            NCLElement element = elements.poll();
+            if(expand.poll())
+                pushChildren(element);
+            
+            action.accept(element);
+            return true;
+        }
+
+
+        @Override
+        public Spliterator<NCLElement> trySplit() {
+            if(elements.size() == 1 && expand.peek()){
+                // the only pending subtree is replaced by its root and the
+                // subtrees of its children, which can then be shared
+                NCLElement element = elements.peek();
+                List<NCLElement> children = NCLChildren.getChildren(element);
+                if(children.isEmpty())
+                    return null;
+                
+                expand.poll();
+                expand.push(false);
+                for(NCLElement child : children){
+                    elements.add(child);
+                    expand.add(true);
+                }
+            }
+            
+            int half = elements.size() / 2;
+            if(half == 0)
+                return null;
+            
+            TreeSpliterator prefix = new TreeSpliterator();
+            for(int i = 0; i < half; i++){
+                prefix.elements.add(elements.poll());
+                prefix.expand.add(expand.poll());
+            }
+            
+            return prefix;
+        }
+
+
+        @Override
+        public long estimateSize() {
+            return elements.isEmpty() ? 0 : Long.MAX_VALUE;
+        }
+
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+
+
+        private void pushChildren(NCLElement element) {
+            List<NCLElement> children = NCLChildren.getChildren(element);
+            for(int i = children.size() - 1; i >= 0; i--){
+                elements.push(children.get(i));
+                expand.push(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.tree;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorSwitch;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.interfaces.NCLProperty;
+import br.uff.midiacom.ana.interfaces.NCLSwitchPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.rule.NCLCompositeRule;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.transition.NCLTransition;
+
+
+/**
+ * This class is a visitor with a method for each kind of element. The
+ * methods return <i>CONTINUE</i> unless they are overwritten, so a visitor
+ * only needs to overwrite the methods of the elements it is interested in.
+ * The elements without a specific method are visited by <i>visitElement</i>.
+ */
+public abstract class NCLVisitorAdapter implements NCLVisitor {
+
+
+    @Override
+    public NCLVisitResult enter(NCLElement element) {
+        if(element instanceof NCLMedia)
+            return visitMedia((NCLMedia) element);
+        else if(element instanceof NCLContext)
+            return visitContext((NCLContext) element);
+        else if(element instanceof NCLSwitch)
+            return visitSwitch((NCLSwitch) element);
+        else if(element instanceof NCLLink)
+            return visitLink((NCLLink) element);
+        else if(element instanceof NCLBind)
+            return visitBind((NCLBind) element);
+        else if(element instanceof NCLPort)
+            return visitPort((NCLPort) element);
+        else if(element instanceof NCLSwitchPort)
+            return visitSwitchPort((NCLSwitchPort) element);
+        else if(element instanceof NCLArea)
+            return visitArea((NCLArea) element);
+        else if(element instanceof NCLProperty)
+            return visitProperty((NCLProperty) element);
+        else if(element instanceof NCLRegion)
+            return visitRegion((NCLRegion) element);
+        else if(element instanceof NCLDescriptor)
+            return visitDescriptor((NCLDescriptor) element);
+        else if(element instanceof NCLDescriptorSwitch)
+            return visitDescriptorSwitch((NCLDescriptorSwitch) element);
+        else if(element instanceof NCLCausalConnector)
+            return visitConnector((NCLCausalConnector) element);
+        else if(element instanceof NCLRule)
+            return visitRule((NCLRule) element);
+        else if(element instanceof NCLCompositeRule)
+            return visitCompositeRule((NCLCompositeRule) element);
+        else if(element instanceof NCLTransition)
+            return visitTransition((NCLTransition) element);
+        else if(element instanceof NCLBody)
+            return visitBody((NCLBody) element);
+        else if(element instanceof NCLHead)
+            return visitHead((NCLHead) element);
+        else if(element instanceof NCLDoc)
+            return visitDoc((NCLDoc) element);
+        
+        return visitElement(element);
+    }
+
+
+    @Override
+    public void leave(NCLElement element) {}
+
+
+    /**
+     * Visits an element without a specific method.
+     * 
+     * @param element
+     *          element visited.
+     * @return
+     *          result telling how the walk must continue.
+     */
+    public NCLVisitResult visitElement(NCLElement element) {
+        return NCLVisitResult.CONTINUE;
+    }
+
+
+    public NCLVisitResult visitDoc(NCLDoc doc) {
+        return visitElement(doc);
+    }
+
+
+    public NCLVisitResult visitHead(NCLHead head) {
+        return visitElement(head);
+    }
+
+
+    public NCLVisitResult visitBody(NCLBody body) {
+        return visitElement(body);
+    }
+
+
+    public NCLVisitResult visitContext(NCLContext context) {
+        return visitElement(context);
+    }
+
+
+    public NCLVisitResult visitSwitch(NCLSwitch node) {
+        return visitElement(node);
+    }
+
+
+    public NCLVisitResult visitMedia(NCLMedia media) {
+        return visitElement(media);
+    }
+
+
+    public NCLVisitResult visitLink(NCLLink link) {
+        return visitElement(link);
+    }
+
+
+    public NCLVisitResult visitBind(NCLBind bind) {
+        return visitElement(bind);
+    }
+
+
+    public NCLVisitResult visitPort(NCLPort port) {
+        return visitElement(port);
+    }
+
+
+    public NCLVisitResult visitSwitchPort(NCLSwitchPort port) {
+        return visitElement(port);
+    }
+
+
+    public NCLVisitResult visitArea(NCLArea area) {
+        return visitElement(area);
+    }
+
+
+    public NCLVisitResult visitProperty(NCLProperty property) {
+        return visitElement(property);
+    }
+
+
+    public NCLVisitResult visitRegion(NCLRegion region) {
+        return visitElement(region);
+    }
+
+
+    public NCLVisitResult visitDescriptor(NCLDescriptor descriptor) {
+        return visitElement(descriptor);
+    }
+
+
+    public NCLVisitResult visitDescriptorSwitch(NCLDescriptorSwitch descriptor) {
+        return visitElement(descriptor);
+    }
+
+
+    public NCLVisitResult visitConnector(NCLCausalConnector connector) {
+        return visitElement(connector);
+    }
+
+
+    public NCLVisitResult visitRule(NCLRule rule) {
+        return visitElement(rule);
+    }
+
+
+    public NCLVisitResult visitCompositeRule(NCLCompositeRule rule) {
+        return visitElement(rule);
+    }
+
+
+    public NCLVisitResult visitTransition(NCLTransition transition) {
+        return visitElement(transition);
+    }
+}
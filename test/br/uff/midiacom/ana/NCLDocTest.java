@@ -40,6 +40,9 @@ package br.uff.midiacom.ana;
 import java.net.URI;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.util.enums.NCLSystemVariable;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
 import java.io.File;
 import br.uff.midiacom.ana.util.enums.NCLNamespace;
 import java.net.URISyntaxException;
@@ -79,6 +82,107 @@ public class NCLDocTest {
         assertEquals(expResult, result);
     }
     
+    @Test
+    public void test3() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        NCLVariable v1 = new NCLVariable("legenda");
+        NCLVariable v2 = new NCLVariable("system.screenSize(1)");
+        NCLVariable v3 = new NCLVariable("system.language");
+        doc.addGlobalVariable(v1);
+        doc.addGlobalVariable(v2);
+        doc.addGlobalVariable(v3);
+
+        assertSame(v1, doc.getGlobalVariable("legenda"));
+        assertSame(v2, doc.getGlobalVariable("system.screenSize(1)"));
+        assertNull(doc.getGlobalVariable("system.screenSize"));
+        assertEquals(NCLSystemVariable.SYSTEM_SCREENSIZE_i, v2.getName());
+        assertEquals(NCLSystemVariable.SYSTEM_LANGUAGE, v3.getName());
+        assertTrue(doc.hasGlobalVariable("system.language"));
+        assertTrue(doc.hasGlobalVariable(v3));
+
+        // a variable renamed after being added
+        v1.setName("idioma");
+        assertNull(doc.getGlobalVariable("legenda"));
+        assertSame(v1, doc.getGlobalVariable("idioma"));
+
+        assertTrue(doc.removeGlobalVariable("system.language"));
+        assertFalse(doc.hasGlobalVariable("system.language"));
+        assertEquals(2, doc.getGlobalVariables().size());
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        NCLDoc other = new NCLDoc();
+        NCLVariable v1 = new NCLVariable("legenda");
+        NCLVariable o1 = new NCLVariable("legenda");
+        NCLVariable o2 = new NCLVariable("system.screenSize(0)");
+        doc.addGlobalVariable(v1);
+        other.addGlobalVariable(o1);
+        other.addGlobalVariable(o2);
+
+        NCLRule rule = new NCLRule("r1");
+        rule.setVar(o1);
+
+        doc.mergeGlobalVariables(other);
+
+        assertEquals(2, other.getGlobalVariables().size());
+        assertEquals(2, doc.getGlobalVariables().size());
+        assertSame(v1, doc.getGlobalVariable("legenda"));
+        assertSame(o2, doc.getGlobalVariable("system.screenSize(0)"));
+        assertSame(v1, rule.getVar());
+        assertTrue(o1.getReferences().isEmpty());
+    }
+
+    @Test
+    public void test5() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        NCLVariable v1 = new NCLVariable("legenda");
+        NCLVariable v2 = new NCLVariable("system.screenSize(0)");
+        doc.addGlobalVariable(v1);
+        doc.addGlobalVariable(v2);
+
+        // the new name is looked up before the old one
+        v1.setName("idioma");
+        assertSame(v1, doc.getGlobalVariable("idioma"));
+        assertTrue(doc.hasGlobalVariable(v1));
+        assertNull(doc.getGlobalVariable("legenda"));
+
+        v2.setParamenter(1);
+        assertSame(v2, doc.getGlobalVariable("system.screenSize(1)"));
+        assertNull(doc.getGlobalVariable("system.screenSize(0)"));
+        assertTrue(doc.hasGlobalVariable(v2));
+
+        // a variable with the key of another one is still in the document
+        v2.setName("idioma");
+        assertTrue(doc.hasGlobalVariable(v1));
+        assertTrue(doc.hasGlobalVariable(v2));
+        assertTrue(doc.removeGlobalVariable(v1));
+        assertSame(v2, doc.getGlobalVariable("idioma"));
+        assertFalse(doc.hasGlobalVariable(v1));
+
+        // a variable removed from the document is not indexed again
+        v1.setName("legenda");
+        assertNull(doc.getGlobalVariable("legenda"));
+    }
+
+    @Test
+    public void test6() throws XMLException {
+        NCLDoc doc1 = new NCLDoc();
+        NCLDoc doc2 = new NCLDoc();
+        NCLVariable v1 = new NCLVariable("legenda");
+        NCLVariable v2 = new NCLVariable("legenda");
+        doc1.addGlobalVariable(v1);
+        doc2.addGlobalVariable(v2);
+
+        // renaming a variable only changes the index of its document
+        v1.setName("idioma");
+        assertSame(v1, doc1.getGlobalVariable("idioma"));
+        assertNull(doc1.getGlobalVariable("legenda"));
+        assertSame(v2, doc2.getGlobalVariable("legenda"));
+        assertNull(doc2.getGlobalVariable("idioma"));
+    }
+    
     @Test
     public void testLoadFile() throws XMLException, URISyntaxException {
         URI path = getClass().getResource("../../../../doc.ncl").toURI();
@@ -38,6 +38,7 @@
 package br.uff.midiacom.ana;
 
 import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
 import br.uff.midiacom.ana.connector.NCLConnectorBase;
 import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
 import br.uff.midiacom.ana.meta.NCLMeta;
@@ -90,4 +91,29 @@ public class NCLHeadTest {
         String result = instance.parse(0);
         assertEquals(expResult, result);
     }
+
+    @Test
+    public void test3() throws XMLException {
+        String xml = "<head><regionBase><region id='rgTV'/></regionBase>"+
+                "<descriptorBase><descriptor id='dpTV'/></descriptorBase></head>";
+
+        XMLLoader loader = new XMLLoader(xml);
+        NCLHead instance = new NCLHead();
+        instance.load(loader.getElement());
+
+        assertNotNull(instance.searchRegion(null, null, "rgTV"));
+        assertNotNull(instance.searchDescriptor(null, "dpTV"));
+        assertNull(instance.searchRegion(null, null, "rgFoo"));
+        assertNull(instance.searchRegion("base", null, "rgTV"));
+        assertNull(instance.searchDescriptor(null, "dpFoo"));
+        assertNull(instance.searchDescriptor(1));
+        assertNull(instance.searchConnector(null, "conFoo"));
+        assertNull(instance.searchRule(null, "ruleFoo"));
+        assertNull(instance.searchTransition(null, "transFoo"));
+
+        try{
+            instance.findRegion(null, null, "rgFoo");
+            fail();
+        }catch(NCLParsingException ex){}
+    }
 }
\ No newline at end of file
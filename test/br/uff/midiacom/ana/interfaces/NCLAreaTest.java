@@ -76,7 +76,7 @@ public class NCLAreaTest {
         NCLArea area = new NCLArea("anchor");
         area.setCoords(new ArrayType("1, 2, 6, 56"));
         
-        String expResult = "<area id='anchor' coords='1.0,2.0,6.0,56.0'/>\n";
+        String expResult = "<area id='anchor' coords='1,2,6,56'/>\n";
         String result = area.parse(0);
         assertEquals(expResult, result);
     }
@@ -282,4 +282,35 @@ public class NCLTimeTest {
             String result = t.toString();
             assertEquals(expResult, result);
         }
-}
\ No newline at end of file
+
+        @Test
+        public void testStringToTime_t6() {
+            String[] values = {"5s", "2.10s", "0.005s", "1:12:23:12:56:2.10", "125:56:02.500",
+                    "00:00:05", "5 s", "1e3s"};
+            for(String expResult : values){
+                TimeType t = new TimeType(new StringBuilder(expResult));
+                assertEquals(expResult, t.toString());
+            }
+
+            assertEquals(5.0, new TimeType("5 s").getSecond(), 0.0);
+            assertEquals(1000.0, new TimeType("1e3s").getSecond(), 0.0);
+
+            TimeType t = new TimeType("00:00:05");
+            t.setMinute(1);
+            assertEquals("0:1:5", t.toString());
+        }
+
+        @Test
+        public void testTimeInMillis() {
+            assertEquals(10000L, t1.getTimeInMillis());
+            assertEquals(75294255L, t3.getTimeInMillis());
+            assertEquals(2100L, new TimeType("2.1s").getTimeInMillis());
+            assertEquals(new TimeType("2.10s"), new TimeType(2.1));
+            assertEquals(new TimeType("2.10s").hashCode(), new TimeType(2.1).hashCode());
+        }
+
+        @Test(expected=IllegalArgumentException.class)
+        public void testStringToTime_invalid() {
+            new TimeType("1:2:x");
+        }
+}
@@ -134,4 +134,30 @@ public class NCLMediaTest {
         String result = ((NCLDescriptor) ((NCLMedia) instance.getBody().getNodes().get("da")).getDescriptor()).getPlayer();
         assertEquals(expResult, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test7() throws XMLException {
+        NCLMedia m1 = new NCLMedia("m1");
+        NCLMedia m2 = new NCLMedia("m2");
+
+        assertFalse(m1.hasArea());
+        assertSame(m1.getAreas(), m2.getAreas());
+        assertTrue(m1.getAreas().isReadOnly());
+
+        m1.addArea(new NCLArea("a1"));
+        assertTrue(m1.hasArea());
+        assertFalse(m2.hasArea());
+        assertNotSame(m1.getAreas(), m2.getAreas());
+        assertEquals(1, m1.getAreas().size());
+
+        try{
+            m2.getAreas().add(new NCLArea("a2"));
+            fail("read only list modified");
+        }catch(UnsupportedOperationException ex){}
+        try{
+            m2.getAreas().addAll(m1.getAreas());
+            fail("read only list modified");
+        }catch(UnsupportedOperationException ex){}
+        assertFalse(m2.hasArea());
+    }
+}
@@ -40,6 +40,11 @@ package br.uff.midiacom.ana.reuse;
 import br.uff.midiacom.ana.util.exception.XMLException;
 import br.uff.midiacom.ana.XMLLoader;
 import br.uff.midiacom.ana.util.SrcType;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.reference.ExternalReferenceType;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -92,4 +97,56 @@ public class NCLImportedDocumentBaseTest {
 //        String result = instance.parse(0);
 //        assertEquals(expResult, result);
 //    }
+
+    @Test
+    public void test5() throws XMLException {
+        NCLRegion reg = new NCLRegion("rgTV");
+        NCLRegionBase rb = new NCLRegionBase();
+        rb.addRegion(reg);
+        NCLHead head = new NCLHead();
+        head.addRegionBase(rb);
+        NCLDoc doc = new NCLDoc();
+        doc.setHead(head);
+
+        NCLImportedDocumentBase base = new NCLImportedDocumentBase();
+        NCLImportNCL imp = new NCLImportNCL();
+        base.addImportNCL(imp);
+        imp.setAlias("base");
+        imp.setImportedDoc(doc);
+
+        ExternalReferenceType ref1 = (ExternalReferenceType) base.findRegion("base", "rgTV");
+        ExternalReferenceType ref2 = (ExternalReferenceType) base.findRegion("base", "rgTV");
+        assertSame(reg, ref1.getTarget());
+        assertSame(ref1, ref2);
+        assertNull(base.findRegion("base", "rgFoo"));
+        assertNull(base.findRegion("foo", "rgTV"));
+
+        imp.setAlias("other");
+        assertNull(base.findRegion("base", "rgTV"));
+        assertSame(ref1, base.findRegion("other", "rgTV"));
+    }
+
+    @Test
+    public void test6() throws XMLException {
+        NCLImportedDocumentBase base = new NCLImportedDocumentBase();
+        NCLImportNCL imp1 = new NCLImportNCL();
+        NCLImportNCL imp2 = new NCLImportNCL();
+        base.addImportNCL(imp1);
+        imp1.setAlias("a");
+
+        // unknown aliases are answered by the index
+        assertNull(base.getAliasIndex().get("b"));
+        assertNull(base.getAliasIndex().get("b"));
+
+        base.addImportNCL(imp2);
+        imp2.setAlias("b");
+        assertSame(imp2, base.getAliasIndex().get("b"));
+
+        imp1.setAlias("c");
+        assertNull(base.getAliasIndex().get("a"));
+        assertSame(imp1, base.getAliasIndex().get("c"));
+
+        base.removeImportNCL(imp2);
+        assertNull(base.getAliasIndex().get("b"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import br.uff.midiacom.ana.util.enums.NCLSampleType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class DecimalParserTest {
+
+    @Test
+    public void test1() {
+        String[] values = {"0", "1.5", "0.05", "10.100", "123456.789012", "-2.25", "1e3", "007.5"};
+        for(String v : values)
+            assertEquals(Double.parseDouble(v), DecimalParser.parseDouble(v, 0, v.length()), 0.0);
+
+        assertEquals(12345L, DecimalParser.parseUnscaled("123.45", 0, 6));
+        assertEquals(2, DecimalParser.scale("123.45", 0, 6));
+
+        StringBuilder result = new StringBuilder();
+        DecimalParser.appendDecimal(result, 1005, 3);
+        assertEquals("1.005", result.toString());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        assertEquals("50%", new PercentageType("50%").parse());
+        assertEquals("0.25", new PercentageType(new StringBuilder(" 0.25 ")).parse());
+        assertEquals("99.99%", new PercentageType(99.99).parse());
+        assertEquals(0.5, new PercentageType("50.0%").getValue() / 100, 0.0);
+
+        try{
+            new PercentageType("101%");
+            fail();
+        }
+        catch(XMLException ex){}
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        ArrayType a = new ArrayType("1, 2.5,6,56");
+        assertEquals(4, a.getSize());
+        assertEquals("1,2.5,6,56", a.toString());
+        assertEquals(a, new ArrayType(a.toString()));
+        assertEquals(a, new ArrayType(new double[]{1, 2.5, 6, 56}));
+        assertEquals("1.0,2.5,6.0,56.0", new ArrayType(new double[]{1, 2.5, 6, 56}).toString());
+
+        // the values are written back as they were read
+        assertEquals("10,20,30,40", new ArrayType("10,20,30,40").toString());
+        assertEquals("0.50,1e2", new ArrayType(new StringBuilder(" 0.50 ,1e2")).toString());
+
+        SampleType s = new SampleType(new StringBuilder("12npt"));
+        assertEquals(12, s.getValue());
+        assertEquals(NCLSampleType.NPT, s.getType());
+        assertEquals("12npt", s.toString());
+        assertEquals("3s", new SampleType("3s").toString());
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        assertEquals(50.0, new PercentageType("5e1%").getValue(), 0.0);
+
+        try{
+            new PercentageType("abc%");
+            fail();
+        }
+        catch(NumberFormatException ex){}
+        try{
+            new ArrayType("1,x");
+            fail();
+        }
+        catch(NumberFormatException ex){}
+        try{
+            new SampleType("12");
+            fail();
+        }
+        catch(NullPointerException ex){}
+    }
+}
@@ -0,0 +1,129 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ValueCacheTest {
+
+    @Test
+    public void test1() throws XMLException {
+        assertSame(SrcType.valueOf("media/bg.png"), SrcType.valueOf(new String("media/bg.png")));
+        assertSame(PercentageType.valueOf("50%"), PercentageType.valueOf(new String("50%")));
+        assertEquals(PercentageType.valueOf("50%"), new PercentageType(50.0));
+    }
+
+    @Test
+    public void test2() {
+        TimeType t1 = TimeType.valueOf("10s");
+        TimeType t2 = TimeType.valueOf("10s");
+        assertNotSame(t1, t2);
+        assertEquals(t1, t2);
+
+        t1.setSecond(20);
+        assertFalse(t1.equals(t2));
+        assertEquals("10s", t2.toString());
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        String xml = "<ncl><body><media id='m1' src='bg.png'>"+
+                "<area id='a1' begin='3s' end='7s'/><area id='a2' begin='3s' end='9s'/>"+
+                "</media><media id='m2' src='bg.png'/></body></ncl>";
+
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+
+        NCLMedia m = (NCLMedia) doc.getBody().getNodes().get("m1");
+        NCLArea a1 = (NCLArea) m.getAreas().get("a1");
+        NCLArea a2 = (NCLArea) m.getAreas().get("a2");
+        assertNotSame(a1.getBegin(), a2.getBegin());
+        assertEquals(a1.getBegin(), a2.getBegin());
+
+        NCLMedia m2 = (NCLMedia) doc.getBody().getNodes().get("m2");
+        assertSame(m.getSrc(), m2.getSrc());
+    }
+
+    @Test
+    public void test4() throws Exception {
+        final ValueCache<String> cache = new ValueCache<String>(4);
+        final String value = new String("v");
+        assertSame(value, cache.put("a", value));
+        assertSame(value, cache.get("a"));
+        assertSame(value, cache.put("a", new String("v")));
+
+        for(int i = 0; i < 10; i++)
+            cache.put("k" + i, "k" + i);
+        assertTrue(cache.size() <= 4);
+        
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void test5() throws Exception {
+        // the values interned by a thread are returned to the others
+        final SrcType[] values = new SrcType[2];
+        Thread[] threads = new Thread[2];
+        for(int i = 0; i < threads.length; i++){
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try{
+                        values[index] = SrcType.valueOf(new String("media/shared.png"));
+                    }catch(XMLException ex){}
+                }
+            });
+            threads[i].start();
+            threads[i].join();
+        }
+
+        assertNotNull(values[0]);
+        assertSame(values[0], values[1]);
+        assertSame(values[0], SrcType.valueOf("media/shared.png"));
+    }
+}
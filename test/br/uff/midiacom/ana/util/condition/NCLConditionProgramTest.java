@@ -0,0 +1,143 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.condition;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.connector.NCLCausalConnector;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.util.enums.NCLAttributeType;
+import br.uff.midiacom.ana.util.enums.NCLDefaultValueAssessment;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.enums.NCLKey;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLConditionProgramTest {
+
+    private static final String XML = "<ncl id='doc'><head><connectorBase>"+
+            "<causalConnector id='cc'><connectorParam name='keyCode'/><connectorParam name='val'/>"+
+            "<compoundCondition operator='and'><simpleCondition role='onSelection' key='$keyCode'/>"+
+            "<compoundStatement operator='or' isNegated='true'>"+
+            "<assessmentStatement comparator='gt'><attributeAssessment role='test' eventType='attribution' attributeType='nodeProperty' offset='1'/>"+
+            "<valueAssessment value='$val'/></assessmentStatement>"+
+            "<assessmentStatement comparator='eq'><attributeAssessment role='st' eventType='presentation' attributeType='state'/>"+
+            "<valueAssessment value='paused'/></assessmentStatement>"+
+            "</compoundStatement></compoundCondition><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<media id='m' type='video/mpeg'><property name='counter' value='3'/></media>"+
+            "<media id='m2' type='video/mpeg'/>"+
+            "<link id='l1' xconnector='cc'><linkParam name='val' value='5'/><linkParam name='keyCode' value='BLUE'/>"+
+            "<bind role='onSelection' component='m'><bindParam name='keyCode' value='RED'/></bind>"+
+            "<bind role='test' component='m' interface='counter'/><bind role='st' component='m'/>"+
+            "<bind role='start' component='m2'/></link>"+
+            "<link id='l2' xconnector='onBeginStart'><bind role='onBegin' component='m'/><bind role='start' component='m2'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    private static class Context implements NCLEvaluationContext {
+
+        private Object property;
+        private Object state;
+
+        private Context(Object property, Object state) {
+            this.property = property;
+            this.state = state;
+        }
+
+        @Override
+        public Object getAttribute(NCLBind bind, NCLEventType eventType, NCLAttributeType attributeType) {
+            return attributeType == NCLAttributeType.NODE_PROPERTY ? property : state;
+        }
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLCausalConnector cc = (NCLCausalConnector) doc.getHead().getConnectorBase().getCausalConnectors().get("cc");
+        NCLLink l1 = (NCLLink) doc.getBody().getLinks().get("l1");
+        NCLBind sel = (NCLBind) l1.getBinds().get(0);
+        NCLBind start = (NCLBind) l1.getBinds().get(3);
+
+        NCLConditionProgram program = NCLConditionProgram.compile(cc);
+        assertEquals(1, program.getConditionCount());
+        assertEquals(2, program.getAssessmentCount());
+        assertEquals(2, program.getSlotCount());
+
+        NCLLinkCondition condition = program.bind(l1);
+        Context sleeping = new Context("3", NCLDefaultValueAssessment.OCCURRING);
+
+        // the key comes from the bind parameter, not from the link parameter
+        assertTrue(condition.evaluate(sel, NCLKey.RED, sleeping));
+        assertTrue(condition.evaluate(sel, "RED", sleeping));
+        assertFalse(condition.evaluate(sel, NCLKey.BLUE, sleeping));
+        assertFalse(condition.evaluate(sel, null, sleeping));
+        assertFalse(condition.evaluate(start, NCLKey.RED, sleeping));
+
+        // 5 + 1 > 5 makes the negated statement false
+        assertFalse(condition.evaluate(sel, NCLKey.RED, new Context(5, NCLDefaultValueAssessment.OCCURRING)));
+        assertFalse(condition.evaluate(sel, NCLKey.RED, new Context("3", NCLDefaultValueAssessment.PAUSED)));
+        assertTrue(condition.evaluate(sel, NCLKey.RED, new Context("4", NCLDefaultValueAssessment.SLEEPING)));
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLCausalConnector cc = (NCLCausalConnector) doc.getHead().getConnectorBase().getCausalConnectors().get("cc");
+        NCLCausalConnector simple = (NCLCausalConnector) doc.getHead().getConnectorBase().getCausalConnectors().get("onBeginStart");
+        NCLLink l2 = (NCLLink) doc.getBody().getLinks().get("l2");
+
+        try{
+            NCLConditionProgram.compile(cc).bind(l2);
+            fail();
+        }catch(XMLException e){}
+
+        NCLLinkCondition condition = NCLConditionProgram.compile(simple).bind(l2);
+        assertTrue(condition.evaluate((NCLBind) l2.getBinds().get(0), null));
+        assertFalse(condition.evaluate((NCLBind) l2.getBinds().get(1), null));
+    }
+}
@@ -0,0 +1,82 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.enums;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLEnumCodecTest {
+
+    @Test
+    public void test1() {
+        for(NCLMimeType t : NCLMimeType.values()){
+            assertSame(t, NCLMimeType.getEnumType(t.toString()));
+            assertSame(t, NCLMimeType.getEnumType(new StringBuilder(t.toString())));
+        }
+        for(NCLKey k : NCLKey.values())
+            assertSame(k, NCLKey.getEnumType(k.toString()));
+
+        assertNull(NCLMimeType.getEnumType("text/htm"));
+        assertNull(NCLMimeType.getEnumType(""));
+        assertNull(NCLMimeType.getEnumType((String) null));
+    }
+
+    @Test
+    public void test2() {
+        char[] buffer = "<media type=\"image/png\"/>".toCharArray();
+
+        assertSame(NCLMimeType.IMAGE_PNG, NCLMimeType.getEnumType(buffer, 13, 9));
+        assertNull(NCLMimeType.getEnumType(buffer, 13, 8));
+        assertSame(NCLFit.MEET_BEST, NCLFit.getEnumType("xmeetBest".toCharArray(), 1, 8));
+    }
+
+    @Test
+    public void test3() {
+        NCLEnumCodec<NCLSystemVariable> codec = new NCLEnumCodec<NCLSystemVariable>(NCLSystemVariable.values());
+
+        for(NCLSystemVariable v : NCLSystemVariable.values()){
+            assertEquals(v.toString(), codec.encode(v));
+            assertEquals(v.toString(), codec.decode(codec.encode(v)).toString());
+        }
+        assertNull(codec.encode(null));
+
+        // repeated values decode to the first constant declared
+        assertSame(NCLSystemVariable.SYSTEM_SCREENSIZE, codec.decode("system.screenSize"));
+    }
+}
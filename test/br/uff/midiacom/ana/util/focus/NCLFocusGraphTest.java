@@ -0,0 +1,151 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.focus;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.descriptor.NCLDescriptorBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLKey;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLFocusGraphTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<descriptorBase>"+
+            "<descriptor id='d1' focusIndex='1' moveRight='2' moveDown='3'/>"+
+            "<descriptor id='d2' focusIndex='2' moveLeft='1'/>"+
+            "<descriptorSwitch id='ds'>"+
+            "<descriptor id='a' focusIndex='3' moveUp='1'/><descriptor id='b' focusIndex='3' moveUp='2'/>"+
+            "<defaultDescriptor descriptor='a'/></descriptorSwitch>"+
+            "<descriptor id='d4' focusIndex='5' moveLeft='2'/>"+
+            "</descriptorBase>"+
+            "</head><body id='b'/></ncl>";
+
+    private NCLDoc doc;
+    private NCLDescriptorBase base;
+    private NCLFocusGraph graph;
+
+    private void load() throws XMLException {
+        doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        base = (NCLDescriptorBase) doc.getHead().getDescriptorBase();
+        graph = new NCLFocusGraph(doc);
+    }
+
+    private NCLDescriptor desc(String id) throws XMLException {
+        return (NCLDescriptor) doc.getHead().findDescriptor(null, id);
+    }
+
+    private String ids(List<NCLDescriptor> descs) {
+        String result = "";
+        for(NCLDescriptor desc : descs)
+            result += (result.isEmpty() ? "" : " ") + desc.getId();
+        return result;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        load();
+        assertEquals(5, graph.size());
+        assertEquals("[1, 2, 3, 5]", graph.getFocusIndexes().toString());
+        assertEquals(new Integer(1), graph.getFirstFocusIndex());
+        assertEquals(new Integer(5), graph.getNextFocusIndex(3));
+        assertEquals(new Integer(3), graph.getPreviousFocusIndex(5));
+
+        // the alternatives of the switch share the focus index
+        assertEquals("a b", ids(graph.getDescriptors(3)));
+
+        NCLDescriptor d1 = desc("d1");
+        assertSame(desc("d2"), graph.move(d1, NCLKey.RIGHT));
+        assertEquals(new Integer(3), graph.getMove(d1, NCLKey.DOWN));
+        assertSame(desc("a"), graph.move(d1, NCLKey.DOWN));
+        assertNull(graph.move(d1, NCLKey.LEFT));
+        assertNull(graph.move(d1, NCLKey.ENTER));
+        assertSame(d1, graph.move(desc("a"), NCLKey.UP));
+        assertTrue(graph.getDanglingMoves().isEmpty());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        load();
+        NCLDescriptor d1 = desc("d1");
+        NCLDescriptor d2 = desc("d2");
+
+        // the moves to a descriptor follow its new focus index
+        d2.setFocusIndex(7);
+        graph.modifiedElement(new NCLNotification((NCLElement) d2, NCLElementAttributes.FOCUSINDEX, 2, 7));
+        assertNull(graph.getDescriptor(2));
+        assertEquals(new Integer(7), graph.getMove(d1, NCLKey.RIGHT));
+        assertSame(d2, graph.move(desc("b"), NCLKey.UP));
+        assertEquals("[1, 3, 5, 7]", graph.getFocusIndexes().toString());
+
+        NCLDescriptor d4 = desc("d4");
+        base.removeDescriptor(d4);
+        graph.modifiedElement(new NCLNotification((NCLElement) base, (NCLElement) d4));
+        assertEquals(4, graph.size());
+        assertFalse(graph.contains(d4));
+
+        NCLDescriptor missing = new NCLDescriptor("missing");
+        missing.setFocusIndex(9);
+        d1.setMoveLeft(missing);
+        graph.modifiedElement(new NCLNotification((NCLElement) d1, NCLElementAttributes.MOVELEFT, null, missing));
+        assertEquals("d1", ids(graph.getDanglingMoves()));
+        assertEquals(Arrays.asList(NCLKey.LEFT), graph.getDanglingKeys(d1));
+
+        NCLElement ds = (NCLElement) base.getDescriptor("ds");
+        base.removeDescriptor("ds");
+        graph.modifiedElement(new NCLNotification((NCLElement) base, ds));
+        assertEquals(2, graph.size());
+        assertTrue(graph.isDangling(d1, NCLKey.DOWN));
+        assertEquals(Arrays.asList(NCLKey.LEFT, NCLKey.DOWN), graph.getDanglingKeys(d1));
+
+        base.addDescriptor(d4);
+        graph.modifiedElement(new NCLNotification((NCLElement) d4));
+        assertSame(d4, graph.getDescriptor(5));
+        assertSame(d2, graph.move(d4, NCLKey.LEFT));
+    }
+}
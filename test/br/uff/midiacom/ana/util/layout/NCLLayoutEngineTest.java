@@ -0,0 +1,130 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.layout;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLLayoutEngineTest {
+
+    private static final String XML = "<ncl id='doc'><head><regionBase>"+
+            "<region id='full'>"+
+            "<region id='half' left='50%' top='10%' width='50%'>"+
+            "<region id='inner' right='10' bottom='20%' width='100' height='50%'/>"+
+            "</region>"+
+            "<region id='over' left='10' width='100' right='10' top='5' bottom='5'/>"+
+            "</region>"+
+            "<region id='side' right='25%'/>"+
+            "</regionBase></head><body id='b'/></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLRegionBase base = (NCLRegionBase) doc.getHead().getRegionBases().get(0);
+        NCLRegion full = (NCLRegion) base.getRegion("full");
+        NCLRegion half = (NCLRegion) full.getRegion("half");
+        NCLRegion inner = (NCLRegion) half.getRegion("inner");
+        NCLLayoutEngine engine = new NCLLayoutEngine();
+
+        assertEquals(new NCLRectangle(0, 0, 1920, 1080), engine.getBounds(full, 1920, 1080));
+        assertEquals(new NCLRectangle(960, 108, 960, 972), engine.getBounds(half, 1920, 1080));
+        assertEquals(new NCLRectangle(1810, 400, 100, 486), engine.getBounds(inner, 1920, 1080));
+        // the right side is ignored when the left side and the width are given
+        assertEquals(new NCLRectangle(10, 5, 100, 1070), engine.getBounds((NCLRegion) full.getRegion("over"), 1920, 1080));
+        assertEquals(new NCLRectangle(0, 0, 1440, 1080), engine.getBounds((NCLRegion) base.getRegion("side"), 1920, 1080));
+
+        // each resolution has its own rectangles
+        assertEquals(new NCLRectangle(640, 72, 640, 648), engine.getBounds(half, 1280, 720));
+        assertSame(engine.getBounds(inner, 1920, 1080), engine.getBounds(inner, 1920, 1080));
+
+        Map<NCLRegion, NCLRectangle> all = engine.layout(base, 1920, 1080);
+        assertEquals(5, all.size());
+        assertSame(full, all.keySet().iterator().next());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLRegionBase base = (NCLRegionBase) doc.getHead().getRegionBases().get(0);
+        NCLRegion full = (NCLRegion) base.getRegion("full");
+        NCLRegion half = (NCLRegion) full.getRegion("half");
+        NCLRegion inner = (NCLRegion) half.getRegion("inner");
+        NCLRegion over = (NCLRegion) full.getRegion("over");
+        NCLLayoutEngine engine = new NCLLayoutEngine();
+
+        NCLRectangle r1 = engine.getBounds(inner, 1920, 1080);
+        NCLRectangle r2 = engine.getBounds(over, 1920, 1080);
+        NCLRectangle r3 = engine.getBounds(inner, 1280, 720);
+
+        // only the subtree of the region changed is computed again
+        Object old = half.getLeft();
+        half.setLeft(0);
+        engine.modifiedElement(new NCLNotification((NCLElement) half, NCLElementAttributes.LEFT, old, 0));
+        assertSame(r2, engine.getBounds(over, 1920, 1080));
+        assertEquals(new NCLRectangle(850, 400, 100, 486), engine.getBounds(inner, 1920, 1080));
+        assertNotSame(r1, engine.getBounds(inner, 1920, 1080));
+        assertEquals(new NCLRectangle(530, 266, 100, 324), engine.getBounds(inner, 1280, 720));
+        assertNotSame(r3, engine.getBounds(inner, 1280, 720));
+
+        // attributes that do not change the geometry keep the rectangles
+        r1 = engine.getBounds(inner, 1920, 1080);
+        engine.modifiedElement(new NCLNotification((NCLElement) inner, NCLElementAttributes.ZINDEX, null, 2));
+        assertSame(r1, engine.getBounds(inner, 1920, 1080));
+
+        full.setWidth("50%");
+        engine.invalidate(full);
+        assertEquals(new NCLRectangle(0, 0, 960, 1080), engine.getBounds(full, 1920, 1080));
+        assertEquals(new NCLRectangle(0, 108, 480, 972), engine.getBounds(half, 1920, 1080));
+    }
+}
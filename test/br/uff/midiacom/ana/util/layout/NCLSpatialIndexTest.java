@@ -0,0 +1,136 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.layout;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.region.NCLRegion;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSpatialIndexTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<regionBase id='rb1'>"+
+            "<region id='bg'/>"+
+            "<region id='video' left='0' top='0' width='50%' height='50%' zIndex='1'>"+
+            "<region id='sub' width='50%'/></region>"+
+            "<region id='logo' left='40%' top='40%' width='20%' height='20%' zIndex='2'/>"+
+            "</regionBase>"+
+            "<regionBase id='rb2'><region id='menu' right='0' width='200' zIndex='1'/></regionBase>"+
+            "<descriptorBase><descriptor id='d1' region='video'/></descriptorBase>"+
+            "</head><body id='b'/></ncl>";
+
+    private NCLDoc doc;
+    private NCLRegionBase rb1;
+    private NCLSpatialIndex index;
+
+    private void load() throws XMLException {
+        doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        rb1 = (NCLRegionBase) doc.getHead().getRegionBases().get(0);
+        index = new NCLSpatialIndex(new NCLLayoutEngine(), 1000, 1000, 100);
+        index.addRegionBase(rb1);
+        index.addRegionBase((NCLRegionBase) doc.getHead().getRegionBases().get(1));
+    }
+
+    private String ids(List<NCLRegion> regions) {
+        String result = "";
+        for(NCLRegion region : regions)
+            result += (result.isEmpty() ? "" : " ") + region.getId();
+        return result;
+    }
+
+    private NCLRegion region(String id) throws XMLException {
+        return (NCLRegion) doc.getHead().findRegion(null, null, id);
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        load();
+        assertEquals(5, index.size());
+
+        assertEquals("logo video bg", ids(index.getRegionsAt(450, 450)));
+        assertEquals("menu bg", ids(index.getRegionsAt(900, 100)));
+        assertEquals("video sub bg", ids(index.getRegionsIn(new NCLRectangle(0, 0, 100, 100))));
+        assertEquals("", ids(index.getRegionsAt(-5, 2000)));
+
+        // the region inside the video does not occlude it
+        assertEquals("logo", ids(index.getOccluders(region("video"))));
+        assertEquals(5, index.getOverlaps().size());
+
+        List<NCLDescriptor> descs = index.getDescriptorsAt(10, 10);
+        assertEquals(1, descs.size());
+        assertEquals("d1", descs.get(0).getId());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        load();
+        NCLRegion logo = region("logo");
+        NCLRegion bg = region("bg");
+
+        Object old = logo.getLeft();
+        logo.setLeft(700);
+        index.modifiedElement(new NCLNotification((NCLElement) logo, NCLElementAttributes.LEFT, old, 700));
+        assertEquals("video bg", ids(index.getRegionsAt(450, 450)));
+        assertEquals("logo bg", ids(index.getRegionsAt(750, 450)));
+        assertEquals(new NCLRectangle(700, 400, 200, 200), index.getBounds(logo));
+
+        bg.setzIndex(10);
+        index.modifiedElement(new NCLNotification((NCLElement) bg, NCLElementAttributes.ZINDEX, null, 10));
+        assertSame(bg, index.getTopRegionAt(100, 100));
+
+        rb1.removeRegion(logo);
+        index.modifiedElement(new NCLNotification((NCLElement) rb1, (NCLElement) logo));
+        assertEquals(4, index.size());
+        assertEquals("bg", ids(index.getRegionsAt(750, 450)));
+
+        rb1.addRegion(logo);
+        index.modifiedElement(new NCLNotification((NCLElement) logo));
+        assertEquals("bg logo", ids(index.getRegionsAt(750, 450)));
+    }
+}
@@ -0,0 +1,218 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.loader;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.region.NCLRegionBase;
+import br.uff.midiacom.ana.reuse.NCLImportBase;
+import br.uff.midiacom.ana.rule.NCLRule;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.util.ncl.NCLVariable;
+import br.uff.midiacom.ana.util.exception.NCLParsingException;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+
+public class NCLBatchLoaderTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test1() throws XMLException, IOException {
+        File dir = folder.newFolder("docs");
+        File sub = new File(dir, "sub");
+        sub.mkdir();
+        
+        write(new File(dir, "base.xml"), "<ncl id='base'><head><regionBase>"+
+                "<region id='rgTV'/></regionBase></head></ncl>");
+        for(int i = 0; i < 5; i++){
+            write(new File(i % 2 == 0 ? dir : sub, "doc" + i + ".ncl"),
+                    "<ncl id='doc" + i + "'><head><regionBase>"+
+                    "<importBase alias='b' documentURI='" + (i % 2 == 0 ? "" : "../") + "base.xml'/>"+
+                    "</regionBase></head></ncl>");
+        }
+        write(new File(dir, "broken.ncl"), "<ncl id='broken'><head>");
+        
+        Listener listener = new Listener();
+        NCLBatchLoader loader = new NCLBatchLoader(3);
+        loader.load(dir, listener);
+        
+        assertEquals(5, listener.loaded.size());
+        assertEquals(1, listener.failed.size());
+        assertEquals(1, loader.getImportCache().size());
+        
+        NCLDoc imported = null;
+        for(NCLDoc d : listener.loaded){
+            NCLRegionBase rb = (NCLRegionBase) d.getHead().getRegionBases().get(0);
+            NCLDoc aux = ((NCLImportBase) rb.getImportBases().get(0)).getImportedDoc();
+            if(imported == null)
+                imported = aux;
+            assertSame(imported, aux);
+        }
+        
+        loader.shutdown();
+    }
+
+    @Test
+    public void test2() throws XMLException, IOException {
+        File dir = folder.newFolder("docs");
+        write(new File(dir, "base.xml"), "<ncl id='base'><head><regionBase>"+
+                "<region id='rgTV'/></regionBase></head></ncl>");
+        for(int i = 0; i < 2; i++){
+            write(new File(dir, "doc" + i + ".ncl"), "<ncl id='doc" + i + "'><head><regionBase>"+
+                    "<importBase alias='b' documentURI='base.xml'/></regionBase></head>"+
+                    "<body><media id='m1'/></body></ncl>");
+        }
+        
+        Listener listener = new Listener();
+        NCLBatchLoader loader = new NCLBatchLoader(2);
+        loader.load(dir, listener);
+        NCLImportCache cache = loader.getImportCache();
+        
+        NCLDoc d1 = listener.loaded.get(0);
+        NCLDoc d2 = listener.loaded.get(1);
+        NCLRegionBase rb = (NCLRegionBase) d1.getHead().getRegionBases().get(0);
+        NCLDoc imported = ((NCLImportBase) rb.getImportBases().get(0)).getImportedDoc();
+        assertEquals(2, cache.getReferenceCount(imported));
+        
+        try{
+            imported.release();
+            fail();
+        }catch(XMLException e){}
+        
+        // the imported document is still used by the second document
+        assertFalse(d1.release());
+        assertNull(d1.getBody());
+        assertEquals(1, cache.getReferenceCount(imported));
+        assertEquals(1, cache.size());
+        
+        assertTrue(d2.release());
+        assertNull(d2.getHead());
+        assertEquals(0, cache.getReferenceCount(imported));
+        assertEquals(0, cache.size());
+        assertNull(imported.getHead());
+        
+        // released documents are in a terminal state
+        assertTrue(d2.release());
+        d2.clean();
+        d1.clean();
+        try{
+            d2.fixReferences();
+            fail();
+        }catch(IllegalStateException e){}
+        
+        loader.shutdown();
+    }
+    
+    
+    @Test
+    public void test3() throws XMLException, IOException {
+        File dir = folder.newFolder("docs");
+        write(new File(dir, "rules.xml"), "<ncl id='rules'><head><ruleBase>"+
+                "<rule id='r1' var='x' comparator='eq' value='1'/></ruleBase></head></ncl>");
+        for(int i = 0; i < 2; i++){
+            write(new File(dir, "doc" + i + ".ncl"), "<ncl id='doc" + i + "'><head><ruleBase>"+
+                    "<importBase alias='r' documentURI='rules.xml'/>"+
+                    "<rule id='r2' var='x' comparator='eq' value='2'/></ruleBase></head></ncl>");
+        }
+        
+        Listener listener = new Listener();
+        NCLBatchLoader loader = new NCLBatchLoader(2);
+        loader.load(dir, listener);
+        assertEquals(2, listener.loaded.size());
+        
+        NCLDoc imported = null;
+        NCLVariable[] vars = new NCLVariable[2];
+        for(int i = 0; i < 2; i++){
+            NCLDoc d = listener.loaded.get(i);
+            NCLRuleBase rb = (NCLRuleBase) d.getHead().getRuleBase();
+            imported = ((NCLImportBase) rb.getImportBases().get(0)).getImportedDoc();
+            NCLRule r1 = (NCLRule) ((NCLRuleBase) imported.getHead().getRuleBase()).getRule("r1");
+            NCLRule r2 = (NCLRule) rb.getRule("r2");
+            
+            // each document binds the imported rule to its own variable
+            vars[i] = r2.getVar();
+            assertSame(d.getGlobalVariable("x"), vars[i]);
+            assertSame(vars[i], d.getImportedVariable(r1.getVar()));
+            assertSame(imported, r1.getVar().getDoc());
+            assertEquals(1, vars[i].getReferences().size());
+        }
+        assertNotSame(vars[0], vars[1]);
+        
+        // the shared document is not changed by the documents importing it
+        assertEquals(1, imported.getGlobalVariables().size());
+        NCLVariable x = (NCLVariable) imported.getGlobalVariable("x");
+        assertEquals(1, x.getReferences().size());
+        
+        loader.shutdown();
+    }
+    
+    
+    private void write(File file, String content) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+    }
+    
+    
+    private class Listener implements NCLBatchListener<NCLDoc> {
+        
+        public List<NCLDoc> loaded = Collections.synchronizedList(new ArrayList<NCLDoc>());
+        public List<File> failed = Collections.synchronizedList(new ArrayList<File>());
+
+        @Override
+        public void loadedDocument(File file, NCLDoc doc) {
+            loaded.add(doc);
+        }
+
+        @Override
+        public void failedDocument(File file, NCLParsingException ex) {
+            failed.add(file);
+        }
+    }
+}
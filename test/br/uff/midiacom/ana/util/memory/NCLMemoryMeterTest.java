@@ -0,0 +1,115 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.memory;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLHead;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.reuse.NCLImportNCL;
+import br.uff.midiacom.ana.reuse.NCLImportedDocumentBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLMemoryMeterTest {
+
+    @Test
+    public void test1() throws XMLException {
+        String xml = "<ncl id='doc'><body id='b'>"+
+                "<media id='m1' src='a.png'><area id='a1' begin='3s'/></media>"+
+                "<media id='m2' src='a.png'><area id='a2' begin='3s'/></media>"+
+                "</body></ncl>";
+
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+        NCLMemoryReport report = NCLMemoryMeter.measure(doc);
+
+        NCLBody body = doc.getBody();
+        NCLMedia m1 = (NCLMedia) body.getNodes().get("m1");
+        NCLMedia m2 = (NCLMedia) body.getNodes().get("m2");
+
+        assertEquals(6, report.getElementCount());
+        assertEquals(2, report.getCount(NCLMedia.class));
+        assertEquals(report.getShallowSize(m1) + report.getShallowSize(m2), report.getSize(NCLMedia.class));
+
+        assertTrue(report.getShallowSize(m1) > 0);
+        assertTrue(report.getRetainedSize(m1) > report.getShallowSize(m1));
+        assertEquals(report.getShallowSize(body) + report.getRetainedSize(m1) + report.getRetainedSize(m2),
+                report.getRetainedSize(body));
+        assertEquals(report.getShallowSize(doc) + report.getRetainedSize(body), report.getRetainedSize());
+
+        // the source and begin values are shared by the two media
+        assertTrue(report.getSharedSize() > 0);
+        assertEquals(0, report.getImportedSize());
+        assertEquals(-1, report.getShallowSize(new NCLMedia("m3")));
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader("<ncl id='doc'><body id='b'/></ncl>").getElement());
+
+        NCLDoc imported = new NCLDoc();
+        imported.load(new XMLLoader("<ncl id='lib'><body id='b'><media id='m1'/></body></ncl>").getElement());
+
+        NCLHead head = new NCLHead();
+        NCLImportedDocumentBase base = new NCLImportedDocumentBase();
+        NCLImportNCL i1 = new NCLImportNCL();
+        NCLImportNCL i2 = new NCLImportNCL();
+        i1.setAlias("a1");
+        i2.setAlias("a2");
+        i1.setImportedDoc(imported);
+        i2.setImportedDoc(imported);
+        base.addImportNCL(i1);
+        base.addImportNCL(i2);
+        head.setImportedDocumentBase(base);
+        doc.setHead(head);
+
+        NCLMemoryReport report = NCLMemoryMeter.measure(doc);
+        NCLMemoryReport aux = NCLMemoryMeter.measure(imported);
+
+        assertEquals(1, report.getImportedDocuments().size());
+        assertSame(imported, report.getImportedDocuments().get(0));
+        assertEquals(aux.getRetainedSize() + aux.getSharedSize(), report.getImportedSize());
+        assertEquals(-1, report.getRetainedSize(imported.getBody()));
+        assertEquals(report.getRetainedSize() + report.getSharedSize() + report.getImportedSize(), report.getTotalSize());
+    }
+}
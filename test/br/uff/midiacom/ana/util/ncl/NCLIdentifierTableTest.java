@@ -0,0 +1,118 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.ncl;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLIdentifierTableTest {
+
+    @Test
+    public void test1() {
+        assertTrue(NCLIdentifierTable.isValid("m1"));
+        assertTrue(NCLIdentifierTable.isValid("_a:b-c.d"));
+        assertFalse(NCLIdentifierTable.isValid("1m"));
+        assertFalse(NCLIdentifierTable.isValid("-m"));
+        assertFalse(NCLIdentifierTable.isValid("m#1"));
+        assertFalse(NCLIdentifierTable.isValid("mídia"));
+        assertFalse(NCLIdentifierTable.isValid(""));
+        assertFalse(NCLIdentifierTable.isValid(null));
+    }
+
+    @Test
+    public void test2() {
+        NCLIdentifierTable table = new NCLIdentifierTable();
+        for(int i = 0; i < 100; i++)
+            assertEquals(i, table.handle("id" + i));
+
+        assertEquals(100, table.size());
+        assertEquals(42, table.getHandle(new StringBuilder("id42")));
+        assertEquals(-1, table.getHandle("id100"));
+        assertEquals("id7", table.getIdentifier(7));
+        assertNull(table.getIdentifier(100));
+
+        String id = new String("id5");
+        assertNotSame(id, table.intern(id));
+        assertSame(table.getIdentifier(5), table.intern(id));
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.setBody(new NCLBody());
+
+        NCLMedia m = new NCLMedia(new String("m1"));
+        doc.getBody().addNode(m);
+
+        NCLIdentifierTable table = doc.getIdentifierTable();
+        int handle = table.getHandle("m1");
+        assertTrue(handle >= 0);
+        assertSame(table.getIdentifier(handle), m.getId());
+
+        m.setId(new String("m2"));
+        assertSame(table.getIdentifier(table.getHandle("m2")), m.getId());
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        String xml = "<ncl><body>"+
+                "<port id='p1' component='m1'/>"+
+                "<media id='m1'/>"+
+                "</body></ncl>";
+
+        XMLLoader loader = new XMLLoader(xml);
+        NCLDoc doc = new NCLDoc();
+        doc.load(loader.getElement());
+
+        NCLIdentifierTable table = doc.getIdentifierTable();
+        NCLPort p = (NCLPort) doc.getBody().getPorts().get("p1");
+        NCLMedia m = (NCLMedia) doc.getBody().getNodes().get("m1");
+
+        assertEquals(table.getHandle("p1"), p.getIdHandle());
+        assertEquals(table.getHandle("m1"), m.getIdHandle());
+        assertSame(table.getIdentifier(m.getIdHandle()), m.getId());
+        assertSame(m.getId(), p.getComponent().getId());
+    }
+}
@@ -0,0 +1,189 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.query;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.enums.NCLMimeType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLQueryTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<regionBase><region id='rg1'/><region id='rg2'/></regionBase>"+
+            "<descriptorBase><descriptor id='d1' region='rg1'/><descriptor id='d2' region='rg1'/>"+
+            "<descriptor id='d3' region='rg2'/></descriptorBase>"+
+            "<connectorBase>"+
+            "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onEndStop'><simpleCondition role='onEnd'/><simpleAction role='stop'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<port id='p1' component='v1'/>"+
+            "<media id='v1' type='video/mpeg' descriptor='d1'/>"+
+            "<context id='c1'><media id='v2' type='video/mpeg'/><media id='i1' type='image/png' descriptor='d3'/>"+
+            "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='v2'/><bind role='start' component='i1'/></link>"+
+            "</context>"+
+            "<link id='l2' xconnector='onEndStop'><bind role='onEnd' component='v1'/><bind role='stop' component='c1'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    private String ids(List<NCLElement> elements) {
+        String result = "";
+        for(NCLElement e : elements){
+            if(!result.isEmpty())
+                result += ",";
+            result += ((NCLIdentifiableElementPrototype) e).getId();
+        }
+        return result;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+
+        assertEquals("v1,v2,i1", ids(NCLQuery.compile("media").selectAll(doc)));
+        assertEquals("v1,v2", ids(NCLQuery.compile("media[type^=video]").selectAll(doc)));
+        assertEquals("v2,i1", ids(NCLQuery.compile("context#c1 media").selectAll(doc)));
+        assertEquals("l1", ids(NCLQuery.compile("context#c1 > link").selectAll(doc)));
+        assertEquals("l1,l2", ids(NCLQuery.compile("body link").selectAll(doc)));
+        assertEquals("v1,i1", ids(NCLQuery.compile("media[descriptor]").selectAll(doc)));
+        assertEquals("i1", ids(NCLQuery.compile("media[type='image/png']").selectAll(doc)));
+        assertEquals("c1,v1", ids(NCLQuery.compile("context, media#v1").selectAll(doc)));
+        assertEquals("rg1,rg2", ids(NCLQuery.compile("regionBase > region").selectAll(doc)));
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+
+        // answered by the elements that refer
+        assertEquals("d1,d2", ids(NCLQuery.compile("descriptor[region=#rg1]").selectAll(doc)));
+        assertEquals("l2", ids(NCLQuery.compile("link[xconnector=#onEndStop]").selectAll(doc)));
+        assertEquals("l1", ids(NCLQuery.compile("body link[xconnector=#onBeginStart]").selectAll(doc)));
+        assertEquals("", ids(NCLQuery.compile("descriptor[region=#none]").selectAll(doc)));
+
+        // answered by the search methods
+        assertEquals("i1", ids(NCLQuery.compile("media#i1").selectAll(doc)));
+        assertEquals("rg2", ids(NCLQuery.compile("region#rg2").selectAll(doc)));
+        assertEquals("", ids(NCLQuery.compile("context media#v1").selectAll(doc)));
+
+        // restricted to the root
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        assertEquals("v2,i1", ids(NCLQuery.compile("media").selectAll(c1)));
+        assertEquals("", ids(NCLQuery.compile("media#v1").selectAll(c1)));
+        assertTrue(NCLQuery.compile("context media").matches((NCLElement) c1.getNodes().get("v2"), doc));
+        assertFalse(NCLQuery.compile("body media").matches((NCLElement) c1.getNodes().get("v2"), c1));
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        NCLDoc doc = load();
+
+        Iterator<NCLElement> it = NCLQuery.select(doc, "*").iterator();
+        assertSame(doc, it.next());
+        assertSame(doc.getHead(), it.next());
+        assertNotNull(NCLQuery.compile("bind").selectFirst(doc));
+        assertNull(NCLQuery.compile("area").selectFirst(doc));
+
+        String[] invalid = {"", "media[", "media[type~=x]", "media >", "media,,link", "media[type='x]"};
+        for(String q : invalid){
+            try{
+                NCLQuery.compile(q);
+                fail(q);
+            }catch(XMLException e){}
+        }
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        NCLDoc doc = load();
+
+        // quoted references are references too
+        assertEquals("l1", ids(NCLQuery.compile("link[xconnector='#onBeginStart']").selectAll(doc)));
+        assertEquals("d1,d2", ids(NCLQuery.compile("descriptor[region=\"#rg1\"]").selectAll(doc)));
+        assertEquals("", ids(NCLQuery.compile("link[xconnector!='#onBeginStart'][id=l1]").selectAll(doc)));
+    }
+
+    @Test
+    public void test5() throws XMLException {
+        NCLDoc doc = load();
+        NCLTypeIndex index = new NCLTypeIndex(doc);
+        NCLQuery query = NCLQuery.compile("media[type^=video]");
+
+        assertEquals(3, index.getElements("media").size());
+        assertEquals(2, index.getElements("link").size());
+        assertTrue(index.getElements("area").isEmpty());
+        assertEquals("v1,v2", ids(list(query.select(doc, index))));
+
+        // only the elements inside the root are returned
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        assertEquals("v2", ids(list(query.select(c1, index))));
+        assertEquals("v2,i1", ids(list(NCLQuery.compile("context#c1 media").select(doc, index))));
+
+        // an index of another tree is not used
+        NCLTypeIndex other = new NCLTypeIndex(c1);
+        assertEquals("v1,v2", ids(list(query.select(doc, other))));
+
+        NCLMedia v3 = new NCLMedia("v3");
+        v3.setType(NCLMimeType.VIDEO_MPEG);
+        doc.getBody().addNode(v3);
+        index.invalidate();
+        assertEquals("v1,v2,v3", ids(list(query.select(doc, index))));
+    }
+
+    private List<NCLElement> list(Iterable<NCLElement> elements) {
+        List<NCLElement> result = new ArrayList<NCLElement>();
+        for(NCLElement e : elements)
+            result.add(e);
+        return result;
+    }
+}
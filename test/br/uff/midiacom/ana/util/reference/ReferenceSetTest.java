@@ -0,0 +1,228 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.reference;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.descriptor.NCLDescriptor;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class ReferenceSetTest {
+
+    @Test
+    public void test1() throws XMLException {
+        ReferenceSet<Object> refs = new ReferenceSet<Object>();
+        NCLArea a1 = new NCLArea("a1");
+        NCLPort p1 = new NCLPort("p1");
+        NCLPort p2 = new NCLPort("p1");
+
+        refs.add(a1);
+        refs.add(p1);
+        refs.add(p1);
+        refs.add(p2);
+        assertEquals(4, refs.size());
+        assertEquals(2, refs.count(p1));
+        assertEquals(1, refs.count(p2));
+
+        // references are compared by identity
+        assertTrue(refs.remove(p1));
+        assertEquals(1, refs.count(p1));
+        assertEquals(1, refs.count(p2));
+        assertFalse(refs.remove(new NCLPort("p3")));
+
+        assertEquals(2, refs.getKinds().size());
+        assertEquals(2, refs.getReferences(NCLPort.class).size());
+        assertEquals(1, refs.getReferencesByKind().get(NCLArea.class).size());
+
+        int count = 0;
+        Iterator<Object> it = refs.iterator();
+        while(it.hasNext()){
+            it.next();
+            count++;
+        }
+        assertEquals(3, count);
+
+        refs.remove(a1);
+        assertEquals(1, refs.getKinds().size());
+        assertTrue(refs.getReferences(NCLArea.class).isEmpty());
+        refs.clear();
+        assertTrue(refs.isEmpty());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        String xml = "<ncl><head><regionBase><region id='rg1'/></regionBase>"+
+                "<descriptorBase><descriptor id='d1' region='rg1'/><descriptor id='d2' region='rg1'/></descriptorBase></head>"+
+                "<body><port id='p1' component='m1'/><media id='m1' descriptor='d1'/></body></ncl>";
+
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+
+        NCLMedia m1 = (NCLMedia) doc.getBody().getNodes().get("m1");
+        NCLDescriptor d1 = (NCLDescriptor) m1.getDescriptor();
+        ReferenceSet refs = d1.getRegion() instanceof ReferenceSetElement ?
+                ((ReferenceSetElement) d1.getRegion()).getReferenceSet() : null;
+
+        assertNotNull(refs);
+        assertEquals(2, refs.size());
+        List<NCLDescriptor> descs = refs.getReferences(NCLDescriptor.class);
+        assertEquals(2, descs.size());
+        assertTrue(descs.contains(d1));
+
+        assertEquals(1, m1.getReferenceSet().getReferences(NCLPort.class).size());
+        assertEquals(1, d1.getReferenceSet().count(m1));
+
+        // the list returned is a copy in the order the references were added
+        NCLDescriptor d2 = (NCLDescriptor) doc.getHead().getDescriptorBase().getDescriptors().get("d2");
+        ArrayList list = ((ReferredElement) d1.getRegion()).getReferences();
+        assertEquals(Arrays.asList(d1, d2), list);
+        list.clear();
+        assertEquals(2, refs.size());
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        ReferenceSet<Object> refs = new ReferenceSet<Object>();
+        NCLPort[] ports = new NCLPort[20];
+        NCLArea a1 = new NCLArea("a1");
+        for(int i = 0; i < ports.length; i++){
+            ports[i] = new NCLPort("p" + i);
+            refs.add(ports[i]);
+            if(i == 10)
+                refs.add(a1);
+        }
+        refs.add(ports[3]);
+        refs.remove(ports[5]);
+
+        List<Object> expected = new ArrayList<Object>();
+        for(int i = 0; i < ports.length; i++){
+            if(i == 5)
+                continue;
+            expected.add(ports[i]);
+            if(i == 3)
+                expected.add(ports[3]);
+            if(i == 10)
+                expected.add(a1);
+        }
+        assertEquals(expected, new ArrayList<Object>(refs));
+
+        expected.remove(a1);
+        expected.remove(4);
+        assertEquals(expected, refs.getReferences(NCLPort.class));
+        assertEquals(Arrays.asList((Class) NCLPort.class, NCLArea.class), refs.getKinds());
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        ReferenceSet<Object> refs = new ReferenceSet<Object>();
+        NCLArea a1 = new NCLArea("a1");
+        NCLPort p1 = new NCLPort("p1");
+        NCLPort p2 = new NCLPort("p2");
+        refs.add(p1);
+        refs.add(p1);
+        refs.add(a1);
+        refs.add(p2);
+
+        // removing through the iterator removes one reference at a time
+        Iterator<Object> it = refs.iterator();
+        assertSame(p1, it.next());
+        it.remove();
+        assertEquals(1, refs.count(p1));
+        assertSame(p1, it.next());
+        it.remove();
+        assertEquals(0, refs.count(p1));
+        assertSame(a1, it.next());
+        assertSame(p2, it.next());
+        assertFalse(it.hasNext());
+        assertEquals(Arrays.asList((Object) a1, p2), new ArrayList<Object>(refs));
+
+        try{
+            refs.iterator().remove();
+            fail();
+        }
+        catch(IllegalStateException ex){}
+
+        refs.add(p1);
+        refs.add(p1);
+        assertTrue(refs.removeAll(Arrays.asList(p1)));
+        assertEquals(0, refs.count(p1));
+        assertTrue(refs.retainAll(Arrays.asList(a1)));
+        assertEquals(Arrays.asList((Object) a1), new ArrayList<Object>(refs));
+        assertEquals(Arrays.asList((Class) NCLArea.class), refs.getKinds());
+    }
+
+    @Test
+    public void test5() throws XMLException {
+        final NCLPort p1 = new NCLPort("p1");
+
+        // an element that does not keep a reference set has its references copied
+        ReferredElement<NCLPort> el = new ReferredElement<NCLPort>() {
+
+            @Override
+            public boolean addReference(NCLPort reference) {
+                return false;
+            }
+
+            @Override
+            public boolean removeReference(NCLPort reference) {
+                return false;
+            }
+
+            @Override
+            public ArrayList<NCLPort> getReferences() {
+                ArrayList<NCLPort> result = new ArrayList<NCLPort>();
+                result.add(p1);
+                return result;
+            }
+        };
+        assertEquals(1, ReferenceSet.of(el).count(p1));
+
+        NCLMedia m1 = new NCLMedia("m1");
+        assertSame(m1.getReferenceSet(), ReferenceSet.of(m1));
+    }
+}
@@ -0,0 +1,208 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLBody;
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLArea;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.reuse.NCLImport;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.loader.NCLImportCache;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLProfileSpecializerTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<ruleBase>"+
+            "<rule id='rPt' var='system.language' comparator='eq' value='pt'/>"+
+            "<rule id='rEn' var='system.language' comparator='eq' value='en'/>"+
+            "<rule id='rBig' var='system.screenSize' comparator='gte' value='1280'/>"+
+            "</ruleBase>"+
+            "<descriptorBase><descriptorSwitch id='ds'>"+
+            "<descriptor id='dHd'/><descriptor id='dSd'/>"+
+            "<bindRule constituent='dHd' rule='rBig'/><defaultDescriptor descriptor='dSd'/>"+
+            "</descriptorSwitch></descriptorBase>"+
+            "<connectorBase><causalConnector id='onBeginStart'>"+
+            "<simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector></connectorBase>"+
+            "</head><body id='b'>"+
+            "<port id='pBody' component='sw' interface='spA'/>"+
+            "<media id='m0' descriptor='ds'/>"+
+            "<switch id='sw'><media id='vPt'><area id='aPt' begin='2s'/></media><media id='vEn'/>"+
+            "<switchPort id='spA'><mapping component='vPt' interface='aPt'/><mapping component='vEn'/></switchPort>"+
+            "<bindRule constituent='vPt' rule='rPt'/><bindRule constituent='vEn' rule='rEn'/></switch>"+
+            "<switch id='sw2'><media id='x'/><media id='y'/>"+
+            "<bindRule constituent='x' rule='rBig'/><defaultComponent component='y'/></switch>"+
+            "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='m0'/>"+
+            "<bind role='start' component='sw' interface='spA'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLProfileSpecializer<NCLDoc> specializer = new NCLProfileSpecializer<NCLDoc>(2);
+
+        Map<String, Object> pt = new HashMap<String, Object>();
+        pt.put("system.language", "pt");
+        pt.put("system.screenSize", 1920);
+        NCLDoc spec = specializer.specialize(doc, pt);
+        NCLBody body = (NCLBody) spec.getBody();
+
+        // the switches are replaced by the selected components
+        assertNull(body.getNode("sw"));
+        assertNull(body.getNode("sw2"));
+        assertNull(body.getNode("vEn"));
+        assertNull(body.getNode("y"));
+        NCLMedia vPt = (NCLMedia) body.getNode("vPt");
+        NCLArea aPt = (NCLArea) vPt.getArea("aPt");
+        assertNotNull(body.getNode("x"));
+
+        // references to the switch port follow the mapping
+        NCLPort port = (NCLPort) body.getPort("pBody");
+        assertSame(vPt, port.getComponent());
+        assertSame(aPt, port.getInterface());
+        NCLBind start = (NCLBind) ((NCLLink) body.getLinks().get("l1")).getBinds().get(1);
+        assertSame(vPt, start.getComponent());
+        assertSame(aPt, start.getInterface());
+
+        // the descriptor switch is replaced by the selected descriptor
+        Object dHd = spec.getHead().getDescriptorBase().getDescriptor("dHd");
+        assertNotNull(dHd);
+        assertSame(dHd, ((NCLMedia) body.getNode("m0")).getDescriptor());
+        assertNull(spec.getHead().getDescriptorBase().getDescriptor("ds"));
+
+        // the rules are no longer used
+        assertNull(spec.getHead().getRuleBase());
+
+        // the original document is not modified
+        assertTrue(doc.getBody().getNode("sw") instanceof NCLSwitch);
+        specializer.shutdown();
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLProfileSpecializer<NCLDoc> specializer = new NCLProfileSpecializer<NCLDoc>(2);
+
+        List<Map<String, Object>> profiles = new ArrayList<Map<String, Object>>();
+        for(String lang : new String[]{"pt", "en", "fr"}){
+            Map<String, Object> profile = new HashMap<String, Object>();
+            profile.put("system.language", lang);
+            profiles.add(profile);
+        }
+        List<NCLDoc> docs = specializer.specialize(doc, profiles);
+        assertEquals(3, docs.size());
+
+        NCLBody pt = (NCLBody) docs.get(0).getBody();
+        assertNotNull(pt.getNode("vPt"));
+        assertNull(pt.getNode("vEn"));
+
+        NCLBody en = (NCLBody) docs.get(1).getBody();
+        NCLBind start = (NCLBind) ((NCLLink) en.getLinks().get("l1")).getBinds().get(1);
+        assertSame(en.getNode("vEn"), start.getComponent());
+        assertNull(start.getInterface());
+
+        // nothing is selected, so the link, the port and the connector die
+        NCLBody fr = (NCLBody) docs.get(2).getBody();
+        assertNull(fr.getNode("sw"));
+        assertNull(fr.getNode("vPt"));
+        assertFalse(fr.hasLink());
+        assertFalse(fr.hasPort());
+        assertFalse(docs.get(2).getHead().getConnectorBase().hasCausalConnector());
+
+        // the screen size is not given, so these switches remain
+        assertTrue(fr.getNode("sw2") instanceof NCLSwitch);
+        assertNotNull(docs.get(2).getHead().getDescriptorBase().getDescriptor("ds"));
+        assertNotNull(docs.get(2).getHead().getRuleBase().getRule("rBig"));
+        assertNull(docs.get(2).getHead().getRuleBase().getRule("rPt"));
+        specializer.shutdown();
+    }
+
+    @Test
+    public void test3() throws XMLException, URISyntaxException {
+        NCLDoc doc = new NCLDoc();
+        doc.setImportCache(new NCLImportCache());
+        doc.loadXML(new File(getClass().getResource("../../../../../../doc.ncl").toURI()));
+        NCLProfileSpecializer<NCLDoc> specializer = new NCLProfileSpecializer<NCLDoc>(3);
+
+        List<Map<String, Object>> profiles = new ArrayList<Map<String, Object>>();
+        for(String lang : new String[]{"pt", "en", "fr"}){
+            Map<String, Object> profile = new HashMap<String, Object>();
+            profile.put("system.language", lang);
+            profiles.add(profile);
+        }
+        List<NCLDoc> docs = specializer.specialize(doc, profiles);
+
+        // each copy loads its own imported document
+        List<Object> imported = new ArrayList<Object>();
+        imported.add(importedDoc(doc));
+        for(NCLDoc spec : docs){
+            Object aux = importedDoc(spec);
+            assertNotNull(aux);
+            for(Object other : imported)
+                assertNotSame(other, aux);
+            imported.add(aux);
+            assertNull(spec.getImportCache());
+        }
+        specializer.shutdown();
+    }
+
+    private Object importedDoc(NCLDoc doc) throws XMLException {
+        NCLImport imp = (NCLImport) doc.getHead().getConnectorBase().getImportBases().get(0);
+        return imp.getImportedDoc();
+    }
+}
@@ -0,0 +1,130 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLRuleEngineTest {
+
+    private static final String XML = "<ncl id='doc'><head><ruleBase>"+
+            "<rule id='pt' var='system.language' comparator='eq' value='pt'/>"+
+            "<rule id='wide' var='system.screenSize' comparator='gte' value='1280'/>"+
+            "<compositeRule id='ptWide' operator='and'>"+
+            "<rule id='pt2' var='system.language' comparator='eq' value='pt'/>"+
+            "<compositeRule id='any' operator='or'>"+
+            "<rule id='big' var='system.screenSize' comparator='gt' value='1920'/>"+
+            "<rule id='user' var='mode' comparator='ne' value='simple'/>"+
+            "</compositeRule></compositeRule>"+
+            "</ruleBase></head><body id='b'>"+
+            "<media id='s' type='application/x-ginga-settings'>"+
+            "<property name='system.language' value='pt'/><property name='mode' value='simple'/></media>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLRuleBase base = (NCLRuleBase) doc.getHead().getRuleBase();
+        NCLRuleEngine engine = new NCLRuleEngine(base);
+
+        assertEquals(3, engine.getVariableCount());
+        assertEquals(7, engine.getRuleCount());
+        // children are placed before their parents
+        assertTrue(engine.indexOf("any") < engine.indexOf("ptWide"));
+        assertTrue(engine.indexOf("user") < engine.indexOf("any"));
+
+        NCLSettings settings = engine.newSettings(doc);
+        assertEquals("pt", settings.get("system.language"));
+        assertNull(settings.get("system.screenSize"));
+
+        NCLRuleResult result = engine.evaluate(settings);
+        assertTrue(result.isTrue("pt"));
+        assertFalse(result.isTrue("wide"));
+        assertFalse(result.isTrue("ptWide"));
+        assertTrue(result.isTrue(base.getRule("pt")));
+
+        // numbers are compared as numbers, not as strings
+        settings.set("system.screenSize", 1920);
+        result = engine.evaluate(settings);
+        assertTrue(result.isTrue("wide"));
+        assertFalse(result.isTrue("big"));
+        assertFalse(result.isTrue("ptWide"));
+
+        settings.set("mode", "advanced");
+        result = engine.evaluate(settings);
+        assertTrue(result.isTrue("any"));
+        assertTrue(result.isTrue("ptWide"));
+
+        assertFalse(settings.set("unknown", "x"));
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLRuleEngine engine = new NCLRuleEngine((NCLRuleBase) doc.getHead().getRuleBase());
+
+        NCLSettings settings = engine.newSettings();
+        settings.set("system.language", "en");
+        NCLRuleResult first = engine.evaluate(settings);
+        assertSame(first, engine.evaluate(settings));
+
+        // the same state gives the memoized result
+        settings.set("system.language", "pt");
+        NCLRuleResult second = engine.evaluate(settings);
+        assertNotSame(first, second);
+        settings.set("system.language", "en");
+        assertSame(first, engine.evaluate(settings));
+
+        NCLSettings other = settings.copy();
+        assertSame(first, engine.evaluate(other));
+        other.set("system.language", "pt");
+        assertSame(second, engine.evaluate(other));
+        assertEquals("en", settings.get("system.language"));
+    }
+}
@@ -0,0 +1,115 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.rule;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.rule.NCLRuleBase;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.ncl.NCLIdentifiableElementPrototype;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSwitchResolverTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<ruleBase>"+
+            "<rule id='pt' var='system.language' comparator='eq' value='pt'/>"+
+            "<compositeRule id='ptWide' operator='and'>"+
+            "<rule id='wide' var='system.screenSize' comparator='gte' value='1280'/>"+
+            "<rule id='pt2' var='system.language' comparator='eq' value='pt'/>"+
+            "</compositeRule>"+
+            "<rule id='quiet' var='mode' comparator='eq' value='quiet'/>"+
+            "</ruleBase>"+
+            "<descriptorBase><descriptorSwitch id='ds'>"+
+            "<descriptor id='d1'/><descriptor id='d2'/>"+
+            "<bindRule constituent='d1' rule='quiet'/><defaultDescriptor descriptor='d2'/></descriptorSwitch></descriptorBase>"+
+            "</head><body id='b'>"+
+            "<switch id='sw'><media id='hd'/><media id='sd'/><media id='en'/>"+
+            "<bindRule constituent='hd' rule='ptWide'/><bindRule constituent='sd' rule='pt'/>"+
+            "<defaultComponent component='en'/></switch>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLRuleEngine engine = new NCLRuleEngine((NCLRuleBase) doc.getHead().getRuleBase());
+        NCLSwitchResolver resolver = new NCLSwitchResolver(engine, engine.newSettings(), doc);
+
+        Object sw = doc.getBody().getNode("sw");
+        Object ds = doc.getHead().getDescriptorBase().getDescriptor("ds");
+        assertEquals("en", id(resolver.getSelected(sw)));
+        assertEquals("d2", id(resolver.getSelected(ds)));
+
+        assertEquals(1, resolver.getDependentSwitches("system.language").size());
+        assertSame(ds, resolver.getDependentSwitches("mode").get(0));
+        assertTrue(resolver.getDependentSwitches("unknown").isEmpty());
+
+        List<Object> changed = resolver.set("system.language", "pt");
+        assertEquals(1, changed.size());
+        assertSame(sw, changed.get(0));
+        assertEquals("sd", id(resolver.getSelected(sw)));
+
+        // the rule result changes but the selected component does not
+        assertTrue(resolver.set("system.screenSize", "800").isEmpty());
+        assertTrue(resolver.set("system.screenSize", "800").isEmpty());
+
+        changed = resolver.set("system.screenSize", "1920");
+        assertEquals(1, changed.size());
+        assertEquals("hd", id(resolver.getSelected(sw)));
+        assertEquals("d2", id(resolver.getSelected(ds)));
+
+        changed = resolver.set("mode", "quiet");
+        assertEquals(1, changed.size());
+        assertSame(ds, changed.get(0));
+        assertEquals("d1", id(resolver.getSelected(ds)));
+        assertEquals("hd", id(resolver.getSelected(sw)));
+    }
+
+    private String id(Object element) {
+        return ((NCLIdentifiableElementPrototype) element).getId();
+    }
+}
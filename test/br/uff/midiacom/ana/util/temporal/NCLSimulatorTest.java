@@ -0,0 +1,239 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.node.NCLSwitch;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLSimulatorTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<descriptorBase><descriptor id='d1' explicitDur='5s'/></descriptorBase><connectorBase>"+
+            "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onEndStart'><simpleCondition role='onEnd'/><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onSelectionStop'><simpleCondition role='onSelection'/><simpleAction role='stop' delay='0.5s'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<port id='p1' component='v1'/>"+
+            "<media id='v1' type='video/mpeg' descriptor='d1'><area id='a1' begin='1s' end='3s'/></media>"+
+            "<media id='i1' type='image/png'/>"+
+            "<media id='v2' type='video/mpeg'/>"+
+            "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='v1' interface='a1'/><bind role='start' component='i1'/></link>"+
+            "<link id='l2' xconnector='onSelectionStop'><bind role='onSelection' component='i1'/><bind role='stop' component='i1'/></link>"+
+            "<link id='l3' xconnector='onEndStart'><bind role='onEnd' component='v1'/><bind role='start' component='v2'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    private double time(NCLTimeline timeline, NCLNode node, NCLInterface interfac, NCLEventType type, NCLEventTransition transition) {
+        int i = timeline.indexOf(node, interfac, type, transition);
+        return i < 0 ? -1 : timeline.getTime(i);
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLNode body = doc.getBody();
+        NCLMedia v1 = (NCLMedia) doc.getBody().getNodes().get("v1");
+        NCLNode i1 = (NCLNode) doc.getBody().getNodes().get("i1");
+        NCLNode v2 = (NCLNode) doc.getBody().getNodes().get("v2");
+        NCLInterface a1 = (NCLInterface) v1.getAreas().get("a1");
+
+        NCLSimulator sim = new NCLSimulator(doc);
+        sim.setDuration(i1, 10);
+        sim.setDuration(v2, 2);
+        sim.select(2.5, i1, null);
+        assertTrue(sim.run());
+
+        NCLTimeline t = sim.getTimeline();
+        NCLEventType p = NCLEventType.PRESENTATION;
+        assertEquals(0.0, time(t, body, null, p, NCLEventTransition.STARTS), 0);
+        assertEquals(0.0, time(t, v1, null, p, NCLEventTransition.STARTS), 0);
+        assertEquals(1.0, time(t, v1, a1, p, NCLEventTransition.STARTS), 0);
+        assertEquals(1.0, time(t, i1, null, p, NCLEventTransition.STARTS), 0);
+        assertEquals(2.5, time(t, i1, null, NCLEventType.SELECTION, NCLEventTransition.STARTS), 0);
+        assertEquals(3.0, time(t, i1, null, p, NCLEventTransition.STOPS), 0);
+        assertEquals(3.0, time(t, v1, a1, p, NCLEventTransition.STOPS), 0);
+        assertEquals(5.0, time(t, v1, null, p, NCLEventTransition.STOPS), 0);
+        // the body does not end while the link started by v1 is pending
+        assertEquals(5.0, time(t, v2, null, p, NCLEventTransition.STARTS), 0);
+        assertEquals(7.0, time(t, v2, null, p, NCLEventTransition.STOPS), 0);
+        assertEquals(7.0, time(t, body, null, p, NCLEventTransition.STOPS), 0);
+        assertEquals(7.0, sim.getTime(), 0);
+
+        // the same graph gives the same timeline
+        NCLSimulator other = new NCLSimulator(doc, sim.getGraph());
+        other.setDuration(i1, 10);
+        other.setDuration(v2, 2);
+        other.select(2.5, i1, null);
+        other.run();
+        assertEquals(t.toString(), other.getTimeline().toString());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLMedia v1 = (NCLMedia) doc.getBody().getNodes().get("v1");
+        NCLNode i1 = (NCLNode) doc.getBody().getNodes().get("i1");
+        NCLInterface a1 = (NCLInterface) v1.getAreas().get("a1");
+        NCLEventType p = NCLEventType.PRESENTATION;
+
+        // pausing v1 delays its anchor and its end
+        NCLSimulator sim = new NCLSimulator(doc);
+        sim.schedule(0.5, NCLEventAction.PAUSE, v1, null, p);
+        sim.schedule(2.5, NCLEventAction.RESUME, v1, null, p);
+        assertTrue(sim.run(4));
+        assertTrue(sim.isOccurring(v1, a1, p));
+        assertTrue(sim.isOccurring(i1, null, p));
+        assertEquals(4.0, sim.getTime(), 0);
+
+        sim.run();
+        NCLTimeline t = sim.getTimeline();
+        assertEquals(3.0, time(t, v1, a1, p, NCLEventTransition.STARTS), 0);
+        assertEquals(5.0, time(t, v1, a1, p, NCLEventTransition.STOPS), 0);
+        assertEquals(7.0, time(t, v1, null, p, NCLEventTransition.STOPS), 0);
+        assertTrue(sim.isOccurring(i1, null, p));
+
+        // the simulation is interrupted after the maximum number of steps
+        sim = new NCLSimulator(doc);
+        sim.setMaxSteps(3);
+        assertFalse(sim.run());
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        String xml = "<ncl id='doc'><head><connectorBase>"+
+            "<causalConnector id='onSelectionTestStart'><connectorParam name='val'/>"+
+            "<compoundCondition operator='and'><simpleCondition role='onSelection'/>"+
+            "<assessmentStatement comparator='eq'><attributeAssessment role='test' eventType='attribution' attributeType='nodeProperty'/>"+
+            "<valueAssessment value='$val'/></assessmentStatement></compoundCondition>"+
+            "<simpleAction role='start'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<port id='p1' component='m'/>"+
+            "<media id='m' type='video/mpeg'><property name='counter' value='1'/></media>"+
+            "<media id='yes' type='image/png'/><media id='no' type='image/png'/>"+
+            "<link id='l1' xconnector='onSelectionTestStart'><linkParam name='val' value='1'/><bind role='onSelection' component='m'/>"+
+            "<bind role='test' component='m' interface='counter'/><bind role='start' component='yes'/></link>"+
+            "<link id='l2' xconnector='onSelectionTestStart'><linkParam name='val' value='2'/><bind role='onSelection' component='m'/>"+
+            "<bind role='test' component='m' interface='counter'/><bind role='start' component='no'/></link>"+
+            "</body></ncl>";
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+        NCLNode m = (NCLNode) doc.getBody().getNodes().get("m");
+        NCLNode yes = (NCLNode) doc.getBody().getNodes().get("yes");
+        NCLNode no = (NCLNode) doc.getBody().getNodes().get("no");
+
+        // the links are fired only when their statements are true
+        NCLSimulator sim = new NCLSimulator(doc);
+        sim.select(1, m, null);
+        sim.run();
+        assertTrue(sim.isOccurring(yes, null, NCLEventType.PRESENTATION));
+        assertFalse(sim.isOccurring(no, null, NCLEventType.PRESENTATION));
+    }
+
+    @Test
+    public void test4() throws XMLException {
+        String xml = "<ncl id='doc'><head>"+
+            "<ruleBase><rule id='quiet' var='mode' comparator='eq' value='quiet'/></ruleBase><connectorBase>"+
+            "<causalConnector id='onBeginSet'><connectorParam name='var'/><simpleCondition role='onBegin'/>"+
+            "<simpleAction role='set' value='$var'/></causalConnector>"+
+            "<causalConnector id='onBeginSetDur'><simpleCondition role='onBegin'/><simpleAction role='set' value='2' duration='2s'/></causalConnector>"+
+            "<causalConnector id='onEndAttributionStart'><simpleCondition role='onEndAttribution'/><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onEndAttributionTestStart'>"+
+            "<compoundCondition operator='and'><simpleCondition role='onEndAttribution'/>"+
+            "<assessmentStatement comparator='eq'><attributeAssessment role='test' eventType='attribution' attributeType='nodeProperty'/>"+
+            "<valueAssessment value='2'/></assessmentStatement></compoundCondition>"+
+            "<simpleAction role='start'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<port id='p1' component='m'/>"+
+            "<media id='m' type='video/mpeg'><property name='counter' value='1'/></media>"+
+            "<media id='settings' type='application/x-ginga-settings'><property name='mode'/></media>"+
+            "<media id='two' type='image/png'/>"+
+            "<switch id='sw'><media id='q' type='image/png'/><media id='n' type='image/png'/>"+
+            "<bindRule constituent='q' rule='quiet'/><defaultComponent component='n'/></switch>"+
+            "<link id='l1' xconnector='onBeginSet'><linkParam name='var' value='quiet'/><bind role='onBegin' component='m'/>"+
+            "<bind role='set' component='settings' interface='mode'/></link>"+
+            "<link id='l2' xconnector='onEndAttributionStart'><bind role='onEndAttribution' component='settings' interface='mode'/>"+
+            "<bind role='start' component='sw'/></link>"+
+            "<link id='l3' xconnector='onBeginSetDur'><bind role='onBegin' component='m'/><bind role='set' component='m' interface='counter'/></link>"+
+            "<link id='l4' xconnector='onEndAttributionTestStart'><bind role='onEndAttribution' component='m' interface='counter'/>"+
+            "<bind role='test' component='m' interface='counter'/><bind role='start' component='two'/></link>"+
+            "</body></ncl>";
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+        NCLMedia m = (NCLMedia) doc.getBody().getNodes().get("m");
+        NCLMedia settings = (NCLMedia) doc.getBody().getNodes().get("settings");
+        NCLNode two = (NCLNode) doc.getBody().getNodes().get("two");
+        NCLSwitch sw = (NCLSwitch) doc.getBody().getNodes().get("sw");
+        NCLInterface counter = (NCLInterface) m.getProperties().get(0);
+        NCLInterface mode = (NCLInterface) settings.getProperties().get(0);
+        NCLEventType p = NCLEventType.PRESENTATION;
+
+        NCLSimulator sim = new NCLSimulator(doc);
+        sim.run(1);
+
+        // the attribution changes the variable tested by the switch rule
+        assertEquals("quiet", sim.getPropertyValue(settings, mode));
+        assertTrue(sim.isOccurring((NCLNode) sw.getNodes().get("q"), null, p));
+        assertFalse(sim.isOccurring((NCLNode) sw.getNodes().get("n"), null, p));
+
+        // the attribution with duration sets the value when it ends
+        assertTrue(sim.isOccurring(m, counter, NCLEventType.ATTRIBUTION));
+        assertEquals(1, sim.getPropertyValue(m, counter));
+        assertFalse(sim.isOccurring(two, null, p));
+
+        sim.run(3);
+        assertEquals("2", sim.getPropertyValue(m, counter));
+        assertEquals(2.0, time(sim.getTimeline(), m, counter, NCLEventType.ATTRIBUTION, NCLEventTransition.STOPS), 0);
+        assertTrue(sim.isOccurring(two, null, p));
+    }
+}
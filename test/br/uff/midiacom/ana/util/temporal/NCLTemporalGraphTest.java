@@ -0,0 +1,191 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLEventAction;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLTemporalGraphTest {
+
+    private static final String XML = "<ncl id='doc'><head><connectorBase>"+
+            "<causalConnector id='onBeginStart'><simpleCondition role='onBegin' delay='2s'/><simpleAction role='start' max='unbounded'/></causalConnector>"+
+            "<causalConnector id='onEndStopDelay'><connectorParam name='d'/><simpleCondition role='onEnd'/>"+
+            "<simpleAction role='stop' delay='$d'/></causalConnector>"+
+            "<causalConnector id='onBothSeq'><compoundCondition operator='and'><simpleCondition role='onBegin'/>"+
+            "<simpleCondition role='onSelection'/></compoundCondition>"+
+            "<compoundAction operator='seq'><simpleAction role='start'/><simpleAction role='pause'/></compoundAction></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<port id='p1' component='v1'/>"+
+            "<media id='v1' type='video/mpeg'><area id='a1' begin='1s'/></media>"+
+            "<media id='i1' type='image/png'/>"+
+            "<context id='c1'><media id='i2' type='image/png'/>"+
+            "<link id='l3' xconnector='onBothSeq'><bind role='onBegin' component='i2'/><bind role='onSelection' component='i2'/>"+
+            "<bind role='start' component='i2'/><bind role='pause' component='i2'/></link></context>"+
+            "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='v1' interface='a1'/>"+
+            "<bind role='start' component='i1'/><bind role='start' component='c1'/></link>"+
+            "<link id='l2' xconnector='onEndStopDelay'><linkParam name='d' value='3s'/><bind role='onEnd' component='i1'/>"+
+            "<bind role='stop' component='c1'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLTemporalGraph graph = NCLTemporalGraphBuilder.build(doc);
+
+        NCLNode v1 = (NCLNode) doc.getBody().getNodes().get("v1");
+        NCLNode i1 = (NCLNode) doc.getBody().getNodes().get("i1");
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        NCLInterface a1 = (NCLInterface) ((NCLMedia) v1).getAreas().get("a1");
+
+        int a1p = graph.getVertex(v1, a1, NCLEventType.PRESENTATION);
+        int i1p = graph.getVertex(i1, null, NCLEventType.PRESENTATION);
+        int c1p = graph.getVertex(c1, null, NCLEventType.PRESENTATION);
+        assertTrue(a1p >= 0 && i1p >= 0 && c1p >= 0);
+        assertEquals(-1, graph.getVertex(v1, null, NCLEventType.PRESENTATION));
+        assertEquals(3 + 2, graph.getVertexCount());
+        assertEquals(2 + 1 + 4, graph.getEdgeCount());
+
+        // onBegin of a1 starts i1 and c1 after 2s
+        assertEquals(2, graph.getOutDegree(a1p));
+        int e = graph.getFirstEdge(a1p);
+        assertEquals(i1p, graph.getTarget(e));
+        assertEquals(c1p, graph.getTarget(e + 1));
+        assertEquals(NCLEventTransition.STARTS, graph.getTransition(e));
+        assertEquals(NCLEventAction.START, graph.getAction(e));
+        assertEquals(2.0, graph.getDelay(e), 0);
+        assertEquals("l1", graph.getLink(e).getId());
+
+        // onEnd of i1 stops c1 after the delay given by the link parameter
+        e = graph.getFirstEdge(i1p);
+        assertEquals(c1p, graph.getTarget(e));
+        assertEquals(NCLEventTransition.STOPS, graph.getTransition(e));
+        assertEquals(NCLEventAction.STOP, graph.getAction(e));
+        assertEquals(3.0, graph.getDelay(e), 0);
+        assertEquals(0, graph.getFlags(e));
+
+        double[] times = graph.getEarliestTimes(a1p);
+        assertEquals(2.0, times[i1p], 0);
+        assertEquals(2.0, times[c1p], 0);
+        assertEquals(0.0, times[a1p], 0);
+        assertEquals(2, graph.getReachable(a1p).length);
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        NCLNode i2 = (NCLNode) c1.getNodes().get("i2");
+
+        NCLTemporalGraph graph = NCLTemporalGraphBuilder.build(c1);
+        assertEquals(2, graph.getVertexCount());
+        assertEquals(4, graph.getEdgeCount());
+
+        int sel = graph.getVertex(i2, null, NCLEventType.SELECTION);
+        int pres = graph.getVertex(i2, null, NCLEventType.PRESENTATION);
+        assertEquals(2, graph.getOutDegree(sel));
+        for(int e = graph.getFirstEdge(sel); e < graph.getLastEdge(sel); e++){
+            assertEquals(pres, graph.getTarget(e));
+            assertEquals(NCLTemporalGraph.CONJUNCTIVE | NCLTemporalGraph.SEQUENTIAL, graph.getFlags(e));
+        }
+        assertEquals(NCLEventAction.START, graph.getAction(graph.getFirstEdge(sel)));
+        assertEquals(NCLEventAction.PAUSE, graph.getAction(graph.getFirstEdge(sel) + 1));
+
+        // the presentation of i2 triggers itself
+        int[] reach = graph.getReachable(pres);
+        assertEquals(1, reach.length);
+        assertEquals(pres, reach[0]);
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        String xml = "<ncl id='doc'><head><connectorBase>"+
+                "<causalConnector id='onBeginStop'><simpleCondition role='onBegin'/><simpleAction role='stop'/></causalConnector>"+
+                "<causalConnector id='onBeginStart'><simpleCondition role='onBegin' delay='1s'/><simpleAction role='start'/></causalConnector>"+
+                "<causalConnector id='onEndStart'><simpleCondition role='onEnd'/><simpleAction role='start'/></causalConnector>"+
+                "</connectorBase></head><body id='b'>"+
+                "<media id='m1'/><media id='m2'/><media id='m3'/><media id='m4'/>"+
+                "<link id='l1' xconnector='onBeginStop'><bind role='onBegin' component='m1'/><bind role='stop' component='m2'/></link>"+
+                "<link id='l2' xconnector='onBeginStart'><bind role='onBegin' component='m2'/><bind role='start' component='m3'/></link>"+
+                "<link id='l3' xconnector='onEndStart'><bind role='onEnd' component='m2'/><bind role='start' component='m4'/></link>"+
+                "</body></ncl>";
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+        NCLTemporalGraph graph = NCLTemporalGraphBuilder.build(doc);
+
+        int[] v = new int[4];
+        for(int i = 0; i < v.length; i++)
+            v[i] = graph.getVertex((NCLNode) doc.getBody().getNodes().get("m" + (i + 1)), null, NCLEventType.PRESENTATION);
+
+        // stopping m2 triggers the links waiting for its end, not its begin
+        int[] reach = graph.getReachable(v[0]);
+        assertEquals(2, reach.length);
+        assertEquals(v[1], reach[0]);
+        assertEquals(v[3], reach[1]);
+
+        double[] times = graph.getEarliestTimes(v[0]);
+        assertEquals(0.0, times[v[1]], 0);
+        assertEquals(Double.POSITIVE_INFINITY, times[v[2]], 0);
+        assertEquals(0.0, times[v[3]], 0);
+
+        // every edge leaves the vertex itself unless a transition is given
+        assertEquals(2, graph.getReachable(v[1]).length);
+        reach = graph.getReachable(v[1], NCLEventTransition.STARTS);
+        assertEquals(1, reach.length);
+        assertEquals(v[2], reach[0]);
+        times = graph.getEarliestTimes(v[1], NCLEventTransition.STOPS);
+        assertEquals(Double.POSITIVE_INFINITY, times[v[2]], 0);
+        assertEquals(0.0, times[v[3]], 0);
+    }
+}
@@ -0,0 +1,183 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.temporal;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.interfaces.NCLInterface;
+import br.uff.midiacom.ana.interfaces.NCLPort;
+import br.uff.midiacom.ana.link.NCLBind;
+import br.uff.midiacom.ana.link.NCLLink;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.node.NCLNode;
+import br.uff.midiacom.ana.util.enums.NCLElementAttributes;
+import br.uff.midiacom.ana.util.enums.NCLEventTransition;
+import br.uff.midiacom.ana.util.enums.NCLEventType;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import br.uff.midiacom.ana.util.modification.NCLNotification;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLTriggerIndexTest {
+
+    private static final String XML = "<ncl id='doc'><head><connectorBase>"+
+            "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+            "<causalConnector id='onEndOrSelStop'><compoundCondition operator='or'><simpleCondition role='onEnd'/>"+
+            "<simpleCondition role='onSelection'/></compoundCondition><simpleAction role='stop'/></causalConnector>"+
+            "</connectorBase></head><body id='b'>"+
+            "<media id='v1' type='video/mpeg'><area id='a1' begin='1s'/></media>"+
+            "<media id='i1' type='image/png'/>"+
+            "<context id='c1'><port id='pc' component='i2'/><media id='i2' type='image/png'/>"+
+            "<link id='l3' xconnector='onBeginStart'><bind role='onBegin' component='i2'/><bind role='start' component='i2'/></link></context>"+
+            "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='v1' interface='a1'/><bind role='start' component='i1'/></link>"+
+            "<link id='l2' xconnector='onEndOrSelStop'><bind role='onEnd' component='v1'/><bind role='onSelection' component='i1'/>"+
+            "<bind role='onEnd' component='c1' interface='pc'/><bind role='stop' component='i1'/></link>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        NCLMedia v1 = (NCLMedia) doc.getBody().getNodes().get("v1");
+        NCLNode i1 = (NCLNode) doc.getBody().getNodes().get("i1");
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        NCLNode i2 = (NCLNode) c1.getNodes().get("i2");
+        NCLInterface a1 = (NCLInterface) v1.getAreas().get("a1");
+        NCLInterface pc = (NCLInterface) c1.getPorts().get("pc");
+        NCLEventType p = NCLEventType.PRESENTATION;
+
+        NCLTriggerIndex index = new NCLTriggerIndex(doc);
+        assertEquals(3, index.size());
+
+        List<NCLLink> links = index.getLinks(v1, a1, p, NCLEventTransition.STARTS);
+        assertEquals(1, links.size());
+        assertEquals("l1", links.get(0).getId());
+        assertTrue(index.getLinks(v1, null, p, NCLEventTransition.STARTS).isEmpty());
+        assertTrue(index.getLinks(v1, a1, p, NCLEventTransition.STOPS).isEmpty());
+
+        List<NCLBind> binds = index.getTriggers(i1, null, NCLEventType.SELECTION, NCLEventTransition.STARTS);
+        assertEquals(1, binds.size());
+        assertSame(i1, binds.get(0).getComponent());
+        assertEquals("l2", ((NCLLink) binds.get(0).getParent()).getId());
+
+        // the bind to the port is found by the port and by the node it maps
+        assertEquals("l2", index.getLinks(c1, pc, p, NCLEventTransition.STOPS).get(0).getId());
+        assertEquals("l2", index.getLinks(i2, null, p, NCLEventTransition.STOPS).get(0).getId());
+        assertEquals("l3", index.getLinks(i2, null, p, NCLEventTransition.STARTS).get(0).getId());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        NCLMedia v1 = (NCLMedia) doc.getBody().getNodes().get("v1");
+        NCLNode i1 = (NCLNode) doc.getBody().getNodes().get("i1");
+        NCLContext c1 = (NCLContext) doc.getBody().getNodes().get("c1");
+        NCLNode i2 = (NCLNode) c1.getNodes().get("i2");
+        NCLLink l2 = (NCLLink) doc.getBody().getLinks().get("l2");
+        NCLEventType p = NCLEventType.PRESENTATION;
+
+        NCLTriggerIndex index = new NCLTriggerIndex(doc);
+
+        // a bind removed from a link
+        NCLBind sel = index.getTriggers(i1, null, NCLEventType.SELECTION, NCLEventTransition.STARTS).get(0);
+        l2.removeBind(sel);
+        index.modifiedElement(new NCLNotification(l2, (NCLElement) sel));
+        assertTrue(index.getTriggers(i1, null, NCLEventType.SELECTION, NCLEventTransition.STARTS).isEmpty());
+        assertEquals(1, index.getTriggers(v1, null, p, NCLEventTransition.STOPS).size());
+
+        // a link removed from the body
+        doc.getBody().removeLink(l2);
+        index.modifiedElement(new NCLNotification(doc.getBody(), (NCLElement) l2));
+        assertFalse(index.hasLink(l2));
+        assertTrue(index.getTriggers(v1, null, p, NCLEventTransition.STOPS).isEmpty());
+
+        // the links inside a context follow its removal and insertion
+        index.modifiedElement(new NCLNotification(doc.getBody(), (NCLElement) c1));
+        assertTrue(index.getLinks(i2, null, p, NCLEventTransition.STARTS).isEmpty());
+        index.modifiedElement(new NCLNotification((NCLElement) c1));
+        assertEquals(1, index.getLinks(i2, null, p, NCLEventTransition.STARTS).size());
+
+        // links outside the document are not indexed
+        index.updateLink(l2);
+        assertFalse(index.hasLink(l2));
+        doc.getBody().addLink(l2);
+        index.updateLink(l2);
+        assertTrue(index.hasLink(l2));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        String xml = "<ncl id='doc'><head><connectorBase>"+
+                "<causalConnector id='onBeginStart'><simpleCondition role='onBegin'/><simpleAction role='start'/></causalConnector>"+
+                "</connectorBase></head><body id='b'>"+
+                "<context id='c0'><port id='p0' component='c1' interface='p1'/>"+
+                "<context id='c1'><port id='p1' component='i3'/><media id='i3'/><media id='i4'/></context></context>"+
+                "<media id='i1'/>"+
+                "<link id='l1' xconnector='onBeginStart'><bind role='onBegin' component='c0' interface='p0'/><bind role='start' component='i1'/></link>"+
+                "<link id='l2' xconnector='onBeginStart'><bind role='onBegin' component='c0' interface='p0'/><bind role='start' component='i1'/></link>"+
+                "</body></ncl>";
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(xml).getElement());
+        NCLContext c0 = (NCLContext) doc.getBody().getNodes().get("c0");
+        NCLContext c1 = (NCLContext) c0.getNodes().get("c1");
+        NCLNode i3 = (NCLNode) c1.getNodes().get("i3");
+        NCLNode i4 = (NCLNode) c1.getNodes().get("i4");
+        NCLPort p1 = (NCLPort) c1.getPorts().get("p1");
+        NCLEventType p = NCLEventType.PRESENTATION;
+
+        NCLTriggerIndex index = new NCLTriggerIndex(doc);
+        assertEquals(2, index.getLinks(i3, null, p, NCLEventTransition.STARTS).size());
+        assertEquals(2, index.getTriggers(i3, null, p, NCLEventTransition.STARTS).size());
+
+        // a change in a nested port updates the binds to the outer port
+        p1.setComponent(i4);
+        index.modifiedElement(new NCLNotification(p1, NCLElementAttributes.COMPONENT, i3, i4));
+        assertTrue(index.getLinks(i3, null, p, NCLEventTransition.STARTS).isEmpty());
+        assertEquals(2, index.getLinks(i4, null, p, NCLEventTransition.STARTS).size());
+    }
+}
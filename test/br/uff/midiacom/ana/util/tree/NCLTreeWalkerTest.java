@@ -0,0 +1,172 @@
+/********************************************************************************
+ * This file is part of the API for NCL Authoring - aNa.
+ *
+ * Copyright (c) 2011, MidiaCom Lab (www.midiacom.uff.br)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * All advertising materials mentioning features or use of this software must
+ *    display the following acknowledgment:
+ *        This product includes the API for NCL Authoring - aNa
+ *        (http://joeldossantos.github.com/aNa).
+ *
+ *  * Neither the name of the lab nor the names of its contributors may be used
+ *    to endorse or promote products derived from this software without specific
+ *    prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY MIDIACOM LAB AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE MÍDIACOM LAB OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *******************************************************************************/
+package br.uff.midiacom.ana.util.tree;
+
+import br.uff.midiacom.ana.NCLDoc;
+import br.uff.midiacom.ana.NCLElement;
+import br.uff.midiacom.ana.XMLLoader;
+import br.uff.midiacom.ana.node.NCLContext;
+import br.uff.midiacom.ana.node.NCLMedia;
+import br.uff.midiacom.ana.util.exception.XMLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class NCLTreeWalkerTest {
+
+    private static final String XML = "<ncl id='doc'><head>"+
+            "<regionBase><region id='rg1'><region id='rg2'/></region></regionBase>"+
+            "</head><body id='b'>"+
+            "<port id='p1' component='v1'/>"+
+            "<media id='v1' type='video/mpeg'><area id='a1' begin='1s'/></media>"+
+            "<context id='c1'><media id='v2' type='video/mpeg'/><media id='i1' type='image/png'/>"+
+            "<context id='c2'><media id='i2' type='image/png'/></context></context>"+
+            "</body></ncl>";
+
+    private NCLDoc load() throws XMLException {
+        NCLDoc doc = new NCLDoc();
+        doc.load(new XMLLoader(XML).getElement());
+        return doc;
+    }
+
+    private List<NCLElement> list(Iterator<NCLElement> it) {
+        List<NCLElement> result = new ArrayList<NCLElement>();
+        while(it.hasNext())
+            result.add(it.next());
+        return result;
+    }
+
+    @Test
+    public void test1() throws XMLException {
+        NCLDoc doc = load();
+        final List<NCLElement> pre = new ArrayList<NCLElement>();
+        final List<NCLElement> post = new ArrayList<NCLElement>();
+
+        assertTrue(NCLTreeWalker.walk(doc, new NCLVisitor() {
+            @Override
+            public NCLVisitResult enter(NCLElement element) {
+                pre.add(element);
+                return NCLVisitResult.CONTINUE;
+            }
+
+            @Override
+            public void leave(NCLElement element) {
+                post.add(element);
+            }
+        }));
+
+        assertEquals(list(NCLTreeWalker.iterator(doc)), pre);
+        assertEquals(pre.size(), post.size());
+        assertSame(doc, pre.get(0));
+        assertSame(doc, post.get(post.size() - 1));
+        assertSame(doc.getHead(), pre.get(1));
+        // the children are left before their parent
+        assertTrue(post.indexOf(doc.getBody()) > post.indexOf(doc.getBody().getNodes().get("c1")));
+        assertEquals(pre.size() - 1, list(NCLTreeWalker.descendants(doc)).size());
+    }
+
+    @Test
+    public void test2() throws XMLException {
+        NCLDoc doc = load();
+        final List<String> media = new ArrayList<String>();
+
+        // skip the children of c2
+        assertTrue(NCLTreeWalker.walk(doc, new NCLVisitorAdapter() {
+            @Override
+            public NCLVisitResult visitContext(NCLContext context) {
+                return "c2".equals(context.getId()) ? NCLVisitResult.SKIP_CHILDREN : NCLVisitResult.CONTINUE;
+            }
+
+            @Override
+            public NCLVisitResult visitMedia(NCLMedia m) {
+                media.add(m.getId());
+                return NCLVisitResult.CONTINUE;
+            }
+        }));
+        assertEquals("[v1, v2, i1]", media.toString());
+
+        // stop at the first image
+        media.clear();
+        assertFalse(NCLTreeWalker.walk(doc, new NCLVisitorAdapter() {
+            @Override
+            public NCLVisitResult visitMedia(NCLMedia m) {
+                media.add(m.getId());
+                return "i1".equals(m.getId()) ? NCLVisitResult.STOP : NCLVisitResult.CONTINUE;
+            }
+        }));
+        assertEquals("[v1, v2, i1]", media.toString());
+    }
+
+    @Test
+    public void test3() throws XMLException {
+        NCLDoc doc = load();
+        List<NCLElement> expected = list(NCLTreeWalker.iterator(doc));
+
+        assertEquals(expected, NCLTreeWalker.stream(doc, false).collect(Collectors.toList()));
+        assertEquals(expected, NCLTreeWalker.stream(doc, true).collect(Collectors.toList()));
+
+        // the splits together cover the tree in order
+        Spliterator<NCLElement> s = NCLTreeWalker.spliterator(doc);
+        Spliterator<NCLElement> prefix = s.trySplit();
+        assertNotNull(prefix);
+        final List<NCLElement> result = new ArrayList<NCLElement>();
+        Consumer<NCLElement> add = new Consumer<NCLElement>() {
+            @Override
+            public void accept(NCLElement e) {
+                result.add(e);
+            }
+        };
+        while(prefix.tryAdvance(add));
+        while(s.tryAdvance(add));
+        assertEquals(expected, result);
+
+        assertEquals(4, NCLTreeWalker.stream(doc.getBody(), true).filter(new Predicate<NCLElement>() {
+            @Override
+            public boolean test(NCLElement e) {
+                return e instanceof NCLMedia;
+            }
+        }).count());
+    }
+}